@@ -0,0 +1,204 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.security.auth.callback.Callback;
+import javax.security.auth.callback.NameCallback;
+import javax.security.auth.callback.PasswordCallback;
+import javax.security.auth.callback.UnsupportedCallbackException;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.server.SimpleKdcServer;
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+import org.apache.kerby.util.NetworkUtil;
+import org.knime.kerberos.KerberosUserPwdAuthCallbackHandler;
+import org.knime.kerberos.config.KerberosPluginConfig;
+import org.knime.kerberos.config.PrefKey;
+import org.knime.kerberos.config.PrefKey.AuthMethod;
+import org.knime.kerberos.config.PrefKey.KerberosConfigSource;
+
+/**
+ * Embedded Kerby KDC that is shared by all benchmarks of a run. It provides a keytab principal, a user/password
+ * principal and a ticket cache for the user/password principal.
+ *
+ * @author KNIME GmbH
+ */
+public final class BenchmarkKDC {
+
+    private static final String REALM = "BENCHMARK";
+
+    private static final String HOST = "localhost";
+
+    private static final String USER = "user";
+
+    private static final String PWD = "password";
+
+    private static final String KEYTAB_USER = "keytabuser";
+
+    private static BenchmarkKDC instance;
+
+    private final SimpleKdcServer m_kdcServer;
+
+    private final int m_port;
+
+    private final Path m_workDir;
+
+    private final File m_keytabFile;
+
+    private final Path m_ticketCache;
+
+    private BenchmarkKDC() throws IOException, KrbException {
+        m_port = NetworkUtil.getServerPort();
+        m_workDir = Files.createTempDirectory("benchmarkkdc_");
+
+        m_kdcServer = new SimpleKdcServer();
+        m_kdcServer.setWorkDir(m_workDir.toFile());
+        m_kdcServer.setKdcHost(HOST);
+        m_kdcServer.setKdcRealm(REALM);
+        m_kdcServer.setKdcTcpPort(m_port);
+        m_kdcServer.setKdcUdpPort(m_port);
+        m_kdcServer.init();
+        m_kdcServer.start();
+
+        m_keytabFile = m_workDir.resolve("keytab").toFile();
+        m_kdcServer.createPrincipal(KEYTAB_USER, PWD);
+        m_kdcServer.getKadmin().exportKeytab(m_keytabFile, KEYTAB_USER);
+
+        m_kdcServer.createPrincipal(USER, PWD);
+
+        // written with Kerby, so that kinit does not need to be installed on the benchmark machine
+        m_ticketCache = m_workDir.resolve("krb5cc_benchmark");
+        final TgtTicket tgt = m_kdcServer.getKrbClient().requestTgt(USER + "@" + REALM, PWD);
+        m_kdcServer.getKrbClient().storeTicket(tgt, m_ticketCache.toFile());
+    }
+
+    /**
+     * Provides the KDC, starting it if necessary.
+     *
+     * @return the running KDC.
+     * @throws IOException If something went wrong creating or starting the KDC.
+     */
+    public static synchronized BenchmarkKDC getInstance() throws IOException {
+        if (instance == null) {
+            try {
+                instance = new BenchmarkKDC();
+            } catch (KrbException ex) {
+                throw new IOException("Failed to setup KDC", ex);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Stops the KDC if it is running.
+     */
+    public static synchronized void stopInstance() {
+        if (instance == null) {
+            return;
+        }
+
+        try {
+            instance.m_kdcServer.stop();
+        } catch (KrbException ex) { // NOSONAR nothing left to do
+        } finally {
+            instance.m_ticketCache.toFile().delete(); // NOSONAR best effort
+            instance.m_keytabFile.delete(); // NOSONAR best effort
+            instance = null;
+        }
+    }
+
+    /**
+     * Creates a Kerberos configuration that authenticates against this KDC.
+     *
+     * @param authMethod The authentication method to use.
+     * @return a test configuration.
+     */
+    public KerberosPluginConfig createConfig(final AuthMethod authMethod) {
+        return new KerberosPluginConfig(KerberosConfigSource.REALM_KDC, //
+            "", //
+            REALM, //
+            HOST + ":" + m_port, //
+            authMethod, //
+            KEYTAB_USER + "@" + REALM, //
+            m_keytabFile.getAbsolutePath(), //
+            false, //
+            PrefKey.DEBUG_LOG_LEVEL_DEFAULT, //
+            30000, //
+            false, //
+            true, //
+            m_ticketCache.toAbsolutePath().toString());
+    }
+
+    /**
+     * @return a callback handler that provides the credentials of the user/password principal.
+     */
+    public static KerberosUserPwdAuthCallbackHandler createCallbackHandler() {
+        return new KerberosUserPwdAuthCallbackHandler() {
+            @Override
+            public void handle(final Callback[] callbacks) throws IOException, UnsupportedCallbackException {
+                for (Callback callback : callbacks) {
+                    if (callback instanceof NameCallback nameCallback) {
+                        nameCallback.setName(USER);
+                    } else if (callback instanceof PasswordCallback passwordCallback) {
+                        passwordCallback.setPassword(PWD.toCharArray());
+                    } else {
+                        throw new UnsupportedCallbackException(callback);
+                    }
+                }
+            }
+
+            @Override
+            public boolean promptUser() {
+                return true;
+            }
+        };
+    }
+}
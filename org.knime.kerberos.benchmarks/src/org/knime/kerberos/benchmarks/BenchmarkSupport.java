@@ -0,0 +1,126 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.benchmarks;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import org.knime.kerberos.KerberosInternalAPI;
+import org.knime.kerberos.api.KerberosProvider;
+import org.knime.kerberos.config.KerberosPluginConfig;
+import org.knime.kerberos.config.PrefKey.AuthMethod;
+import org.knime.kerberos.logger.KerberosLogger;
+
+/**
+ * Setup and teardown shared by the benchmarks.
+ *
+ * @author KNIME GmbH
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+        // utility class
+    }
+
+    /**
+     * Saves a configuration for the given authentication method to {@link KerberosPluginConfig#TEST_OVERRIDES} and
+     * logs in with it.
+     *
+     * @param authMethod The authentication method to log in with.
+     * @return the loaded configuration (including advanced settings).
+     * @throws Exception if the login failed.
+     */
+    static KerberosPluginConfig login(final AuthMethod authMethod) throws Exception {
+        return login(authMethod, Collections.emptyMap());
+    }
+
+    /**
+     * Saves a configuration for the given authentication method to {@link KerberosPluginConfig#TEST_OVERRIDES} and
+     * logs in with it.
+     *
+     * @param authMethod The authentication method to log in with.
+     * @param advancedSettings Advanced settings (by preference key) to add to the saved configuration.
+     * @return the loaded configuration (including advanced settings).
+     * @throws Exception if the login failed.
+     */
+    static KerberosPluginConfig login(final AuthMethod authMethod, final Map<String, String> advancedSettings)
+        throws Exception {
+        KerberosPluginConfig.TEST_OVERRIDES = new HashMap<>();
+
+        // the multiplexing of Kerberos log messages into a KNIME NodeLogger requires a fully booted KNIME
+        KerberosLogger.setUseNodeLoggerForwarder(false);
+
+        final KerberosPluginConfig config = BenchmarkKDC.getInstance().createConfig(authMethod);
+        config.save();
+        KerberosPluginConfig.TEST_OVERRIDES.putAll(advancedSettings);
+
+        if (authMethod == AuthMethod.USER_PWD) {
+            KerberosInternalAPI.login(config, BenchmarkKDC.createCallbackHandler()).get();
+        } else {
+            // keytab and ticket cache logins happen implicitly
+            KerberosProvider.doWithKerberosAuth(() -> null).get();
+        }
+        return KerberosPluginConfig.load();
+    }
+
+    /**
+     * Logs out and removes the {@link KerberosPluginConfig#TEST_OVERRIDES}.
+     *
+     * @throws Exception if the logout failed.
+     */
+    static void logout() throws Exception {
+        try {
+            KerberosInternalAPI.logout().get();
+        } catch (ExecutionException ex) {
+            if (!(ex.getCause() instanceof IllegalStateException)) {
+                throw ex;
+            }
+        }
+        KerberosPluginConfig.TEST_OVERRIDES = null;
+    }
+}
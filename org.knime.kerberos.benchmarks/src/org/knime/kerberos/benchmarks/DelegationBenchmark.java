@@ -0,0 +1,211 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.benchmarks;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.ietf.jgss.GSSCredential;
+import org.ietf.jgss.GSSManager;
+import org.ietf.jgss.Oid;
+import org.knime.kerberos.api.KerberosProvider;
+import org.knime.kerberos.config.PrefKey.AuthMethod;
+import org.knime.kerberos.delegation.Krb5CredentialAccess;
+import org.knime.kerberos.delegation.S4U2ProxyCache;
+import org.knime.kerberos.delegation.S4U2SelfCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import sun.security.jgss.GSSCredentialImpl;
+import sun.security.jgss.krb5.Krb5InitCredential;
+import sun.security.jgss.krb5.Krb5NameElement;
+import sun.security.jgss.spi.GSSCredentialSpi;
+import sun.security.krb5.Credentials;
+
+/**
+ * Measures the client-side hot path of Kerberos constrained delegation: access to the JDK-internal credentials and
+ * lookups of cached S4U2Self/S4U2Proxy tickets. The KDC exchanges themselves cannot be measured here, because Kerby
+ * does not implement the MS-SFU protocol extensions (they are covered by KerberosDelegationProviderTest against an
+ * Active Directory KDC). Instead, the ticket granting ticket of the keytab principal stands in for the delegated
+ * tickets.
+ *
+ * @author KNIME GmbH
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DelegationBenchmark {
+
+    private static final String KERBEROS5_OID = "1.2.840.113554.1.2.2";
+
+    private static final String IMPERSONATED_PRINCIPAL = "workflowuser@BENCHMARK";
+
+    private static final String TARGET_SPN = "hive/hiveserver.benchmark@BENCHMARK";
+
+    private Krb5InitCredential m_initCredential;
+
+    private Credentials m_tgt;
+
+    private GSSCredentialSpi m_proxyCredential;
+
+    private S4U2SelfCache m_s4u2SelfCache;
+
+    private S4U2ProxyCache m_s4u2ProxyCache;
+
+    /**
+     * Logs in with a keytab and fills the caches.
+     *
+     * @throws Exception if the login failed.
+     */
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchmarkSupport.login(AuthMethod.KEYTAB);
+
+        m_initCredential = KerberosProvider.doWithKerberosAuth(() -> {
+            final GSSCredentialImpl credential =
+                (GSSCredentialImpl)GSSManager.getInstance().createCredential(GSSCredential.INITIATE_ONLY);
+            return (Krb5InitCredential)credential.getElement(new Oid(KERBEROS5_OID), true);
+        }).get();
+        m_tgt = Krb5CredentialAccess.getKrb5Credentials(m_initCredential);
+        m_proxyCredential = createProxyCredential(m_initCredential, m_tgt);
+
+        final String serverPrincipal = m_tgt.getClient().getName();
+        m_s4u2SelfCache = new S4U2SelfCache(1000);
+        m_s4u2SelfCache.put(serverPrincipal, IMPERSONATED_PRINCIPAL, m_tgt, m_tgt, Duration.ZERO);
+        m_s4u2ProxyCache = new S4U2ProxyCache(1000);
+        m_s4u2ProxyCache.put(IMPERSONATED_PRINCIPAL, TARGET_SPN, m_tgt, m_tgt, 100);
+    }
+
+    /**
+     * Creates the kind of credential that holds an S4U2Self ticket, with the given ticket standing in for it. The
+     * credential is created directly, because Kerby does not implement S4U2Self.
+     */
+    private static GSSCredentialSpi createProxyCredential(final Krb5InitCredential initCredential,
+        final Credentials userCreds) throws Exception {
+        final Constructor<?> constructor = Class.forName("sun.security.jgss.krb5.Krb5ProxyCredential")
+            .getDeclaredConstructor(Krb5InitCredential.class, Krb5NameElement.class, Credentials.class);
+        constructor.setAccessible(true); // NOSONAR package-private constructor
+        return (GSSCredentialSpi)constructor.newInstance(initCredential, initCredential.getName(), userCreds);
+    }
+
+    /**
+     * Logs out.
+     *
+     * @throws Exception if the logout failed.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkSupport.logout();
+    }
+
+    /**
+     * @return the ticket granting ticket, via the cached method handle.
+     */
+    @Benchmark
+    public Credentials getKrb5Credentials() {
+        return Krb5CredentialAccess.getKrb5Credentials(m_initCredential);
+    }
+
+    /**
+     * Reference for {@link #getKrb5Credentials()}: the reflective lookup that used to be done for every delegation.
+     *
+     * @return the ticket granting ticket, via reflection.
+     * @throws Exception if the reflective access failed.
+     */
+    @Benchmark
+    public Credentials getKrb5CredentialsReflective() throws Exception {
+        final Method method = m_initCredential.getClass().getDeclaredMethod("getKrb5Credentials");
+        method.setAccessible(true); // NOSONAR reference for the previous implementation
+        return (Credentials)method.invoke(m_initCredential);
+    }
+
+    /**
+     * @return the S4U2Self ticket, via the cached field getter.
+     */
+    @Benchmark
+    public Credentials getUserCredentials() {
+        return Krb5CredentialAccess.getUserCredentials(m_proxyCredential);
+    }
+
+    /**
+     * Reference for {@link #getUserCredentials()}: the reflective lookup that used to be done for every delegation.
+     *
+     * @return the S4U2Self ticket, via reflection.
+     * @throws Exception if the reflective access failed.
+     */
+    @Benchmark
+    public Credentials getUserCredentialsReflective() throws Exception {
+        final Field field = m_proxyCredential.getClass().getDeclaredField("userCreds");
+        field.setAccessible(true); // NOSONAR reference for the previous implementation
+        return (Credentials)field.get(m_proxyCredential);
+    }
+
+    /**
+     * @return the cached S4U2Self ticket.
+     */
+    @Benchmark
+    public Credentials s4u2SelfCacheHit() {
+        return m_s4u2SelfCache.get(m_tgt.getClient().getName(), IMPERSONATED_PRINCIPAL, m_tgt);
+    }
+
+    /**
+     * @return the cached S4U2Proxy ticket.
+     */
+    @Benchmark
+    public Credentials s4u2ProxyCacheHit() {
+        return m_s4u2ProxyCache.get(IMPERSONATED_PRINCIPAL, TARGET_SPN, m_tgt);
+    }
+}
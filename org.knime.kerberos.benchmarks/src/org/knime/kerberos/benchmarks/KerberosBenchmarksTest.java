@@ -0,0 +1,227 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.benchmarks;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.apache.log4j.Logger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Runs all Kerberos benchmarks and compares their scores against the recorded baseline. The benchmarks run inside the
+ * OSGi test runtime (JMH forks are not possible there) and are configured via system properties, see the pom.xml of
+ * this fragment:
+ * <ul>
+ * <li><code>knime.kerberos.benchmarks.include</code>: regular expression that selects the benchmarks to run.</li>
+ * <li><code>knime.kerberos.benchmarks.result</code>: file to write the JMH results (JSON) to.</li>
+ * <li><code>knime.kerberos.benchmarks.baseline</code>: properties file with the baseline scores. The run fails if
+ * the baseline is empty, unless it is being recorded.</li>
+ * <li><code>knime.kerberos.benchmarks.recordBaseline</code>: whether to record the scores as new baseline instead of
+ * comparing them.</li>
+ * <li><code>knime.kerberos.benchmarks.failOnRegression</code>: whether to fail if a score is worse than the baseline
+ * by more than <code>knime.kerberos.benchmarks.tolerance</code> (default: 0.25, i.e. 25%). Otherwise regressions are
+ * only logged.</li>
+ * </ul>
+ *
+ * @author KNIME GmbH
+ */
+public class KerberosBenchmarksTest {
+
+    private static final Logger LOG = Logger.getLogger(KerberosBenchmarksTest.class);
+
+    private static final String PROPERTY_PREFIX = "knime.kerberos.benchmarks.";
+
+    private static final String BASELINE_HEADER = """
+        # Baseline scores of the Kerberos benchmarks (see KerberosBenchmarksTest), keyed by benchmark
+        # and parameters. Scores are compared against this baseline on every benchmark run, which fails
+        # as long as the baseline is empty.
+        #
+        # To (re-)record the baseline on the benchmark machine, run:
+        #   mvn -Pbenchmark verify -Dknime.kerberos.benchmarks.recordBaseline=true
+        # and commit the updated file.
+        """;
+
+    /**
+     * Stops the KDC.
+     */
+    @AfterAll
+    public static void tearDownAfterClass() {
+        BenchmarkKDC.stopInstance();
+    }
+
+    /**
+     * Runs the benchmarks and compares their scores against the baseline.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void run_benchmarks() throws Exception {
+        final Path resultFile = Paths.get(System.getProperty(PROPERTY_PREFIX + "result", "jmh-result.json"));
+        final Path baselineFile =
+            Paths.get(System.getProperty(PROPERTY_PREFIX + "baseline", "baseline/jmh-baseline.properties"));
+
+        final Options options = new OptionsBuilder() //
+            .include(System.getProperty(PROPERTY_PREFIX + "include", ".*")) //
+            .forks(0) //
+            .warmupIterations(3) //
+            .warmupTime(TimeValue.seconds(1)) //
+            .measurementIterations(5) //
+            .measurementTime(TimeValue.seconds(1)) //
+            .resultFormat(ResultFormatType.JSON) //
+            .result(resultFile.toAbsolutePath().toString()) //
+            .shouldFailOnError(true) //
+            .build();
+
+        final Map<String, RunResult> results = new TreeMap<>();
+        for (RunResult result : new Runner(options).run()) {
+            results.put(toKey(result.getParams()), result);
+        }
+
+        if (Boolean.getBoolean(PROPERTY_PREFIX + "recordBaseline")) {
+            writeBaseline(baselineFile, results);
+            LOG.info(String.format("Recorded baseline of %d benchmarks to %s", results.size(), baselineFile));
+            return;
+        }
+
+        final Properties baseline = readBaseline(baselineFile);
+        // without a baseline the run cannot detect any regression, which must not go unnoticed
+        assertFalse(baseline.isEmpty(), String.format("The baseline %s is empty, record it with "
+            + "-D%srecordBaseline=true and commit it", baselineFile, PROPERTY_PREFIX));
+
+        final List<String> regressions = compareWithBaseline(baseline, results);
+        regressions.forEach(LOG::warn);
+        if (Boolean.getBoolean(PROPERTY_PREFIX + "failOnRegression")) {
+            assertTrue(regressions.isEmpty(), String.join("\n", regressions));
+        }
+    }
+
+    /**
+     * @return a key such as <code>KerberosProviderBenchmark.doWithKerberosAuth#authMethod-KEYTAB</code>, which does not
+     *         need to be escaped in a properties file.
+     */
+    private static String toKey(final BenchmarkParams params) {
+        final var key = new StringBuilder(params.getBenchmark().replace(
+            KerberosBenchmarksTest.class.getPackageName() + ".", ""));
+        for (String param : params.getParamsKeys()) {
+            key.append('#').append(param.replaceFirst("^m_", "")).append('-').append(params.getParam(param));
+        }
+        return key.toString();
+    }
+
+    private static List<String> compareWithBaseline(final Properties baseline, final Map<String, RunResult> results) {
+        final double tolerance = Double.parseDouble(System.getProperty(PROPERTY_PREFIX + "tolerance", "0.25"));
+
+        final List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, RunResult> entry : results.entrySet()) {
+            final String baselineScore = baseline.getProperty(entry.getKey());
+            final double score = entry.getValue().getPrimaryResult().getScore();
+            final String unit = entry.getValue().getPrimaryResult().getScoreUnit();
+            if (baselineScore == null) {
+                LOG.warn(String.format("%s: %s %s (no baseline, record it)", entry.getKey(), score, unit));
+                continue;
+            }
+
+            // for throughput higher scores are better, for all other modes lower scores are better
+            final double expected = Double.parseDouble(baselineScore);
+            final boolean higherIsBetter = entry.getValue().getParams().getMode() == Mode.Throughput;
+            final double slowdown = higherIsBetter ? (expected / score) : (score / expected);
+
+            LOG.info(String.format("%s: %s %s (baseline: %s)", entry.getKey(), score, unit, expected));
+            if (slowdown > 1 + tolerance) {
+                regressions.add(String.format("Regression in %s: %.3f %s (baseline: %.3f, %.0f%% slower)",
+                    entry.getKey(), score, unit, expected, (slowdown - 1) * 100));
+            }
+        }
+        return regressions;
+    }
+
+    private static Properties readBaseline(final Path baselineFile) throws IOException {
+        final var baseline = new Properties();
+        if (Files.exists(baselineFile)) {
+            try (Reader reader = Files.newBufferedReader(baselineFile, StandardCharsets.ISO_8859_1)) {
+                baseline.load(reader);
+            }
+        }
+        return baseline;
+    }
+
+    private static void writeBaseline(final Path baselineFile, final Map<String, RunResult> results)
+        throws IOException {
+        // written by hand rather than with Properties.store(), so that the entries are sorted and diffs stay readable
+        try (Writer writer = Files.newBufferedWriter(baselineFile, StandardCharsets.ISO_8859_1)) {
+            writer.write(BASELINE_HEADER);
+            for (Map.Entry<String, RunResult> entry : results.entrySet()) {
+                writer.write(String.format("%n# %s%n%s=%s%n", //
+                    entry.getValue().getPrimaryResult().getScoreUnit(), //
+                    entry.getKey(), //
+                    entry.getValue().getPrimaryResult().getScore()));
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.kerberos.api.KerberosCallback;
+import org.knime.kerberos.api.KerberosProvider;
+import org.knime.kerberos.config.PrefKey;
+import org.knime.kerberos.config.PrefKey.AuthMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the overhead of {@link KerberosProvider#doWithKerberosAuth(KerberosCallback)} with a no-op callback, while
+ * already being logged in.
+ *
+ * @author KNIME GmbH
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KerberosProviderBenchmark {
+
+    private static final KerberosCallback<Object> NOOP_CALLBACK = () -> null;
+
+    /** The authentication method to log in with. */
+    @Param({"KEYTAB", "USER_PWD", "TICKET_CACHE"})
+    public String m_authMethod;
+
+    /** How callbacks are executed. */
+    @Param({"WORKER_THREAD", "THREAD_POOL"})
+    public String m_callbackExecutionMode;
+
+    /**
+     * Logs in.
+     *
+     * @throws Exception if the login failed.
+     */
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchmarkSupport.login(AuthMethod.fromValue(m_authMethod),
+            Map.of(PrefKey.CALLBACK_EXECUTION_MODE_KEY, m_callbackExecutionMode));
+    }
+
+    /**
+     * Logs out.
+     *
+     * @throws Exception if the logout failed.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkSupport.logout();
+    }
+
+    /**
+     * @return the result of the callback.
+     * @throws Exception if the callback could not be executed.
+     */
+    @Benchmark
+    public Object doWithKerberosAuth() throws Exception {
+        return KerberosProvider.doWithKerberosAuth(NOOP_CALLBACK).get();
+    }
+}
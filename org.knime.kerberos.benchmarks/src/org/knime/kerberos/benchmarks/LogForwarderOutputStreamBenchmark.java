@@ -0,0 +1,157 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.kerberos.logger.LogForwarderOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the throughput of {@link LogForwarderOutputStream}, which splits the Kerberos debug output into lines and
+ * hands them to the registered log forwarders, and compares it to the previous implementation
+ * ({@link LegacyLogForwarderOutputStream}). {@link #writeAndFlush()} writes a single batch of lines and flushes the
+ * stream, {@link #writeDebugOutput()} writes several megabytes of debug output in such batches.
+ *
+ * @author KNIME GmbH
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LogForwarderOutputStreamBenchmark {
+
+    private static final String SEPARATOR = System.getProperty("line.separator");
+
+    /** The amount of debug output written by {@link #writeDebugOutput()}. */
+    private static final int DEBUG_OUTPUT_BYTES = 8 * 1024 * 1024;
+
+    /** The implementation to measure, either the current one or the previous one. */
+    @Param({"current", "legacy"})
+    public String m_implementation;
+
+    /** The length of each line (without line separator). */
+    @Param({"80", "400"})
+    public int m_lineLength;
+
+    /** The number of lines that are written before flushing. */
+    @Param({"1", "100"})
+    public int m_linesPerFlush;
+
+    private OutputStream m_stream;
+
+    private byte[] m_line;
+
+    private long m_forwardedChars;
+
+    private int m_batchesPerDebugOutput;
+
+    /**
+     * Creates the stream and a log forwarder that consumes the lines.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        final char[] chars = new char[m_lineLength];
+        Arrays.fill(chars, 'x');
+        m_line = (new String(chars) + SEPARATOR).getBytes(StandardCharsets.UTF_8);
+
+        m_batchesPerDebugOutput = Math.max(1, DEBUG_OUTPUT_BYTES / (m_line.length * m_linesPerFlush));
+
+        if ("legacy".equals(m_implementation)) {
+            final LegacyLogForwarderOutputStream stream = new LegacyLogForwarderOutputStream();
+            stream.addLogForwarder(msg -> m_forwardedChars += msg.length());
+            m_stream = stream;
+        } else {
+            final LogForwarderOutputStream stream = new LogForwarderOutputStream();
+            stream.addLogForwarder(msg -> m_forwardedChars += msg.length());
+            m_stream = stream;
+        }
+    }
+
+    /**
+     * Writes and flushes a batch of lines.
+     *
+     * @return the number of characters forwarded so far.
+     * @throws IOException never.
+     */
+    @Benchmark
+    public long writeAndFlush() throws IOException {
+        writeBatch();
+        return m_forwardedChars;
+    }
+
+    /**
+     * Writes several megabytes of debug output, as Java's Kerberos implementation does when hex-dumping messages.
+     *
+     * @return the number of characters forwarded so far.
+     * @throws IOException never.
+     */
+    @Benchmark
+    public long writeDebugOutput() throws IOException {
+        for (int i = 0; i < m_batchesPerDebugOutput; i++) {
+            writeBatch();
+        }
+        return m_forwardedChars;
+    }
+
+    private void writeBatch() throws IOException {
+        for (int i = 0; i < m_linesPerFlush; i++) {
+            m_stream.write(m_line, 0, m_line.length);
+        }
+        m_stream.flush();
+    }
+}
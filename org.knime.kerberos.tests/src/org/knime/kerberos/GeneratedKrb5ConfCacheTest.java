@@ -0,0 +1,129 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for {@link GeneratedKrb5ConfCache}.
+ *
+ * @author KNIME GmbH
+ */
+public class GeneratedKrb5ConfCacheTest {
+
+    private final GeneratedKrb5ConfCache m_cache = new GeneratedKrb5ConfCache();
+
+    /**
+     * Deletes the files created by the test.
+     */
+    @AfterEach
+    public void clearCache() {
+        m_cache.clear();
+    }
+
+    /**
+     * Tests that files are reused for the same contents.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void test_reuse_for_same_contents() throws IOException {
+        final Path first = m_cache.getOrCreate("[libdefaults]\ndefault_realm = EXAMPLE.COM\n");
+        assertEquals("[libdefaults]\ndefault_realm = EXAMPLE.COM\n",
+            new String(Files.readAllBytes(first), StandardCharsets.UTF_8));
+        assertEquals(first, m_cache.getOrCreate("[libdefaults]\ndefault_realm = EXAMPLE.COM\n"));
+
+        final Path other = m_cache.getOrCreate("[libdefaults]\ndefault_realm = OTHER.EXAMPLE.COM\n");
+        assertNotEquals(first, other);
+        assertEquals(2, m_cache.size());
+    }
+
+    /**
+     * Tests that a file is created again if it has been deleted.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void test_recreate_deleted_file() throws IOException {
+        final Path first = m_cache.getOrCreate("contents");
+        Files.delete(first);
+
+        final Path second = m_cache.getOrCreate("contents");
+        assertTrue(Files.isRegularFile(second));
+        assertEquals("contents", new String(Files.readAllBytes(second), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tests that the least recently used files are deleted once the cache is full, and all files on clear.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void test_eviction_and_clear() throws IOException {
+        final Path first = m_cache.getOrCreate("contents0");
+        for (int i = 1; i <= GeneratedKrb5ConfCache.MAX_ENTRIES; i++) {
+            m_cache.getOrCreate("contents" + i);
+        }
+        assertEquals(GeneratedKrb5ConfCache.MAX_ENTRIES, m_cache.size());
+        assertFalse(Files.exists(first));
+
+        final Path last = m_cache.getOrCreate("contents" + GeneratedKrb5ConfCache.MAX_ENTRIES);
+        m_cache.clear();
+        assertEquals(0, m_cache.size());
+        assertFalse(Files.exists(last));
+    }
+}
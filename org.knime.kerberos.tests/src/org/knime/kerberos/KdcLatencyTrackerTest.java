@@ -0,0 +1,279 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.knime.kerberos.KdcLatencyTracker.Transport;
+import org.knime.kerberos.config.KerberosPluginConfig;
+import org.knime.kerberos.config.PrefKey;
+import org.knime.kerberos.config.PrefKey.AuthMethod;
+import org.knime.kerberos.config.PrefKey.KerberosConfigSource;
+
+/**
+ * Test cases for {@link KdcLatencyTracker} and the ordering of KDCs in the generated Kerberos configuration.
+ *
+ * @author KNIME GmbH
+ */
+public class KdcLatencyTrackerTest {
+
+    /**
+     * Tests that KDCs are ordered by their median latency, followed by unknown and failed KDCs.
+     */
+    @Test
+    public void test_order_by_latency() {
+        final KdcLatencyTracker tracker = new KdcLatencyTracker();
+        tracker.recordLatency("slow", 100);
+        tracker.recordLatency("fast", 10);
+        tracker.recordLatency("failed", 1);
+        tracker.recordFailure("failed");
+
+        assertEquals(Arrays.asList("fast", "slow", "unknown", "failed"),
+            tracker.orderByLatency(Arrays.asList("failed", "unknown", "slow", "fast")));
+
+        // a successful probe makes a failed KDC reachable again
+        tracker.recordLatency("failed", 1);
+        assertEquals(Arrays.asList("failed", "fast", "slow"),
+            tracker.orderByLatency(Arrays.asList("slow", "fast", "failed")));
+    }
+
+    /**
+     * Tests the latency percentiles and that only the most recent samples are kept.
+     */
+    @Test
+    public void test_percentiles() {
+        final KdcLatencyTracker tracker = new KdcLatencyTracker();
+        assertEquals(-1, tracker.getLatencyPercentile("kdc", 0.5));
+
+        for (int i = 1; i <= 100; i++) {
+            tracker.recordLatency("kdc", i);
+        }
+        final int oldest = 100 - KdcLatencyTracker.MAX_SAMPLES + 1;
+        assertEquals(oldest, tracker.getLatencyPercentile("kdc", 0));
+        assertEquals(100, tracker.getLatencyPercentile("kdc", 1));
+        assertEquals(oldest + KdcLatencyTracker.MAX_SAMPLES / 2 - 1, tracker.getLatencyPercentile("kdc", 0.5));
+    }
+
+    /**
+     * Tests that the hedging delay is derived from the latency percentiles of the reachable KDCs.
+     */
+    @Test
+    public void test_hedge_delay() {
+        final KdcLatencyTracker tracker = new KdcLatencyTracker();
+        final List<String> kdcs = Arrays.asList("a", "b");
+        assertEquals(5000, tracker.computeHedgeDelay(kdcs, 5000));
+
+        tracker.recordLatency("a", 10);
+        assertEquals(KdcLatencyTracker.MIN_HEDGE_DELAY_MILLIS, tracker.computeHedgeDelay(kdcs, 5000));
+
+        tracker.recordLatency("b", 500);
+        assertEquals(500 * KdcLatencyTracker.HEDGE_LATENCY_FACTOR, tracker.computeHedgeDelay(kdcs, 5000));
+        assertEquals(1500, tracker.computeHedgeDelay(kdcs, 1500));
+
+        tracker.recordFailure("b");
+        assertEquals(KdcLatencyTracker.MIN_HEDGE_DELAY_MILLIS, tracker.computeHedgeDelay(kdcs, 5000));
+    }
+
+    /**
+     * Tests that probing records latencies for listening KDCs and failures for closed ports.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void test_probe() throws IOException {
+        final KdcLatencyTracker tracker = new KdcLatencyTracker();
+        try (ServerSocket open = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            final String openKdc = "127.0.0.1:" + open.getLocalPort();
+            final String closedKdc = "127.0.0.1:" + findClosedPort();
+
+            tracker.probe(Arrays.asList(closedKdc, openKdc), "EXAMPLE.COM", Transport.TCP, 2000);
+            assertTrue(tracker.getLatencyPercentile(openKdc, 0.5) >= 0);
+            assertEquals(-1, tracker.getLatencyPercentile(closedKdc, 0.5));
+            assertEquals(Arrays.asList(openKdc, closedKdc), tracker.orderByLatency(Arrays.asList(closedKdc, openKdc)));
+        }
+    }
+
+    /**
+     * Tests that UDP probes record latencies for KDCs that answer the AS-REQ and failures for KDCs that do not.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_probe_udp() throws Exception {
+        final KdcLatencyTracker tracker = new KdcLatencyTracker();
+        try (UdpKdc open = new UdpKdc();
+                DatagramSocket silent = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            final String openKdc = "127.0.0.1:" + open.getPort();
+            final String silentKdc = "127.0.0.1:" + silent.getLocalPort();
+
+            tracker.probe(Arrays.asList(silentKdc, openKdc), "EXAMPLE.COM", Transport.UDP, 1000);
+            assertTrue(tracker.getLatencyPercentile(openKdc, 0.5) >= 0);
+            assertEquals(-1, tracker.getLatencyPercentile(silentKdc, 0.5));
+            assertEquals(Arrays.asList(openKdc, silentKdc), tracker.orderByLatency(Arrays.asList(silentKdc, openKdc)));
+            assertEquals(0x6A, open.getLastRequest()[0] & 0xFF, "Probe must be an AS-REQ");
+        }
+    }
+
+    /**
+     * Tests that background probes do not block, are not started twice and are skipped while the statistics are
+     * fresh.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_probe_in_background() throws Exception {
+        final KdcLatencyTracker tracker = new KdcLatencyTracker();
+        try (DatagramSocket silent = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            final List<String> kdcs = Arrays.asList("127.0.0.1:" + silent.getLocalPort());
+
+            final long start = System.nanoTime();
+            final CompletableFuture<Void> probe = tracker.probeInBackground(kdcs, "EXAMPLE.COM", Transport.UDP, 1000);
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500, "Probe must not block");
+            assertTrue(probe == tracker.probeInBackground(kdcs, "EXAMPLE.COM", Transport.UDP, 1000),
+                "Pending probe must be reused");
+
+            probe.get(5, TimeUnit.SECONDS);
+            assertFalse(tracker.isStale(kdcs.get(0)));
+            assertTrue(tracker.probeInBackground(kdcs, "EXAMPLE.COM", Transport.UDP, 1000).isDone());
+        }
+    }
+
+    /**
+     * Tests that the generated Kerberos configuration lists all KDCs, the reachable one first once it has been
+     * probed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_generated_krb5_conf_with_multiple_kdcs() throws Exception {
+        try (UdpKdc open = new UdpKdc();
+                DatagramSocket silent = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            final String openKdc = "127.0.0.1:" + open.getPort();
+            final String silentKdc = "127.0.0.1:" + silent.getLocalPort();
+
+            final KerberosPluginConfig config = new KerberosPluginConfig(KerberosConfigSource.REALM_KDC, "",
+                "EXAMPLE.COM", silentKdc + ", " + openKdc, AuthMethod.USER_PWD, "", "", false,
+                PrefKey.DEBUG_LOG_LEVEL_DEFAULT, 30, false, false, null);
+            assertEquals(Arrays.asList(silentKdc, openKdc), config.getKDCs());
+
+            // the first configuration does not wait for the probe and keeps the configured order
+            String krb5Conf = KerberosAuthManager.createRealmKDCKrb5Content(config);
+            assertTrue(krb5Conf.indexOf("kdc = " + silentKdc) < krb5Conf.indexOf("kdc = " + openKdc), krb5Conf);
+
+            KdcLatencyTracker.getInstance()
+                .probeInBackground(config.getKDCs(), "EXAMPLE.COM", Transport.UDP, config.getKdcTimeoutMillis())
+                .get(PrefKey.KDC_TIMEOUT_MILLIS_DEFAULT + 5000L, TimeUnit.MILLISECONDS);
+
+            krb5Conf = KerberosAuthManager.createRealmKDCKrb5Content(config);
+            assertTrue(krb5Conf.indexOf("kdc = " + openKdc) < krb5Conf.indexOf("kdc = " + silentKdc), krb5Conf);
+            assertTrue(krb5Conf.contains("max_retries = " + PrefKey.KDC_MAX_RETRIES_DEFAULT), krb5Conf);
+            assertTrue(krb5Conf.contains("kdc_timeout = " + PrefKey.KDC_TIMEOUT_MILLIS_DEFAULT), krb5Conf);
+        }
+    }
+
+    private static int findClosedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * A KDC that answers every datagram with a dummy reply.
+     */
+    private static final class UdpKdc implements AutoCloseable {
+
+        private final DatagramSocket m_socket = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+
+        private volatile byte[] m_lastRequest;
+
+        UdpKdc() throws SocketException {
+            final Thread thread = new Thread(this::serve, "UdpKdc");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void serve() {
+            final byte[] buffer = new byte[65536];
+            while (!m_socket.isClosed()) {
+                try {
+                    final DatagramPacket request = new DatagramPacket(buffer, buffer.length);
+                    m_socket.receive(request);
+                    m_lastRequest = Arrays.copyOf(request.getData(), request.getLength());
+                    m_socket.send(new DatagramPacket(new byte[]{0x7E}, 1, request.getSocketAddress()));
+                } catch (IOException e) { // NOSONAR socket has been closed
+                    return;
+                }
+            }
+        }
+
+        int getPort() {
+            return m_socket.getLocalPort();
+        }
+
+        byte[] getLastRequest() {
+            return m_lastRequest;
+        }
+
+        @Override
+        public void close() {
+            m_socket.close();
+        }
+    }
+}
@@ -50,16 +50,26 @@
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
 
+import javax.security.auth.Subject;
 import javax.security.auth.callback.Callback;
 import javax.security.auth.callback.NameCallback;
 import javax.security.auth.callback.PasswordCallback;
 import javax.security.auth.callback.UnsupportedCallbackException;
+import javax.security.auth.kerberos.KerberosTicket;
 import javax.security.auth.login.LoginException;
 
 import org.junit.jupiter.api.AfterAll;
@@ -72,6 +82,7 @@
 import org.knime.kerberos.config.PrefKey;
 import org.knime.kerberos.config.PrefKey.AuthMethod;
 import org.knime.kerberos.config.PrefKey.KerberosConfigSource;
+import org.knime.kerberos.config.PrefKey.KeytabReloginMode;
 import org.knime.kerberos.logger.KerberosLogger;
 import org.knime.kerberos.testing.KrbConfigUtil;
 import org.knime.kerberos.testing.KrbTicketCacheUtil;
@@ -120,6 +131,7 @@ public void rollBack() throws Exception {
             // do nothing
         }
         System.clearProperty("sun.security.krb5.principal");
+        KerberosPluginConfig.TEST_OVERRIDES = null;
     }
 
     /**
@@ -132,6 +144,20 @@ public void setup() {
         KerberosLogger.setUseNodeLoggerForwarder(false);
     }
 
+    /**
+     * Creates a keytab config, that fetches new tickets from the keytab in the background, which is opt-in.
+     */
+    private static KerberosPluginConfig createBackgroundReloginConfig() throws IOException {
+        KerberosPluginConfig.TEST_OVERRIDES = new HashMap<>();
+        new KerberosPluginConfig(KerberosConfigSource.FILE,
+            KrbConfigUtil.createValidKrb5(testKDC.getRealm(), testKDC.getKDCHost()), "", "", AuthMethod.KEYTAB,
+            testKDC.getKeytabPrincipal(), testKDC.getKeytabFilePath(), true, PrefKey.DEBUG_LOG_LEVEL_DEFAULT, 59995,
+            true, false, null).save();
+        KerberosPluginConfig.TEST_OVERRIDES.put(PrefKey.KEYTAB_RELOGIN_MODE_KEY,
+            KeytabReloginMode.BACKGROUND.toString());
+        return KerberosPluginConfig.load();
+    }
+
     private static void testSuccessfulKeyTabLogin(final KerberosPluginConfig config) throws Exception {
         assertFalse(KerberosAuthManager.getKerberosState().isAuthenticated());
         Util.awaitFuture(KerberosInternalAPI.login(config, null));
@@ -688,8 +714,68 @@ public void test_login_logout() throws Exception {
             PrefKey.DEBUG_LOG_LEVEL_DEFAULT, 30000, true, true, null);
 
         testSuccessfulKeyTabLogin(config);
+        final RenewalSchedule renewalSchedule = KerberosAuthManager.getRenewalSchedule();
+        assertEquals(0, renewalSchedule.getAttempt());
+        assertTrue(renewalSchedule.getNextRenewal()
+            .isBefore(KerberosAuthManager.getKerberosState().getTicketValidUntil()));
+
         Util.awaitFuture(KerberosInternalAPI.logout());
         assertFalse(KerberosAuthManager.getKerberosState().isAuthenticated());
+        assertNull(KerberosAuthManager.getRenewalSchedule());
+    }
+
+    /**
+     * Test that logging in again with the same realm and KDC reuses the generated krb5.conf.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_login_again_reuses_generated_krb5_conf() throws Exception {
+        KerberosPluginConfig config = new KerberosPluginConfig(KerberosConfigSource.REALM_KDC, "", testKDC.getRealm(),
+            testKDC.getKDCHost(), AuthMethod.KEYTAB, testKDC.getKeytabPrincipal(), testKDC.getKeytabFilePath(), true,
+            PrefKey.DEBUG_LOG_LEVEL_DEFAULT, 30000, true, true, null);
+
+        testSuccessfulKeyTabLogin(config);
+        final String krb5Conf = System.getProperty("java.security.krb5.conf");
+        Util.awaitFuture(KerberosInternalAPI.logout());
+        assertTrue(Files.isRegularFile(Paths.get(krb5Conf)));
+
+        testSuccessfulKeyTabLogin(config);
+        assertEquals(krb5Conf, System.getProperty("java.security.krb5.conf"));
+    }
+
+    /**
+     * Test that Java's Kerberos config is not refreshed again by a rollback and configure cycle, when its krb5.conf is
+     * looked up in the default locations.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_configure_again_with_default_krb5_conf_does_not_refresh() throws Exception {
+        KerberosPluginConfig config = new KerberosPluginConfig(KerberosConfigSource.DEFAULT, "", "", "",
+            AuthMethod.USER_PWD, "", "", false, PrefKey.DEBUG_LOG_LEVEL_DEFAULT, 30000, true, false, null);
+
+        final String krb5Conf = System.getProperty("java.security.krb5.conf");
+        System.clearProperty("java.security.krb5.conf");
+        try {
+            KerberosAuthManager.EXECUTOR.submit(() -> {
+                KerberosAuthManager.configure(config);
+                return null;
+            }).get();
+            final int refreshCount = KerberosAuthManager.EXECUTOR.submit(KerberosAuthManager::getConfigRefreshCount)
+                .get();
+
+            KerberosAuthManager.EXECUTOR.submit(() -> {
+                KerberosAuthManager.rollbackToInitialState();
+                KerberosAuthManager.configure(config);
+                return null;
+            }).get();
+            assertEquals(refreshCount,
+                KerberosAuthManager.EXECUTOR.submit(KerberosAuthManager::getConfigRefreshCount).get());
+        } finally {
+            KerberosAuthManager.EXECUTOR.submit(KerberosAuthManager::rollbackToInitialState).get();
+            System.setProperty("java.security.krb5.conf", krb5Conf);
+        }
     }
 
     /**
@@ -742,6 +828,89 @@ public void test_renewal_with_keytab() throws Exception {
         assertTrue(currentState.getTicketValidUntil().isAfter(prevValidUntil));
     }
 
+    /**
+     * Test that a keytab renewal in the background replaces the login with a new one and logs out the previous login,
+     * while subject snapshots that have been handed out before remain usable.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_background_renewal_with_keytab_replaces_login() throws Exception {
+        KerberosPluginConfig config = createBackgroundReloginConfig();
+        assertEquals(KeytabReloginMode.BACKGROUND, config.getKeytabReloginMode());
+
+        Util.awaitFuture(KerberosInternalAPI.login(config, null));
+        final Subject prevSubject = KerberosAuthManager.EXECUTOR.submit(KerberosAuthManager::getSubject).get();
+        final Subject prevSnapshot = KerberosAuthManager.getAuthenticatedSubjectSnapshot(config);
+        Thread.sleep(7000);
+
+        final Subject currSubject = KerberosAuthManager.EXECUTOR.submit(KerberosAuthManager::getSubject).get();
+        assertTrue(KerberosAuthManager.getKerberosState().isAuthenticated());
+        assertNotSame(prevSubject, currSubject);
+        assertTrue(prevSubject.getPrivateCredentials(KerberosTicket.class).isEmpty());
+        assertFalse(currSubject.getPrivateCredentials(KerberosTicket.class).isEmpty());
+        assertFalse(prevSnapshot.getPrivateCredentials(KerberosTicket.class).iterator().next().isDestroyed());
+    }
+
+    /**
+     * Test that a ticket fetched from the keytab in the background is discarded if Kerberos has been reconfigured and
+     * logged in again while it was being fetched.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_background_relogin_is_discarded_after_reconfiguration() throws Exception {
+        KerberosPluginConfig config = createBackgroundReloginConfig();
+        assertEquals(KeytabReloginMode.BACKGROUND, config.getKeytabReloginMode());
+
+        Util.awaitFuture(KerberosInternalAPI.login(config, null));
+        final long millisUntilRenewal = Math.max(0,
+            Duration.between(Instant.now(), KerberosAuthManager.getRenewalSchedule().getNextRenewal()).toMillis());
+
+        // block the worker until the renewal is due, so that the reconfiguration runs right after the renewal has
+        // started the background login
+        KerberosAuthManager.EXECUTOR.submit(() -> {
+            Thread.sleep(millisUntilRenewal + 1000);
+            return null;
+        });
+        final Subject reconfiguredSubject = KerberosAuthManager.EXECUTOR.schedule(() -> {
+            KerberosAuthManager.rollbackToInitialState();
+            KerberosAuthManager.configure(config);
+            KerberosAuthManager.login();
+            return KerberosAuthManager.getSubject();
+        }, millisUntilRenewal + 500, TimeUnit.MILLISECONDS).get();
+        Thread.sleep(2000);
+
+        final Subject currSubject = KerberosAuthManager.EXECUTOR.submit(KerberosAuthManager::getSubject).get();
+        assertTrue(KerberosAuthManager.getKerberosState().isAuthenticated());
+        assertSame(reconfiguredSubject, currSubject);
+        assertFalse(currSubject.getPrivateCredentials(KerberosTicket.class).isEmpty());
+    }
+
+    /**
+     * Test that each caller receives its own subject snapshot, so that destroying its tickets does not affect other
+     * callers.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_subject_snapshots_are_not_shared() throws Exception {
+        KerberosPluginConfig config = new KerberosPluginConfig(KerberosConfigSource.FILE,
+            KrbConfigUtil.createValidKrb5(testKDC.getRealm(), testKDC.getKDCHost()), "", "", AuthMethod.KEYTAB,
+            testKDC.getKeytabPrincipal(), testKDC.getKeytabFilePath(), true, PrefKey.DEBUG_LOG_LEVEL_DEFAULT, 30000,
+            true, false, null);
+
+        Util.awaitFuture(KerberosInternalAPI.login(config, null));
+        final Subject first = KerberosAuthManager.getAuthenticatedSubjectSnapshot(config);
+        final Subject second = KerberosAuthManager.getAuthenticatedSubjectSnapshot(config);
+        assertNotSame(first, second);
+
+        first.getPrivateCredentials(KerberosTicket.class).iterator().next().destroy();
+        assertFalse(second.getPrivateCredentials(KerberosTicket.class).iterator().next().isDestroyed());
+        assertFalse(KerberosAuthManager.getAuthenticatedSubjectSnapshot(config)
+            .getPrivateCredentials(KerberosTicket.class).iterator().next().isDestroyed());
+    }
+
     /**
      * Callback Handler for user name/password authentication
      *
@@ -55,6 +55,8 @@
 import java.time.Instant;
 import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
@@ -214,8 +216,9 @@ public void test_concurrent_sysout_logging() throws InterruptedException {
         pool.shutdown();
         pool.awaitTermination(30, TimeUnit.SECONDS);
 
-        final List<String> capturedLines = KerberosLogger.getCapturedLines();
+        // stopping waits until all queued lines have been forwarded, whereas reading only waits briefly
         KerberosLogger.stopCapture();
+        final List<String> capturedLines = KerberosLogger.getCapturedLines();
 
         assertEquals(1000 * 100, capturedLines.size());
 
@@ -226,6 +229,45 @@ public void test_concurrent_sysout_logging() throws InterruptedException {
         }
     }
 
+    /**
+     * Tests that reading the captured lines does not require the lock that is held while capturing is started or
+     * stopped, so that e.g. the UI thread is not blocked by a rollback.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_read_captured_lines_without_class_lock() throws Exception {
+        KerberosLogger.startCapture(LEVEL.DEBUG);
+        System.out.println("Test String");
+
+        final CountDownLatch lockHeld = new CountDownLatch(1);
+        final CountDownLatch mayRelease = new CountDownLatch(1);
+        final Thread lockHolder = new Thread(() -> {
+            synchronized (KerberosLogger.class) {
+                lockHeld.countDown();
+                try {
+                    mayRelease.await();
+                } catch (InterruptedException e) { // NOSONAR the thread ends anyway
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        lockHolder.start();
+        try {
+            lockHeld.await();
+            final CompletableFuture<List<String>> lines =
+                CompletableFuture.supplyAsync(KerberosLogger::getCapturedLines);
+            assertEquals(1, lines.get(5, TimeUnit.SECONDS).size());
+            final long droppedLines =
+                CompletableFuture.supplyAsync(KerberosLogger::getDroppedLineCount).get(5, TimeUnit.SECONDS);
+            assertEquals(0, droppedLines);
+        } finally {
+            mayRelease.countDown();
+            lockHolder.join();
+            KerberosLogger.stopCapture();
+        }
+    }
+
     /**
      * Test whether a single large log message can be logged to System.out without error.
      *
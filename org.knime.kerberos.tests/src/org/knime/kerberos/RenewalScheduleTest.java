@@ -0,0 +1,139 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for the delay computations in {@link RenewalSchedule}.
+ *
+ * @author KNIME GmbH
+ */
+public class RenewalScheduleTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    private static final long TEN_HOURS = Duration.ofHours(10).toMillis();
+
+    private static final long MARGIN = Duration.ofMinutes(3).toMillis();
+
+    /**
+     * Tests that tickets are renewed after the configured percentage of their lifetime.
+     */
+    @Test
+    public void test_renewal_window() {
+        assertEquals(Duration.ofHours(8).toMillis(),
+            RenewalSchedule.computeRenewalDelay(NOW, NOW, NOW + TEN_HOURS, MARGIN, 80, 0));
+
+        // half of the lifetime has already passed
+        assertEquals(Duration.ofHours(3).toMillis(), RenewalSchedule.computeRenewalDelay(NOW,
+            NOW - TEN_HOURS / 2, NOW + TEN_HOURS / 2, MARGIN, 80, 0));
+    }
+
+    /**
+     * Tests that the safety margin applies if it requires an earlier renewal than the renewal window, or if the
+     * renewal window is disabled.
+     */
+    @Test
+    public void test_renewal_safety_margin() {
+        final long lateMargin = Duration.ofHours(4).toMillis();
+        assertEquals(TEN_HOURS - lateMargin,
+            RenewalSchedule.computeRenewalDelay(NOW, NOW, NOW + TEN_HOURS, lateMargin, 80, 0));
+
+        assertEquals(TEN_HOURS - MARGIN,
+            RenewalSchedule.computeRenewalDelay(NOW, NOW, NOW + TEN_HOURS, MARGIN, 0, 0));
+        assertEquals(TEN_HOURS - MARGIN,
+            RenewalSchedule.computeRenewalDelay(NOW, NOW, NOW + TEN_HOURS, MARGIN, 100, 0));
+    }
+
+    /**
+     * Tests that the renewal jitter only brings the renewal forward and that the minimum delay applies.
+     */
+    @Test
+    public void test_renewal_jitter_and_minimum() {
+        final long delay = Duration.ofHours(8).toMillis();
+        final long jittered = RenewalSchedule.computeRenewalDelay(NOW, NOW, NOW + TEN_HOURS, MARGIN, 80, 0.999);
+        assertTrue(jittered < delay);
+        assertTrue(jittered >= delay - (long)(delay * RenewalSchedule.RENEWAL_JITTER));
+
+        assertEquals(RenewalSchedule.MIN_RENEWAL_DELAY_MILLIS,
+            RenewalSchedule.computeRenewalDelay(NOW, NOW - TEN_HOURS, NOW + 1000, MARGIN, 80, 0));
+    }
+
+    /**
+     * Tests that the retry delay doubles with each retry and is jittered within the upper half of the backoff.
+     */
+    @Test
+    public void test_retry_backoff() {
+        final long untilExpiry = Duration.ofHours(1).toMillis();
+        assertEquals(5000, RenewalSchedule.computeRetryDelay(1, 10000, untilExpiry, 0));
+        assertEquals(10000, RenewalSchedule.computeRetryDelay(2, 10000, untilExpiry, 0));
+        assertEquals(20000, RenewalSchedule.computeRetryDelay(3, 10000, untilExpiry, 0));
+
+        final long jittered = RenewalSchedule.computeRetryDelay(3, 10000, untilExpiry, 0.999);
+        assertTrue(jittered > 20000 && jittered < 40000);
+    }
+
+    /**
+     * Tests that retries are scheduled no later than the ticket expires and that the minimum delay applies.
+     */
+    @Test
+    public void test_retry_capped_by_expiry() {
+        assertEquals(30000, RenewalSchedule.computeRetryDelay(10, 10000, 30000, 0.5));
+        assertEquals(RenewalSchedule.MIN_RETRY_DELAY_MILLIS, RenewalSchedule.computeRetryDelay(10, 10000, 10, 0.5));
+
+        // the ticket has already expired, hence only the backoff applies
+        assertEquals(5000, RenewalSchedule.computeRetryDelay(1, 10000, -1000, 0));
+
+        // large retry numbers do not overflow
+        assertTrue(RenewalSchedule.computeRetryDelay(100, 10000, -1000, 0) > 0);
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.knime.kerberos.config.KerberosPluginConfig;
+import org.knime.kerberos.config.PrefKey;
+import org.knime.kerberos.config.PrefKey.AuthMethod;
+import org.knime.kerberos.config.PrefKey.KerberosConfigSource;
+import org.knime.kerberos.config.PrefKey.TicketCacheChangeDetection;
+import org.knime.kerberos.logger.KerberosLogger;
+import org.knime.kerberos.testing.KrbTicketCacheUtil;
+import org.knime.kerberos.testing.TestKDC;
+import org.knime.kerberos.testing.Util;
+
+/**
+ * Test cases for the {@link TicketCacheChangeDetector} implementations.
+ *
+ * @author KNIME GmbH
+ */
+public class TicketCacheChangeDetectorTest {
+
+    private static TestKDC testKDC;
+
+    /**
+     * Sets up a test KDC.
+     *
+     * @throws Exception
+     */
+    @BeforeAll
+    public static void setUpBeforeClass() throws Exception {
+        testKDC = new TestKDC();
+    }
+
+    /**
+     * Tears down the test KDC.
+     *
+     * @throws Exception
+     */
+    @AfterAll
+    public static void tearDownAfterClass() throws Exception {
+        testKDC.stop();
+    }
+
+    /**
+     * Setup for each individual test method.
+     */
+    @BeforeEach
+    public void setup() {
+        // deactivates the multiplexing of Kerberos log messages into a KNIME NodeLogger,
+        // which requires a fully booted KNIME and OSGI container, which we do not want.
+        KerberosLogger.setUseNodeLoggerForwarder(false);
+    }
+
+    /**
+     * Rolls back to initial state after each test
+     *
+     * @throws Exception
+     */
+    @AfterEach
+    public void rollBack() throws Exception {
+        try {
+            Util.awaitFuture(KerberosInternalAPI.logout());
+        } catch (IllegalStateException e) {
+            // do nothing
+        }
+        KrbTicketCacheUtil.deleteTicketCache();
+    }
+
+    private static KerberosPluginConfig loginWithTicketCache() throws Exception {
+        final Path ccFile = KrbTicketCacheUtil.createTicketCacheWithKinit(testKDC);
+        // make sure the fingerprint is trustworthy, despite the ticket cache having just been written
+        Files.setLastModifiedTime(ccFile, FileTime.from(Instant.now().minus(1, ChronoUnit.MINUTES)));
+
+        final KerberosPluginConfig config =
+            new KerberosPluginConfig(KerberosConfigSource.DEFAULT, "", "", "", AuthMethod.TICKET_CACHE, "", "", true,
+                PrefKey.DEBUG_LOG_LEVEL_DEFAULT, 115000, true, true, ccFile.toString());
+        assertEquals(TicketCacheChangeDetection.FILE_FINGERPRINT, config.getTicketCacheChangeDetection());
+        Util.awaitFuture(KerberosInternalAPI.login(config, null));
+        return config;
+    }
+
+    private static boolean ticketCacheHasChanged() throws Exception {
+        return Util.awaitFuture(KerberosAuthManager.EXECUTOR.submit(KerberosAuthManager::ticketCacheHasChanged));
+    }
+
+    /**
+     * Tests that an unchanged ticket cache file is detected without logging in again.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_unchanged_ticket_cache() throws Exception {
+        final KerberosPluginConfig config = loginWithTicketCache();
+
+        assertNotNull(KerberosAuthManager.getAuthenticatedSubjectSnapshot(config));
+        assertFalse(ticketCacheHasChanged());
+    }
+
+    /**
+     * Tests that a ticket cache file with a new ticket granting ticket is detected.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_updated_ticket_cache() throws Exception {
+        final KerberosPluginConfig config = loginWithTicketCache();
+
+        KrbTicketCacheUtil.createTicketCacheWithKinit(testKDC);
+
+        assertNull(KerberosAuthManager.getAuthenticatedSubjectSnapshot(config));
+        assertTrue(ticketCacheHasChanged());
+    }
+
+    /**
+     * Tests that a touched ticket cache file with the same ticket granting ticket is not considered as changed, and
+     * that its new fingerprint is recorded.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_touched_ticket_cache() throws Exception {
+        final KerberosPluginConfig config = loginWithTicketCache();
+
+        final Path ccFile = Path.of(config.getTicketCache());
+        Files.setLastModifiedTime(ccFile, FileTime.from(Instant.now().minus(30, ChronoUnit.SECONDS)));
+
+        assertNull(KerberosAuthManager.getAuthenticatedSubjectSnapshot(config));
+        assertFalse(ticketCacheHasChanged());
+        assertNotNull(KerberosAuthManager.getAuthenticatedSubjectSnapshot(config));
+    }
+
+    /**
+     * Tests that a deleted ticket cache file is detected.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_deleted_ticket_cache() throws Exception {
+        final KerberosPluginConfig config = loginWithTicketCache();
+
+        KrbTicketCacheUtil.deleteTicketCache();
+
+        assertNull(KerberosAuthManager.getAuthenticatedSubjectSnapshot(config));
+        assertTrue(ticketCacheHasChanged());
+    }
+}
@@ -49,6 +49,8 @@
 package org.knime.kerberos.api;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -60,6 +62,7 @@
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.security.AccessController;
+import java.security.PrivilegedActionException;
 import java.util.HashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.zip.ZipFile;
@@ -295,6 +298,34 @@ private void run_test_doWithConstrainedDelegationBlocking_servicename() throws E
         assertEquals("test", returnVal);
     }
 
+    /**
+     * Tests that checked exceptions of delegated callbacks are wrapped in a {@link PrivilegedActionException} by
+     * {@link KerberosDelegationProvider#doWithConstrainedDelegationBlocking(String, String, KerberosCallback, org.knime.core.node.ExecutionMonitor)},
+     * but not by
+     * {@link KerberosDelegationProvider#doWithConstrainedDelegationIfOnServerAsync(String, String, KerberosCallback)}.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_doWithConstrainedDelegation_exceptions() throws Exception {
+        final var targetService = m_config.getTargetService().split("/");
+        final KerberosCallback<String> failingCallback = () -> {
+            throw new IOException("test");
+        };
+
+        NodeContext.pushContext(createHubWorkflowContext());
+        final var blockingException = assertThrows(PrivilegedActionException.class,
+            () -> KerberosDelegationProvider.doWithConstrainedDelegationBlocking(targetService[0], targetService[1],
+                failingCallback, null));
+        assertInstanceOf(IOException.class, blockingException.getCause());
+
+        final var asyncException = assertThrows(ExecutionException.class,
+            () -> KerberosDelegationProvider
+                .doWithConstrainedDelegationIfOnServerAsync(targetService[0], targetService[1], failingCallback).get());
+        assertInstanceOf(IOException.class, asyncException.getCause());
+        NodeContext.removeLastContext();
+    }
+
     private NodeContext createServerWorkflowContext() {
         // we need to be able to mock final classes here because NodeContext is final -> mockito-inline
         final var nodeContextMock = mock(NodeContext.class);
@@ -50,37 +50,69 @@
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.AccessController;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.security.auth.Subject;
 import javax.security.auth.kerberos.KerberosPrincipal;
+import javax.security.auth.kerberos.KerberosTicket;
 import javax.security.auth.login.LoginException;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import jdk.jfr.consumer.RecordingStream;
+
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
+import org.ietf.jgss.GSSContext;
+import org.ietf.jgss.GSSException;
+import org.ietf.jgss.GSSManager;
+import org.ietf.jgss.GSSName;
+import org.ietf.jgss.Oid;
 import org.junit.jupiter.api.Test;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.NodeProgressMonitor;
 import org.knime.kerberos.KerberosAuthManager;
+import org.knime.kerberos.KerberosCredentialManager;
 import org.knime.kerberos.KerberosInternalAPI;
 import org.knime.kerberos.KerberosInternalAPITest.TestCallBackHandler;
+import org.knime.kerberos.SubjectUtil;
 import org.knime.kerberos.config.KerberosPluginConfig;
 import org.knime.kerberos.config.PrefKey;
 import org.knime.kerberos.config.PrefKey.AuthMethod;
+import org.knime.kerberos.config.PrefKey.CallbackExecutionMode;
 import org.knime.kerberos.config.PrefKey.KerberosConfigSource;
+import org.knime.kerberos.logger.KerberosDebugEvent.ExchangeType;
+import org.knime.kerberos.logger.KerberosDebugEvent.KdcExchange;
+import org.knime.kerberos.logger.KerberosDebugEventListener;
 import org.knime.kerberos.logger.KerberosLogger;
 import org.knime.kerberos.testing.KrbTicketCacheUtil;
 import org.knime.kerberos.testing.TestKDC;
@@ -137,6 +169,7 @@ public void setupBefore() {
      */
     @AfterEach
     public void rollBack() throws InterruptedException, ExecutionException {
+        KerberosCredentialManager.logoutAll();
         try {
             KerberosInternalAPI.logout().get();
         } catch (ExecutionException e) {
@@ -165,6 +198,138 @@ public void test_doWithKerberosAuth_keytab() throws Exception {
         assertAuthenticated(testKDC.getKeytabPrincipal());
     }
 
+    /**
+     * Test that the keytab login and the callback execution are recorded as JFR events.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_doWithKerberosAuth_records_jfr_events() throws Exception {
+        KerberosPluginConfig config = createKeytabKerberosConfig();
+        config.save();
+
+        final Path dump = Files.createTempFile("kerberos", ".jfr");
+        try (final Recording recording = new Recording()) {
+            recording.enable("org.knime.kerberos.KerberosLogin").withThreshold(Duration.ZERO);
+            recording.enable("org.knime.kerberos.KerberosCallbackExecution").withThreshold(Duration.ZERO);
+            recording.start();
+            Util.awaitFuture(KerberosProvider.doWithKerberosAuth(() -> null));
+            recording.stop();
+            recording.dump(dump);
+
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+            final RecordedEvent login = events.stream()
+                .filter(e -> e.getEventType().getName().equals("org.knime.kerberos.KerberosLogin")) //
+                .findFirst().orElseThrow();
+            assertEquals(AuthMethod.KEYTAB.toString(), login.getString("authMethod"));
+            assertEquals(testKDC.getKeytabPrincipal(), login.getString("principal"));
+            assertTrue(login.getBoolean("success"));
+
+            final RecordedEvent execution = events.stream()
+                .filter(e -> e.getEventType().getName().equals("org.knime.kerberos.KerberosCallbackExecution")) //
+                .findFirst().orElseThrow();
+            assertEquals(CallbackExecutionMode.WORKER_THREAD.toString(), execution.getString("executionMode"));
+            assertTrue(execution.getBoolean("success"));
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    /**
+     * Test that the keytab login and the callback execution are counted in the metrics.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_getMetricsSnapshot() throws Exception {
+        KerberosPluginConfig config = createKeytabKerberosConfig();
+        config.save();
+
+        final KerberosMetricsSnapshot before = KerberosProvider.getMetricsSnapshot();
+        Util.awaitFuture(KerberosProvider.doWithKerberosAuth(() -> null));
+        assertThrows(ExecutionException.class, () -> KerberosProvider.doWithKerberosAuth(() -> {
+            throw new IllegalStateException("callback failed");
+        }).get());
+        final KerberosMetricsSnapshot after = KerberosProvider.getMetricsSnapshot();
+
+        assertEquals(before.logins().count() + 1, after.logins().count());
+        assertEquals(before.logins().failures(), after.logins().failures());
+        assertEquals(before.callbacks().count() + 2, after.callbacks().count());
+        assertEquals(before.callbacks().failures() + 1, after.callbacks().failures());
+        assertEquals(before.callbackWaitTime().count() + 2, after.callbackWaitTime().count());
+        assertTrue(after.executorWaitTime().count() > before.executorWaitTime().count());
+        assertTrue(after.callbacks().latency().max().compareTo(after.callbacks().latency().min()) >= 0);
+        assertEquals(0, after.executorQueueDepth());
+    }
+
+    /**
+     * Test that callbacks are executed concurrently when the thread pool execution mode is configured.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_doWithKerberosAuth_keytab_concurrent_callbacks() throws Exception {
+        KerberosPluginConfig config = createKeytabKerberosConfig();
+        config.save();
+        KerberosPluginConfig.TEST_OVERRIDES.put(PrefKey.CALLBACK_EXECUTION_MODE_KEY,
+            CallbackExecutionMode.THREAD_POOL.toString());
+        KerberosPluginConfig.TEST_OVERRIDES.put(PrefKey.CALLBACK_POOL_SIZE_KEY, "2");
+
+        // both callbacks can only pass the barrier if they are executed at the same time
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        final KerberosCallback<String> callback = () -> {
+            barrier.await(10, TimeUnit.SECONDS);
+            final Subject s = Subject.getSubject(AccessController.getContext());
+            return s.getPrincipals(KerberosPrincipal.class).iterator().next().getName();
+        };
+
+        final Future<String> first = KerberosProvider.doWithKerberosAuth(callback);
+        final Future<String> second = KerberosProvider.doWithKerberosAuth(callback);
+
+        assertEquals(testKDC.getKeytabPrincipal(), Util.awaitFuture(first));
+        assertEquals(testKDC.getKeytabPrincipal(), Util.awaitFuture(second));
+        assertAuthenticated(testKDC.getKeytabPrincipal());
+    }
+
+    /**
+     * Test that callbacks do not wait for the Kerberos worker thread when already logged in and the thread pool
+     * execution mode is configured.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_doWithKerberosAuth_keytab_fast_path_while_worker_busy() throws Exception {
+        KerberosPluginConfig config = createKeytabKerberosConfig();
+        config.save();
+        KerberosPluginConfig.TEST_OVERRIDES.put(PrefKey.CALLBACK_EXECUTION_MODE_KEY,
+            CallbackExecutionMode.THREAD_POOL.toString());
+
+        final KerberosCallback<String> callback = () -> {
+            final Subject s = Subject.getSubject(AccessController.getContext());
+            return s.getPrincipals(KerberosPrincipal.class).iterator().next().getName();
+        };
+
+        // first callback performs the login on the worker thread
+        assertEquals(testKDC.getKeytabPrincipal(), Util.awaitFuture(KerberosProvider.doWithKerberosAuth(callback)));
+
+        final CountDownLatch workerBlocked = new CountDownLatch(1);
+        final CountDownLatch releaseWorker = new CountDownLatch(1);
+        final Future<?> blocker = KerberosAuthManager.EXECUTOR.submit(() -> {
+            workerBlocked.countDown();
+            releaseWorker.await();
+            return null;
+        });
+        try {
+            assertTrue(workerBlocked.await(10, TimeUnit.SECONDS));
+            assertEquals(testKDC.getKeytabPrincipal(),
+                KerberosProvider.doWithKerberosAuth(callback).get(10, TimeUnit.SECONDS));
+        } finally {
+            releaseWorker.countDown();
+            blocker.get();
+        }
+        assertAuthenticated(testKDC.getKeytabPrincipal());
+    }
+
     /**
      * Test automatic keytab login in KerberosProvider.doWithKerberosAuth().
      *
@@ -187,6 +352,161 @@ public void test_doWithKerberosAuth_userPwd_and_already_logged_in() throws Excep
         }));
     }
 
+    /**
+     * Stress test for {@link CallbackExecutionMode#VIRTUAL_THREADS}: many callbacks block at the same time and then
+     * acquire a service ticket via JGSS inside Subject.doAs(). This only completes if none of the virtual threads pins
+     * its carrier thread, which is additionally verified by recording jdk.VirtualThreadPinned events.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_doWithKerberosAuth_virtual_threads_without_pinning() throws Exception {
+        KerberosPluginConfig config = createKeytabKerberosConfig();
+        config.save();
+        KerberosPluginConfig.TEST_OVERRIDES.put(PrefKey.CALLBACK_EXECUTION_MODE_KEY,
+            CallbackExecutionMode.VIRTUAL_THREADS.toString());
+
+        final String service = "HTTP/virtualthreads";
+        testKDC.createPrincipal(service, "password");
+        final String servicePrincipal = service + "@" + testKDC.getRealm();
+
+        final int callbackCount = 200;
+        final List<RecordedEvent> pinnedEvents = new CopyOnWriteArrayList<>();
+        try (final RecordingStream pinning = new RecordingStream()) {
+            pinning.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            pinning.onEvent("jdk.VirtualThreadPinned", pinnedEvents::add);
+            pinning.startAsync();
+
+            final CountDownLatch allStarted = new CountDownLatch(callbackCount);
+            final List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < callbackCount; i++) {
+                futures.add(KerberosProvider.doWithKerberosAuth(() -> {
+                    assertTrue(Thread.currentThread().isVirtual());
+                    // far more callbacks than carrier threads block at the same time
+                    allStarted.countDown();
+                    assertTrue(allStarted.await(30, TimeUnit.SECONDS));
+
+                    // acquiring the service ticket performs network I/O in the JGSS code
+                    final Oid krb5 = new Oid("1.2.840.113554.1.2.2");
+                    final GSSManager manager = GSSManager.getInstance();
+                    final GSSContext context =
+                        manager.createContext(manager.createName(servicePrincipal, GSSName.NT_USER_NAME, krb5), krb5,
+                            null, GSSContext.DEFAULT_LIFETIME);
+                    try {
+                        return context.initSecContext(new byte[0], 0, 0) != null;
+                    } finally {
+                        context.dispose();
+                    }
+                }));
+            }
+
+            for (Future<Boolean> future : futures) {
+                assertTrue(Util.awaitFuture(future));
+            }
+            // delivers all recorded events
+            pinning.stop();
+        }
+        assertTrue(pinnedEvents.isEmpty(), "Virtual threads were pinned: " + pinnedEvents);
+        assertAuthenticated(testKDC.getKeytabPrincipal());
+    }
+
+    /**
+     * Test that callbacks, which run concurrently on the thread pool and hence each receive their own Subject, reuse
+     * the service ticket that an earlier callback has obtained for the same service, instead of fetching it from the
+     * KDC again. The same holds for callbacks of an explicitly requested principal.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_doWithKerberosAuth_thread_pool_reuses_service_tickets() throws Exception {
+        KerberosPluginConfig config = createKeytabKerberosConfig();
+        config.save();
+        KerberosPluginConfig.TEST_OVERRIDES.put(PrefKey.CALLBACK_EXECUTION_MODE_KEY,
+            CallbackExecutionMode.THREAD_POOL.toString());
+
+        final String service = "HTTP/servicetickets";
+        testKDC.createPrincipal(service, "password");
+        final String servicePrincipal = service + "@" + testKDC.getRealm();
+        final KerberosCallback<Boolean> serviceCallback = () -> initSecContext(servicePrincipal);
+
+        final AtomicInteger tgsRequests = new AtomicInteger();
+        final KerberosDebugEventListener listener = event -> {
+            if (event instanceof KdcExchange exchange && exchange.type() == ExchangeType.TGS) {
+                tgsRequests.incrementAndGet();
+            }
+        };
+        KerberosLogger.addDebugEventListener(listener);
+        try {
+            assertTrue(Util.awaitFuture(KerberosProvider.doWithKerberosAuth(serviceCallback)));
+            assertTrue(Util.awaitFuture(KerberosProvider.doWithKerberosAuth(serviceCallback)));
+            assertEquals(1, tgsRequests.get());
+
+            final String otherPrincipal = "ticketuser@" + testKDC.getRealm();
+            final String otherKeytab = testKDC.createKeytabPrincipal("ticketuser");
+            assertTrue(Util.awaitFuture(
+                KerberosProvider.doWithKerberosAuth(otherPrincipal, otherKeytab, serviceCallback)));
+            assertTrue(Util.awaitFuture(
+                KerberosProvider.doWithKerberosAuth(otherPrincipal, otherKeytab, serviceCallback)));
+            assertEquals(2, tgsRequests.get());
+        } finally {
+            KerberosLogger.removeDebugEventListener(listener);
+        }
+    }
+
+    /**
+     * Test that changing settings that do not affect the login, e.g. the status icon or the renewal window, keeps the
+     * current login, while changing a KDC setting logs in again.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_doWithKerberosAuth_keeps_login_on_non_login_setting_change() throws Exception {
+        KerberosPluginConfig config = createKeytabKerberosConfig();
+        config.save();
+        final KerberosCallback<String> callback =
+            () -> SubjectUtil.current().getPrincipals(KerberosPrincipal.class).iterator().next().getName();
+
+        final AtomicInteger asRequests = new AtomicInteger();
+        final KerberosDebugEventListener listener = event -> {
+            if (event instanceof KdcExchange exchange && exchange.type() == ExchangeType.AS) {
+                asRequests.incrementAndGet();
+            }
+        };
+        KerberosLogger.addDebugEventListener(listener);
+        try {
+            Util.awaitFuture(KerberosProvider.doWithKerberosAuth(callback));
+            final int initialAsRequests = asRequests.get();
+            assertTrue(initialAsRequests > 0);
+
+            new KerberosPluginConfig(KerberosConfigSource.DEFAULT, "", "", "", AuthMethod.KEYTAB,
+                testKDC.getKeytabPrincipal(), testKDC.getKeytabFilePath(), true, PrefKey.DEBUG_LOG_LEVEL_DEFAULT,
+                30000, false, false, null).save();
+            KerberosPluginConfig.TEST_OVERRIDES.put(PrefKey.RENEWAL_WINDOW_PERCENT_KEY, "50");
+            assertEquals(testKDC.getKeytabPrincipal(), Util.awaitFuture(KerberosProvider.doWithKerberosAuth(callback)));
+            assertEquals(initialAsRequests, asRequests.get());
+            assertTrue(KerberosAuthManager.getAuthenticatedSubjectSnapshot(KerberosPluginConfig.load()) != null,
+                "Updated config must take the fast path");
+
+            KerberosPluginConfig.TEST_OVERRIDES.put(PrefKey.KDC_TIMEOUT_MILLIS_KEY, "12345");
+            assertEquals(testKDC.getKeytabPrincipal(), Util.awaitFuture(KerberosProvider.doWithKerberosAuth(callback)));
+            assertTrue(asRequests.get() > initialAsRequests);
+        } finally {
+            KerberosLogger.removeDebugEventListener(listener);
+        }
+    }
+
+    private static boolean initSecContext(final String servicePrincipal) throws GSSException {
+        final Oid krb5 = new Oid("1.2.840.113554.1.2.2");
+        final GSSManager manager = GSSManager.getInstance();
+        final GSSContext context = manager.createContext(
+            manager.createName(servicePrincipal, GSSName.NT_USER_NAME, krb5), krb5, null, GSSContext.DEFAULT_LIFETIME);
+        try {
+            return context.initSecContext(new byte[0], 0, 0) != null;
+        } finally {
+            context.dispose();
+        }
+    }
+
     /**
      * Assert failure in KerberosProvider.doWithKerberosAuth(), when user/pwd auth is configured but the user has not
      * logged in so far. Throws LoginException("Not logged in. Please login via the preference page first.")
@@ -205,6 +525,186 @@ public void test_doWithKerberosAuth_userPwd_but_not_logged_in() {
         })));
     }
 
+    /**
+     * Test that callbacks can request a specific principal, whose login is held concurrently with, and independent of,
+     * the login configured in the preferences, and is reused by subsequent callbacks. The JVM-wide principal system
+     * property, which the login module would prefer over the requested principal, is kept cleared while Kerberos is
+     * configured.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_doWithKerberosAuth_explicit_principal() throws Exception {
+        KerberosPluginConfig config = createKeytabKerberosConfig();
+        config.save();
+        final String servicePrincipal = "serviceuser@" + testKDC.getRealm();
+        final String serviceKeytab = testKDC.createKeytabPrincipal("serviceuser");
+        final KerberosCallback<String> principalCallback =
+            () -> SubjectUtil.current().getPrincipals(KerberosPrincipal.class).iterator().next().getName();
+        final KerberosCallback<String> tgtClientCallback = () -> SubjectUtil.current()
+            .getPrivateCredentials(KerberosTicket.class).iterator().next().getClient().getName();
+
+        final long loginsBefore = KerberosProvider.getMetricsSnapshot().logins().count();
+        assertEquals(servicePrincipal,
+            Util.awaitFuture(KerberosProvider.doWithKerberosAuth(servicePrincipal, serviceKeytab, principalCallback)));
+        assertEquals(servicePrincipal,
+            Util.awaitFuture(KerberosProvider.doWithKerberosAuth(servicePrincipal, serviceKeytab, tgtClientCallback)));
+        // the login configured in the preferences is not touched, but Kerberos has been configured for it
+        assertFalse(KerberosAuthManager.getKerberosState().isAuthenticated());
+        assertNull(System.getProperty("sun.security.krb5.principal"));
+
+        final Future<String> defaultLogin = KerberosProvider.doWithKerberosAuth(principalCallback);
+        final CompletableFuture<String> serviceLogin =
+            KerberosProvider.doWithKerberosAuthAsync(servicePrincipal, serviceKeytab, principalCallback);
+        assertEquals(testKDC.getKeytabPrincipal(), Util.awaitFuture(defaultLogin));
+        assertEquals(servicePrincipal, Util.awaitFuture(serviceLogin));
+        assertAuthenticated(testKDC.getKeytabPrincipal());
+
+        // a new login of the requested principal, while the principal of the preferences is logged in
+        KerberosCredentialManager.logoutAll();
+        assertEquals(servicePrincipal,
+            Util.awaitFuture(KerberosProvider.doWithKerberosAuth(servicePrincipal, serviceKeytab, tgtClientCallback)));
+        assertNull(System.getProperty("sun.security.krb5.principal"));
+        assertAuthenticated(testKDC.getKeytabPrincipal());
+
+        // one login per principal (and one after logging out), the login of the requested principal has been reused
+        assertEquals(loginsBefore + 3, KerberosProvider.getMetricsSnapshot().logins().count());
+        assertEquals(1, KerberosCredentialManager.getLoginCount());
+
+        // each caller gets its own snapshot of the held login
+        final KerberosPluginConfig loadedConfig = KerberosPluginConfig.load();
+        final Subject first =
+            KerberosCredentialManager.getSubjectSnapshot(loadedConfig, servicePrincipal, serviceKeytab);
+        final Subject second =
+            KerberosCredentialManager.getSubjectSnapshot(loadedConfig, servicePrincipal, serviceKeytab);
+        assertNotSame(first, second);
+        first.getPrivateCredentials(KerberosTicket.class).iterator().next().destroy();
+        assertFalse(second.getPrivateCredentials(KerberosTicket.class).iterator().next().isDestroyed());
+
+        assertThrows(LoginException.class, () -> Util.awaitFuture(
+            KerberosProvider.doWithKerberosAuth("unknown@" + testKDC.getRealm(), serviceKeytab, principalCallback)));
+        assertThrows(IllegalArgumentException.class,
+            () -> KerberosProvider.doWithKerberosAuth(" ", serviceKeytab, principalCallback));
+    }
+
+    /**
+     * Test that the login of a requested principal does not wait for the Kerberos worker thread, once Kerberos has
+     * been configured.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_doWithKerberosAuth_explicit_principal_does_not_wait_for_worker() throws Exception {
+        KerberosPluginConfig config = createKeytabKerberosConfig();
+        config.save();
+        final String servicePrincipal = "serviceuser@" + testKDC.getRealm();
+        final String serviceKeytab = testKDC.createKeytabPrincipal("serviceuser");
+        final KerberosCallback<String> principalCallback =
+            () -> SubjectUtil.current().getPrincipals(KerberosPrincipal.class).iterator().next().getName();
+
+        // the first login configures Kerberos on the worker thread
+        assertEquals(servicePrincipal,
+            Util.awaitFuture(KerberosProvider.doWithKerberosAuth(servicePrincipal, serviceKeytab, principalCallback)));
+        KerberosCredentialManager.logoutAll();
+
+        final CountDownLatch workerBlocked = new CountDownLatch(1);
+        final CountDownLatch releaseWorker = new CountDownLatch(1);
+        final Future<?> blocker = KerberosAuthManager.EXECUTOR.submit(() -> {
+            workerBlocked.countDown();
+            releaseWorker.await();
+            return null;
+        });
+        try {
+            assertTrue(workerBlocked.await(10, TimeUnit.SECONDS));
+            assertEquals(servicePrincipal, KerberosProvider
+                .doWithKerberosAuth(servicePrincipal, serviceKeytab, principalCallback).get(10, TimeUnit.SECONDS));
+        } finally {
+            releaseWorker.countDown();
+            blocker.get();
+        }
+    }
+
+    /**
+     * Test that continuations can be composed with the result of KerberosProvider.doWithKerberosAuthAsync(), and that
+     * a login failure completes the future exceptionally.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_doWithKerberosAuthAsync_keytab() throws Exception {
+        KerberosPluginConfig config = createKeytabKerberosConfig();
+        config.save();
+
+        final CompletableFuture<String> principal = KerberosProvider.doWithKerberosAuthAsync(() -> {
+            final Subject s = Subject.getSubject(AccessController.getContext());
+            return s.getPrincipals(KerberosPrincipal.class).iterator().next().getName();
+        }).thenApply(String::toUpperCase);
+        assertEquals(testKDC.getKeytabPrincipal().toUpperCase(), Util.awaitFuture(principal));
+        assertAuthenticated(testKDC.getKeytabPrincipal());
+
+        KerberosInternalAPI.logout().get();
+        new KerberosPluginConfig(KerberosConfigSource.REALM_KDC, "", testKDC.getRealm(), testKDC.getKDCHost(),
+            AuthMethod.USER_PWD, "", "", true, PrefKey.DEBUG_LOG_LEVEL_DEFAULT, 30000, true, true, null).save();
+        final CompletableFuture<Object> failed = KerberosProvider.doWithKerberosAuthAsync(() -> {
+            fail("Should never be executed");
+            return null;
+        });
+        assertThrows(LoginException.class, () -> Util.awaitFuture(failed));
+    }
+
+    /**
+     * Test that dependent stages of the future returned by KerberosProvider.doWithKerberosAuthAsync() never run on the
+     * Kerberos worker thread, which executes the callback by default.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_doWithKerberosAuthAsync_dependents_not_on_worker() throws Exception {
+        KerberosPluginConfig config = createKeytabKerberosConfig();
+        config.save();
+        assertEquals(CallbackExecutionMode.WORKER_THREAD, KerberosPluginConfig.load().getCallbackExecutionMode());
+
+        final CountDownLatch dependentAttached = new CountDownLatch(1);
+        final CompletableFuture<String> callbackFuture = KerberosProvider.doWithKerberosAuthAsync(() -> {
+            assertTrue(dependentAttached.await(10, TimeUnit.SECONDS));
+            return Thread.currentThread().getName();
+        });
+        final CompletableFuture<String> dependentFuture =
+            callbackFuture.thenApply(callbackThread -> Thread.currentThread().getName());
+        dependentAttached.countDown();
+
+        assertEquals("KerberosWorker", Util.awaitFuture(callbackFuture));
+        assertNotEquals("KerberosWorker", Util.awaitFuture(dependentFuture));
+    }
+
+    /**
+     * Test that cancelling the future returned by KerberosProvider.doWithKerberosAuthAsync() interrupts the callback.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_doWithKerberosAuthAsync_cancel_interrupts_callback() throws Exception {
+        KerberosPluginConfig config = createKeytabKerberosConfig();
+        config.save();
+
+        final CountDownLatch callbackStarted = new CountDownLatch(1);
+        final CountDownLatch callbackInterrupted = new CountDownLatch(1);
+        final CompletableFuture<Object> future = KerberosProvider.doWithKerberosAuthAsync(() -> {
+            callbackStarted.countDown();
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) { // NOSONAR expected
+                callbackInterrupted.countDown();
+            }
+            return null;
+        });
+
+        assertTrue(callbackStarted.await(10, TimeUnit.SECONDS));
+        future.cancel(true);
+        assertTrue(callbackInterrupted.await(10, TimeUnit.SECONDS));
+        assertTrue(future.isCancelled());
+    }
+
     /**
      * Assert failure in KerberosProvider.doWithKerberosAuth(), when TICKET_CACHE auth is configured but there is not
      * ticket cache. Throws LoginException("Unable to obtain Principal Name for authentication")
@@ -0,0 +1,195 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.knime.kerberos.config.PrefKey.AuthMethod;
+import org.knime.kerberos.config.PrefKey.CallbackExecutionMode;
+import org.knime.kerberos.config.PrefKey.KerberosConfigSource;
+
+/**
+ * Test cases for {@link KerberosPluginConfig}.
+ *
+ * @author KNIME GmbH
+ */
+public class KerberosPluginConfigTest {
+
+    /**
+     * Setup for each individual test method.
+     */
+    @BeforeEach
+    public void setupBefore() {
+        KerberosPluginConfig.TEST_OVERRIDES = new HashMap<>();
+    }
+
+    /**
+     * Cleanup after each individual test method.
+     */
+    @AfterEach
+    public void cleanupAfter() {
+        KerberosPluginConfig.TEST_OVERRIDES = null;
+    }
+
+    private static KerberosPluginConfig createConfig(final String realm) {
+        return new KerberosPluginConfig(KerberosConfigSource.REALM_KDC, "", realm, "kdc.example.com",
+            AuthMethod.KEYTAB, "user@" + realm, "/tmp/user.keytab", false, PrefKey.DEBUG_LOG_LEVEL_DEFAULT, 30000,
+            true);
+    }
+
+    /**
+     * Tests that {@link KerberosPluginConfig#load()} returns the cached config as long as nothing has changed.
+     */
+    @Test
+    public void test_load_is_cached() {
+        createConfig("EXAMPLE.COM").save();
+
+        final KerberosPluginConfig first = KerberosPluginConfig.load();
+        assertTrue(first.getVersion() > 0);
+        assertSame(first, KerberosPluginConfig.load());
+
+        // saving the same config again does not change anything
+        createConfig("EXAMPLE.COM").save();
+        assertSame(first, KerberosPluginConfig.load());
+    }
+
+    /**
+     * Tests that the version of loaded configs increases when the config changes.
+     */
+    @Test
+    public void test_load_increments_version_on_change() {
+        createConfig("EXAMPLE.COM").save();
+        final KerberosPluginConfig first = KerberosPluginConfig.load();
+
+        createConfig("OTHER.EXAMPLE.COM").save();
+        final KerberosPluginConfig second = KerberosPluginConfig.load();
+        assertEquals("OTHER.EXAMPLE.COM", second.getRealm());
+        assertTrue(second.getVersion() > first.getVersion());
+
+        createConfig("EXAMPLE.COM").save();
+        final KerberosPluginConfig third = KerberosPluginConfig.load();
+        assertEquals(first, third);
+        assertTrue(third.getVersion() > second.getVersion());
+    }
+
+    /**
+     * Tests that changing an advanced setting reloads the config with a new version, so that it is applied.
+     */
+    @Test
+    public void test_load_advanced_setting_increments_version() {
+        createConfig("EXAMPLE.COM").save();
+        final KerberosPluginConfig first = KerberosPluginConfig.load();
+
+        KerberosPluginConfig.TEST_OVERRIDES.put(PrefKey.CALLBACK_EXECUTION_MODE_KEY,
+            CallbackExecutionMode.THREAD_POOL.toString());
+        final KerberosPluginConfig second = KerberosPluginConfig.load();
+        assertNotSame(first, second);
+        assertEquals(CallbackExecutionMode.THREAD_POOL, second.getCallbackExecutionMode());
+        assertNotEquals(first, second);
+        assertTrue(second.getVersion() > first.getVersion());
+
+        KerberosPluginConfig.TEST_OVERRIDES.put(PrefKey.KDC_TIMEOUT_MILLIS_KEY, "12345");
+        final KerberosPluginConfig third = KerberosPluginConfig.load();
+        assertEquals(12345, third.getKdcTimeoutMillis());
+        assertTrue(third.getVersion() > second.getVersion());
+
+        // reloading without changes keeps the version
+        KerberosPluginConfig.TEST_OVERRIDES.put(PrefKey.KDC_TIMEOUT_MILLIS_KEY, "12345");
+        assertEquals(third.getVersion(), KerberosPluginConfig.load().getVersion());
+    }
+
+    /**
+     * Tests that only changes of the login settings are considered to require a new login.
+     */
+    @Test
+    public void test_login_settings() {
+        createConfig("EXAMPLE.COM").save();
+        final KerberosPluginConfig first = KerberosPluginConfig.load();
+
+        KerberosPluginConfig.TEST_OVERRIDES.put(PrefKey.CALLBACK_EXECUTION_MODE_KEY,
+            CallbackExecutionMode.THREAD_POOL.toString());
+        final KerberosPluginConfig second = KerberosPluginConfig.load();
+        assertTrue(second.getVersion() > first.getVersion());
+        assertTrue(second.hasSameLoginSettings(first));
+
+        KerberosPluginConfig.TEST_OVERRIDES.put(PrefKey.KDC_TIMEOUT_MILLIS_KEY, "12345");
+        final KerberosPluginConfig third = KerberosPluginConfig.load();
+        assertFalse(third.hasSameLoginSettings(second));
+
+        // configs that have not been loaded compare the settings
+        final KerberosPluginConfig withoutIcon = new KerberosPluginConfig(KerberosConfigSource.REALM_KDC, "",
+            "EXAMPLE.COM", "kdc.example.com", AuthMethod.KEYTAB, "user@EXAMPLE.COM", "/tmp/user.keytab", false,
+            PrefKey.DEBUG_LOG_LEVEL_DEFAULT, 60000, false);
+        assertTrue(createConfig("EXAMPLE.COM").hasSameLoginSettings(withoutIcon));
+        assertTrue(first.hasSameLoginSettings(withoutIcon));
+        assertFalse(createConfig("OTHER.EXAMPLE.COM").hasSameLoginSettings(withoutIcon));
+    }
+
+    /**
+     * Tests equals() and hashCode() on configs with unset (null) values.
+     */
+    @Test
+    public void test_equals_and_hashCode() {
+        final KerberosPluginConfig defaults = KerberosPluginConfig.defaults();
+        assertEquals(defaults, KerberosPluginConfig.defaults());
+        assertEquals(defaults.hashCode(), KerberosPluginConfig.defaults().hashCode());
+
+        assertEquals(createConfig("EXAMPLE.COM"), createConfig("example.com"));
+        assertEquals(createConfig("EXAMPLE.COM").hashCode(), createConfig("example.com").hashCode());
+        assertNotEquals(createConfig("EXAMPLE.COM"), createConfig("OTHER.EXAMPLE.COM"));
+        assertNotEquals(defaults, createConfig("EXAMPLE.COM"));
+    }
+}
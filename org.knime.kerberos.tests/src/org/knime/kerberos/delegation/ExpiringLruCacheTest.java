@@ -0,0 +1,148 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.delegation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for {@link ExpiringLruCache}.
+ *
+ * @author KNIME GmbH
+ */
+public class ExpiringLruCacheTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T12:00:00Z");
+
+    private static final Instant IN_ONE_HOUR = NOW.plus(Duration.ofHours(1));
+
+    /**
+     * Tests that values are provided until they expire.
+     */
+    @Test
+    public void test_expiry() {
+        final ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(10);
+        cache.put("a", "A", IN_ONE_HOUR, NOW);
+
+        assertEquals("A", cache.get("a", NOW));
+        assertEquals("A", cache.get("a", IN_ONE_HOUR.minusMillis(1)));
+        assertNull(cache.get("a", IN_ONE_HOUR));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Tests that already expired values are not cached.
+     */
+    @Test
+    public void test_put_expired() {
+        final ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(10);
+        cache.put("a", "A", NOW, NOW);
+
+        assertNull(cache.get("a", NOW.minusSeconds(1)));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Tests that the least recently used entries are evicted when the cache is full.
+     */
+    @Test
+    public void test_lru_eviction() {
+        final ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(2);
+        cache.put("a", "A", IN_ONE_HOUR, NOW);
+        cache.put("b", "B", IN_ONE_HOUR, NOW);
+
+        // makes "b" the least recently used entry
+        assertEquals("A", cache.get("a", NOW));
+
+        cache.put("c", "C", IN_ONE_HOUR, NOW);
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b", NOW));
+        assertEquals("A", cache.get("a", NOW));
+        assertEquals("C", cache.get("c", NOW));
+
+        cache.setMaxEntries(1);
+        assertEquals(1, cache.size());
+        assertEquals("C", cache.get("c", NOW));
+    }
+
+    /**
+     * Tests that a cache with a maximum size of zero does not cache anything.
+     */
+    @Test
+    public void test_disabled() {
+        final ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(0);
+        cache.put("a", "A", IN_ONE_HOUR, NOW);
+
+        assertNull(cache.get("a", NOW));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Tests removal of entries.
+     */
+    @Test
+    public void test_remove() {
+        final ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(10);
+        cache.put("a", "A", IN_ONE_HOUR, NOW);
+        cache.put("b", "B", IN_ONE_HOUR, NOW);
+        cache.put("c", "C", IN_ONE_HOUR, NOW);
+
+        cache.remove("a");
+        assertNull(cache.get("a", NOW));
+
+        cache.removeIf((k, v) -> v.equals("B"));
+        assertNull(cache.get("b", NOW));
+        assertEquals("C", cache.get("c", NOW));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.delegation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for {@link S4U2ProxyCache}.
+ *
+ * @author KNIME GmbH
+ */
+public class S4U2ProxyCacheTest {
+
+    private static final Instant START = Instant.parse("2024-01-01T12:00:00Z");
+
+    private static final Instant END = START.plus(Duration.ofHours(10));
+
+    /**
+     * Tests that tickets are reused for the configured fraction of their lifetime.
+     */
+    @Test
+    public void test_reuse_deadline() {
+        assertEquals(START.plus(Duration.ofHours(5)),
+            S4U2ProxyCache.computeReuseDeadline(Date.from(START), Date.from(END), 50));
+        assertEquals(START.plus(Duration.ofMinutes(450)),
+            S4U2ProxyCache.computeReuseDeadline(Date.from(START), Date.from(END), 75));
+        assertEquals(END, S4U2ProxyCache.computeReuseDeadline(Date.from(START), Date.from(END), 100));
+        assertEquals(END, S4U2ProxyCache.computeReuseDeadline(Date.from(START), Date.from(END), 150));
+    }
+
+    /**
+     * Tests that tickets are not reused if reuse is disabled or the lifetime is unknown.
+     */
+    @Test
+    public void test_no_reuse() {
+        assertNull(S4U2ProxyCache.computeReuseDeadline(Date.from(START), Date.from(END), 0));
+        assertNull(S4U2ProxyCache.computeReuseDeadline(null, Date.from(END), 50));
+        assertNull(S4U2ProxyCache.computeReuseDeadline(Date.from(START), null, 50));
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.delegation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.knime.kerberos.api.KerberosDelegationException;
+
+/**
+ * Test cases for {@link S4U2ProxyExecutor}.
+ *
+ * @author KNIME GmbH
+ */
+public class S4U2ProxyExecutorTest {
+
+    private static final String SERVICE = "HTTP";
+
+    /**
+     * Creates tasks that only finish once all of them have been started, i.e. only if they run concurrently.
+     */
+    private static Map<String, Callable<String>> createRendezvousTasks(final String... hostnames) {
+        final var allStarted = new CountDownLatch(hostnames.length);
+        final Map<String, Callable<String>> tasks = new LinkedHashMap<>();
+        for (String hostname : hostnames) {
+            tasks.put(hostname, () -> {
+                allStarted.countDown();
+                if (!allStarted.await(10, TimeUnit.SECONDS)) {
+                    throw new IOException("Tasks did not run concurrently");
+                }
+                return hostname;
+            });
+        }
+        return tasks;
+    }
+
+    /**
+     * Tests that the tasks of multiple hosts are executed concurrently and that the results are returned in the order
+     * of the hostnames.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_tasks_run_concurrently() throws Exception {
+        final var tasks = createRendezvousTasks("host1", "host2", "host3");
+
+        final List<String> results = S4U2ProxyExecutor.invokeAll(SERVICE, tasks, 3);
+
+        assertEquals(List.of("host1", "host2", "host3"), results);
+    }
+
+    /**
+     * Tests that the failures of concurrently executed tasks are reported per hostname, while the remaining hosts
+     * are still processed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_failures_are_reported_per_hostname() throws Exception {
+        final var failure1 = new IOException("host1 failed");
+        final var failure3 = new IOException("host3 failed");
+        final Map<String, Callable<String>> tasks = new LinkedHashMap<>();
+        tasks.put("host1", () -> {
+            throw failure1;
+        });
+        tasks.put("host2", () -> "host2");
+        tasks.put("host3", () -> {
+            throw failure3;
+        });
+
+        final var ex = assertThrows(KerberosDelegationException.class,
+            () -> S4U2ProxyExecutor.invokeAll(SERVICE, tasks, 2));
+
+        assertEquals(List.of("host1", "host3"), List.copyOf(ex.getFailures().keySet()));
+        assertSame(failure1, ex.getFailures().get("host1"));
+        assertSame(failure3, ex.getFailures().get("host3"));
+        assertSame(failure1, ex.getCause());
+        assertTrue(ex.getMessage().contains("on 2 of 3 hosts"), ex.getMessage());
+    }
+
+    /**
+     * Tests that the tasks are executed sequentially on the current thread if the parallelism is one, so that the
+     * first failure is thrown as is.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_tasks_run_sequentially_without_parallelism() throws Exception {
+        final var caller = Thread.currentThread();
+        final var failure = new IOException("host2 failed");
+        final Map<String, Callable<String>> tasks = new LinkedHashMap<>();
+        tasks.put("host1", () -> {
+            assertSame(caller, Thread.currentThread());
+            return "host1";
+        });
+        tasks.put("host2", () -> {
+            throw failure;
+        });
+
+        assertEquals(List.of("host1"), S4U2ProxyExecutor.invokeAll(SERVICE, Map.of("host1", tasks.get("host1")), 4));
+        assertSame(failure, assertThrows(IOException.class, () -> S4U2ProxyExecutor.invokeAll(SERVICE, tasks, 1)));
+    }
+}
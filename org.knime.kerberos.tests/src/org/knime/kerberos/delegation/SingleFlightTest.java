@@ -0,0 +1,222 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.delegation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.knime.kerberos.testing.Util;
+
+/**
+ * Test cases for {@link SingleFlight}.
+ *
+ * @author KNIME GmbH
+ */
+public class SingleFlightTest {
+
+    private static final int FOLLOWERS = 4;
+
+    private ExecutorService m_executor;
+
+    /**
+     * Creates the threads that issue concurrent requests.
+     */
+    @BeforeEach
+    public void setup() {
+        m_executor = Executors.newFixedThreadPool(FOLLOWERS + 1);
+    }
+
+    /**
+     * Stops the threads that issue concurrent requests.
+     */
+    @AfterEach
+    public void tearDown() {
+        m_executor.shutdownNow();
+    }
+
+    /**
+     * Submits follower requests, which wait for the given latch when they are executed, and gives them time to join
+     * the flight of the leader.
+     */
+    private List<Future<String>> submitFollowers(final SingleFlight<String, String> singleFlight,
+        final AtomicInteger executions, final CountDownLatch followerMayFinish) throws InterruptedException {
+
+        final List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < FOLLOWERS; i++) {
+            followers.add(m_executor.submit(() -> singleFlight.execute("key", () -> {
+                executions.incrementAndGet();
+                followerMayFinish.await();
+                return "follower";
+            })));
+        }
+        // give the followers some time to join the flight
+        Thread.sleep(200);
+        return followers;
+    }
+
+    /**
+     * Tests that concurrent identical requests share one execution and its result.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_concurrent_requests_share_result() throws Exception {
+        final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        final AtomicInteger executions = new AtomicInteger();
+        final CountDownLatch leaderStarted = new CountDownLatch(1);
+        final CountDownLatch leaderMayFinish = new CountDownLatch(1);
+
+        final Future<String> leader = m_executor.submit(() -> singleFlight.execute("key", () -> {
+            executions.incrementAndGet();
+            leaderStarted.countDown();
+            leaderMayFinish.await();
+            return "leader";
+        }));
+        leaderStarted.await();
+
+        final List<Future<String>> followers = submitFollowers(singleFlight, executions, new CountDownLatch(0));
+        leaderMayFinish.countDown();
+
+        assertEquals("leader", Util.awaitFuture(leader));
+        for (Future<String> follower : followers) {
+            assertEquals("leader", Util.awaitFuture(follower));
+        }
+        assertEquals(1, executions.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    /**
+     * Tests that the exception of the leader is propagated to all followers.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_exception_propagation() throws Exception {
+        final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        final AtomicInteger executions = new AtomicInteger();
+        final CountDownLatch leaderStarted = new CountDownLatch(1);
+        final CountDownLatch leaderMayFinish = new CountDownLatch(1);
+        final IOException failure = new IOException("KDC unreachable");
+
+        final Future<String> leader = m_executor.submit(() -> singleFlight.execute("key", () -> {
+            executions.incrementAndGet();
+            leaderStarted.countDown();
+            leaderMayFinish.await();
+            throw failure;
+        }));
+        leaderStarted.await();
+
+        final List<Future<String>> followers = submitFollowers(singleFlight, executions, new CountDownLatch(0));
+        leaderMayFinish.countDown();
+
+        assertSame(failure, assertThrows(IOException.class, () -> Util.awaitFuture(leader)));
+        for (Future<String> follower : followers) {
+            assertSame(failure, assertThrows(IOException.class, () -> Util.awaitFuture(follower)));
+        }
+        assertEquals(1, executions.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    /**
+     * Tests that followers retry the request when the leader is interrupted.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_interrupted_leader() throws Exception {
+        final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        final AtomicInteger executions = new AtomicInteger();
+        final CountDownLatch leaderStarted = new CountDownLatch(1);
+
+        final Future<String> leader = m_executor.submit(() -> singleFlight.execute("key", () -> {
+            executions.incrementAndGet();
+            leaderStarted.countDown();
+            Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            return "leader";
+        }));
+        leaderStarted.await();
+
+        final CountDownLatch followerMayFinish = new CountDownLatch(1);
+        final List<Future<String>> followers = submitFollowers(singleFlight, executions, followerMayFinish);
+        leader.cancel(true);
+
+        // one of the followers becomes the new leader, the others share its result
+        Thread.sleep(200);
+        followerMayFinish.countDown();
+        for (Future<String> follower : followers) {
+            assertEquals("follower", Util.awaitFuture(follower));
+        }
+        assertEquals(2, executions.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    /**
+     * Tests that requests with different keys do not share an execution.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_different_keys() throws Exception {
+        final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        assertEquals("a", singleFlight.execute("a", () -> "a"));
+        assertEquals("b", singleFlight.execute("b", () -> "b"));
+        assertEquals(0, singleFlight.size());
+    }
+}
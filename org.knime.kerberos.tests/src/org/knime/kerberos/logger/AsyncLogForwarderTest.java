@@ -0,0 +1,202 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.knime.kerberos.config.PrefKey.DebugLogOverflowPolicy;
+
+/**
+ * Test cases for {@link AsyncLogForwarder}.
+ *
+ * @author KNIME GmbH
+ */
+public class AsyncLogForwarderTest {
+
+    /**
+     * Log forwarder that blocks on the first message until it is released.
+     */
+    private static class BlockingLogForwarder implements LogForwarder {
+
+        private final List<String> m_messages = Collections.synchronizedList(new ArrayList<>());
+
+        private final CountDownLatch m_entered = new CountDownLatch(1);
+
+        private final CountDownLatch m_released = new CountDownLatch(1);
+
+        @Override
+        public void forwardMessage(final String msg) {
+            m_entered.countDown();
+            try {
+                m_released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            m_messages.add(msg);
+        }
+    }
+
+    /**
+     * Tests that all messages are handed to all forwarders in order.
+     */
+    @Test
+    public void test_forwards_in_order() {
+        final AsyncLogForwarder async = new AsyncLogForwarder(16, DebugLogOverflowPolicy.BLOCK);
+        final List<String> first = Collections.synchronizedList(new ArrayList<>());
+        final List<String> second = Collections.synchronizedList(new ArrayList<>());
+        async.addLogForwarder(first::add);
+        async.addLogForwarder(second::add);
+
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            expected.add("line " + i);
+            async.forwardMessage("line " + i);
+        }
+
+        assertTrue(async.awaitDrained(5000));
+        assertEquals(expected, first);
+        assertEquals(expected, second);
+        assertEquals(0, async.getDroppedMessageCount());
+        async.close(1000);
+    }
+
+    /**
+     * Tests that the oldest queued messages are dropped without blocking the writing thread, when the forwarders are
+     * slower than the writing thread.
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    public void test_drop_oldest() throws InterruptedException {
+        final AsyncLogForwarder async = new AsyncLogForwarder(4, DebugLogOverflowPolicy.DROP_OLDEST);
+        final BlockingLogForwarder forwarder = new BlockingLogForwarder();
+        async.addLogForwarder(forwarder);
+
+        async.forwardMessage("line 0");
+        assertTrue(forwarder.m_entered.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 10; i++) {
+            async.forwardMessage("line " + i);
+        }
+        assertEquals(6, async.getDroppedMessageCount());
+
+        forwarder.m_released.countDown();
+        assertTrue(async.awaitDrained(5000));
+        assertEquals(Arrays.asList("line 0", "line 7", "line 8", "line 9", "line 10"), forwarder.m_messages);
+        async.close(1000);
+    }
+
+    /**
+     * Tests that the writing thread waits for free space in the queue, when the forwarders are slower than the writing
+     * thread.
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    public void test_block() throws InterruptedException {
+        final AsyncLogForwarder async = new AsyncLogForwarder(1, DebugLogOverflowPolicy.BLOCK);
+        final BlockingLogForwarder forwarder = new BlockingLogForwarder();
+        async.addLogForwarder(forwarder);
+
+        async.forwardMessage("line 0");
+        assertTrue(forwarder.m_entered.await(5, TimeUnit.SECONDS));
+        async.forwardMessage("line 1");
+
+        final Thread writer = new Thread(() -> async.forwardMessage("line 2"));
+        writer.start();
+        writer.join(AsyncLogForwarder.BLOCK_TIMEOUT_MILLIS / 4);
+        assertTrue(writer.isAlive());
+
+        forwarder.m_released.countDown();
+        writer.join(5000);
+        assertFalse(writer.isAlive());
+        assertTrue(async.awaitDrained(5000));
+        assertEquals(Arrays.asList("line 0", "line 1", "line 2"), forwarder.m_messages);
+        assertEquals(0, async.getDroppedMessageCount());
+        async.close(1000);
+    }
+
+    /**
+     * Tests that the writing thread only waits a bounded amount of time and then drops the message.
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    public void test_block_timeout() throws InterruptedException {
+        final AsyncLogForwarder async = new AsyncLogForwarder(1, DebugLogOverflowPolicy.BLOCK);
+        final BlockingLogForwarder forwarder = new BlockingLogForwarder();
+        async.addLogForwarder(forwarder);
+
+        async.forwardMessage("line 0");
+        assertTrue(forwarder.m_entered.await(5, TimeUnit.SECONDS));
+        async.forwardMessage("line 1");
+        async.forwardMessage("line 2");
+        assertEquals(1, async.getDroppedMessageCount());
+
+        forwarder.m_released.countDown();
+        assertTrue(async.awaitDrained(5000));
+        assertEquals(Arrays.asList("line 0", "line 1"), forwarder.m_messages);
+        async.close(1000);
+    }
+
+    /**
+     * Tests that the capacity must be positive.
+     */
+    @Test
+    public void test_invalid_capacity() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncLogForwarder(0, DebugLogOverflowPolicy.BLOCK));
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.knime.kerberos.logger.KerberosDebugEvent.EncryptionTypes;
+import org.knime.kerberos.logger.KerberosDebugEvent.ExchangeType;
+import org.knime.kerberos.logger.KerberosDebugEvent.KdcError;
+import org.knime.kerberos.logger.KerberosDebugEvent.KdcExchange;
+import org.knime.kerberos.logger.KerberosDebugEvent.KdcTimeout;
+import org.knime.kerberos.logger.KerberosDebugEvent.SelectedEncryptionType;
+
+/**
+ * Test cases for {@link KerberosDebugEventParser}. The debug lines are formatted like the ones of Java 21.
+ *
+ * @author KNIME GmbH
+ */
+public class KerberosDebugEventParserTest {
+
+    private final AtomicLong m_nanos = new AtomicLong();
+
+    private final List<KerberosDebugEvent> m_events = Collections.synchronizedList(new ArrayList<>());
+
+    private KerberosDebugEventParser m_parser;
+
+    /**
+     * Creates a parser with a manual clock, that collects the events.
+     */
+    @BeforeEach
+    public void setup() {
+        m_parser = new KerberosDebugEventParser(m_nanos::get);
+        m_parser.addListener(m_events::add);
+    }
+
+    private void parse(final String... lines) {
+        for (String line : lines) {
+            m_parser.forwardMessage(line);
+        }
+    }
+
+    private void advanceMillis(final long millis) {
+        m_nanos.addAndGet(Duration.ofMillis(millis).toNanos());
+    }
+
+    /**
+     * Tests a successful AS exchange, including the encryption types.
+     */
+    @Test
+    public void test_as_exchange() {
+        parse("Using builtin default etypes for default_tkt_enctypes", //
+            "default etypes for default_tkt_enctypes: 18 17 20 19.", //
+            ">>> KrbAsReq creating message", //
+            ">>> KrbKdcReq send: kdc=kdc1.example.com TCP:88, timeout=5000, number of retries =2, #bytes=261", //
+            ">>> KDCCommunication: kdc=kdc1.example.com TCP:88, timeout=5000,Attempt =1, #bytes=261");
+        advanceMillis(42);
+        parse(">>>DEBUG: TCPClient reading 640 bytes", //
+            ">>> KrbKdcReq send: #bytes read=640", //
+            ">>> KdcAccessibility: remove kdc1.example.com", //
+            ">>> EType: sun.security.krb5.internal.crypto.Aes256CtsHmacSha1EType");
+
+        assertEquals(Arrays.asList( //
+            new EncryptionTypes("default_tkt_enctypes", Arrays.asList(18, 17, 20, 19)), //
+            new KdcExchange(ExchangeType.AS, "kdc1.example.com", "TCP", 1, 261, 640, Duration.ofMillis(42), true),
+            new SelectedEncryptionType("Aes256CtsHmacSha1EType")), m_events);
+    }
+
+    /**
+     * Tests that timeouts and the failover to another KDC are recognized.
+     */
+    @Test
+    public void test_timeout_and_failover() {
+        parse(">>> Credentials serviceCredsSingle: same realm", //
+            ">>> KrbKdcReq send: kdc=kdc1.example.com UDP:88, timeout=1000, number of retries =2, #bytes=600", //
+            ">>> KDCCommunication: kdc=kdc1.example.com UDP:88, timeout=1000,Attempt =1, #bytes=600");
+        advanceMillis(1000);
+        parse("SocketTimeOutException with attempt: 1", //
+            ">>> KDCCommunication: kdc=kdc1.example.com UDP:88, timeout=1000,Attempt =2, #bytes=600");
+        advanceMillis(1000);
+        parse("SocketTimeOutException with attempt: 2", //
+            ">>> KrbKdcReq send: error trying kdc1.example.com", //
+            "java.net.SocketTimeoutException: Receive timed out", //
+            "\tat java.base/sun.nio.ch.DatagramSocketAdaptor.receive(DatagramSocketAdaptor.java:218)", //
+            ">>> KrbKdcReq send: kdc=kdc2.example.com UDP:88, timeout=1000, number of retries =2, #bytes=600", //
+            ">>> KDCCommunication: kdc=kdc2.example.com UDP:88, timeout=1000,Attempt =1, #bytes=600");
+        advanceMillis(15);
+        parse(">>> KrbKdcReq send: #bytes read=700");
+
+        assertEquals(Arrays.asList( //
+            new KdcTimeout("kdc1.example.com", "UDP", 1), //
+            new KdcTimeout("kdc1.example.com", "UDP", 2), //
+            new KdcExchange(ExchangeType.TGS, "kdc1.example.com", "UDP", 2, 600, 0, Duration.ofMillis(2000), false),
+            new KdcExchange(ExchangeType.TGS, "kdc2.example.com", "UDP", 1, 600, 700, Duration.ofMillis(15), true)),
+            m_events);
+    }
+
+    /**
+     * Tests that a KRB-ERROR message is recognized.
+     */
+    @Test
+    public void test_krb_error() {
+        parse(">>>KRBError:", //
+            "\t sTime is Fri Oct 16 12:00:00 CEST 2026 1792144800000", //
+            "\t suSec is 123456", //
+            "\t error code is 25", //
+            "\t error Message is Additional pre-authentication required", //
+            "\t sname is krbtgt/EXAMPLE.COM@EXAMPLE.COM", //
+            "\t eData provided.", //
+            "\t msgType is 30", //
+            "Pre-Authentication Data:");
+
+        assertEquals(Collections.singletonList(new KdcError(25, "Additional pre-authentication required",
+            "krbtgt/EXAMPLE.COM@EXAMPLE.COM")), m_events);
+    }
+
+    /**
+     * Tests that the exchanges of concurrent threads are parsed independently of each other.
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    public void test_concurrent_threads() throws InterruptedException {
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            final String kdc = "kdc" + i + ".example.com";
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    parse(">>> KrbKdcReq send: kdc=" + kdc + " TCP:88, timeout=5000, number of retries =2, #bytes=1",
+                        ">>> KrbKdcReq send: #bytes read=2");
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(4000, m_events.size());
+        for (KerberosDebugEvent event : m_events) {
+            assertTrue(event instanceof KdcExchange exchange && exchange.successful() && exchange.attempts() == 1,
+                event.toString());
+        }
+    }
+
+    /**
+     * Tests that a failing listener neither breaks the parsing nor the other listeners.
+     */
+    @Test
+    public void test_failing_listener() {
+        final KerberosDebugEventParser parser = new KerberosDebugEventParser(m_nanos::get);
+        parser.addListener(e -> {
+            throw new IllegalStateException("test");
+        });
+        parser.addListener(m_events::add);
+
+        parser.forwardMessage(">>> EType: sun.security.krb5.internal.crypto.Aes128CtsHmacSha1EType");
+        parser.forwardMessage(">>> EType: sun.security.krb5.internal.crypto.Aes256CtsHmacSha1EType");
+        assertEquals(2, m_events.size());
+    }
+}
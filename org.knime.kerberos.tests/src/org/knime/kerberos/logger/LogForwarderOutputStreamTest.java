@@ -0,0 +1,186 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for {@link LogForwarderOutputStream}.
+ *
+ * @author KNIME GmbH
+ */
+public class LogForwarderOutputStreamTest {
+
+    private final List<String> m_lines = new ArrayList<>();
+
+    private LogForwarderOutputStream m_stream;
+
+    /**
+     * Creates a stream that collects the forwarded lines.
+     */
+    @BeforeEach
+    public void setup() {
+        m_stream = new LogForwarderOutputStream();
+        m_stream.addLogForwarder(m_lines::add);
+    }
+
+    private void write(final String text) throws IOException {
+        final byte[] bytes = text.getBytes(Charset.defaultCharset());
+        m_stream.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Tests that several lines in one write are forwarded individually, and that an incomplete line is only forwarded
+     * once it is completed.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void test_split_lines() throws IOException {
+        write("first\nsecond\r\nthi");
+        m_stream.flush();
+        assertEquals(Arrays.asList("first", "second"), m_lines);
+
+        write("rd\n\n");
+        assertEquals(Arrays.asList("first", "second", "third", ""), m_lines);
+    }
+
+    /**
+     * Tests that the word-wise line feed search finds the first line feed at every position and ignores bytes that
+     * differ from a line feed in a single bit.
+     */
+    @Test
+    public void test_index_of_line_feed() {
+        final byte[] bytes = new byte[40];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte)(i % 2 == 0 ? 0x8A : 0x0B);
+        }
+        assertEquals(-1, LogForwarderOutputStream.indexOfLineFeed(bytes, 0, bytes.length));
+
+        for (int lineFeed = 0; lineFeed < bytes.length; lineFeed++) {
+            final byte[] withLineFeed = bytes.clone();
+            withLineFeed[lineFeed] = '\n';
+            if (lineFeed + 3 < bytes.length) {
+                withLineFeed[lineFeed + 3] = '\n';
+            }
+            for (int from = 0; from <= lineFeed; from++) {
+                assertEquals(lineFeed, LogForwarderOutputStream.indexOfLineFeed(withLineFeed, from, bytes.length));
+            }
+            assertEquals(-1, LogForwarderOutputStream.indexOfLineFeed(withLineFeed, 0, lineFeed));
+        }
+    }
+
+    /**
+     * Tests that writing single bytes yields the same lines as writing byte arrays.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void test_single_bytes() throws IOException {
+        for (byte b : "a\nbc\r\n".getBytes(Charset.defaultCharset())) {
+            m_stream.write(b);
+        }
+        assertEquals(Arrays.asList("a", "bc"), m_lines);
+    }
+
+    /**
+     * Tests that a multi-byte character that is split across two writes is decoded correctly.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void test_split_character() throws IOException {
+        final byte[] bytes = "Gr\u00fc\u00dfe\n".getBytes(Charset.defaultCharset());
+        m_stream.write(bytes, 0, 3);
+        m_stream.write(bytes, 3, bytes.length - 3);
+        assertEquals(Collections.singletonList("Gr\u00fc\u00dfe"), m_lines);
+    }
+
+    /**
+     * Tests that lines longer than the maximum line length are truncated and that the next line is unaffected.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void test_truncate_long_line() throws IOException {
+        final byte[] chunk = new byte[1024 * 1024];
+        Arrays.fill(chunk, (byte)'x');
+        for (int i = 0; i < 5; i++) {
+            m_stream.write(chunk, 0, chunk.length);
+        }
+        write("\nshort\n");
+
+        assertEquals(2, m_lines.size());
+        assertEquals(LogForwarderOutputStream.MAX_LINE_BYTES, m_lines.get(0).length());
+        assertEquals("short", m_lines.get(1));
+    }
+
+    /**
+     * Tests that nothing is forwarded after the stream has been closed.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void test_closed() throws IOException {
+        m_stream.close();
+        write("ignored\n");
+        assertEquals(Collections.emptyList(), m_lines);
+
+        m_stream.ensureOpen();
+        write("forwarded\n");
+        assertEquals(Collections.singletonList("forwarded"), m_lines);
+    }
+}
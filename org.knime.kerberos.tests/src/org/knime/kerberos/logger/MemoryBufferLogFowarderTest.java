@@ -0,0 +1,126 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for {@link MemoryBufferLogFowarder}.
+ *
+ * @author KNIME GmbH
+ */
+public class MemoryBufferLogFowarderTest {
+
+    private static final Pattern TIMESTAMPED_LINE = Pattern.compile("[0-9]+-[0-9]+-[0-9]+ [0-9]+:[0-9]+:[0-9]+  .*");
+
+    /**
+     * Tests that captured lines are provided in order and with a timestamp.
+     */
+    @Test
+    public void test_captured_lines() {
+        final MemoryBufferLogFowarder forwarder = new MemoryBufferLogFowarder(10);
+        forwarder.forwardMessage("first");
+        forwarder.forwardMessage("second");
+
+        final List<String> lines = forwarder.getCapturedLines();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).endsWith("  first"), lines.get(0));
+        assertTrue(lines.get(1).endsWith("  second"), lines.get(1));
+        assertTrue(TIMESTAMPED_LINE.matcher(lines.get(0)).matches(), lines.get(0));
+        assertEquals(0, forwarder.getDroppedLineCount());
+    }
+
+    /**
+     * Tests that the oldest lines are dropped once the capacity has been reached, also across growing the buffer.
+     */
+    @Test
+    public void test_drop_oldest() {
+        final MemoryBufferLogFowarder forwarder = new MemoryBufferLogFowarder(1000);
+        for (int i = 0; i < 2500; i++) {
+            forwarder.forwardMessage("line " + i);
+        }
+
+        final List<String> lines = forwarder.getCapturedLines();
+        assertEquals(1000, lines.size());
+        assertEquals(1500, forwarder.getDroppedLineCount());
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(lines.get(i).endsWith("  line " + (1500 + i)), lines.get(i));
+        }
+    }
+
+    /**
+     * Tests that clearing the buffer also resets the number of dropped lines.
+     */
+    @Test
+    public void test_clear() {
+        final MemoryBufferLogFowarder forwarder = new MemoryBufferLogFowarder(1);
+        forwarder.forwardMessage("first");
+        forwarder.forwardMessage("second");
+        assertEquals(1, forwarder.getDroppedLineCount());
+
+        forwarder.clearBuffer();
+        assertTrue(forwarder.getCapturedLines().isEmpty());
+        assertEquals(0, forwarder.getDroppedLineCount());
+
+        forwarder.forwardMessage("third");
+        assertEquals(1, forwarder.getCapturedLines().size());
+    }
+
+    /**
+     * Tests that the capacity must be positive.
+     */
+    @Test
+    public void test_invalid_capacity() {
+        assertThrows(IllegalArgumentException.class, () -> new MemoryBufferLogFowarder(0));
+    }
+}
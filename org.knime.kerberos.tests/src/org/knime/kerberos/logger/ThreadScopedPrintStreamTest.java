@@ -0,0 +1,167 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for {@link ThreadScopedPrintStream}.
+ *
+ * @author KNIME GmbH
+ */
+public class ThreadScopedPrintStreamTest {
+
+    private static final String SEPARATOR = System.getProperty("line.separator");
+
+    private final ByteArrayOutputStream m_originalBytes = new ByteArrayOutputStream();
+
+    private final PrintStream m_original = new PrintStream(m_originalBytes, true, StandardCharsets.UTF_8);
+
+    private final ByteArrayOutputStream m_captured = new ByteArrayOutputStream();
+
+    private static void printAll(final PrintStream stream, final String prefix) {
+        stream.println(prefix + " line");
+        stream.print(prefix + " print");
+        stream.println();
+        stream.println(42);
+        stream.printf("%s format%n", prefix);
+        stream.write('!');
+        stream.flush();
+    }
+
+    private static String expectedOutput(final String prefix) {
+        return prefix + " line" + SEPARATOR + prefix + " print" + SEPARATOR + "42" + SEPARATOR + prefix + " format"
+            + SEPARATOR + "!";
+    }
+
+    /**
+     * Tests that only the output of marked threads is captured.
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    public void test_captures_marked_threads_only() throws InterruptedException {
+        final ThreadScopedPrintStream stream = new ThreadScopedPrintStream(m_original, m_captured, false);
+
+        printAll(stream, "unmarked");
+
+        final Thread marked = new Thread(KerberosLogger.capturing(() -> printAll(stream, "marked")));
+        marked.start();
+        marked.join();
+
+        assertEquals(expectedOutput("unmarked"), m_originalBytes.toString(StandardCharsets.UTF_8));
+        assertEquals(expectedOutput("marked"), m_captured.toString());
+        assertFalse(ThreadScopedPrintStream.isCurrentThreadMarked());
+    }
+
+    /**
+     * Tests that {@link KerberosLogger#captureCurrentThread()} captures the output of the current thread only within
+     * its scope, and keeps the mark of threads that have been marked before.
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    public void test_captures_current_thread_within_scope() throws InterruptedException {
+        final ThreadScopedPrintStream stream = new ThreadScopedPrintStream(m_original, m_captured, false);
+
+        try (var capture = KerberosLogger.captureCurrentThread()) {
+            try (var nested = KerberosLogger.captureCurrentThread()) {
+                printAll(stream, "nested");
+            }
+            assertTrue(ThreadScopedPrintStream.isCurrentThreadMarked());
+        }
+        assertFalse(ThreadScopedPrintStream.isCurrentThreadMarked());
+        printAll(stream, "unmarked");
+
+        final Thread marked = new Thread(KerberosLogger.capturing(() -> {
+            try (var capture = KerberosLogger.captureCurrentThread()) {
+                printAll(stream, "scoped");
+            }
+            printAll(stream, "marked");
+        }));
+        marked.start();
+        marked.join();
+
+        assertEquals(expectedOutput("unmarked"), m_originalBytes.toString(StandardCharsets.UTF_8));
+        assertEquals(expectedOutput("nested") + expectedOutput("scoped") + expectedOutput("marked"),
+            m_captured.toString());
+    }
+
+    /**
+     * Tests that the output of all threads is captured, if so configured.
+     */
+    @Test
+    public void test_captures_all_threads() {
+        final ThreadScopedPrintStream stream = new ThreadScopedPrintStream(m_original, m_captured, false);
+        stream.setCaptureAllThreads(true);
+
+        printAll(stream, "unmarked");
+
+        assertEquals("", m_originalBytes.toString(StandardCharsets.UTF_8));
+        assertEquals(expectedOutput("unmarked"), m_captured.toString());
+    }
+
+    /**
+     * Tests that closing the stream does not close the original System.out.
+     */
+    @Test
+    public void test_close_keeps_original_open() {
+        final ThreadScopedPrintStream stream = new ThreadScopedPrintStream(m_original, m_captured, false);
+        stream.close();
+
+        m_original.println("still open");
+        assertFalse(m_original.checkError());
+        assertEquals("still open" + SEPARATOR, m_originalBytes.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.knime.kerberos.api.KerberosMetricsSnapshot.LatencySnapshot;
+
+/**
+ * Test cases for {@link LatencyHistogram}.
+ *
+ * @author KNIME GmbH
+ */
+public class LatencyHistogramTest {
+
+    /**
+     * Tests that each value is counted in a bucket whose upper bound is at least the value and within the relative
+     * error of the histogram.
+     */
+    @Test
+    public void test_bucket_bounds() {
+        final long[] values = {0, 1, 15, 16, 17, 31, 32, 33, 1000, 123_456_789, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        for (final long value : values) {
+            final int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(index >= 0 && index < LatencyHistogram.BUCKET_COUNT, "Bucket index of " + value);
+            final long upperBound = LatencyHistogram.bucketUpperBound(index);
+            assertTrue(upperBound >= value, "Upper bound of " + value);
+            assertTrue(upperBound - value <= value / LatencyHistogram.SUB_BUCKET_COUNT, "Error of " + value);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.bucketUpperBound(index - 1) < value, "Previous bucket of " + value);
+            }
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.bucketUpperBound(LatencyHistogram.BUCKET_COUNT - 1));
+    }
+
+    /**
+     * Tests the statistics derived from the recorded values.
+     */
+    @Test
+    public void test_snapshot() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertSame(LatencySnapshot.EMPTY, histogram.snapshot());
+
+        for (var i = 1; i <= 1000; i++) {
+            histogram.record(Duration.ofMillis(i).toNanos());
+        }
+        histogram.record(-1);
+
+        final LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(1001, snapshot.count());
+        assertEquals(Duration.ZERO, snapshot.min());
+        assertEquals(Duration.ofMillis(1000), snapshot.max());
+        assertEquals(Duration.ofNanos(Duration.ofMillis(500500).toNanos() / 1001), snapshot.mean());
+        assertWithinError(Duration.ofMillis(500), snapshot.p50());
+        assertWithinError(Duration.ofMillis(900), snapshot.p90());
+        assertWithinError(Duration.ofMillis(990), snapshot.p99());
+    }
+
+    /**
+     * Tests that values recorded concurrently are all counted.
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    public void test_concurrent_recording() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final List<Thread> threads = new ArrayList<>();
+        for (var t = 0; t < 4; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (var i = 0; i < 10_000; i++) {
+                    histogram.record(i);
+                }
+            }));
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40_000, histogram.snapshot().count());
+        assertEquals(Duration.ofNanos(9_999), histogram.snapshot().max());
+    }
+
+    private static void assertWithinError(final Duration expected, final Duration actual) {
+        final long error = Math.abs(actual.toNanos() - expected.toNanos());
+        assertTrue(error <= expected.toNanos() / LatencyHistogram.SUB_BUCKET_COUNT,
+            "Expected " + expected + " but was " + actual);
+    }
+}
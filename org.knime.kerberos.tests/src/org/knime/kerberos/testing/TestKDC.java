@@ -276,6 +276,19 @@ public synchronized void createPrincipal(final String principal, final String pa
         m_kdcServer.createPrincipal(principal, password);
     }
 
+    /**
+     * Creates a principal in the KDC and a separate keytab file for it.
+     *
+     * @param principal The principal to add to the KDC (do not include realm)
+     * @return the path of the keytab file that holds the keys of the principal.
+     * @throws Exception thrown if something went wrong
+     */
+    public synchronized String createKeytabPrincipal(final String principal) throws Exception {
+        final File keytabFile = m_tempDir.resolve(principal + ".keytab").toFile();
+        createPrincipal(keytabFile, principal);
+        return keytabFile.getAbsolutePath();
+    }
+
     /**
      * Creates one or multiple principals in the KDC and adds them to a keytab file.
      *
@@ -0,0 +1,203 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+
+import javax.security.auth.Subject;
+
+import org.apache.log4j.Logger;
+import org.knime.kerberos.config.KerberosPluginConfig;
+
+import com.sun.security.auth.module.UnixSystem;
+
+/**
+ * {@link TicketCacheChangeDetector} that fingerprints the ticket cache file (modification time, size and file key,
+ * i.e. the inode on Unix systems). As long as the fingerprint is unchanged, the ticket cache is considered unchanged
+ * without reading it. If the fingerprint has changed, the file may have been rewritten with the same ticket granting
+ * ticket (e.g. when service tickets were added), hence the check is delegated to a
+ * {@link LoginTicketCacheChangeDetector}.
+ *
+ * <p>
+ * A fingerprint is not trusted if the file was modified shortly before the fingerprint was taken, because a
+ * subsequent modification within the resolution of the file system timestamps might go unnoticed. The same holds
+ * when the ticket cache is not a file, e.g. a kernel keyring or the Windows LSA cache.
+ * </p>
+ *
+ * @author KNIME GmbH
+ */
+final class FileFingerprintTicketCacheChangeDetector implements TicketCacheChangeDetector {
+
+    private static final Logger LOG = Logger.getLogger(FileFingerprintTicketCacheChangeDetector.class);
+
+    /** Modifications within this window before taking a fingerprint may not change the modification time. */
+    private static final Duration TIMESTAMP_RESOLUTION = Duration.ofSeconds(2);
+
+    private static final String FILE_CACHE_TYPE_PREFIX = "FILE:";
+
+    private final Path m_ticketCacheFile;
+
+    private final LoginTicketCacheChangeDetector m_loginDetector;
+
+    // written on the KerberosWorker thread, but read by arbitrary threads via isKnownUnchanged()
+    private volatile Fingerprint m_recordedFingerprint;
+
+    FileFingerprintTicketCacheChangeDetector(final KerberosPluginConfig config,
+        final LoginTicketCacheChangeDetector loginDetector) {
+        m_ticketCacheFile = resolveTicketCacheFile(config);
+        m_loginDetector = loginDetector;
+    }
+
+    @Override
+    public void recordTicketCacheState() {
+        m_recordedFingerprint = takeFingerprint();
+    }
+
+    @Override
+    public boolean isKnownUnchanged() {
+        final Fingerprint recorded = m_recordedFingerprint;
+        return recorded != null && recorded.isTrustworthy() && recorded.matches(takeFingerprint());
+    }
+
+    @Override
+    public boolean hasChanged(final Subject loginSubject) {
+        if (isKnownUnchanged()) {
+            return false;
+        }
+
+        // take the fingerprint before reading the ticket cache, so that concurrent modifications are noticed next time
+        final Fingerprint current = takeFingerprint();
+        final boolean changed = m_loginDetector.hasChanged(loginSubject);
+        if (!changed) {
+            m_recordedFingerprint = current;
+        }
+        return changed;
+    }
+
+    private Fingerprint takeFingerprint() {
+        if (m_ticketCacheFile == null) {
+            return null;
+        }
+
+        try {
+            final BasicFileAttributes attrs = Files.readAttributes(m_ticketCacheFile, BasicFileAttributes.class);
+            return new Fingerprint(attrs.lastModifiedTime(), attrs.size(), attrs.fileKey(), Instant.now());
+        } catch (IOException e) { // NOSONAR
+            // ticket cache does not exist (anymore)
+            return null;
+        }
+    }
+
+    /**
+     * Resolves the ticket cache file in the same way as the JDK Kerberos implementation does.
+     *
+     * @return the path of the ticket cache file, or null if the ticket cache is not a file.
+     */
+    private static Path resolveTicketCacheFile(final KerberosPluginConfig config) {
+        String cacheName = config.isTestConfiguration() ? config.getTicketCache() : null;
+
+        if (cacheName == null || cacheName.isEmpty()) {
+            cacheName = System.getenv("KRB5CCNAME");
+            if (cacheName != null && cacheName.regionMatches(true, 0, FILE_CACHE_TYPE_PREFIX, 0,
+                FILE_CACHE_TYPE_PREFIX.length())) {
+                cacheName = cacheName.substring(FILE_CACHE_TYPE_PREFIX.length());
+            } else if (cacheName != null && cacheName.indexOf(':') > 1) {
+                // other cache types such as KEYRING:, DIR: or API: are not supported by Java
+                return null;
+            }
+        }
+
+        if (cacheName == null || cacheName.isEmpty()) {
+            cacheName = getDefaultTicketCacheName();
+        }
+
+        try {
+            return Paths.get(cacheName).toAbsolutePath();
+        } catch (InvalidPathException e) {
+            LOG.debug("Cannot fingerprint ticket cache " + cacheName + ": " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static String getDefaultTicketCacheName() {
+        if (!System.getProperty("os.name", "").startsWith("Windows")) {
+            try {
+                return "/tmp/krb5cc_" + new UnixSystem().getUid();
+            } catch (UnsatisfiedLinkError | RuntimeException e) { // NOSONAR fall back to home directory like Java
+                LOG.debug("Failed to determine uid: " + e.getMessage(), e);
+            }
+        }
+
+        final String userHome = System.getProperty("user.home", System.getProperty("user.dir"));
+        final String userName = System.getProperty("user.name");
+        return userName != null //
+            ? Paths.get(userHome, "krb5cc_" + userName).toString() //
+            : Paths.get(userHome, "krb5cc").toString();
+    }
+
+    private record Fingerprint(FileTime lastModified, long size, Object fileKey, Instant takenAt) {
+
+        boolean isTrustworthy() {
+            return lastModified.toInstant().isBefore(takenAt.minus(TIMESTAMP_RESOLUTION));
+        }
+
+        boolean matches(final Fingerprint other) {
+            return other != null //
+                && lastModified.equals(other.lastModified) //
+                && size == other.size //
+                && Objects.equals(fileKey, other.fileKey);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Caches the krb5.conf files that are generated for
+ * {@link org.knime.kerberos.config.PrefKey.KerberosConfigSource#REALM_KDC}, keyed by the hash of their contents. This
+ * way, repeated configure/rollback cycles with the same configuration point Java's Kerberos implementation to the same
+ * file, so that it does not need to re-read its configuration (see {@link KerberosAuthManager#configure}). The least
+ * recently used files are deleted when more than {@link #MAX_ENTRIES} files are cached, all others when the JVM exits.
+ *
+ * <p>
+ * This class is threadsafe.
+ * </p>
+ *
+ * @author KNIME GmbH
+ */
+final class GeneratedKrb5ConfCache {
+
+    private static final Logger LOG = Logger.getLogger(GeneratedKrb5ConfCache.class);
+
+    /** The maximum number of cached files. */
+    static final int MAX_ENTRIES = 8;
+
+    private final Map<String, Path> m_files = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Path> eldest) {
+            if (size() > MAX_ENTRIES) {
+                deleteQuietly(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * Provides a krb5.conf file with the given contents. If such a file has been created before and still exists, it is
+     * reused, otherwise a new temporary file is created.
+     *
+     * @param contents The contents of the krb5.conf file.
+     * @return the path of a krb5.conf file with the given contents.
+     * @throws IOException if the file could not be created.
+     */
+    synchronized Path getOrCreate(final String contents) throws IOException {
+        final byte[] bytes = contents.getBytes(StandardCharsets.UTF_8);
+        final String hash = sha256(bytes);
+
+        final Path cached = m_files.get(hash);
+        if (cached != null && Files.isRegularFile(cached) && Files.size(cached) == bytes.length) {
+            LOG.debug("Reusing generated Kerberos config " + cached);
+            return cached;
+        }
+
+        final Path configFile = Files.createTempFile("krb", ".conf");
+        Files.write(configFile, bytes, StandardOpenOption.WRITE);
+        configFile.toFile().deleteOnExit();
+        m_files.put(hash, configFile);
+        return configFile;
+    }
+
+    /**
+     * @return the number of cached files.
+     */
+    synchronized int size() {
+        return m_files.size();
+    }
+
+    /**
+     * Deletes all cached files.
+     */
+    synchronized void clear() {
+        m_files.values().forEach(GeneratedKrb5ConfCache::deleteQuietly);
+        m_files.clear();
+    }
+
+    private static String sha256(final byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // we only log this as debug because we can safely ignore it
+            LOG.debug("Failed to delete temp file: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,524 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.UnresolvedAddressException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Keeps latency statistics per KDC, which are used to order the KDCs in the Kerberos configuration that is generated
+ * for {@link org.knime.kerberos.config.PrefKey.KerberosConfigSource#REALM_KDC}. The Java Kerberos implementation
+ * tries the KDCs of a realm one after another, hence the fastest KDC should come first. Latencies are measured by
+ * probing the KDCs concurrently in the background, so that generating a configuration never waits for a KDC. A probe
+ * uses the transport which the Kerberos implementation uses for its requests: a UDP probe sends an AS-REQ for a
+ * non-existent principal and waits for the KRB-ERROR reply, a TCP probe only connects to the KDC.
+ *
+ * <p>
+ * This class is threadsafe.
+ * </p>
+ *
+ * @author KNIME GmbH
+ */
+final class KdcLatencyTracker {
+
+    private static final Logger LOG = Logger.getLogger(KdcLatencyTracker.class);
+
+    private static final KdcLatencyTracker INSTANCE = new KdcLatencyTracker();
+
+    /** Port of a KDC, if none is specified. */
+    static final int DEFAULT_KDC_PORT = 88;
+
+    /** Number of latency samples that are kept per KDC. */
+    static final int MAX_SAMPLES = 32;
+
+    /** The latency percentile that is used to derive the hedging delay. */
+    static final double HEDGE_PERCENTILE = 0.95;
+
+    /**
+     * Factor applied to the latency percentile, because a KDC request takes longer than a TCP connect, due to the
+     * cryptographic operations and database lookups on the KDC.
+     */
+    static final int HEDGE_LATENCY_FACTOR = 4;
+
+    /** Lower bound for the hedging delay, so that network hiccups do not immediately cause a failover. */
+    static final long MIN_HEDGE_DELAY_MILLIS = 1000;
+
+    /** How long the latency statistics of a KDC are used, before the KDC is probed again. */
+    static final long PROBE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /** The client principal of the AS-REQ sent by UDP probes, which is not expected to exist. */
+    static final String PROBE_PRINCIPAL = "knime-kdc-probe";
+
+    private static final int MAX_UDP_REPLY_SIZE = 65536;
+
+    private static final ExecutorService PROBE_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        final Thread t = new Thread(r, "KerberosKdcProbe");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * The transport used to probe a KDC.
+     */
+    enum Transport {
+            /** Sends an AS-REQ as datagram and waits for the reply. */
+            UDP,
+            /** Connects to the KDC. */
+            TCP
+    }
+
+    private final Map<String, LatencyStats> m_stats = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<List<String>, CompletableFuture<Void>> m_pendingProbes = new ConcurrentHashMap<>();
+
+    /**
+     * Latency samples of a single KDC, kept in a ring buffer.
+     */
+    private static final class LatencyStats {
+
+        private final long[] m_samples = new long[MAX_SAMPLES];
+
+        private int m_sampleCount;
+
+        private int m_nextSample;
+
+        private boolean m_lastProbeFailed;
+
+        private long m_lastProbeNanos;
+
+        synchronized void recordLatency(final long millis) {
+            m_samples[m_nextSample] = millis;
+            m_nextSample = (m_nextSample + 1) % MAX_SAMPLES;
+            m_sampleCount = Math.min(m_sampleCount + 1, MAX_SAMPLES);
+            m_lastProbeFailed = false;
+            m_lastProbeNanos = System.nanoTime();
+        }
+
+        synchronized void recordFailure() {
+            m_lastProbeFailed = true;
+            m_lastProbeNanos = System.nanoTime();
+        }
+
+        synchronized boolean isStale() {
+            return System.nanoTime() - m_lastProbeNanos > TimeUnit.MILLISECONDS.toNanos(PROBE_TTL_MILLIS);
+        }
+
+        synchronized boolean isReachable() {
+            return m_sampleCount > 0 && !m_lastProbeFailed;
+        }
+
+        /**
+         * @return 0 if the KDC is reachable, 1 if this is unknown, 2 if the last probe failed.
+         */
+        synchronized int getReachabilityRank() {
+            if (m_lastProbeFailed) {
+                return 2;
+            }
+            return m_sampleCount > 0 ? 0 : 1;
+        }
+
+        synchronized long getPercentile(final double percentile) {
+            if (m_sampleCount == 0) {
+                return -1;
+            }
+            final long[] sorted = Arrays.copyOf(m_samples, m_sampleCount);
+            Arrays.sort(sorted);
+            final int index = (int)Math.ceil(percentile * m_sampleCount) - 1;
+            return sorted[Math.max(0, Math.min(index, m_sampleCount - 1))];
+        }
+    }
+
+    /**
+     * Probe of a single KDC that is in progress.
+     */
+    private record Probe(String kdc, Transport transport, long startNanos) {
+    }
+
+    KdcLatencyTracker() {
+    }
+
+    /**
+     * @return the instance that keeps the statistics of all KDCs used by KNIME.
+     */
+    static KdcLatencyTracker getInstance() {
+        return INSTANCE;
+    }
+
+    private LatencyStats getStats(final String kdc) {
+        return m_stats.computeIfAbsent(kdc, k -> new LatencyStats());
+    }
+
+    void recordLatency(final String kdc, final long millis) {
+        getStats(kdc).recordLatency(millis);
+    }
+
+    void recordFailure(final String kdc) {
+        getStats(kdc).recordFailure();
+    }
+
+    /**
+     * @param kdc The KDC (host or host:port).
+     * @param percentile The percentile between zero and one, e.g. 0.5 for the median.
+     * @return the given latency percentile in milliseconds of the given KDC, or -1 if no latency has been recorded.
+     */
+    long getLatencyPercentile(final String kdc, final double percentile) {
+        final LatencyStats stats = m_stats.get(kdc);
+        return stats != null ? stats.getPercentile(percentile) : -1;
+    }
+
+    /**
+     * Orders the given KDCs by their median latency. KDCs without any recorded latency come after those with a
+     * recorded latency, followed by KDCs whose last probe failed. Within each of these groups, the given order is
+     * retained for KDCs with equal latency.
+     *
+     * @param kdcs The KDCs (host or host:port) to order.
+     * @return the KDCs in the order in which they should be tried.
+     */
+    List<String> orderByLatency(final List<String> kdcs) {
+        final List<String> ordered = new ArrayList<>(kdcs);
+        ordered.sort(Comparator.comparingInt(this::getReachabilityRank) //
+            .thenComparingLong(kdc -> getLatencyPercentile(kdc, 0.5)));
+        return ordered;
+    }
+
+    private int getReachabilityRank(final String kdc) {
+        final LatencyStats stats = m_stats.get(kdc);
+        return stats != null ? stats.getReachabilityRank() : 1;
+    }
+
+    /**
+     * Computes how long to wait for the response of a KDC, before trying the next one. This is the highest
+     * {@link #HEDGE_PERCENTILE latency percentile} among the reachable KDCs, multiplied with
+     * {@link #HEDGE_LATENCY_FACTOR}, but at least {@link #MIN_HEDGE_DELAY_MILLIS} and at most the given timeout.
+     *
+     * @param kdcs The KDCs (host or host:port).
+     * @param timeoutMillis The configured KDC timeout.
+     * @return the delay in milliseconds after which the next KDC should be tried.
+     */
+    long computeHedgeDelay(final List<String> kdcs, final long timeoutMillis) {
+        long maxPercentile = -1;
+        for (final String kdc : kdcs) {
+            final LatencyStats stats = m_stats.get(kdc);
+            if (stats != null && stats.isReachable()) {
+                maxPercentile = Math.max(maxPercentile, stats.getPercentile(HEDGE_PERCENTILE));
+            }
+        }
+
+        if (maxPercentile < 0) {
+            return timeoutMillis;
+        }
+        return Math.min(Math.max(maxPercentile * HEDGE_LATENCY_FACTOR, MIN_HEDGE_DELAY_MILLIS), timeoutMillis);
+    }
+
+    /**
+     * @param kdc The KDC (host or host:port).
+     * @return whether the KDC has not been probed within the last {@link #PROBE_TTL_MILLIS}.
+     */
+    boolean isStale(final String kdc) {
+        final LatencyStats stats = m_stats.get(kdc);
+        return stats == null || stats.isStale();
+    }
+
+    /**
+     * Probes those of the given KDCs in the background, whose statistics are {@link #isStale(String) stale}. A probe of
+     * the same KDCs, which is already in progress, is not started again.
+     *
+     * @param kdcs The KDCs (host or host:port) to probe.
+     * @param realm The realm of the KDCs.
+     * @param transport The transport to probe with.
+     * @param timeoutMillis How long to wait for the KDCs.
+     * @return a future that completes when the probe has finished.
+     */
+    CompletableFuture<Void> probeInBackground(final List<String> kdcs, final String realm, final Transport transport,
+        final long timeoutMillis) {
+
+        final List<String> staleKdcs = kdcs.stream().filter(this::isStale).toList();
+        if (staleKdcs.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final CompletableFuture<Void> newProbe = new CompletableFuture<>();
+        final CompletableFuture<Void> pendingProbe = m_pendingProbes.putIfAbsent(staleKdcs, newProbe);
+        if (pendingProbe != null) {
+            return pendingProbe;
+        }
+
+        PROBE_EXECUTOR.execute(() -> {
+            try {
+                probe(staleKdcs, realm, transport, timeoutMillis);
+            } finally {
+                m_pendingProbes.remove(staleKdcs, newProbe);
+                newProbe.complete(null);
+            }
+        });
+        return newProbe;
+    }
+
+    /**
+     * Probes the given KDCs concurrently with non-blocking channels and records the measured latencies. KDCs that do
+     * not respond within the given timeout are recorded as failed.
+     *
+     * @param kdcs The KDCs (host or host:port) to probe.
+     * @param realm The realm of the KDCs.
+     * @param transport The transport to probe with.
+     * @param timeoutMillis How long to wait for the KDCs.
+     */
+    void probe(final List<String> kdcs, final String realm, final Transport transport, final long timeoutMillis) {
+        try (Selector selector = Selector.open()) {
+            final Set<SelectionKey> pending = new HashSet<>();
+            for (final String kdc : kdcs) {
+                if (transport == Transport.UDP) {
+                    startUdpProbe(selector, kdc, realm, pending);
+                } else {
+                    startProbe(selector, kdc, pending);
+                }
+            }
+
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (!pending.isEmpty()) {
+                final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    break;
+                }
+                selector.select(remainingMillis);
+                for (final SelectionKey key : selector.selectedKeys()) {
+                    if (finishProbe(key)) {
+                        pending.remove(key);
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+
+            for (final SelectionKey key : pending) {
+                final Probe probe = (Probe)key.attachment();
+                LOG.debug(String.format("KDC %s did not respond within %d ms", probe.kdc(), timeoutMillis));
+                recordFailure(probe.kdc());
+                closeQuietly(key.channel());
+            }
+        } catch (IOException e) {
+            LOG.debug("Failed to probe KDCs: " + e.getMessage(), e);
+        }
+    }
+
+    private void startProbe(final Selector selector, final String kdc, final Set<SelectionKey> pending) {
+        SocketChannel channel = null;
+        try {
+            final InetSocketAddress address = toSocketAddress(kdc);
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            final long startNanos = System.nanoTime();
+            if (channel.connect(address)) {
+                recordLatency(kdc, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                closeQuietly(channel);
+            } else {
+                pending.add(channel.register(selector, SelectionKey.OP_CONNECT,
+                    new Probe(kdc, Transport.TCP, startNanos)));
+            }
+        } catch (IOException | URISyntaxException | UnresolvedAddressException e) {
+            LOG.debug(String.format("Failed to probe KDC %s: %s", kdc, e.getMessage()), e);
+            recordFailure(kdc);
+            if (channel != null) {
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    private void startUdpProbe(final Selector selector, final String kdc, final String realm,
+        final Set<SelectionKey> pending) {
+        DatagramChannel channel = null;
+        try {
+            final InetSocketAddress address = toSocketAddress(kdc);
+            channel = DatagramChannel.open();
+            channel.configureBlocking(false);
+            // connecting the channel reports an unreachable port as exception on read
+            channel.connect(address);
+            final long startNanos = System.nanoTime();
+            channel.write(ByteBuffer.wrap(createProbeRequest(realm)));
+            pending.add(channel.register(selector, SelectionKey.OP_READ, new Probe(kdc, Transport.UDP, startNanos)));
+        } catch (IOException | URISyntaxException | UnresolvedAddressException e) {
+            LOG.debug(String.format("Failed to probe KDC %s: %s", kdc, e.getMessage()), e);
+            recordFailure(kdc);
+            if (channel != null) {
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    /**
+     * @return true if the probe has finished, false if it has to wait further.
+     */
+    private boolean finishProbe(final SelectionKey key) {
+        final Probe probe = (Probe)key.attachment();
+        try {
+            if (probe.transport() == Transport.UDP) {
+                if (((DatagramChannel)key.channel()).read(ByteBuffer.allocate(MAX_UDP_REPLY_SIZE)) <= 0) {
+                    return false;
+                }
+            } else {
+                ((SocketChannel)key.channel()).finishConnect();
+            }
+            final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - probe.startNanos());
+            LOG.debug(String.format("KDC %s responded within %d ms", probe.kdc(), millis));
+            recordLatency(probe.kdc(), millis);
+        } catch (IOException e) {
+            LOG.debug(String.format("Failed to probe KDC %s: %s", probe.kdc(), e.getMessage()), e);
+            recordFailure(probe.kdc());
+        }
+        closeQuietly(key.channel());
+        return true;
+    }
+
+    /**
+     * Creates a DER encoded AS-REQ (RFC 4120, section 5.4.1) for the {@link #PROBE_PRINCIPAL} without
+     * pre-authentication, which any KDC answers with a KRB-ERROR.
+     *
+     * @param realm The realm of the KDC.
+     * @return the encoded request.
+     */
+    static byte[] createProbeRequest(final String realm) {
+        final byte[] body = der(0x30, //
+            der(0xA0, der(0x03, new byte[5])), // kdc-options: unused bits and 32 flags, all zero
+            der(0xA1, principalName(1, PROBE_PRINCIPAL)), // cname, NT-PRINCIPAL
+            der(0xA2, generalString(realm)), //
+            der(0xA3, principalName(2, "krbtgt", realm)), // sname, NT-SRV-INST
+            der(0xA5, der(0x18, "20370913024805Z".getBytes(StandardCharsets.US_ASCII))), // till
+            der(0xA7, integer(ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE))), // nonce
+            der(0xA8, der(0x30, integer(18), integer(17)))); // etype: aes256-cts, aes128-cts
+
+        return der(0x6A, // [APPLICATION 10] AS-REQ
+            der(0x30, //
+                der(0xA1, integer(5)), // pvno
+                der(0xA2, integer(10)), // msg-type
+                der(0xA4, body)));
+    }
+
+    private static byte[] principalName(final int nameType, final String... names) {
+        final byte[][] nameStrings = new byte[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            nameStrings[i] = generalString(names[i]);
+        }
+        return der(0x30, der(0xA0, integer(nameType)), der(0xA1, der(0x30, nameStrings)));
+    }
+
+    private static byte[] generalString(final String value) {
+        return der(0x1B, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] integer(final int value) {
+        return der(0x02, BigInteger.valueOf(value).toByteArray());
+    }
+
+    private static byte[] der(final int tag, final byte[]... contents) {
+        final ByteArrayOutputStream value = new ByteArrayOutputStream();
+        for (final byte[] content : contents) {
+            value.writeBytes(content);
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(tag);
+        final int length = value.size();
+        if (length < 0x80) {
+            out.write(length);
+        } else {
+            final byte[] lengthBytes = BigInteger.valueOf(length).toByteArray();
+            final int offset = lengthBytes[0] == 0 ? 1 : 0;
+            out.write(0x80 | (lengthBytes.length - offset));
+            out.write(lengthBytes, offset, lengthBytes.length - offset);
+        }
+        out.writeBytes(value.toByteArray());
+        return out.toByteArray();
+    }
+
+    /**
+     * @param kdc The KDC (host or host:port).
+     * @return the resolved address of the given KDC.
+     * @throws URISyntaxException if the KDC cannot be parsed.
+     */
+    static InetSocketAddress toSocketAddress(final String kdc) throws URISyntaxException {
+        // Let the URI class do the parsing of the possible host:port string
+        final URI uri = new URI("test://" + kdc);
+        if (uri.getHost() == null) {
+            throw new URISyntaxException(kdc, "KDC host name must be specified");
+        }
+        return new InetSocketAddress(uri.getHost(), uri.getPort() != -1 ? uri.getPort() : DEFAULT_KDC_PORT);
+    }
+
+    private static void closeQuietly(final Channel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) { // NOSONAR nothing we can do
+            // ignore
+        }
+    }
+}
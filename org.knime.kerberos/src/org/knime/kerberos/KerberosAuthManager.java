@@ -50,20 +50,30 @@
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.security.auth.RefreshFailedException;
 import javax.security.auth.Subject;
@@ -74,10 +84,18 @@
 
 import org.apache.log4j.Logger;
 import org.knime.core.node.NodeLogger.LEVEL;
+import org.knime.kerberos.KdcLatencyTracker.Transport;
 import org.knime.kerberos.api.KerberosState;
 import org.knime.kerberos.config.KerberosPluginConfig;
 import org.knime.kerberos.config.PrefKey.AuthMethod;
+import org.knime.kerberos.config.PrefKey.KdcSelection;
+import org.knime.kerberos.config.PrefKey.KerberosConfigSource;
+import org.knime.kerberos.config.PrefKey.KeytabReloginMode;
+import org.knime.kerberos.jfr.KerberosLoginEvent;
+import org.knime.kerberos.jfr.KerberosTicketCacheCheckEvent;
+import org.knime.kerberos.jfr.KerberosTicketRenewalEvent;
 import org.knime.kerberos.logger.KerberosLogger;
+import org.knime.kerberos.metrics.KerberosMetrics;
 
 import sun.security.krb5.Config; // NOSONAR this is intended
 import sun.security.krb5.KrbException;
@@ -88,17 +106,41 @@
  *
  * <p>
  * The methods in this class is NOT threadsafe! All method invocations of this class must go through
- * {@link KerberosAuthManager#EXECUTOR}.
+ * {@link KerberosAuthManager#EXECUTOR}. The only exceptions are {@link #getKerberosState()},
+ * {@link #getRenewalSchedule()} and {@link #getAuthenticatedSubjectSnapshot(KerberosPluginConfig)}, which read an
+ * immutable snapshot of the current login and can hence be invoked by arbitrary threads without waiting for the
+ * {@link #EXECUTOR}, as well as {@link #loginPrincipal(KerberosPluginConfig, String, String)}, which does not modify
+ * any state.
  * </p>
  *
  * @author Bjoern Lohrmann, KNIME Gmbh
  */
 public class KerberosAuthManager {
 
+    private static final KerberosWorkerExecutor WORKER = new KerberosWorkerExecutor(r -> {
+        final Thread t = new Thread(KerberosLogger.capturing(r), "KerberosWorker");
+        t.setDaemon(true);
+        return t;
+    });
+
     /**
      * Singlethread Executor for the method invocations.
      */
-    public static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor((r) -> { Thread t = new Thread(r, "KerberosWorker"); t.setDaemon(true); return t;});
+    public static final ScheduledExecutorService EXECUTOR = Executors.unconfigurableScheduledExecutorService(WORKER);
+
+    /**
+     * Fetches new tickets from the keytab in the background (see {@link KeytabReloginMode#BACKGROUND}), so that the
+     * {@link #EXECUTOR} keeps serving callbacks with the current login in the meantime.
+     */
+    private static final ExecutorService RELOGIN_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        final Thread t = new Thread(KerberosLogger.capturing(r), "KerberosRelogin");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final String LOGIN_CONTEXT_NAME = "KNIMEKerberosLoginContext";
+
+    private static final String PRINCIPAL_LOGIN_CONTEXT_NAME = "KNIMEKerberosCredentialManager";
 
     private static final  Logger LOG = Logger.getLogger(KerberosAuthManager.class);
 
@@ -113,20 +155,117 @@ public class KerberosAuthManager {
     private static final  List<String> SYS_PROPS = Collections.unmodifiableList(Arrays.asList(SYSTEM_PROPERTY_KDC,
         SYSTEM_PROPERTY_REALM, SYSTEM_PROPERTY_KRB5_CONF, SYSTEM_PROPERTY_PRINCIPAL));
 
-    // this is volatile because it will be read directly by arbitrary threads via KerberosProvier.getKerberosState()
-    private static volatile KerberosState loginState = new KerberosState();
+    // only written by the EXECUTOR thread, but read directly by arbitrary threads, e.g. via
+    // KerberosProvider.getKerberosState()
+    private static final AtomicReference<AuthState> AUTH_STATE = new AtomicReference<>(AuthState.INITIAL);
+
+    private static final  Map<String, String> systemPropertyBackup = new HashMap<>();
+
+    private static final GeneratedKrb5ConfCache GENERATED_KRB5_CONFS = new GeneratedKrb5ConfCache();
 
-    private static KerberosPluginConfig loginPluginConfig = null;
+    /**
+     * Fingerprint of the system properties and krb5.conf file that Java's Kerberos config has last been refreshed
+     * with, or null if unknown. Only accessed by the {@link #EXECUTOR} thread.
+     */
+    private static String refreshedConfigFingerprint;
 
-    private static LoginContext loginContext = null;
+    /** Number of refreshes of Java's Kerberos config. Only accessed by the {@link #EXECUTOR} thread. */
+    private static int configRefreshCount;
 
-    private static ScheduledFuture<?> renewFuture = null;
+    /** Marks the fingerprint of the config that Java looks up in its default locations. */
+    private static final String DEFAULT_CONFIG_FINGERPRINT = "<default>";
 
-    private static Path tmpKrb5Conf = null;
+    private static volatile KerberosStateListener stateListener;
 
-    private static final  Map<String, String> systemPropertyBackup = new HashMap<>();
+    /**
+     * How the ticket of the current login has been renewed, recorded in {@link KerberosTicketRenewalEvent}s.
+     */
+    private enum RenewalType {
+        /** The ticket has been refreshed. */
+        REFRESH,
+        /** A new ticket has been fetched by logging in again. */
+        RELOGIN,
+        /** A new ticket is fetched by logging in again in the background. */
+        BACKGROUND_RELOGIN,
+        /** The ticket could not be renewed, hence the login has been discarded. */
+        LOGOUT
+    }
+
+    /**
+     * Immutable snapshot of the current login. Each modification of the login publishes a new snapshot with an
+     * incremented version, so that readers on arbitrary threads always see a consistent view of the login.
+     */
+    private static final class AuthState {
 
-    private static KerberosStateListener stateListener;
+        static final AuthState INITIAL = new AuthState(0, new KerberosState(), null, null, null, null, null, null, null);
+
+        final long m_version;
+
+        final KerberosState m_loginState;
+
+        final KerberosPluginConfig m_loginPluginConfig;
+
+        final LoginContext m_loginContext;
+
+        /**
+         * Snapshot of the Subject of {@link #m_loginContext}, which is safe to read from other threads. It is never
+         * handed out itself, callers receive Subjects created from it (see {@link #createCallerSubject(Subject)}),
+         * whose service tickets are collected back into it (see {@link #collectServiceTickets(Subject)}).
+         */
+        final Subject m_subjectSnapshot;
+
+        final ScheduledFuture<?> m_renewFuture;
+
+        /** Describes when {@link #m_renewFuture} is due, null if no renewal is scheduled. */
+        final RenewalSchedule m_renewalSchedule;
+
+        final Path m_tmpKrb5Conf;
+
+        /** Only present for ticket-cache based logins. */
+        final TicketCacheChangeDetector m_ticketCacheChangeDetector;
+
+        private AuthState(final long version, final KerberosState loginState,
+            final KerberosPluginConfig loginPluginConfig, final LoginContext loginContext,
+            final Subject subjectSnapshot, final ScheduledFuture<?> renewFuture,
+            final RenewalSchedule renewalSchedule, final Path tmpKrb5Conf,
+            final TicketCacheChangeDetector ticketCacheChangeDetector) {
+            m_version = version;
+            m_loginState = loginState;
+            m_loginPluginConfig = loginPluginConfig;
+            m_loginContext = loginContext;
+            m_subjectSnapshot = subjectSnapshot;
+            m_renewFuture = renewFuture;
+            m_renewalSchedule = renewalSchedule;
+            m_tmpKrb5Conf = tmpKrb5Conf;
+            m_ticketCacheChangeDetector = ticketCacheChangeDetector;
+        }
+
+        AuthState withTmpKrb5Conf(final Path tmpKrb5Conf) {
+            return new AuthState(m_version + 1, m_loginState, m_loginPluginConfig, m_loginContext, m_subjectSnapshot,
+                m_renewFuture, m_renewalSchedule, tmpKrb5Conf, m_ticketCacheChangeDetector);
+        }
+
+        AuthState withLoginPluginConfig(final KerberosPluginConfig loginPluginConfig) {
+            return new AuthState(m_version + 1, m_loginState, loginPluginConfig, m_loginContext, m_subjectSnapshot,
+                m_renewFuture, m_renewalSchedule, m_tmpKrb5Conf, m_ticketCacheChangeDetector);
+        }
+
+        AuthState withLogin(final LoginContext loginContext,
+            final TicketCacheChangeDetector ticketCacheChangeDetector) {
+            return new AuthState(m_version + 1, createAuthenticatedKerberosState(loginContext), m_loginPluginConfig,
+                loginContext, copySubject(loginContext.getSubject()), m_renewFuture, m_renewalSchedule, m_tmpKrb5Conf,
+                ticketCacheChangeDetector);
+        }
+
+        AuthState withRenewal(final ScheduledFuture<?> renewFuture, final RenewalSchedule renewalSchedule) {
+            return new AuthState(m_version + 1, m_loginState, m_loginPluginConfig, m_loginContext, m_subjectSnapshot,
+                renewFuture, renewalSchedule, m_tmpKrb5Conf, m_ticketCacheChangeDetector);
+        }
+
+        AuthState reset() {
+            return new AuthState(m_version + 1, new KerberosState(), null, null, null, null, null, null, null);
+        }
+    }
 
 
     private KerberosAuthManager() {
@@ -137,48 +276,125 @@ private KerberosAuthManager() {
      * It does a logout if necessary and resets system properties
      */
     public static void rollbackToInitialState() {
-        setLoginState(new KerberosState());
+        final AuthState previous = AUTH_STATE.get();
+        setAuthState(previous.reset());
 
         try {
-            if (loginContext != null) {
-                loginContext.logout();
-                if(renewFuture != null) {
+            if (previous.m_loginContext != null) {
+                previous.m_loginContext.logout();
+                if (previous.m_renewFuture != null) {
                     //Cancel running renewal service
-                    renewFuture.cancel(true);
+                    previous.m_renewFuture.cancel(true);
                 }
             }
         } catch (LoginException e) {
             // we only log this as debug because we can safely ignore it
             LOG.debug("Failed to logout: " + e.getMessage(), e);
-        } finally {
-            loginContext = null;
-            renewFuture = null;
-            loginPluginConfig = null;
         }
 
+        // the generated krb5.conf is not deleted, it is kept for reuse in GENERATED_KRB5_CONFS
         restoreSystemProperties();
 
-        try {
-            if (tmpKrb5Conf != null) {
-                Files.deleteIfExists(tmpKrb5Conf);
-            }
-        } catch (IOException e) {
-            // we only log this as debug because we can safely ignore it
-            LOG.debug("Failed to delete temp file: " + e.getMessage(), e);
-        } finally {
-            tmpKrb5Conf = null;
-        }
-
         KerberosLogger.stopCapture();
 
+        // Java's Kerberos config must reflect the restored system properties right away, e.g. for other plugins that
+        // use Kerberos, but it is only refreshed if they differ from those it has last been loaded with
         try {
-            Config.refresh();
+            refreshConfigIfChanged();
         } catch (KrbException e) {
             // we only log this as debug because we can safely ignore it
             LOG.debug("Failed refresh Kerberos config: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Refreshes Java's Kerberos config, unless it has already been loaded with the same system properties from the
+     * same, unmodified krb5.conf file. Must be invoked on the {@link #EXECUTOR} thread.
+     *
+     * @throws KrbException if refreshing the config fails
+     */
+    private static void refreshConfigIfChanged() throws KrbException {
+        final String fingerprint = computeConfigFingerprint();
+        if (fingerprint != null && fingerprint.equals(refreshedConfigFingerprint)) {
+            LOG.debug("Kerberos config is unchanged, hence not refreshing it");
+            return;
+        }
+
+        refreshedConfigFingerprint = null;
+        configRefreshCount++;
+        Config.refresh();
+        refreshedConfigFingerprint = fingerprint;
+    }
+
+    /**
+     * @return how often Java's Kerberos config has been refreshed, for testing purposes.
+     */
+    static int getConfigRefreshCount() {
+        return configRefreshCount;
+    }
+
+    /**
+     * @return a fingerprint of the system properties and the krb5.conf file that Java's Kerberos config is loaded from,
+     *         or null if the krb5.conf file cannot be read.
+     */
+    private static String computeConfigFingerprint() {
+        final String krb5Conf = System.getProperty(SYSTEM_PROPERTY_KRB5_CONF);
+        final StringBuilder fingerprint = new StringBuilder(String.join("|",
+            System.getProperty(SYSTEM_PROPERTY_REALM), System.getProperty(SYSTEM_PROPERTY_KDC)));
+        try {
+            if (krb5Conf != null) {
+                appendFileFingerprint(fingerprint, krb5Conf, false);
+            } else {
+                // Java looks up the krb5.conf in platform specific locations, whose presence also matters
+                fingerprint.append('|').append(DEFAULT_CONFIG_FINGERPRINT);
+                for (final String defaultKrb5Conf : getDefaultKrb5ConfLocations()) {
+                    appendFileFingerprint(fingerprint, defaultKrb5Conf, true);
+                }
+            }
+        } catch (IOException | InvalidPathException e) { // NOSONAR the config will be refreshed and report the error
+            return null;
+        }
+        return fingerprint.toString();
+    }
+
+    private static void appendFileFingerprint(final StringBuilder fingerprint, final String file,
+        final boolean mayBeMissing) throws IOException {
+        fingerprint.append('|').append(file);
+        final Path path = Paths.get(file);
+        if (mayBeMissing && !Files.exists(path)) {
+            fingerprint.append("|missing");
+            return;
+        }
+        final BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        fingerprint.append('|').append(attrs.lastModifiedTime()).append('|').append(attrs.size()).append('|')
+            .append(attrs.fileKey());
+    }
+
+    /**
+     * @return the locations in which Java looks up the krb5.conf, if the java.security.krb5.conf system property is not
+     *         set (see sun.security.krb5.Config).
+     */
+    private static List<String> getDefaultKrb5ConfLocations() {
+        final List<String> locations = new ArrayList<>();
+        locations.add(Paths.get(System.getProperty("java.home"), "conf", "security", "krb5.conf").toString());
+
+        final String osName = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+        if (osName.startsWith("windows")) {
+            final String windowsDir = System.getenv("SystemRoot");
+            if (windowsDir != null) {
+                locations.add(Paths.get(windowsDir, "krb5.ini").toString());
+            }
+            locations.add("c:\\winnt\\krb5.ini");
+        } else if (osName.startsWith("mac")) {
+            locations.add(System.getProperty("user.home") + "/Library/Preferences/edu.mit.Kerberos");
+            locations.add("/Library/Preferences/edu.mit.Kerberos");
+            locations.add("/etc/krb5.conf");
+        } else {
+            locations.add("/etc/krb5.conf");
+        }
+        return locations;
+    }
+
     private static void restoreSystemProperties() {
         if(!systemPropertyBackup.isEmpty()) {
             for (String sysProperty : SYS_PROPS) {
@@ -209,7 +425,10 @@ private static void clearSystemProperties() {
      * Tries to load Kerberos configuration according to the preferences and validates as much of the preferences and
      * the loaded Kerberos configuration as possible.
      *
-     * If this method throws an error, then {@link #rollbackToInitialState()} must be called.
+     * If this method throws an error, then {@link #rollbackToInitialState()} must be called. While logged in,
+     * {@link #rollbackToInitialState()} must be called before this method. Only a configuration without login, which
+     * has been made for the logins of explicitly requested principals (see
+     * {@link #configureUnlessConfigured(KerberosPluginConfig)}), is rolled back by this method.
      *
      * @param config
      * @throws IOException
@@ -217,9 +436,15 @@ private static void clearSystemProperties() {
     public static void configure(final KerberosPluginConfig config) throws IOException {
         LOG.debug("Trying to configure Kerberos");
 
+        final AuthState authState = AUTH_STATE.get();
+        if (authState.m_loginPluginConfig != null && authState.m_loginContext == null) {
+            // configured without login before, for the logins of explicitly requested principals
+            rollbackToInitialState();
+        }
+
         // starts capturing the stdout until rollback
         if (config.doDebugLogging()) {
-            KerberosLogger.startCapture(LEVEL.valueOf(config.getDebugLogLevel()));
+            KerberosLogger.startCapture(LEVEL.valueOf(config.getDebugLogLevel()), config);
         }
 
         validateConfigShallow(config);
@@ -228,14 +453,14 @@ public static void configure(final KerberosPluginConfig config) throws IOExcepti
 
         // ! I/O
         try {
-            Config.refresh();
+            refreshConfigIfChanged();
         } catch (KrbException e) {
             throw new IOException("Failed refresh Kerberos config: " + e.getMessage(), e);
         }
 
         KerberosPluginConfigValidator.postRefreshValidate(config);
 
-        loginPluginConfig = config;
+        setAuthState(AUTH_STATE.get().withLoginPluginConfig(config));
     }
 
     private static void validateConfigShallow(final KerberosPluginConfig config) {
@@ -258,54 +483,123 @@ private static void setupSystemProperties(final KerberosPluginConfig config) thr
                 break;
             case REALM_KDC:
                 clearSystemProperties();
-                if (tmpKrb5Conf != null) {
+                if (AUTH_STATE.get().m_tmpKrb5Conf != null) {
                     throw new RuntimeException("Exists already");
                 }
-                tmpKrb5Conf = createRealmKDCKrb5(config);
+                final Path tmpKrb5Conf = createRealmKDCKrb5(config);
+                setAuthState(AUTH_STATE.get().withTmpKrb5Conf(tmpKrb5Conf));
                 System.setProperty(SYSTEM_PROPERTY_KRB5_CONF, tmpKrb5Conf.toString());
         }
 
-        if(config.getAuthMethod().equals(AuthMethod.KEYTAB)){
-            System.setProperty(SYSTEM_PROPERTY_PRINCIPAL, config.getKeytabPrincipal());
+        // the login module prefers the principal from this system property over the principal it is configured with,
+        // hence it is kept cleared, so that principals other than the configured one can be logged in by any thread
+        // (see loginPrincipal). A preset principal is passed to the login module instead (see getPresetPrincipal).
+        System.clearProperty(SYSTEM_PROPERTY_PRINCIPAL);
+    }
+
+    /**
+     * @param config the config Kerberos is configured with
+     * @return the principal that has been preset with the sun.security.krb5.principal system property before Kerberos
+     *         has been configured, if the login with the given config used it, otherwise null. Must be invoked on the
+     *         {@link #EXECUTOR} thread.
+     */
+    private static String getPresetPrincipal(final KerberosPluginConfig config) {
+        if (config.getKerberosConfSource() == KerberosConfigSource.DEFAULT
+            && config.getAuthMethod() != AuthMethod.KEYTAB) {
+            return systemPropertyBackup.get(SYSTEM_PROPERTY_PRINCIPAL);
         }
+        return null;
+    }
+
+    /**
+     * Creates the JAAS configuration for a login with the given config, which Kerberos is configured with. Must be
+     * invoked on the {@link #EXECUTOR} thread.
+     *
+     * @param config the config Kerberos is configured with
+     * @return the JAAS configuration
+     */
+    static KerberosJAASConfiguration createJAASConfiguration(final KerberosPluginConfig config) {
+        return new KerberosJAASConfiguration(config, true, getPresetPrincipal(config));
     }
 
 
     private static Path createRealmKDCKrb5(final KerberosPluginConfig config) throws IOException {
+        return GENERATED_KRB5_CONFS.getOrCreate(createRealmKDCKrb5Content(config));
+    }
+
+    /**
+     * Creates the contents of a krb5.conf for the realm and KDCs of the given config. Multiple KDCs are ordered by
+     * their latency, depending on {@link KerberosPluginConfig#getKdcSelection()}. The latencies measured so far are
+     * used, stale latencies are measured again in the background for the next configuration.
+     *
+     * @param config the config with {@link KerberosConfigSource#REALM_KDC}
+     * @return the contents of the krb5.conf
+     */
+    static String createRealmKDCKrb5Content(final KerberosPluginConfig config) {
+        List<String> kdcs = config.getKDCs();
+        int maxRetries = config.getKdcMaxRetries();
+        long kdcTimeout = config.getKdcTimeoutMillis();
+        if (kdcs.size() > 1 && config.getKdcSelection() != KdcSelection.CONFIGURED_ORDER) {
+            final KdcLatencyTracker latencyTracker = KdcLatencyTracker.getInstance();
+            latencyTracker.probeInBackground(kdcs, config.getRealm(), getKdcTransport(config), kdcTimeout);
+            kdcs = latencyTracker.orderByLatency(kdcs);
+            if (config.getKdcSelection() == KdcSelection.HEDGED) {
+                kdcTimeout = latencyTracker.computeHedgeDelay(kdcs, kdcTimeout);
+                // fail over to the next KDC, instead of retrying the one that did not respond in time
+                maxRetries = 1;
+            }
+            LOG.debug(String.format("Ordered KDCs by latency: %s (timeout %d ms)", kdcs, kdcTimeout));
+        }
+
         StringBuilder sb = new StringBuilder();
         sb.append(String.format("[libdefaults]%n"));
         sb.append(String.format("default_realm = %s%n", config.getRealm()));
         //The MiniKDC runs only with TCP. Java sun.security.krb5 does not try TCP if UDP fails. Used for testing only for now
         //We may want to do this configurable in the future.
-        if(config.isTestConfiguration()) {
+        if(getKdcTransport(config) == Transport.TCP) {
             sb.append(String.format("\tudp_preference_limit = 1%n"));
         }
         sb.append(String.format("dns_lookup_kdc = false%n"));
         sb.append(String.format("dns_lookup_realm = false%n%n"));
         sb.append(String.format("[realms]%n"));
-        sb.append(String.format("%s = { %n kdc = %s%n ", config.getRealm(), config.getKDC()));
-        //Setting the KDC timeout to 5 seconds and retries to 2, to avoid long waits in worker thread
-        sb.append(String.format( "max_retries = %d%n", 2));
-        sb.append(String.format( "kdc_timeout = %d%n }", 5000));
-        Path configFile = Files.createTempFile("krb", ".conf");
-        Files.write(configFile, sb.toString().getBytes(), StandardOpenOption.WRITE);
-        return configFile;
+        sb.append(String.format("%s = { %n", config.getRealm()));
+        for (final String kdc : kdcs) {
+            sb.append(String.format(" kdc = %s%n", kdc));
+        }
+        //The KDC timeout and retries are kept low by default, to avoid long waits in worker thread
+        sb.append(String.format( " max_retries = %d%n", maxRetries));
+        sb.append(String.format( " kdc_timeout = %d%n }", kdcTimeout));
+        return sb.toString();
+    }
+
+    /**
+     * @param config the config with {@link KerberosConfigSource#REALM_KDC}
+     * @return the transport of the requests to the KDCs, which is TCP if the generated krb5.conf sets
+     *         udp_preference_limit = 1, and UDP otherwise, because the default limit fits all requests without
+     *         pre-authentication data
+     */
+    private static Transport getKdcTransport(final KerberosPluginConfig config) {
+        return config.isTestConfiguration() ? Transport.TCP : Transport.UDP;
     }
 
     /**
      * @return the current loginState
      */
     public static KerberosState getKerberosState() {
-        return loginState;
+        return AUTH_STATE.get().m_loginState;
     }
 
     /**
-     * @param loginState the loginState to set
+     * Publishes the given snapshot of the current login and notifies the state listener, if the login state has
+     * changed.
+     *
+     * @param authState the new snapshot of the current login
      */
-    private static void setLoginState(final KerberosState state) {
-        loginState = state;
-        if (stateListener != null) {
-            stateListener.kerberosStateChanged(state);
+    private static void setAuthState(final AuthState authState) {
+        final AuthState previous = AUTH_STATE.getAndSet(authState);
+        final KerberosStateListener listener = stateListener;
+        if (listener != null && previous.m_loginState != authState.m_loginState) {
+            listener.kerberosStateChanged(authState.m_loginState);
         }
     }
 
@@ -329,25 +623,196 @@ public static void login() throws LoginException {
      * @throws LoginException if the login fails
      */
     public static void login(final KerberosUserPwdAuthCallbackHandler handler) throws LoginException {
+        final KerberosPluginConfig loginPluginConfig = AUTH_STATE.get().m_loginPluginConfig;
         LOG.info("Doing Kerberos login with config " + loginPluginConfig.getConfigurationSummary());
 
-        final LoginContext tmpLoginContext =
-            new LoginContext("KNIMEKerberosLoginContext", null, handler, new KerberosJAASConfiguration(loginPluginConfig));
+        final LoginContext tmpLoginContext = createLoginContext(loginPluginConfig, handler);
 
         if (loginPluginConfig.getAuthMethod() == AuthMethod.USER_PWD) {
             if (!handler.promptUser()) {
                 throw new UserRequestedCancelException();
             }
         }
+        TicketCacheChangeDetector ticketCacheChangeDetector = null;
+        if (loginPluginConfig.getAuthMethod() == AuthMethod.TICKET_CACHE) {
+            ticketCacheChangeDetector = TicketCacheChangeDetector.create(loginPluginConfig);
+            // record the state before reading the ticket cache, so that concurrent modifications are not missed
+            ticketCacheChangeDetector.recordTicketCacheState();
+        }
+
         // try authentication
-        tmpLoginContext.login();
-        loginContext = tmpLoginContext;
-        setLoginState(createAuthenticatedKerberosState());
-        scheduleRenewal();
-        LOG.info("Logged into Kerberos as " + loginState.toString());
+        final long startNanos = System.nanoTime();
+        final KerberosLoginEvent loginEvent = new KerberosLoginEvent();
+        loginEvent.begin();
+        boolean success = false;
+        try {
+            tmpLoginContext.login();
+            setAuthState(AUTH_STATE.get().withLogin(tmpLoginContext, ticketCacheChangeDetector));
+            scheduleRenewal();
+            success = true;
+        } finally {
+            recordLogin(loginEvent, startNanos, loginPluginConfig, success);
+        }
+        LOG.info("Logged into Kerberos as " + getKerberosState().toString());
+    }
+
+    private static void recordLogin(final KerberosLoginEvent event, final long startNanos,
+        final KerberosPluginConfig loginPluginConfig, final boolean success) {
+        KerberosMetrics.LOGINS.record(startNanos, success);
+        event.end();
+        if (event.shouldCommit()) {
+            event.setAuthMethod(loginPluginConfig.getAuthMethod().toString());
+            event.setPrincipal(success ? getKerberosState().getPrincipal() : null);
+            event.setSuccess(success);
+            event.commit();
+        }
+    }
+
+    private static LoginContext createLoginContext(final KerberosPluginConfig loginPluginConfig,
+        final KerberosUserPwdAuthCallbackHandler handler) throws LoginException {
+        return new LoginContext(LOGIN_CONTEXT_NAME, null, handler, createJAASConfiguration(loginPluginConfig));
+    }
+
+    /**
+     * Checks whether Kerberos is currently configured with the given config, i.e. whether
+     * {@link #configure(KerberosPluginConfig)} and a new login would not make a difference. This is the case if both
+     * configs have the same login settings (see {@link KerberosPluginConfig#hasSameLoginSettings(KerberosPluginConfig)}).
+     * The other settings of the given config can be applied with {@link #updateConfig(KerberosPluginConfig)}.
+     *
+     * @param config The config to check.
+     * @return true if Kerberos is currently configured with the given config, false otherwise.
+     */
+    public static boolean isConfiguredWith(final KerberosPluginConfig config) {
+        final KerberosPluginConfig loginPluginConfig = AUTH_STATE.get().m_loginPluginConfig;
+        return loginPluginConfig != null && loginPluginConfig.hasSameLoginSettings(config);
+    }
+
+    /**
+     * Replaces the config of the current configuration and login with the given config, which must have the same
+     * login settings (see {@link #isConfiguredWith(KerberosPluginConfig)}). Settings that are read when needed, e.g.
+     * the renewal settings, take effect from then on, the debug log settings immediately. Must be invoked on the
+     * {@link #EXECUTOR} thread.
+     *
+     * @param config The config with the same login settings as the current one.
+     */
+    public static void updateConfig(final KerberosPluginConfig config) {
+        final AuthState authState = AUTH_STATE.get();
+        if (authState.m_loginPluginConfig == null || isSameConfig(authState.m_loginPluginConfig, config)) {
+            return;
+        }
+        if (!authState.m_loginPluginConfig.hasSameLoginSettings(config)) {
+            throw new IllegalArgumentException("The login settings of the config differ from the current ones");
+        }
+
+        if (config.doDebugLogging()) {
+            KerberosLogger.startCapture(LEVEL.valueOf(config.getDebugLogLevel()), config);
+        }
+        setAuthState(authState.withLoginPluginConfig(config));
+    }
+
+    /**
+     * @return whether both configs are the same instance, have been returned by {@link KerberosPluginConfig#load()}
+     *         with the same version, or are equal. The comparison of the versions avoids comparing all settings.
+     */
+    private static boolean isSameConfig(final KerberosPluginConfig loginPluginConfig,
+        final KerberosPluginConfig config) {
+        if (loginPluginConfig == config) {
+            return true;
+        } else if (config.getVersion() > 0 && loginPluginConfig.getVersion() > 0) {
+            return loginPluginConfig.getVersion() == config.getVersion();
+        } else {
+            // e.g. logged in with a config from the preference page, which has not been returned by load()
+            return loginPluginConfig.equals(config);
+        }
+    }
+
+    /**
+     * Configures Kerberos with the given config, without a login, unless it is configured already. This is required
+     * before principals can be logged in with {@link #loginPrincipal(KerberosPluginConfig, String, String)}. Must be
+     * invoked on the {@link #EXECUTOR} thread.
+     *
+     * @param config The config to configure Kerberos with, unless it is configured already.
+     * @throws IOException if Kerberos could not be configured
+     */
+    public static void configureUnlessConfigured(final KerberosPluginConfig config) throws IOException {
+        if (!isConfigured()) {
+            try {
+                configure(config);
+            } catch (IOException | RuntimeException e) {
+                rollbackToInitialState();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Logs in the given principal with the given keytab, independently of the current login, e.g. for the
+     * {@link KerberosCredentialManager}. Kerberos has to be configured already (see
+     * {@link #configureUnlessConfigured(KerberosPluginConfig)}). This method can be invoked by arbitrary threads, as
+     * the login neither modifies Java's Kerberos config nor the system properties. Logins should not be done on the
+     * {@link #EXECUTOR} thread though, because they would hold up all other Kerberos operations while waiting for the
+     * KDC.
+     *
+     * @param config The config Kerberos is configured with.
+     * @param principal The principal to log in.
+     * @param keytabFile Path to the keytab file, that holds the keys of the principal.
+     * @return the login context of the new login, which the caller has to log out eventually.
+     * @throws LoginException if the login fails
+     */
+    public static LoginContext loginPrincipal(final KerberosPluginConfig config, final String principal,
+        final String keytabFile) throws LoginException {
+        // the principal system property, which the login module would prefer over the given principal, is kept
+        // cleared while Kerberos is configured (see setupSystemProperties)
+        final var loginContext = new LoginContext(PRINCIPAL_LOGIN_CONTEXT_NAME, null, null,
+            new KerberosJAASConfiguration(principal, keytabFile, config.doDebugLogging()));
+        try (var capture = KerberosLogger.captureCurrentThread()) {
+            loginContext.login();
+        }
+        return loginContext;
+    }
+
+    /**
+     * Checks whether Java's Kerberos implementation has been configured by {@link #configure(KerberosPluginConfig)},
+     * which is the case while logged in, but also after a configuration without login. This method can be invoked by
+     * arbitrary threads.
+     *
+     * @return true if Kerberos is currently configured, false otherwise.
+     */
+    public static boolean isConfigured() {
+        return AUTH_STATE.get().m_loginPluginConfig != null;
+    }
+
+    /**
+     * Replaces the current login with a new non-interactive login, without going through
+     * {@link #rollbackToInitialState()} and {@link #configure(KerberosPluginConfig)} again. The current login is only
+     * logged out after the new login has succeeded.
+     *
+     * If this method throws an error, then {@link #rollbackToInitialState()} must be called.
+     *
+     * @throws LoginException if the login fails
+     */
+    public static void relogin() throws LoginException {
+        final AuthState previous = AUTH_STATE.get();
+        if (previous.m_renewFuture != null) {
+            previous.m_renewFuture.cancel(false);
+        }
+
+        login();
+        logoutQuietly(previous.m_loginContext);
+    }
+
+    private static void logoutQuietly(final LoginContext loginContext) {
+        if (loginContext != null) {
+            try {
+                loginContext.logout();
+            } catch (LoginException e) {
+                // we only log this as debug because we can safely ignore it
+                LOG.debug("Failed to logout: " + e.getMessage(), e);
+            }
+        }
     }
 
-    private static KerberosState createAuthenticatedKerberosState() {
+    private static KerberosState createAuthenticatedKerberosState(final LoginContext loginContext) {
         final Subject subject = loginContext.getSubject();
         final String principal = subject.getPrincipals(KerberosPrincipal.class).iterator().next().getName();
 
@@ -357,13 +822,18 @@ private static KerberosState createAuthenticatedKerberosState() {
     }
 
     private static void scheduleRenewal() {
+        final AuthState authState = AUTH_STATE.get();
+        final KerberosPluginConfig loginPluginConfig = authState.m_loginPluginConfig;
         final KerberosTicket tgt =
-            loginContext.getSubject().getPrivateCredentials(KerberosTicket.class).iterator().next();
+            authState.m_loginContext.getSubject().getPrivateCredentials(KerberosTicket.class).iterator().next();
 
         long millisUntilRenewal;
         if (tgt.isRenewable() || loginPluginConfig.getAuthMethod() == AuthMethod.KEYTAB) {
-            millisUntilRenewal = Math.max(
-                tgt.getEndTime().getTime() - Instant.now().toEpochMilli() - (loginPluginConfig.getRenewalSafetyMarginSeconds() * 1000), 5000);
+            final Date startTime = tgt.getStartTime() != null ? tgt.getStartTime() : tgt.getAuthTime();
+            millisUntilRenewal = RenewalSchedule.computeRenewalDelay(Instant.now().toEpochMilli(),
+                startTime.getTime(), tgt.getEndTime().getTime(),
+                loginPluginConfig.getRenewalSafetyMarginSeconds() * 1000, loginPluginConfig.getRenewalWindowPercent(),
+                ThreadLocalRandom.current().nextDouble());
         } else {
             // we can only let the current login expire and update the UI then
             millisUntilRenewal = (int) Math
@@ -371,31 +841,109 @@ private static void scheduleRenewal() {
         }
 
         LOG.debug(String.format("Scheduling login renewal in %d seconds", Duration.ofMillis(millisUntilRenewal).getSeconds()));
-        renewFuture = EXECUTOR.schedule(() -> {
+        scheduleRenewalAttempt(millisUntilRenewal, 0);
+    }
+
+    private static void scheduleRenewalAttempt(final long millisUntilRenewal, final int attempt) {
+        final ScheduledFuture<?> renewFuture = EXECUTOR.schedule(() -> {
+            final AuthState authState = AUTH_STATE.get();
+            final long startNanos = System.nanoTime();
+            final KerberosTicketRenewalEvent renewalEvent = new KerberosTicketRenewalEvent();
+            renewalEvent.begin();
+            RenewalType renewalType = null;
             try {
-                tryRenewLoginNonInteractively();
+                renewalType = tryRenewLoginNonInteractively();
             } catch (Exception e) {
-                LOG.error("Failed to fetch a new Kerberos ticket: " + ExceptionUtil.getDeepestErrorMessage(e, true), e);
+                scheduleRenewalRetry(e);
+            } finally {
+                // background relogins are recorded when they have completed
+                if (renewalType != RenewalType.BACKGROUND_RELOGIN) {
+                    recordRenewal(renewalEvent, startNanos, authState, renewalType, renewalType != null);
+                }
             }
         }, millisUntilRenewal, TimeUnit.MILLISECONDS);
+        final RenewalSchedule renewalSchedule =
+            new RenewalSchedule(Instant.now().plusMillis(millisUntilRenewal), attempt);
+        setAuthState(AUTH_STATE.get().withRenewal(renewFuture, renewalSchedule));
+    }
+
+    /**
+     * Schedules a retry of the failed renewal of the current login, with exponential backoff, unless the maximum number
+     * of retries has been reached. Must be invoked on the {@link #EXECUTOR} thread.
+     *
+     * @param failure the reason why the previous renewal attempt failed
+     */
+    private static void scheduleRenewalRetry(final Exception failure) {
+        final AuthState authState = AUTH_STATE.get();
+        if (authState.m_loginContext == null) {
+            LOG.error("Failed to fetch a new Kerberos ticket: " + ExceptionUtil.getDeepestErrorMessage(failure, true),
+                failure);
+            return;
+        }
+
+        final KerberosPluginConfig loginPluginConfig = authState.m_loginPluginConfig;
+        final int retry = (authState.m_renewalSchedule != null ? authState.m_renewalSchedule.getAttempt() : 0) + 1;
+        if (retry > loginPluginConfig.getRenewalMaxRetries()) {
+            LOG.error(String.format("Failed to fetch a new Kerberos ticket, giving up after %d retries: %s",
+                retry - 1, ExceptionUtil.getDeepestErrorMessage(failure, true)), failure);
+            setAuthState(authState.withRenewal(null, null));
+            return;
+        }
+
+        final long millisUntilExpiry =
+            authState.m_loginState.getTicketValidUntil().toEpochMilli() - Instant.now().toEpochMilli();
+        final long millisUntilRetry = RenewalSchedule.computeRetryDelay(retry,
+            loginPluginConfig.getRenewalRetryBackoffSeconds() * 1000L, millisUntilExpiry,
+            ThreadLocalRandom.current().nextDouble());
 
+        LOG.warn(String.format("Failed to fetch a new Kerberos ticket (%s), retrying in %d seconds (retry %d of %d)",
+            ExceptionUtil.getDeepestErrorMessage(failure, true), Duration.ofMillis(millisUntilRetry).getSeconds(),
+            retry, loginPluginConfig.getRenewalMaxRetries()));
+        scheduleRenewalAttempt(millisUntilRetry, retry);
     }
 
-    private static void tryRenewLoginNonInteractively() throws LoginException {
-        if (loginContext == null && loginContext.getSubject() == null) {
+    private static void recordRenewal(final KerberosTicketRenewalEvent event, final long startNanos,
+        final AuthState authState, final RenewalType renewalType, final boolean success) {
+        KerberosMetrics.RENEWALS.record(startNanos, success);
+        event.end();
+        if (event.shouldCommit()) {
+            event.setAuthMethod(
+                authState.m_loginPluginConfig != null ? authState.m_loginPluginConfig.getAuthMethod().toString() : null);
+            event.setPrincipal(authState.m_loginState.getPrincipal());
+            event.setRenewalType(renewalType != null ? renewalType.toString() : null);
+            event.setRetry(authState.m_renewalSchedule != null ? authState.m_renewalSchedule.getAttempt() : 0);
+            event.setSuccess(success);
+            event.commit();
+        }
+    }
+
+    /**
+     * @return how the login has been renewed.
+     */
+    private static RenewalType tryRenewLoginNonInteractively() throws LoginException {
+        final AuthState authState = AUTH_STATE.get();
+        final LoginContext loginContext = authState.m_loginContext;
+        if (loginContext == null || loginContext.getSubject() == null) {
             throw new IllegalStateException("Login renew failed due to missing LoginContext");
         }
 
+        if (authState.m_loginPluginConfig.getAuthMethod() == AuthMethod.KEYTAB
+            && authState.m_loginPluginConfig.getKeytabReloginMode() == KeytabReloginMode.BACKGROUND) {
+            // the keytab allows to fetch a new ticket at any time, hence there is no need to renew the current one
+            startBackgroundRelogin(authState);
+            return RenewalType.BACKGROUND_RELOGIN;
+        }
+
         final KerberosTicket ticket =
             loginContext.getSubject().getPrivateCredentials(KerberosTicket.class).iterator().next();
 
         if (ticket.isRenewable()) {
             try {
                 ticket.refresh();
-                setLoginState(createAuthenticatedKerberosState());
+                setAuthState(authState.withLogin(loginContext, authState.m_ticketCacheChangeDetector));
                 scheduleRenewal();
-                LOG.info("Renewed Kerberos ticket for " + loginState.toString());
-                return;
+                LOG.info("Renewed Kerberos ticket for " + getKerberosState().toString());
+                return RenewalType.REFRESH;
             } catch (RefreshFailedException ex) {
                 LOG.error(
                     String.format("Could not renew Kerberos ticket (%s), trying to fetch a new ticket if possible",
@@ -405,36 +953,280 @@ private static void tryRenewLoginNonInteractively() throws LoginException {
         }
 
         // ticket is not renewable, or renewal failed
-        switch (loginPluginConfig.getAuthMethod()) {
+        switch (authState.m_loginPluginConfig.getAuthMethod()) {
             case KEYTAB:
                 // if this fails we throw an exception because there is nothing else we can do
                 login();
-                LOG.info("Fetched new Kerberos ticket for " + loginState.toString());
-                break;
+                LOG.info("Fetched new Kerberos ticket for " + getKerberosState().toString());
+                return RenewalType.RELOGIN;
             case TICKET_CACHE:
                 if (ticketCacheHasChanged()) {
                     login();
-                    LOG.info("Found new Kerberos ticket in ticket cache for " + loginState.toString());
+                    LOG.info("Found new Kerberos ticket in ticket cache for " + getKerberosState().toString());
+                    return RenewalType.RELOGIN;
                 } else {
                     LOG.info("Kerberos login expired, hence logging out");
                     rollbackToInitialState();
+                    return RenewalType.LOGOUT;
                 }
-                break;
             case USER_PWD:
+            default:
                 // we can only fetch a new ticket by prompting the user for a password.
                 // since this method is supposed to be non-interactive, we cannot do anything
                 // but rollback (to update the UI)
                 LOG.info("Kerberos login expired, hence logging out");
                 rollbackToInitialState();
-                break;
+                return RenewalType.LOGOUT;
         }
     }
 
+    /**
+     * Fetches a new ticket from the keytab on the {@link #RELOGIN_EXECUTOR}, while the current login keeps serving
+     * callbacks. Once the new login has succeeded, it replaces the current login on the {@link #EXECUTOR} thread.
+     *
+     * @param authState the current login, which is about to expire
+     */
+    private static void startBackgroundRelogin(final AuthState authState) {
+        final KerberosPluginConfig loginPluginConfig = authState.m_loginPluginConfig;
+        final LoginContext previousLoginContext = authState.m_loginContext;
+        LOG.debug("Fetching new Kerberos ticket from keytab in the background");
+
+        RELOGIN_EXECUTOR.execute(() -> {
+            final long startNanos = System.nanoTime();
+            final KerberosTicketRenewalEvent renewalEvent = new KerberosTicketRenewalEvent();
+            renewalEvent.begin();
+            final LoginContext newLoginContext;
+            try {
+                // Java's Kerberos config is only refreshed by the EXECUTOR thread, and it is still the config
+                // of the current login, because reconfiguring Kerberos requires a rollback, which ends the login
+                newLoginContext = new LoginContext(LOGIN_CONTEXT_NAME, null, null,
+                    new KerberosJAASConfiguration(loginPluginConfig, false));
+                newLoginContext.login();
+                recordRenewal(renewalEvent, startNanos, authState, RenewalType.BACKGROUND_RELOGIN, true);
+            } catch (Exception e) {
+                recordRenewal(renewalEvent, startNanos, authState, RenewalType.BACKGROUND_RELOGIN, false);
+                EXECUTOR.execute(() -> {
+                    if (AUTH_STATE.get().m_loginContext == previousLoginContext) {
+                        scheduleRenewalRetry(e);
+                    }
+                });
+                return;
+            }
+            EXECUTOR.execute(() -> swapLogin(loginPluginConfig, previousLoginContext, newLoginContext));
+        });
+    }
+
+    /**
+     * Replaces the given previous login with the given new login, unless the previous login has been replaced or
+     * logged out, or the login settings have changed in the meantime. Readers of the {@link AuthState} switch to the new login atomically, while the
+     * previous login is logged out afterwards. Tickets in subject snapshots that have been handed out before remain
+     * usable, because they are copies.
+     */
+    private static void swapLogin(final KerberosPluginConfig loginPluginConfig,
+        final LoginContext previousLoginContext, final LoginContext newLoginContext) {
+        final AuthState current = AUTH_STATE.get();
+        if (current.m_loginContext != previousLoginContext
+            || current.m_loginPluginConfig == null
+            || !current.m_loginPluginConfig.hasSameLoginSettings(loginPluginConfig)) {
+            LOG.debug("Discarding Kerberos ticket fetched in the background, because the login has changed meanwhile");
+            logoutQuietly(newLoginContext);
+            return;
+        }
+
+        setAuthState(current.withLogin(newLoginContext, null));
+        scheduleRenewal();
+        logoutQuietly(previousLoginContext);
+        LOG.info("Fetched new Kerberos ticket for " + getKerberosState().toString());
+    }
+
+    /**
+     * Provides when the current login is renewed next. This method can be invoked by arbitrary threads.
+     *
+     * @return the schedule of the next renewal of the current login, or null if no renewal is scheduled.
+     */
+    public static RenewalSchedule getRenewalSchedule() {
+        return AUTH_STATE.get().m_renewalSchedule;
+    }
+
+    /**
+     * Provides how many tasks are due, but wait for the {@link #EXECUTOR} thread. This method can be invoked by
+     * arbitrary threads.
+     *
+     * @return the number of due tasks that wait for the {@link #EXECUTOR} thread.
+     */
+    public static int getExecutorQueueDepth() {
+        return WORKER.getQueueDepth();
+    }
+
     /**
      * @return the Subject of the current loginContext may be null.
      */
     public static Subject getSubject() {
-        return loginContext.getSubject();
+        return AUTH_STATE.get().m_loginContext.getSubject();
+    }
+
+    /**
+     * Provides a snapshot of the Subject of the current loginContext, which can be used by other threads than the
+     * {@link #EXECUTOR} thread. The snapshot holds copies of the Kerberos tickets, hence it stays usable even if the
+     * current login is renewed or logged out in the meantime. It is not read-only however, so that Java's Kerberos
+     * implementation can still add service tickets to it.
+     *
+     * <p>
+     * Each invocation returns a new snapshot with its own copy of the ticket granting ticket, hence callers may
+     * modify it without affecting other callers. Service tickets, which have been collected from earlier callers (see
+     * {@link #collectServiceTickets(Subject)}), are shared however, so that they are not fetched from the KDC again.
+     * </p>
+     *
+     * @return a snapshot of the Subject of the current loginContext.
+     */
+    public static Subject getSubjectSnapshot() {
+        return createCallerSubject(AUTH_STATE.get().m_subjectSnapshot);
+    }
+
+    /**
+     * Collects the service tickets that Java's Kerberos implementation has added to the given snapshot (see
+     * {@link #getSubjectSnapshot()}) while it was in use, so that subsequent snapshots of the current login contain
+     * them. The service tickets are only collected if the snapshot has been created from the current login. This
+     * method can be invoked by arbitrary threads.
+     *
+     * @param subjectSnapshot a snapshot, that has been returned by {@link #getSubjectSnapshot()} or
+     *            {@link #getAuthenticatedSubjectSnapshot(KerberosPluginConfig)}.
+     */
+    public static void collectServiceTickets(final Subject subjectSnapshot) {
+        final Subject sharedSnapshot = AUTH_STATE.get().m_subjectSnapshot;
+        if (sharedSnapshot != null) {
+            collectServiceTickets(subjectSnapshot, sharedSnapshot);
+        }
+    }
+
+    /**
+     * Lock-free fast path to obtain an authenticated Subject. Unlike the other methods of this class, this method can
+     * be invoked by arbitrary threads. It returns a snapshot of the Subject (see {@link #getSubjectSnapshot()}), if
+     * the current login can be used without any further action on the {@link #EXECUTOR} thread, which is the case if
+     * <ul>
+     * <li>we are currently logged in with exactly the given config, i.e. a config with only other settings than the
+     * login settings takes the slow path once, to {@link #updateConfig(KerberosPluginConfig) update} the config,</li>
+     * <li>the ticket granting ticket has not expired yet, and</li>
+     * <li>the ticket cache has certainly not changed, when using ticket-cache based authentication.</li>
+     * </ul>
+     * Otherwise null is returned and the caller has to take the slow path via the {@link #EXECUTOR} thread.
+     *
+     * @param config The configuration to authenticate with.
+     * @return a snapshot of the authenticated Subject, or null if the current login cannot be used as is.
+     */
+    public static Subject getAuthenticatedSubjectSnapshot(final KerberosPluginConfig config) {
+        final AuthState authState = AUTH_STATE.get();
+        if (!authState.m_loginState.isAuthenticated() || authState.m_subjectSnapshot == null
+            || !isSameConfig(authState.m_loginPluginConfig, config)
+            || !authState.m_loginState.getTicketValidUntil().isAfter(Instant.now())) {
+            return null;
+        }
+        if (config.getAuthMethod() == AuthMethod.TICKET_CACHE
+            && !authState.m_ticketCacheChangeDetector.isKnownUnchanged()) {
+            return null;
+        }
+        return createCallerSubject(authState.m_subjectSnapshot);
+    }
+
+    /**
+     * Creates a Subject for a single caller from the given shared snapshot. The caller gets its own copy of the ticket
+     * granting ticket, whereas the service tickets of the shared snapshot are handed out as they are, so that they are
+     * reused instead of being fetched from the KDC again.
+     *
+     * @param sharedSnapshot The snapshot that is shared by all callers of a login (see {@link #copySubject(Subject)}).
+     * @return a new Subject, which is not read-only.
+     */
+    static Subject createCallerSubject(final Subject sharedSnapshot) {
+        final Set<Object> privateCredentials = new HashSet<>();
+        final Set<Object> sharedPrivateCredentials = sharedSnapshot.getPrivateCredentials();
+        synchronized (sharedPrivateCredentials) {
+            for (Object credential : sharedPrivateCredentials) {
+                if (credential instanceof KerberosTicket ticket) {
+                    if (!ticket.isDestroyed()) {
+                        privateCredentials.add(isTicketGrantingTicket(ticket) ? copyTicket(ticket) : ticket);
+                    }
+                } else {
+                    privateCredentials.add(credential);
+                }
+            }
+        }
+
+        return new Subject(false, sharedSnapshot.getPrincipals(), sharedSnapshot.getPublicCredentials(),
+            privateCredentials);
+    }
+
+    /**
+     * Adds the service tickets of the given caller Subject, that are missing in the given shared snapshot, to the
+     * latter, provided that the caller Subject has been created from it (see {@link #createCallerSubject(Subject)}),
+     * i.e. that both hold the same ticket granting ticket. Service tickets that have expired are removed from the
+     * shared snapshot.
+     *
+     * @param callerSubject The Subject that has been used by a caller.
+     * @param sharedSnapshot The snapshot that is shared by all callers of a login.
+     */
+    static void collectServiceTickets(final Subject callerSubject, final Subject sharedSnapshot) {
+        final Set<KerberosTicket> callerTickets = callerSubject.getPrivateCredentials(KerberosTicket.class);
+        final Set<Object> sharedPrivateCredentials = sharedSnapshot.getPrivateCredentials();
+        synchronized (sharedPrivateCredentials) {
+            final boolean sameLogin = callerTickets.stream() //
+                .filter(KerberosAuthManager::isTicketGrantingTicket) //
+                .anyMatch(sharedPrivateCredentials::contains);
+            if (!sameLogin) {
+                return;
+            }
+
+            sharedPrivateCredentials.removeIf(credential -> credential instanceof KerberosTicket ticket
+                && !isTicketGrantingTicket(ticket) && (ticket.isDestroyed() || !ticket.isCurrent()));
+            for (KerberosTicket ticket : callerTickets) {
+                if (!isTicketGrantingTicket(ticket) && !ticket.isDestroyed() && ticket.isCurrent()) {
+                    sharedPrivateCredentials.add(ticket);
+                }
+            }
+        }
+    }
+
+    private static boolean isTicketGrantingTicket(final KerberosTicket ticket) {
+        return ticket.getServer().getName().startsWith("krbtgt/");
+    }
+
+    /**
+     * Copies the given Subject, so that the copy holds copies of the Kerberos tickets and hence stays usable after the
+     * given Subject has been logged out.
+     *
+     * @param subject The Subject to copy.
+     * @return a copy of the given Subject, which is not read-only.
+     */
+    static Subject copySubject(final Subject subject) {
+        final Set<Object> privateCredentials = new HashSet<>();
+        final Set<Object> origPrivateCredentials = subject.getPrivateCredentials();
+        synchronized (origPrivateCredentials) {
+            for (Object credential : origPrivateCredentials) {
+                if (credential instanceof KerberosTicket) {
+                    final KerberosTicket ticket = (KerberosTicket)credential;
+                    if (!ticket.isDestroyed()) {
+                        privateCredentials.add(copyTicket(ticket));
+                    }
+                } else {
+                    privateCredentials.add(credential);
+                }
+            }
+        }
+
+        return new Subject(false, subject.getPrincipals(), subject.getPublicCredentials(), privateCredentials);
+    }
+
+    private static KerberosTicket copyTicket(final KerberosTicket ticket) {
+        return new KerberosTicket(ticket.getEncoded(), //
+            ticket.getClient(), //
+            ticket.getServer(), //
+            ticket.getSessionKey().getEncoded(), //
+            ticket.getSessionKeyType(), //
+            ticket.getFlags(), //
+            ticket.getAuthTime(), //
+            ticket.getStartTime(), //
+            ticket.getEndTime(), //
+            ticket.getRenewTill(), //
+            ticket.getClientAddresses());
     }
 
 
@@ -445,7 +1237,7 @@ public static Subject getSubject() {
      */
     public static void registerStateListener(final KerberosStateListener listener) {
         stateListener = listener;
-        stateListener.kerberosStateChanged(loginState);
+        listener.kerberosStateChanged(getKerberosState());
     }
 
 
@@ -456,34 +1248,33 @@ public static void registerStateListener(final KerberosStateListener listener) {
      * @return whether the ticket cache outside of KNIME has changed.
      */
     public static boolean ticketCacheHasChanged() {
-        if (!loginState.isAuthenticated() || loginPluginConfig.getAuthMethod() != AuthMethod.TICKET_CACHE) {
+        final AuthState authState = AUTH_STATE.get();
+        final KerberosPluginConfig loginPluginConfig = authState.m_loginPluginConfig;
+        if (!authState.m_loginState.isAuthenticated() || loginPluginConfig.getAuthMethod() != AuthMethod.TICKET_CACHE) {
             throw new IllegalStateException("Ticket-cache based Kerberos login required");
         }
 
-        boolean toReturn = true;
-
-        try {
-            final LoginContext tmpLoginContext =
-                new LoginContext("KNIMEKerberosLoginContext", null, TicketCacheChangedCheckCallbackHandler.INSTANCE, new KerberosJAASConfiguration(loginPluginConfig));
-            tmpLoginContext.login();
-            final KerberosTicket tmpTicket = tmpLoginContext.getSubject().getPrivateCredentials(KerberosTicket.class).iterator().next();
-            final KerberosTicket tgt = getSubject().getPrivateCredentials(KerberosTicket.class).iterator().next();
-            if (tmpTicket != null && tmpTicket.equals(tgt)) {
-                toReturn = false;
-            }
-        } catch (final LoginException ex) { // NOSONAR
-            // failed to get ticket = ticket has changed
+        final long startNanos = System.nanoTime();
+        final KerberosTicketCacheCheckEvent checkEvent = new KerberosTicketCacheCheckEvent();
+        checkEvent.begin();
+        final boolean changed = authState.m_ticketCacheChangeDetector.hasChanged(authState.m_loginContext.getSubject());
+        KerberosMetrics.TICKET_CACHE_CHECKS.record(startNanos, true);
+        checkEvent.end();
+        if (checkEvent.shouldCommit()) {
+            checkEvent.setDetection(loginPluginConfig.getTicketCacheChangeDetection().toString());
+            checkEvent.setChanged(changed);
+            checkEvent.commit();
         }
-
-        return toReturn;
+        return changed;
     }
 
     /**
      * @param showIcon
      */
     public static void showKerberosStatusIcon(final boolean showIcon) {
-        if (stateListener != null) {
-            stateListener.showKerberosStatusIcon(showIcon || loginState.isAuthenticated());
+        final KerberosStateListener listener = stateListener;
+        if (listener != null) {
+            listener.showKerberosStatusIcon(showIcon || getKerberosState().isAuthenticated());
         }
     }
 
@@ -0,0 +1,108 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.knime.kerberos.config.PrefKey.CallbackExecutionMode;
+import org.knime.kerberos.logger.KerberosLogger;
+
+/**
+ * Holds the bounded thread pool that executes Kerberos callbacks when using
+ * {@link CallbackExecutionMode#THREAD_POOL}. In this mode only login, renewal and logout are serialized on
+ * {@link KerberosAuthManager#EXECUTOR}, whereas the callbacks themselves (which typically perform slow network I/O)
+ * run concurrently on this pool. Likewise, it holds the executor that starts a virtual thread per callback when using
+ * {@link CallbackExecutionMode#VIRTUAL_THREADS}.
+ *
+ * @author KNIME GmbH
+ */
+public final class KerberosCallbackExecutor {
+
+    private static final ResizableThreadPool POOL =
+        new ResizableThreadPool("KerberosCallback-", Runtime.getRuntime().availableProcessors());
+
+    private static final ExecutorService VIRTUAL_THREADS = createVirtualThreadExecutor();
+
+    private KerberosCallbackExecutor() {
+        // utility class
+    }
+
+    private static ExecutorService createVirtualThreadExecutor() {
+        // the factory of a builder is threadsafe, unlike the builder itself
+        final ThreadFactory factory = Thread.ofVirtual().name("KerberosVirtualCallback-", 1).factory();
+        return Executors.newThreadPerTaskExecutor(r -> factory.newThread(KerberosLogger.capturing(r)));
+    }
+
+    /**
+     * Provides the executor that executes each Kerberos callback on its own virtual thread.
+     *
+     * @return the executor to submit callbacks to.
+     */
+    public static ExecutorService getVirtualThreadExecutor() {
+        return VIRTUAL_THREADS;
+    }
+
+    /**
+     * Provides the thread pool to execute Kerberos callbacks, resized to the given number of threads if necessary.
+     *
+     * @param poolSize The maximum number of callbacks to execute concurrently. Values smaller than one mean the number
+     *            of available processors.
+     * @return the thread pool to submit callbacks to.
+     */
+    public static ExecutorService getExecutor(final int poolSize) {
+        final int effectivePoolSize = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return POOL.getExecutor(effectivePoolSize);
+    }
+
+    /**
+     * @return the number of callbacks that wait for a thread of the pool.
+     */
+    public static int getQueueDepth() {
+        return POOL.getQueueDepth();
+    }
+}
@@ -0,0 +1,459 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.security.auth.Subject;
+import javax.security.auth.kerberos.KerberosTicket;
+import javax.security.auth.login.LoginContext;
+import javax.security.auth.login.LoginException;
+
+import org.apache.log4j.Logger;
+import org.knime.kerberos.config.KerberosPluginConfig;
+import org.knime.kerberos.config.PrefKey.AuthMethod;
+import org.knime.kerberos.delegation.SingleFlight;
+import org.knime.kerberos.jfr.KerberosLoginEvent;
+import org.knime.kerberos.jfr.KerberosTicketRenewalEvent;
+import org.knime.kerberos.logger.KerberosLogger;
+import org.knime.kerberos.metrics.KerberosMetrics;
+
+/**
+ * Holds logins of explicitly requested principals, e.g. service accounts that each have their own keytab, in addition
+ * to the login of the {@link KerberosAuthManager}. The logins are keyed by principal and keytab and are held
+ * concurrently, hence callbacks for different principals neither wait for each other, nor replace each other's login.
+ *
+ * <p>
+ * Each login has its own renewal schedule, which fetches a new ticket from the keytab before the current one expires.
+ * A login is logged out once it has not been used for {@link KerberosPluginConfig#getCredentialIdleTimeoutSeconds()},
+ * or when more than {@link KerberosPluginConfig#getCredentialCacheSize()} logins are held, in which case the least
+ * recently used login is logged out. All logins use the Kerberos configuration (krb5.conf) that is currently in
+ * effect, see {@link KerberosAuthManager#isConfigured()}.
+ * </p>
+ *
+ * <p>
+ * This class is threadsafe. Only configuring Kerberos, if it is not configured yet, is done on the
+ * {@link KerberosAuthManager#EXECUTOR} thread, which maintains the JVM-wide Kerberos configuration. The first login of
+ * a principal is done by the requesting thread (see
+ * {@link KerberosAuthManager#loginPrincipal(KerberosPluginConfig, String, String)}), while renewals and logouts are
+ * done by a single background thread, so that neither holds up the callbacks on the
+ * {@link KerberosAuthManager#EXECUTOR} thread.
+ * </p>
+ *
+ * @author KNIME GmbH
+ */
+public final class KerberosCredentialManager {
+
+    private static final Logger LOG = Logger.getLogger(KerberosCredentialManager.class);
+
+    /**
+     * Renews and logs out the held logins. All mutable state of a {@link ManagedLogin}, except when it has been used
+     * last, is confined to this thread.
+     */
+    private static final ScheduledExecutorService RENEWAL_EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread t = new Thread(KerberosLogger.capturing(r), "KerberosCredentialRenewal");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final ConcurrentMap<CredentialKey, ManagedLogin> LOGINS = new ConcurrentHashMap<>();
+
+    /** Lets concurrent requests for the same principal wait for a single login. */
+    private static final SingleFlight<CredentialKey, ManagedLogin> PENDING_LOGINS = new SingleFlight<>();
+
+    private KerberosCredentialManager() {
+    }
+
+    /**
+     * Identifies a login by its principal and the keytab it is logged in with.
+     */
+    private record CredentialKey(String principal, String keytabFile) {
+    }
+
+    /**
+     * A single login, with its ticket granting ticket and the Subject snapshot that collects the service tickets of
+     * all callers.
+     */
+    private record Login(LoginContext loginContext, KerberosTicket tgt, Subject sharedSnapshot) {
+
+        static Login of(final LoginContext loginContext) {
+            final Subject subject = loginContext.getSubject();
+            final KerberosTicket tgt = subject.getPrivateCredentials(KerberosTicket.class).iterator().next();
+            return new Login(loginContext, tgt, KerberosAuthManager.copySubject(subject));
+        }
+
+        /**
+         * @return a new snapshot of the Subject of this login, with its own copy of the ticket granting ticket.
+         */
+        Subject createSubjectSnapshot() {
+            return KerberosAuthManager.createCallerSubject(sharedSnapshot);
+        }
+    }
+
+    /**
+     * Provides a snapshot of an authenticated Subject for the given principal, which is logged in with the given
+     * keytab. A held login is reused if its ticket granting ticket has not expired yet and it has been logged in with
+     * the same config, otherwise the principal is logged in by the current thread. Concurrent requests for the same
+     * principal wait for the same login.
+     *
+     * @param config The config that provides the settings for renewal and eviction of the login.
+     * @param principal The principal to authenticate.
+     * @param keytabFile Path to the keytab file, that holds the keys of the principal.
+     * @return a new snapshot of the authenticated Subject for the caller, which stays usable after the login has been
+     *         renewed or logged out. Its service tickets should be collected afterwards (see
+     *         {@link #collectServiceTickets(String, String, Subject)}).
+     * @throws LoginException if the login fails
+     * @throws InterruptedException if the current thread was interrupted while waiting for the login
+     * @throws Exception if the login fails otherwise
+     */
+    public static Subject getSubjectSnapshot(final KerberosPluginConfig config, final String principal,
+        final String keytabFile) throws Exception { // NOSONAR
+        final var key = new CredentialKey(principal, keytabFile);
+        while (true) {
+            ManagedLogin managedLogin = LOGINS.get(key);
+            if (managedLogin == null || !managedLogin.isUsableWith(config)) {
+                managedLogin = PENDING_LOGINS.execute(key, () -> login(key, config));
+            }
+            managedLogin.markUsed();
+            final Subject snapshot = managedLogin.m_login.createSubjectSnapshot();
+            // the login may have been evicted before it has been marked as used, in which case it is being logged out
+            if (LOGINS.get(key) == managedLogin) {
+                return snapshot;
+            }
+        }
+    }
+
+    /**
+     * Collects the service tickets that Java's Kerberos implementation has added to the given snapshot while it was in
+     * use, so that subsequent snapshots of the same login contain them (see
+     * {@link KerberosAuthManager#collectServiceTickets(Subject)}).
+     *
+     * @param principal The principal, the snapshot has been requested for.
+     * @param keytabFile Path to the keytab file, the snapshot has been requested for.
+     * @param subjectSnapshot The snapshot, that has been returned by
+     *            {@link #getSubjectSnapshot(KerberosPluginConfig, String, String)}.
+     */
+    public static void collectServiceTickets(final String principal, final String keytabFile,
+        final Subject subjectSnapshot) {
+        final ManagedLogin managedLogin = LOGINS.get(new CredentialKey(principal, keytabFile));
+        if (managedLogin != null) {
+            KerberosAuthManager.collectServiceTickets(subjectSnapshot, managedLogin.m_login.sharedSnapshot());
+        }
+    }
+
+    /**
+     * Logs out all held logins. Subject snapshots that have been handed out before remain usable, because they hold
+     * copies of the tickets.
+     */
+    public static void logoutAll() {
+        for (ManagedLogin managedLogin : LOGINS.values()) {
+            evict(managedLogin);
+        }
+    }
+
+    /**
+     * @return the number of currently held logins.
+     */
+    public static int getLoginCount() {
+        return LOGINS.size();
+    }
+
+    private static ManagedLogin login(final CredentialKey key, final KerberosPluginConfig config)
+        throws Exception { // NOSONAR
+        final ManagedLogin existing = LOGINS.get(key);
+        if (existing != null && existing.isUsableWith(config)) {
+            // logged in by another thread in the meantime
+            return existing;
+        }
+
+        LOG.info(String.format("Doing Kerberos login for %s with keytab %s", key.principal(), key.keytabFile()));
+        final long startNanos = System.nanoTime();
+        final var loginEvent = new KerberosLoginEvent();
+        loginEvent.begin();
+        boolean success = false;
+        final ManagedLogin managedLogin;
+        try {
+            managedLogin = new ManagedLogin(key, config, doLogin(key, config));
+            success = true;
+        } finally {
+            KerberosMetrics.LOGINS.record(startNanos, success);
+            loginEvent.end();
+            if (loginEvent.shouldCommit()) {
+                loginEvent.setAuthMethod(AuthMethod.KEYTAB.toString());
+                loginEvent.setPrincipal(key.principal());
+                loginEvent.setSuccess(success);
+                loginEvent.commit();
+            }
+        }
+
+        final ManagedLogin previous = LOGINS.put(key, managedLogin);
+        if (previous != null) {
+            // expired or logged in with a different config
+            RENEWAL_EXECUTOR.execute(previous::logout);
+        }
+        RENEWAL_EXECUTOR.execute(managedLogin::start);
+        evictLeastRecentlyUsed(Math.max(1, config.getCredentialCacheSize()));
+        LOG.info(String.format("Logged into Kerberos as %s (%d logins held)", key.principal(), LOGINS.size()));
+        return managedLogin;
+    }
+
+    private static Login doLogin(final CredentialKey key, final KerberosPluginConfig config)
+        throws Exception { // NOSONAR
+        if (!KerberosAuthManager.isConfigured()) {
+            final Future<Void> configureFuture = KerberosAuthManager.EXECUTOR.submit(() -> {
+                KerberosAuthManager.configureUnlessConfigured(config);
+                return null;
+            });
+            try {
+                configureFuture.get();
+            } catch (ExecutionException e) {
+                // unpack the exception that was thrown while configuring
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw (Exception)e.getCause();
+            }
+        }
+        return Login.of(KerberosAuthManager.loginPrincipal(config, key.principal(), key.keytabFile()));
+    }
+
+    private static void evictLeastRecentlyUsed(final int maxLogins) {
+        while (LOGINS.size() > maxLogins) {
+            LOGINS.values().stream() //
+                .min(Comparator.comparingLong(managedLogin -> managedLogin.m_lastUsedNanos)) //
+                .ifPresent(managedLogin -> {
+                    LOG.debug(String.format("Logging out %s, because more than %d logins are held",
+                        managedLogin.m_key.principal(), maxLogins));
+                    evict(managedLogin);
+                });
+        }
+    }
+
+    private static void evict(final ManagedLogin managedLogin) {
+        if (LOGINS.remove(managedLogin.m_key, managedLogin)) {
+            RENEWAL_EXECUTOR.execute(managedLogin::logout);
+        }
+    }
+
+    private static void logoutQuietly(final LoginContext loginContext) {
+        try {
+            loginContext.logout();
+        } catch (LoginException e) {
+            // we only log this as debug because we can safely ignore it
+            LOG.debug("Failed to logout: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A login that is held by the {@link KerberosCredentialManager}, together with its renewal and eviction schedule.
+     * Apart from {@link #m_lastUsedNanos}, its state is only modified on the {@link #RENEWAL_EXECUTOR} thread.
+     */
+    private static final class ManagedLogin {
+
+        private final CredentialKey m_key;
+
+        private final KerberosPluginConfig m_config;
+
+        private volatile Login m_login;
+
+        private volatile long m_lastUsedNanos = System.nanoTime();
+
+        private ScheduledFuture<?> m_renewFuture;
+
+        private ScheduledFuture<?> m_idleCheckFuture;
+
+        private boolean m_loggedOut;
+
+        ManagedLogin(final CredentialKey key, final KerberosPluginConfig config, final Login login) {
+            m_key = key;
+            m_config = config;
+            m_login = login;
+        }
+
+        /**
+         * @return whether the ticket granting ticket has not expired yet and the login has been done with the login
+         *         settings of the given config.
+         */
+        boolean isUsableWith(final KerberosPluginConfig config) {
+            return m_config.hasSameLoginSettings(config)
+                && m_login.tgt().getEndTime().toInstant().isAfter(Instant.now());
+        }
+
+        void markUsed() {
+            m_lastUsedNanos = System.nanoTime();
+        }
+
+        void start() {
+            if (m_loggedOut) {
+                return;
+            }
+            scheduleRenewal();
+            scheduleIdleCheck(TimeUnit.SECONDS.toNanos(m_config.getCredentialIdleTimeoutSeconds()));
+        }
+
+        private void scheduleRenewal() {
+            final KerberosTicket tgt = m_login.tgt();
+            final Date startTime = tgt.getStartTime() != null ? tgt.getStartTime() : tgt.getAuthTime();
+            final long millisUntilRenewal = RenewalSchedule.computeRenewalDelay(Instant.now().toEpochMilli(),
+                startTime.getTime(), tgt.getEndTime().getTime(), m_config.getRenewalSafetyMarginSeconds() * 1000,
+                m_config.getRenewalWindowPercent(), ThreadLocalRandom.current().nextDouble());
+
+            LOG.debug(String.format("Scheduling login renewal of %s in %d seconds", m_key.principal(),
+                Duration.ofMillis(millisUntilRenewal).getSeconds()));
+            scheduleRenewalAttempt(millisUntilRenewal, 0);
+        }
+
+        private void scheduleRenewalAttempt(final long millisUntilRenewal, final int attempt) {
+            m_renewFuture =
+                RENEWAL_EXECUTOR.schedule(() -> renew(attempt), millisUntilRenewal, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Fetches a new ticket from the keytab. The previous login is only logged out after the new login has
+         * succeeded, so that the login stays usable in the meantime.
+         */
+        private void renew(final int attempt) {
+            if (m_loggedOut) {
+                return;
+            }
+
+            final long startNanos = System.nanoTime();
+            final var renewalEvent = new KerberosTicketRenewalEvent();
+            renewalEvent.begin();
+            boolean success = false;
+            try {
+                final Login previous = m_login;
+                m_login = doLogin(m_key, m_config);
+                logoutQuietly(previous.loginContext());
+                success = true;
+                LOG.info("Fetched new Kerberos ticket for " + m_key.principal());
+                scheduleRenewal();
+            } catch (InterruptedException e) { // NOSONAR the login is being logged out
+                Thread.currentThread().interrupt();
+            } catch (Exception e) { // NOSONAR the failure is reported and retried
+                scheduleRenewalRetry(attempt + 1, e);
+            } finally {
+                KerberosMetrics.RENEWALS.record(startNanos, success);
+                renewalEvent.end();
+                if (renewalEvent.shouldCommit()) {
+                    renewalEvent.setAuthMethod(AuthMethod.KEYTAB.toString());
+                    renewalEvent.setPrincipal(m_key.principal());
+                    renewalEvent.setRenewalType("RELOGIN");
+                    renewalEvent.setRetry(attempt);
+                    renewalEvent.setSuccess(success);
+                    renewalEvent.commit();
+                }
+            }
+        }
+
+        private void scheduleRenewalRetry(final int retry, final Exception failure) {
+            if (retry > m_config.getRenewalMaxRetries()) {
+                // the login stays usable until its ticket expires, afterwards the next request logs in again
+                LOG.error(String.format("Failed to fetch a new Kerberos ticket for %s, giving up after %d retries: %s",
+                    m_key.principal(), retry - 1, ExceptionUtil.getDeepestErrorMessage(failure, true)), failure);
+                return;
+            }
+
+            final long millisUntilExpiry = m_login.tgt().getEndTime().getTime() - Instant.now().toEpochMilli();
+            final long millisUntilRetry = RenewalSchedule.computeRetryDelay(retry,
+                m_config.getRenewalRetryBackoffSeconds() * 1000L, millisUntilExpiry,
+                ThreadLocalRandom.current().nextDouble());
+
+            LOG.warn(String.format(
+                "Failed to fetch a new Kerberos ticket for %s (%s), retrying in %d seconds (retry %d of %d)",
+                m_key.principal(), ExceptionUtil.getDeepestErrorMessage(failure, true),
+                Duration.ofMillis(millisUntilRetry).getSeconds(), retry, m_config.getRenewalMaxRetries()));
+            scheduleRenewalAttempt(millisUntilRetry, retry);
+        }
+
+        private void scheduleIdleCheck(final long nanosUntilCheck) {
+            m_idleCheckFuture = RENEWAL_EXECUTOR.schedule(this::checkIdle, nanosUntilCheck, TimeUnit.NANOSECONDS);
+        }
+
+        private void checkIdle() {
+            if (m_loggedOut) {
+                return;
+            }
+
+            final long idleTimeoutNanos = TimeUnit.SECONDS.toNanos(m_config.getCredentialIdleTimeoutSeconds());
+            final long idleNanos = System.nanoTime() - m_lastUsedNanos;
+            if (idleNanos >= idleTimeoutNanos) {
+                LOG.debug(String.format("Logging out %s, because the login has not been used for %d seconds",
+                    m_key.principal(), TimeUnit.NANOSECONDS.toSeconds(idleNanos)));
+                evict(this);
+            } else {
+                scheduleIdleCheck(idleTimeoutNanos - idleNanos);
+            }
+        }
+
+        void logout() {
+            if (m_loggedOut) {
+                return;
+            }
+            m_loggedOut = true;
+            if (m_renewFuture != null) {
+                m_renewFuture.cancel(false);
+            }
+            if (m_idleCheckFuture != null) {
+                m_idleCheckFuture.cancel(false);
+            }
+            logoutQuietly(m_login.loginContext());
+            LOG.debug("Logged out " + m_key.principal());
+        }
+    }
+}
@@ -67,16 +67,67 @@ public class KerberosJAASConfiguration extends Configuration {
 
     /**
      * Creates a new JAAS login context configuration for Kerberos that sets up the
-     * {@login com.sun.security.auth.module.Krb5LoginModule} according to the given {@link KerberosPluginConfig}.
+     * {@link com.sun.security.auth.module.Krb5LoginModule} according to the given {@link KerberosPluginConfig}.
      *
      * @param config Configuration for the KNIME Kerberos plugin.
      */
     public KerberosJAASConfiguration(final KerberosPluginConfig config) {
+        this(config, true);
+    }
+
+    /**
+     * Creates a new JAAS login context configuration for Kerberos that sets up the
+     * {@link com.sun.security.auth.module.Krb5LoginModule} according to the given {@link KerberosPluginConfig}.
+     *
+     * @param config Configuration for the KNIME Kerberos plugin.
+     * @param refreshKrb5Config Whether the login module shall refresh Java's Kerberos config before logging in. Must
+     *            be false when logging in outside of the {@link KerberosAuthManager#EXECUTOR} thread, which is the
+     *            only thread that may modify the Kerberos config.
+     */
+    public KerberosJAASConfiguration(final KerberosPluginConfig config, final boolean refreshKrb5Config) {
+        this(config, refreshKrb5Config, null);
+    }
+
+    /**
+     * Creates a new JAAS login context configuration for Kerberos that sets up the
+     * {@link com.sun.security.auth.module.Krb5LoginModule} according to the given {@link KerberosPluginConfig}.
+     *
+     * @param config Configuration for the KNIME Kerberos plugin.
+     * @param refreshKrb5Config Whether the login module shall refresh Java's Kerberos config before logging in. Must
+     *            be false when logging in outside of the {@link KerberosAuthManager#EXECUTOR} thread, which is the
+     *            only thread that may modify the Kerberos config.
+     * @param presetPrincipal The principal to log in with a ticket cache or user and password, which has been preset
+     *            with the sun.security.krb5.principal system property, or null.
+     */
+    public KerberosJAASConfiguration(final KerberosPluginConfig config, final boolean refreshKrb5Config,
+        final String presetPrincipal) {
         final Map<String, String> krb5LoginModuleParameters = createKrb5LoginModuleParameters(config);
+        krb5LoginModuleParameters.put("refreshKrb5Config", Boolean.toString(refreshKrb5Config));
+        if (presetPrincipal != null) {
+            krb5LoginModuleParameters.put("principal", presetPrincipal);
+        }
         m_confEntry = new AppConfigurationEntry("com.sun.security.auth.module.Krb5LoginModule",
             AppConfigurationEntry.LoginModuleControlFlag.REQUIRED, krb5LoginModuleParameters);
     }
 
+    /**
+     * Creates a new JAAS login context configuration for Kerberos that sets up the
+     * {@link com.sun.security.auth.module.Krb5LoginModule} to log in the given principal with the given keytab,
+     * independent of the principal and keytab of the {@link KerberosPluginConfig}. The login module does not refresh
+     * Java's Kerberos config, hence Kerberos has to be configured already (see
+     * {@link KerberosAuthManager#configureUnlessConfigured(KerberosPluginConfig)}).
+     *
+     * @param keytabPrincipal The principal to log in.
+     * @param keytabFile Path to the keytab file, that holds the keys of the principal.
+     * @param doDebugLogging Whether the login module shall print debug output.
+     */
+    public KerberosJAASConfiguration(final String keytabPrincipal, final String keytabFile,
+        final boolean doDebugLogging) {
+        m_confEntry = new AppConfigurationEntry("com.sun.security.auth.module.Krb5LoginModule",
+            AppConfigurationEntry.LoginModuleControlFlag.REQUIRED,
+            createParametersForKeytabLogin(keytabPrincipal, keytabFile, doDebugLogging, false));
+    }
+
     /**
      * Creates Krb5 Login Module Parameters based on the given {@link KerberosPluginConfig}.
      *
@@ -133,19 +184,25 @@ private static Map<String, String> createParametersForTicketCacheLogin(final Ker
     }
 
     private static Map<String, String> createParametersForKeytabLogin(final KerberosPluginConfig config) {
+        return createParametersForKeytabLogin(config.getKeytabPrincipal(), config.getKeytabFile(),
+            config.doDebugLogging(), true);
+    }
+
+    private static Map<String, String> createParametersForKeytabLogin(final String keytabPrincipal,
+        final String keytabFile, final boolean doDebugLogging, final boolean refreshKrb5Config) {
 
         Map<String, String> parameters = new HashMap<>();
-        parameters.put("debug", Boolean.toString(config.doDebugLogging()));
-        parameters.put("refreshKrb5Config", "true");
+        parameters.put("debug", Boolean.toString(doDebugLogging));
+        parameters.put("refreshKrb5Config", Boolean.toString(refreshKrb5Config));
         parameters.put("useTicketCache", "false");
         parameters.put("useKeyTab", "true");
         parameters.put("useFirstPass", "false");
         parameters.put("tryFirstPass", "false");
         parameters.put("doNotPrompt", "true");
 
-        parameters.put("principal", config.getKeytabPrincipal());
+        parameters.put("principal", keytabPrincipal);
         parameters.put("storeKey", "false");
-        parameters.put("keyTab", config.getKeytabFile());
+        parameters.put("keyTab", keytabFile);
         return parameters;
     }
 
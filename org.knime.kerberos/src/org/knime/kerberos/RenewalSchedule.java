@@ -0,0 +1,147 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos;
+
+import java.time.Instant;
+
+/**
+ * Immutable description of the next scheduled renewal of the current Kerberos login, see
+ * {@link KerberosAuthManager#getRenewalSchedule()}. Also computes when renewals and their retries are due: renewals
+ * happen after a configurable percentage of the ticket lifetime, but no later than the renewal safety margin before
+ * the ticket expires. Failed renewals are retried with exponential backoff. All delays are jittered, so that many
+ * KNIME instances that logged in at the same time do not hit the KDC at the same time.
+ *
+ * @author KNIME GmbH
+ */
+public final class RenewalSchedule {
+
+    /** Minimum delay before the first renewal attempt. */
+    static final long MIN_RENEWAL_DELAY_MILLIS = 5000;
+
+    /** Minimum delay before a retry of a failed renewal. */
+    static final long MIN_RETRY_DELAY_MILLIS = 1000;
+
+    /** The first renewal attempt happens up to this fraction of the computed delay earlier. */
+    static final double RENEWAL_JITTER = 0.1;
+
+    private final Instant m_nextRenewal;
+
+    private final int m_attempt;
+
+    RenewalSchedule(final Instant nextRenewal, final int attempt) {
+        m_nextRenewal = nextRenewal;
+        m_attempt = attempt;
+    }
+
+    /**
+     * @return when the next renewal attempt is due.
+     */
+    public Instant getNextRenewal() {
+        return m_nextRenewal;
+    }
+
+    /**
+     * @return zero if the next renewal attempt is the regular renewal, otherwise the number of the retry after previous
+     *         renewal attempts have failed.
+     */
+    public int getAttempt() {
+        return m_attempt;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RenewalSchedule[nextRenewal=%s, attempt=%d]", m_nextRenewal, m_attempt);
+    }
+
+    /**
+     * Computes the delay until a ticket should be renewed. This is the earlier of the given percentage of the ticket
+     * lifetime and the safety margin before the end time of the ticket, minus a random jitter of up to
+     * {@link #RENEWAL_JITTER} of the delay, but at least {@link #MIN_RENEWAL_DELAY_MILLIS}.
+     *
+     * @param nowMillis The current time.
+     * @param startMillis The start time of the ticket.
+     * @param endMillis The end time of the ticket.
+     * @param safetyMarginMillis The renewal safety margin.
+     * @param windowPercent The percentage of the ticket lifetime after which to renew. Values outside of 1-99 only
+     *            apply the safety margin.
+     * @param random A random number between zero (inclusive) and one (exclusive).
+     * @return the delay in milliseconds until the ticket should be renewed.
+     */
+    static long computeRenewalDelay(final long nowMillis, final long startMillis, final long endMillis,
+        final long safetyMarginMillis, final int windowPercent, final double random) {
+
+        long renewalMillis = endMillis - safetyMarginMillis;
+        if (windowPercent > 0 && windowPercent < 100) {
+            renewalMillis = Math.min(renewalMillis, startMillis + (endMillis - startMillis) / 100 * windowPercent);
+        }
+
+        final long delay = renewalMillis - nowMillis;
+        return Math.max(delay - (long)(delay * RENEWAL_JITTER * random), MIN_RENEWAL_DELAY_MILLIS);
+    }
+
+    /**
+     * Computes the delay until a failed renewal is retried. The delay doubles with each retry, starting from the given
+     * initial backoff, where a random jitter of up to half of the delay is applied. Retries are scheduled no later
+     * than the end time of the ticket, but with a delay of at least {@link #MIN_RETRY_DELAY_MILLIS}.
+     *
+     * @param retry The number of the retry, starting with one.
+     * @param initialBackoffMillis The delay before the first retry, without jitter.
+     * @param millisUntilExpiry The time until the ticket expires.
+     * @param random A random number between zero (inclusive) and one (exclusive).
+     * @return the delay in milliseconds until the renewal is retried.
+     */
+    static long computeRetryDelay(final int retry, final long initialBackoffMillis, final long millisUntilExpiry,
+        final double random) {
+
+        // cap the exponent to avoid overflows, the delay is capped by the ticket end time anyway
+        final long backoff = initialBackoffMillis << Math.min(retry - 1, 20);
+        long delay = backoff / 2 + (long)(backoff / 2 * random);
+        if (millisUntilExpiry > 0) {
+            delay = Math.min(delay, millisUntilExpiry);
+        }
+        return Math.max(delay, MIN_RETRY_DELAY_MILLIS);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.knime.kerberos.logger.KerberosLogger;
+
+/**
+ * A bounded pool of daemon threads, whose size can be changed at runtime, e.g. when the preferences have changed. Idle
+ * threads are discarded, so an unused pool does not hold on to any threads. The threads capture Kerberos debug output
+ * (see {@link KerberosLogger#capturing(Runnable)}).
+ *
+ * @author KNIME GmbH
+ */
+public final class ResizableThreadPool {
+
+    private final AtomicInteger m_threadCounter = new AtomicInteger();
+
+    private final ThreadPoolExecutor m_pool;
+
+    /**
+     * Creates a new pool.
+     *
+     * @param threadNamePrefix The prefix of the thread names, which is followed by a running number.
+     * @param poolSize The initial number of threads (must be at least one).
+     */
+    public ResizableThreadPool(final String threadNamePrefix, final int poolSize) {
+        m_pool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            final Thread t =
+                new Thread(KerberosLogger.capturing(r), threadNamePrefix + m_threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        m_pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Provides the pool, resized to the given number of threads if necessary.
+     *
+     * @param poolSize The number of threads (must be at least one).
+     * @return the pool to submit tasks to.
+     */
+    public ExecutorService getExecutor(final int poolSize) {
+        if (m_pool.getMaximumPoolSize() != poolSize) {
+            resize(poolSize);
+        }
+        return m_pool;
+    }
+
+    /**
+     * @return the number of tasks that wait for a thread of the pool.
+     */
+    public int getQueueDepth() {
+        return m_pool.getQueue().size();
+    }
+
+    private synchronized void resize(final int poolSize) {
+        // core size must never exceed the maximum size, hence the order of the setter calls matters
+        if (poolSize > m_pool.getMaximumPoolSize()) {
+            m_pool.setMaximumPoolSize(poolSize);
+            m_pool.setCorePoolSize(poolSize);
+        } else if (poolSize < m_pool.getMaximumPoolSize()) {
+            m_pool.setCorePoolSize(poolSize);
+            m_pool.setMaximumPoolSize(poolSize);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+
+import javax.security.auth.Subject;
+
+/**
+ * Binds a JAAS {@link Subject} to the execution of an action, based on {@link Subject#callAs(Subject, Callable)}
+ * instead of the deprecated, AccessController based {@link Subject#doAs(Subject, java.security.PrivilegedAction)}.
+ * On recent JDKs, {@link Subject#callAs(Subject, Callable)} binds the subject with a ScopedValue, which is cheaper and
+ * is inherited by structured child tasks, while older JDKs still fall back to the AccessController. The bound subject
+ * can be obtained with {@link #current()} in both cases.
+ *
+ * <p>
+ * Unlike {@link Subject#callAs(Subject, Callable)}, which wraps every exception in a {@link CompletionException}, the
+ * methods of this class throw the exception of the action unchanged.
+ * </p>
+ *
+ * @author KNIME GmbH
+ */
+public final class SubjectUtil {
+
+    private SubjectUtil() {
+        // utility class
+    }
+
+    /**
+     * Executes the given action with the given subject bound as the {@link #current()} subject.
+     *
+     * @param subject The subject to bind, may be null.
+     * @param action The action to execute.
+     * @return the result of the action.
+     * @throws Exception the exception thrown by the action.
+     */
+    public static <T> T callAs(final Subject subject, final Callable<T> action) throws Exception { // NOSONAR
+        try {
+            return Subject.callAs(subject, action);
+        } catch (CompletionException e) {
+            // the exception of the action is always wrapped exactly once
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the subject bound to the current thread, or null if there is none.
+     */
+    public static Subject current() {
+        return Subject.current();
+    }
+}
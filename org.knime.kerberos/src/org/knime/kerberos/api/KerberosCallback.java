@@ -66,8 +66,10 @@
      * successful and a ticket has been acquired.
      *
      * <p>
-     * If necessary implementations can obtain the JAAS {@link Subject} using
-     * {@code Subject.getSubject(AccessController.getContext())}.
+     * If necessary implementations can obtain the JAAS {@link Subject} using {@link Subject#current()}. The subject is
+     * bound with {@link Subject#callAs(Subject, java.util.concurrent.Callable)}, hence the deprecated
+     * {@code Subject.getSubject(AccessController.getContext())} only works on JDKs that still bind it with the
+     * AccessController.
      * </p>
      *
      * @return may return an Object
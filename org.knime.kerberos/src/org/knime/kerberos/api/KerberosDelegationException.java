@@ -0,0 +1,96 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.api;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Exception to indicate that service tickets could not be obtained via Kerberos constrained delegation for some of
+ * the hosts of a service. The failure of each host is available via {@link #getFailures()}.
+ *
+ * @author KNIME GmbH
+ * @since 5.9
+ * @noreference non-public API
+ */
+public class KerberosDelegationException extends Exception {
+
+    private static final long serialVersionUID = 2962420187324716483L;
+
+    private final transient Map<String, Exception> m_failures;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param serviceName Kerberos name of the service.
+     * @param hostCount The number of hosts for which service tickets were requested.
+     * @param failures The failures by hostname (must not be empty).
+     */
+    public KerberosDelegationException(final String serviceName, final int hostCount,
+        final Map<String, Exception> failures) {
+        super(createMessage(serviceName, hostCount, failures), failures.values().iterator().next());
+        m_failures = Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+        failures.values().stream().skip(1).forEach(this::addSuppressed);
+    }
+
+    private static String createMessage(final String serviceName, final int hostCount,
+        final Map<String, Exception> failures) {
+        return String.format("Could not obtain Kerberos service tickets for service %s on %d of %d hosts: %s",
+            serviceName, failures.size(), hostCount, //
+            failures.entrySet().stream() //
+                .map(e -> String.format("%s (%s)", e.getKey(), e.getValue().getMessage())) //
+                .collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * @return the failures by hostname, in the order in which the hostnames were provided.
+     */
+    public Map<String, Exception> getFailures() {
+        return m_failures;
+    }
+}
@@ -48,14 +48,17 @@
  */
 package org.knime.kerberos.api;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.security.PrivilegedExceptionAction;
+import java.security.PrivilegedActionException;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 
 import javax.security.auth.Subject;
@@ -76,6 +79,17 @@
 import org.knime.core.node.workflow.contextv2.HubJobExecutorInfo;
 import org.knime.core.node.workflow.contextv2.JobExecutorInfo;
 import org.knime.core.node.workflow.contextv2.WorkflowContextV2;
+import org.knime.kerberos.SubjectUtil;
+import org.knime.kerberos.config.KerberosPluginConfig;
+import org.knime.kerberos.delegation.Krb5CredentialAccess;
+import org.knime.kerberos.delegation.S4U2ProxyCache;
+import org.knime.kerberos.delegation.S4U2ProxyExecutor;
+import org.knime.kerberos.delegation.S4U2SelfCache;
+import org.knime.kerberos.delegation.SingleFlight;
+import org.knime.kerberos.delegation.TicketIdentity;
+import org.knime.kerberos.jfr.KerberosS4U2ProxyEvent;
+import org.knime.kerberos.jfr.KerberosS4U2SelfEvent;
+import org.knime.kerberos.metrics.KerberosMetrics;
 
 import com.sun.security.jgss.ExtendedGSSCredential; //NOSONAR we have to
 
@@ -117,6 +131,25 @@ public final class KerberosDelegationProvider {
 
     private static final String TESTING_CONSTANT_KEY = "knime.kerberos.constrained_delegation_testing_mode";
 
+    private static final S4U2SelfCache S4U2SELF_CACHE = new S4U2SelfCache(0);
+
+    private static final S4U2ProxyCache S4U2PROXY_CACHE = new S4U2ProxyCache(0);
+
+    /** Identifies an S4U2Self request (user -> knimeserver). */
+    private record S4U2SelfRequest(String serverPrincipal, String impersonatedPrincipal, TicketIdentity serverTgt) {
+    }
+
+    /** Identifies an S4U2Proxy request (user -> targetservice). */
+    private record S4U2ProxyRequest(String impersonatedPrincipal, String targetServicePrincipal,
+        TicketIdentity serverTgt) {
+    }
+
+    /** Lets concurrent nodes that impersonate the same user share one S4U2Self exchange with the KDC. */
+    private static final SingleFlight<S4U2SelfRequest, Credentials> S4U2SELF_REQUESTS = new SingleFlight<>();
+
+    /** Lets concurrent nodes that impersonate the same user for the same service share one S4U2Proxy exchange. */
+    private static final SingleFlight<S4U2ProxyRequest, Credentials> S4U2PROXY_REQUESTS = new SingleFlight<>();
+
     private static Oid pickMech() {
         try {
             final var spnego = new Oid(SPNEGO_OID);
@@ -178,8 +211,26 @@ private KerberosDelegationProvider() {
      * @return a Future with the return T of the callback.
      */
     public static <T> Future<T> doWithConstrainedDelegationIfOnServer(final KerberosDelegationCallback<T> callback) {
+        return KerberosProvider.doWithKerberosAuth(withDelegatedCredential(callback));
+    }
+
+    /**
+     * Asynchronous variant of {@link #doWithConstrainedDelegationIfOnServer(KerberosDelegationCallback)}, which allows
+     * to compose continuations without blocking a thread while waiting for the result. Cancelling the returned future
+     * also cancels the execution of the callback.
+     *
+     * @param callback A {@link KerberosDelegationCallback} to which a (possibly delegated) {@link GSSCredential} is
+     *            made available.
+     * @return a {@link CompletableFuture} with the return T of the callback.
+     * @since 5.9
+     */
+    public static <T> CompletableFuture<T>
+        doWithConstrainedDelegationIfOnServerAsync(final KerberosDelegationCallback<T> callback) {
+        return KerberosProvider.doWithKerberosAuthAsync(withDelegatedCredential(callback));
+    }
 
-        return KerberosProvider.doWithKerberosAuth(() -> {
+    private static <T> KerberosCallback<T> withDelegatedCredential(final KerberosDelegationCallback<T> callback) {
+        return () -> {
 
             // default credential created from the JAAS subject
             final GSSCredential credential = GSSManager.getInstance() //
@@ -200,8 +251,7 @@ public static <T> Future<T> doWithConstrainedDelegationIfOnServer(final Kerberos
             } else {
                 return callback.doAuthenticated(credential);
             }
-
-        });
+        };
     }
 
     private static Optional<WorkflowContextV2> getWorkflowContextV2() {
@@ -230,8 +280,10 @@ private static boolean runningInExecutor() {
     }
 
     private static String getPrincipalToImpersonate() {
-        final String serverRealm = getServerRealm();
-        final String workflowUser = getUserToImpersonate();
+        return getPrincipalToImpersonate(getUserToImpersonate(), getServerRealm());
+    }
+
+    private static String getPrincipalToImpersonate(final String workflowUser, final String serverRealm) {
         return String.format("%s@%s", workflowUser, serverRealm);
     }
 
@@ -256,8 +308,12 @@ private static String getUserToImpersonate() {
         }
     }
 
+    /**
+     * Looks up the realm of the currently bound subject. The lookup is not free on JDKs that bind the subject with the
+     * AccessController, hence callers should look it up once and pass it on.
+     */
     private static String getServerRealm() {
-        return Subject.current() //
+        return SubjectUtil.current() //
             .getPrincipals(KerberosPrincipal.class) //
             .iterator() //
             .next() //
@@ -293,7 +349,7 @@ public static <T> T doWithConstrainedDelegationBlocking(final KerberosDelegation
 
 
     /**
-     * Invokes the given callback inside a {@link Subject#doAs(Subject, PrivilegedExceptionAction)}, where the subject
+     * Invokes the given callback inside a {@link Subject#callAs(Subject, Callable)}, where the subject
      * has the following:
      *
      * <li>in KNIME Analytics Platform: Subject has the Kerberos TGT of the currently authenticated Kerberos
@@ -305,7 +361,7 @@ public static <T> T doWithConstrainedDelegationBlocking(final KerberosDelegation
      * @param serviceName Kerberos name of the service (used to build the service principal for the service ticket).
      * @param serviceHostname Fully qualified hostname of the service (used to build the service principal).
      * @param callback A {@link KerberosCallback} which will be called inside
-     *            {@link Subject#doAs(Subject, PrivilegedExceptionAction)}
+     *            {@link Subject#callAs(Subject, Callable)}
      * @param exec An {@link ExecutionMonitor} that can be used to cancel the operation. May be null.
      * @return the value of type T returned by the given callback.
      * @throws CanceledExecutionException If the callback execution has been cancelled using the given
@@ -326,7 +382,7 @@ public static <T> T doWithConstrainedDelegationBlocking(final String serviceName
 
 
     /**
-     * Invokes the given callback inside a {@link Subject#doAs(Subject, PrivilegedExceptionAction)}, where the subject
+     * Invokes the given callback inside a {@link Subject#callAs(Subject, Callable)}, where the subject
      * has the following:
      *
      * <li>in KNIME Analytics Platform: Subject has the Kerberos TGT of the currently authenticated Kerberos
@@ -338,12 +394,13 @@ public static <T> T doWithConstrainedDelegationBlocking(final String serviceName
      * @param serviceName Kerberos name of the service (used to build the service principal for the service ticket).
      * @param serviceHostnames Fully qualified hostnames of the service (used to build the service principal).
      * @param callback A {@link KerberosCallback} which will be called inside
-     *            {@link Subject#doAs(Subject, PrivilegedExceptionAction)}
+     *            {@link Subject#callAs(Subject, Callable)}
      * @param exec An {@link ExecutionMonitor} that can be used to cancel the operation. May be null.
      * @return the value of type T returned by the given callback.
      * @throws CanceledExecutionException If the callback execution has been cancelled using the given
      *             {@link ExecutionMonitor}, or by interrupting the current thread.
      * @throws LoginException, when authentication is not done with keytab but the user is not already logged in.
+     * @throws KerberosDelegationException when service tickets could not be obtained for some of the hostnames.
      * @throws Exception when the given callback threw an exception.
      */
     public static <T> T doWithConstrainedDelegationBlocking(final String serviceName, final String[] serviceHostnames,
@@ -358,7 +415,7 @@ public static <T> T doWithConstrainedDelegationBlocking(final String serviceName
     }
 
     /**
-     * Invokes the given callback inside a {@link Subject#doAs(Subject, PrivilegedExceptionAction)}, where the subject
+     * Invokes the given callback inside a {@link Subject#callAs(Subject, Callable)}, where the subject
      * has the following:
      *
      * <li>in KNIME Analytics Platform: Subject has the Kerberos TGT of the currently authenticated Kerberos
@@ -370,22 +427,35 @@ public static <T> T doWithConstrainedDelegationBlocking(final String serviceName
      * @param serviceName Kerberos name of the service (used to build the service principal for the service ticket).
      * @param serviceHostname Fully qualified hostname of the service (used to build the service principal).
      * @param callback A {@link KerberosCallback} which will be called inside
-     *            {@link Subject#doAs(Subject, PrivilegedExceptionAction)}
+     *            {@link Subject#callAs(Subject, Callable)}
      * @return a Future with the return T of the callback.
      */
     public static <T> Future<T> doWithConstrainedDelegationIfOnServer(final String serviceName,
         final String serviceHostname, final KerberosCallback<T> callback) {
+        return doWithConstrainedDelegationIfOnServer(serviceName, new String[]{serviceHostname}, callback);
+    }
 
-        if (runningInExecutor()) {
-            return KerberosProvider.doWithKerberosAuth(
-                () -> doConstrainedDelegation(serviceName, new String[]{serviceHostname}, callback));
-        } else {
-            return KerberosProvider.doWithKerberosAuth(callback);
-        }
+    /**
+     * Asynchronous variant of {@link #doWithConstrainedDelegationIfOnServer(String, String, KerberosCallback)}, which
+     * allows to compose continuations without blocking a thread while waiting for the result. Cancelling the returned
+     * future also cancels the execution of the callback.
+     * Checked exceptions of the callback complete the future exceptionally as they are, instead of being wrapped in a
+     * {@link PrivilegedActionException}.
+     *
+     * @param serviceName Kerberos name of the service (used to build the service principal for the service ticket).
+     * @param serviceHostname Fully qualified hostname of the service (used to build the service principal).
+     * @param callback A {@link KerberosCallback} which will be called inside
+     *            {@link Subject#callAs(Subject, Callable)}
+     * @return a {@link CompletableFuture} with the return T of the callback.
+     * @since 5.9
+     */
+    public static <T> CompletableFuture<T> doWithConstrainedDelegationIfOnServerAsync(final String serviceName,
+        final String serviceHostname, final KerberosCallback<T> callback) {
+        return doWithConstrainedDelegationIfOnServerAsync(serviceName, new String[]{serviceHostname}, callback);
     }
 
     /**
-     * Invokes the given callback inside a {@link Subject#doAs(Subject, PrivilegedExceptionAction)}, where the subject
+     * Invokes the given callback inside a {@link Subject#callAs(Subject, Callable)}, where the subject
      * has the following:
      *
      * <li>in KNIME Analytics Platform: Subject has the Kerberos TGT of the currently authenticated Kerberos
@@ -397,27 +467,66 @@ public static <T> Future<T> doWithConstrainedDelegationIfOnServer(final String s
      * @param serviceName Kerberos name of the service (used to build the service principal for the service ticket).
      * @param serviceHostnames Fully qualified hostnames of the service (used to build the service principal).
      * @param callback A {@link KerberosCallback} which will be called inside
-     *            {@link Subject#doAs(Subject, PrivilegedExceptionAction)}
+     *            {@link Subject#callAs(Subject, Callable)}
      * @return a Future with the return T of the callback.
      */
     public static <T> Future<T> doWithConstrainedDelegationIfOnServer(final String serviceName,
         final String[] serviceHostnames, final KerberosCallback<T> callback) {
+        return KerberosProvider
+            .doWithKerberosAuth(withImpersonatedSubject(serviceName, serviceHostnames, callback, true));
+    }
+
+    /**
+     * Asynchronous variant of {@link #doWithConstrainedDelegationIfOnServer(String, String[], KerberosCallback)}, which
+     * allows to compose continuations without blocking a thread while waiting for the result. Cancelling the returned
+     * future also cancels the execution of the callback.
+     * Checked exceptions of the callback complete the future exceptionally as they are, instead of being wrapped in a
+     * {@link PrivilegedActionException}.
+     *
+     * @param serviceName Kerberos name of the service (used to build the service principal for the service ticket).
+     * @param serviceHostnames Fully qualified hostnames of the service (used to build the service principal).
+     * @param callback A {@link KerberosCallback} which will be called inside
+     *            {@link Subject#callAs(Subject, Callable)}
+     * @return a {@link CompletableFuture} with the return T of the callback.
+     * @since 5.9
+     */
+    public static <T> CompletableFuture<T> doWithConstrainedDelegationIfOnServerAsync(final String serviceName,
+        final String[] serviceHostnames, final KerberosCallback<T> callback) {
+        return KerberosProvider
+            .doWithKerberosAuthAsync(withImpersonatedSubject(serviceName, serviceHostnames, callback, false));
+    }
 
+    /**
+     * @param wrapCheckedExceptions Whether checked exceptions of the callback are wrapped in a
+     *            {@link PrivilegedActionException}, as Subject.doAs() did before. This is kept for the existing entry
+     *            points, while the asynchronous variants throw the exception of the callback unchanged, like
+     *            {@link KerberosProvider}.
+     */
+    private static <T> KerberosCallback<T> withImpersonatedSubject(final String serviceName,
+        final String[] serviceHostnames, final KerberosCallback<T> callback, final boolean wrapCheckedExceptions) {
         if (runningInExecutor()) {
-            return KerberosProvider
-                .doWithKerberosAuth(() -> doConstrainedDelegation(serviceName, serviceHostnames, callback));
+            return () -> doConstrainedDelegation(serviceName, serviceHostnames, callback, wrapCheckedExceptions);
         } else {
-            return KerberosProvider.doWithKerberosAuth(callback);
+            return callback;
         }
     }
 
     private static <T> T doConstrainedDelegation(final String serviceName, //
         final String[] serviceHostnames, //
-        final KerberosCallback<T> callback) throws Exception {
+        final KerberosCallback<T> callback, //
+        final boolean wrapCheckedExceptions) throws Exception {
 
         final var impersonatedSubject = createImpersonatedSubject(serviceName, serviceHostnames);
-        final PrivilegedExceptionAction<T> action = callback::doAuthenticated;
-        return Subject.doAs(impersonatedSubject, action);
+        try {
+            return SubjectUtil.callAs(impersonatedSubject, callback::doAuthenticated);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            if (wrapCheckedExceptions) {
+                throw new PrivilegedActionException(e);
+            }
+            throw e;
+        }
     }
 
     private static Subject createImpersonatedSubject(final String targetServiceName,
@@ -427,46 +536,181 @@ private static Subject createImpersonatedSubject(final String targetServiceName,
         final GSSCredentialImpl serverCredential =
             (GSSCredentialImpl)GSSManager.getInstance().createCredential(GSSCredential.INITIATE_ONLY);
 
+        final Credentials serverTgt = extractServerTgt(serverCredential);
+
+        // everything that depends on the bound subject and the node context is resolved once
+        final String serverRealm = getServerRealm();
+        final String userToImpersonate = getUserToImpersonate();
+        final String principalToImpersonate = getPrincipalToImpersonate(userToImpersonate, serverRealm);
+
         // holds s4u2self ticket: user -> knimeserver
-        final GSSCredentialSpi s4u2SelfCredential =
-            getS42SelfCredential(getPrincipalToImpersonate(), serverCredential);
+        final Credentials userCreds = getS4U2SelfCredentials(principalToImpersonate, serverCredential, serverTgt);
 
-        final Set<KerberosTicket>privCredentials = new HashSet<>();
-        for (String targetServiceHostname : targetServiceHostnames) {
-            // holds s4u2proxy ticket: user -> targetservice
-            final KerberosTicket s4u2ProxyTicket =
-                    getS4U2ProxyTicket(targetServiceName, targetServiceHostname, serverCredential, s4u2SelfCredential);
-            privCredentials.add(s4u2ProxyTicket);
-        }
+        // hold s4u2proxy tickets: user -> targetservice
+        final Set<KerberosTicket> privCredentials = getS4U2ProxyTickets(targetServiceName, targetServiceHostnames,
+            serverRealm, userToImpersonate, serverTgt, userCreds);
 
         // create new subject for user, that holds s4u2proxy ticket ticket
         return new Subject(false, //
-            Collections.singleton(new KerberosPrincipal(getPrincipalToImpersonate())), //
+            Collections.singleton(new KerberosPrincipal(principalToImpersonate)), //
             Collections.emptySet(), //
             privCredentials);
     }
 
-    private static KerberosTicket getS4U2ProxyTicket(final String targetServiceName, final String targetServiceHostname,
-        final GSSCredentialImpl serverCredential, final GSSCredentialSpi s4u2SelfCredential) throws Exception { // NOSONAR
+    /**
+     * Provides the S4U2Self ticket (user -> knimeserver) for the given principal, either from the cache or by
+     * impersonating the principal with the given server credential.
+     */
+    private static Credentials getS4U2SelfCredentials(final String principalToImpersonate,
+        final GSSCredentialImpl serverCredential, final Credentials serverTgt) throws Exception { // NOSONAR
+
+        final KerberosPluginConfig config = KerberosPluginConfig.load();
+        S4U2SELF_CACHE.setMaxEntries(config.getDelegationCacheSize());
+
+        final String serverPrincipal = serverTgt.getClient().getName();
+        final long startNanos = System.nanoTime();
+        final var event = new KerberosS4U2SelfEvent();
+        event.begin();
+        final Credentials cachedUserCreds = S4U2SELF_CACHE.get(serverPrincipal, principalToImpersonate, serverTgt);
+        if (cachedUserCreds != null) {
+            LOG.debug("Using cached S4U2Self ticket for : " + principalToImpersonate);
+            recordS4U2Self(event, startNanos, serverPrincipal, principalToImpersonate, true, true);
+            return cachedUserCreds;
+        }
 
-        final Credentials serverTgt = extractServerTgt(serverCredential);
+        final var request = new S4U2SelfRequest(serverPrincipal, principalToImpersonate, TicketIdentity.of(serverTgt));
+        var success = false;
+        try {
+            final Credentials userCreds = S4U2SELF_REQUESTS.execute(request, () -> {
+                // an identical request may have completed in the meantime
+                final Credentials justCachedUserCreds =
+                    S4U2SELF_CACHE.get(serverPrincipal, principalToImpersonate, serverTgt);
+                if (justCachedUserCreds != null) {
+                    return justCachedUserCreds;
+                }
+
+                final GSSCredentialSpi s4u2SelfCredential =
+                    getS42SelfCredential(principalToImpersonate, serverCredential);
+
+                // Extract the userCreds from the s4u2SelfCredential (which is a Krb5ProxyCredential)
+                final Credentials acquiredUserCreds = Krb5CredentialAccess.getUserCredentials(s4u2SelfCredential);
+                S4U2SELF_CACHE.put(serverPrincipal, principalToImpersonate, serverTgt, acquiredUserCreds,
+                    Duration.ofSeconds(config.getRenewalSafetyMarginSeconds()));
+                return acquiredUserCreds;
+            });
+            success = true;
+            return userCreds;
+        } finally {
+            recordS4U2Self(event, startNanos, serverPrincipal, principalToImpersonate, false, success);
+        }
+    }
+
+    private static void recordS4U2Self(final KerberosS4U2SelfEvent event, final long startNanos,
+        final String serverPrincipal, final String principalToImpersonate, final boolean cacheHit,
+        final boolean success) {
+        KerberosMetrics.S4U2SELF_CACHE.record(cacheHit);
+        if (!cacheHit) {
+            KerberosMetrics.S4U2SELF_REQUESTS.record(startNanos, success);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.setTargetSpn(serverPrincipal);
+            event.setImpersonatedPrincipal(principalToImpersonate);
+            event.setCacheHit(cacheHit);
+            event.setSuccess(success);
+            event.commit();
+        }
+    }
 
-        final var targetSpn = determineTargetServicePrincipal(targetServiceName, targetServiceHostname);
+    /**
+     * Provides the S4U2Proxy tickets (user -> targetservice) for all given hostnames. If there are multiple hostnames,
+     * the tickets are acquired concurrently (see {@link S4U2ProxyExecutor#invokeAll(String, Map, int)}).
+     */
+    private static Set<KerberosTicket> getS4U2ProxyTickets(final String targetServiceName,
+        final String[] targetServiceHostnames, final String serverRealm, final String userToImpersonate,
+        final Credentials serverTgt, final Credentials userCreds) throws Exception { // NOSONAR
 
-        LOG.debug("Acquiring service ticket for : " + targetSpn);
+        final KerberosPluginConfig config = KerberosPluginConfig.load();
+        S4U2PROXY_CACHE.setMaxEntries(config.getDelegationCacheSize());
 
-        // Extract the userCreds from the s4u2SelfCredential (which is a Krb5ProxyCredential)
-        final Credentials userCreds = extractUserCredentialsFromKrb5ProxyCredential(s4u2SelfCredential);
+        // the tasks must not depend on the current thread (node context, JAAS subject), because they are fanned out
+        final var impersonatedName = new PrincipalName(userToImpersonate, 0, serverRealm);
+        final int reusePercent = config.getDelegationTicketReusePercent();
 
-        final Credentials s4u2ProxyCredentials = CredentialsUtil.acquireS4U2proxyCreds(targetSpn, //
-            userCreds, //
-            new PrincipalName(getUserToImpersonate(), 0, getServerRealm()), //
-            serverTgt);
+        final Map<String, Callable<KerberosTicket>> tasks = new LinkedHashMap<>();
+        for (String targetServiceHostname : targetServiceHostnames) {
+            tasks.put(targetServiceHostname, () -> getS4U2ProxyTicket(targetServiceName, targetServiceHostname,
+                serverRealm, impersonatedName, serverTgt, userCreds, reusePercent));
+        }
+
+        return new HashSet<>(
+            S4U2ProxyExecutor.invokeAll(targetServiceName, tasks, config.getDelegationParallelism()));
+    }
+
+    private static KerberosTicket getS4U2ProxyTicket(final String targetServiceName, final String targetServiceHostname,
+        final String serverRealm, final PrincipalName impersonatedName, final Credentials serverTgt,
+        final Credentials userCreds, final int reusePercent) throws Exception { // NOSONAR
+
+        final var targetSpn = determineTargetServicePrincipal(targetServiceName, targetServiceHostname, serverRealm);
+
+        final String impersonatedPrincipal = userCreds.getClient().getName();
+        final long startNanos = System.nanoTime();
+        final var event = new KerberosS4U2ProxyEvent();
+        event.begin();
+        Credentials s4u2ProxyCredentials = S4U2PROXY_CACHE.get(impersonatedPrincipal, targetSpn, serverTgt);
+        final boolean cacheHit = s4u2ProxyCredentials != null;
+        if (cacheHit) {
+            LOG.debug("Using cached service ticket for : " + targetSpn);
+        } else {
+            final var request =
+                new S4U2ProxyRequest(impersonatedPrincipal, targetSpn, TicketIdentity.of(serverTgt));
+            try {
+                s4u2ProxyCredentials = S4U2PROXY_REQUESTS.execute(request, () -> {
+                    // an identical request may have completed in the meantime
+                    final Credentials justCachedCredentials =
+                        S4U2PROXY_CACHE.get(impersonatedPrincipal, targetSpn, serverTgt);
+                    if (justCachedCredentials != null) {
+                        return justCachedCredentials;
+                    }
+
+                    LOG.debug("Acquiring service ticket for : " + targetSpn);
+                    final Credentials acquiredCredentials = CredentialsUtil.acquireS4U2proxyCreds(targetSpn, //
+                        userCreds, //
+                        impersonatedName, //
+                        serverTgt);
+                    S4U2PROXY_CACHE.put(impersonatedPrincipal, targetSpn, serverTgt, acquiredCredentials,
+                        reusePercent);
+                    return acquiredCredentials;
+                });
+            } catch (Exception e) { // NOSONAR rethrown after recording the failure
+                recordS4U2Proxy(event, startNanos, targetSpn, impersonatedPrincipal, false, false);
+                throw e;
+            }
+        }
+        recordS4U2Proxy(event, startNanos, targetSpn, impersonatedPrincipal, cacheHit, true);
 
+        // always create a new ticket, because the callback may destroy it
         return Krb5Util.credsToTicket(s4u2ProxyCredentials);
     }
 
-    private static String determineTargetServicePrincipal(final String targetServiceName, final String targetServiceHostname) {
+    private static void recordS4U2Proxy(final KerberosS4U2ProxyEvent event, final long startNanos,
+        final String targetSpn, final String impersonatedPrincipal, final boolean cacheHit, final boolean success) {
+        KerberosMetrics.S4U2PROXY_CACHE.record(cacheHit);
+        if (!cacheHit) {
+            KerberosMetrics.S4U2PROXY_REQUESTS.record(startNanos, success);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.setTargetSpn(targetSpn);
+            event.setImpersonatedPrincipal(impersonatedPrincipal);
+            event.setCacheHit(cacheHit);
+            event.setSuccess(success);
+            event.commit();
+        }
+    }
+
+    private static String determineTargetServicePrincipal(final String targetServiceName,
+        final String targetServiceHostname, final String serverRealm) {
         final var spnWithoutRealm = String.format("%s/%s", targetServiceName, targetServiceHostname);
         String targetRealm;
         try {
@@ -476,7 +720,7 @@ private static String determineTargetServicePrincipal(final String targetService
             LOG.warn(String.format(
                 "Could not determine realm of target service %s (probably due to invalid krb5.conf). Falling back to own realm.",
                 spnWithoutRealm), ex);
-            targetRealm = getServerRealm();
+            targetRealm = serverRealm;
         }
         LOG.debug("Target realm: " + targetRealm);
 
@@ -497,25 +741,10 @@ private static GSSCredentialSpi getS42SelfCredential(final String principalToImp
         return impersonatedCredential.getElement(GSS_MECHANISM, true);
     }
 
-    /** Assume argument is of type <code>sun.security.jgss.krb5.Krb5ProxyCredential</code> and extract the
-     * {@link Credentials} from the package-private field <code>userCreds</code> of class. See DEVOPS-3364.
-     */
-    private static Credentials extractUserCredentialsFromKrb5ProxyCredential(final GSSCredentialSpi s4u2SelfCredential)
-        throws IllegalArgumentException, IllegalAccessException, NoSuchFieldException, SecurityException {
-        final var field = s4u2SelfCredential.getClass().getDeclaredField("userCreds");
-        field.setAccessible(true); // NOSONAR no other way to access package-private class field
-        return (Credentials) field.get(s4u2SelfCredential);
-    }
-
-    private static Credentials extractServerTgt(final GSSCredentialImpl serverCredential)
-        throws GSSException, NoSuchMethodException, IllegalAccessException, InvocationTargetException {
-
+    private static Credentials extractServerTgt(final GSSCredentialImpl serverCredential) throws GSSException {
         final Krb5InitCredential serverTgtCredential =
             (Krb5InitCredential)serverCredential.getElement(new Oid(KERBEROS5_OID), true);
 
-        final Method method = serverTgtCredential.getClass().getDeclaredMethod("getKrb5Credentials");
-        method.setAccessible(true); // NOSONAR no other way to do it...
-
-        return (Credentials)method.invoke(serverTgtCredential);
+        return Krb5CredentialAccess.getKrb5Credentials(serverTgtCredential);
     }
 }
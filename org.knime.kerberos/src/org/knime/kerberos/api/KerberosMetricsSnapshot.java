@@ -0,0 +1,122 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.api;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Immutable snapshot of the metrics of the Kerberos subsystem, as provided by
+ * {@link KerberosProvider#getMetricsSnapshot()}. Counters and latencies are cumulative since the start of KNIME, hence
+ * rates can be derived by comparing two snapshots.
+ *
+ * @param timestamp When the snapshot has been taken.
+ * @param logins Logins, including the ones that renew an expired login.
+ * @param renewals Scheduled renewals of the current login.
+ * @param ticketCacheChecks Checks whether the ticket cache has changed.
+ * @param s4u2SelfRequests S4U2Self requests that could not be served from the cache.
+ * @param s4u2ProxyRequests S4U2Proxy requests that could not be served from the cache.
+ * @param s4u2SelfCache Lookups of S4U2Self tickets in the cache.
+ * @param s4u2ProxyCache Lookups of S4U2Proxy tickets in the cache.
+ * @param executorQueueDepth The number of due tasks waiting for the Kerberos worker thread.
+ * @param executorWaitTime Time that tasks have waited for the Kerberos worker thread after they had become due.
+ * @param callbacks Executions of Kerberos callbacks, including the authentication that precedes them.
+ * @param callbackQueueDepth The number of callbacks waiting for a thread of the callback pool.
+ * @param callbackWaitTime Time that Kerberos callbacks have waited for a thread to execute them.
+ * @author KNIME GmbH
+ */
+public record KerberosMetricsSnapshot(Instant timestamp, OperationSnapshot logins, OperationSnapshot renewals,
+    OperationSnapshot ticketCacheChecks, OperationSnapshot s4u2SelfRequests, OperationSnapshot s4u2ProxyRequests,
+    CacheSnapshot s4u2SelfCache, CacheSnapshot s4u2ProxyCache, int executorQueueDepth,
+    LatencySnapshot executorWaitTime, OperationSnapshot callbacks, int callbackQueueDepth,
+    LatencySnapshot callbackWaitTime) {
+
+    /**
+     * Latencies of an operation. Percentiles are approximated with a relative error of less than seven percent.
+     *
+     * @param count The number of recorded latencies.
+     * @param min The lowest latency.
+     * @param mean The mean latency.
+     * @param p50 The median latency.
+     * @param p90 The 90th percentile of the latencies.
+     * @param p99 The 99th percentile of the latencies.
+     * @param max The highest latency.
+     */
+    public record LatencySnapshot(long count, Duration min, Duration mean, Duration p50, Duration p90, Duration p99,
+        Duration max) {
+
+        /** Snapshot without any recorded latencies. */
+        public static final LatencySnapshot EMPTY = new LatencySnapshot(0, Duration.ZERO, Duration.ZERO,
+            Duration.ZERO, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * Executions of an operation.
+     *
+     * @param count The number of executions.
+     * @param failures The number of executions that have failed.
+     * @param latency The latencies of all executions.
+     */
+    public record OperationSnapshot(long count, long failures, LatencySnapshot latency) {
+    }
+
+    /**
+     * Lookups in a cache.
+     *
+     * @param hits The number of lookups that have found a usable entry.
+     * @param misses The number of lookups that have not found a usable entry.
+     */
+    public record CacheSnapshot(long hits, long misses) {
+
+        /**
+         * @return the share of lookups that have found a usable entry, or zero if there have not been any lookups.
+         */
+        public double hitRatio() {
+            final long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double)hits / lookups;
+        }
+    }
+}
@@ -48,12 +48,15 @@
  */
 package org.knime.kerberos.api;
 
-import java.security.PrivilegedActionException;
-import java.security.PrivilegedExceptionAction;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
 
 import javax.security.auth.Subject;
 import javax.security.auth.login.LoginException;
@@ -64,8 +67,14 @@
 import org.knime.core.node.NodeLogger.LEVEL;
 import org.knime.core.node.workflow.NodeContext;
 import org.knime.kerberos.KerberosAuthManager;
+import org.knime.kerberos.KerberosCallbackExecutor;
+import org.knime.kerberos.KerberosCredentialManager;
+import org.knime.kerberos.SubjectUtil;
 import org.knime.kerberos.config.KerberosPluginConfig;
+import org.knime.kerberos.config.PrefKey.CallbackExecutionMode;
+import org.knime.kerberos.jfr.KerberosCallbackExecutionEvent;
 import org.knime.kerberos.logger.KerberosLogger;
+import org.knime.kerberos.metrics.KerberosMetrics;
 
 /**
  * Provides Kerberos authentication for KNIME nodes. Nodes can use the {@link #doWithKerberosAuth(KerberosCallback)}
@@ -95,6 +104,18 @@ public static KerberosState getKerberosState() {
         return KerberosAuthManager.getKerberosState();
     }
 
+    /**
+     * Provides the metrics of the Kerberos subsystem, e.g. to be exported to a monitoring system. This method is cheap
+     * and does not wait for any Kerberos operation, hence it can be invoked periodically from arbitrary threads.
+     *
+     * @return an immutable snapshot of the current metrics.
+     * @since 5.9
+     */
+    public static KerberosMetricsSnapshot getMetricsSnapshot() {
+        return KerberosMetrics.snapshot(KerberosAuthManager.getExecutorQueueDepth(),
+            KerberosCallbackExecutor.getQueueDepth());
+    }
+
     /**
      * Ensures that Java's Kerberos implementation is properly initialized, in particular debug logging. Users of
      * {@link KerberosProvider} should call this method *before* performing any operations that load classes from Java's
@@ -111,7 +132,7 @@ public static KerberosState getKerberosState() {
     public static void ensureInitialized() {
         final KerberosPluginConfig config = KerberosPluginConfig.load();
         if (config.doDebugLogging()) {
-            KerberosLogger.startCapture(LEVEL.valueOf(config.getDebugLogLevel()));
+            KerberosLogger.startCapture(LEVEL.valueOf(config.getDebugLogLevel()), config);
         }
     }
 
@@ -119,35 +140,275 @@ public static void ensureInitialized() {
      * Executes the given callback with an already authenticated Kerberos context. {@link Future#get()} will throw a
      * {@link LoginException}, when authentication is not done with keytab but the user us not already logged in.
      *
+     * <p>
+     * Depending on the configured {@link CallbackExecutionMode}, the callback is either executed on the single Kerberos
+     * worker thread, or concurrently with other callbacks on a bounded thread pool or its own virtual thread. In the
+     * latter cases, only the authentication itself is performed on the Kerberos worker thread and the callback is
+     * executed with a snapshot of the authenticated JAAS {@link Subject}. If there is already a usable login, the
+     * callback does not wait for the Kerberos worker thread at all.
+     * </p>
+     *
      * @param callback A KerberosCallback with the method to execute in a Kerberos-authenticated JAAS context.
      * @return a Future with the return T
      */
     public static <T> Future<T> doWithKerberosAuth(final KerberosCallback<T> callback) {
+        return submit(callback, ExecutorService::submit);
+    }
+
+    /**
+     * Executes the given callback with an already authenticated Kerberos context, just like
+     * {@link #doWithKerberosAuth(KerberosCallback)}, but provides the result as a {@link CompletableFuture}. This
+     * allows to compose continuations without blocking a thread while waiting for the result. Cancelling the returned
+     * future also cancels the execution of the callback, i.e. the thread executing the callback is interrupted.
+     *
+     * @param callback A KerberosCallback with the method to execute in a Kerberos-authenticated JAAS context.
+     * @return a {@link CompletableFuture} with the return T, which completes exceptionally with a
+     *         {@link LoginException}, when authentication is not done with keytab but the user is not already logged
+     *         in.
+     * @since 5.9
+     */
+    public static <T> CompletableFuture<T> doWithKerberosAuthAsync(final KerberosCallback<T> callback) {
+        return submit(callback, KerberosProvider::submitAsync);
+    }
+
+    /**
+     * Executes the given callback with a Kerberos context for the given principal, which is logged in with the given
+     * keytab, independent of the login that is configured in the preferences. Logins of multiple principals are held
+     * concurrently, hence callbacks for different principals (e.g. one service account per data domain) do not need
+     * to log out and log in again. Each login is renewed in the background and logged out once it has not been used
+     * for a while.
+     *
+     * <p>
+     * The callback is executed on the bounded thread pool, or on its own virtual thread if so configured by the
+     * {@link CallbackExecutionMode}, but never on the Kerberos worker thread. The login uses the Kerberos configuration
+     * (krb5.conf) from the preferences, which is shared with the login configured in the preferences.
+     * </p>
+     *
+     * @param principal The principal to authenticate as, e.g. user@REALM.
+     * @param keytabFile Path to the keytab file, that holds the keys of the principal.
+     * @param callback A KerberosCallback with the method to execute in a Kerberos-authenticated JAAS context.
+     * @return a Future with the return T, {@link Future#get()} will throw a {@link LoginException} if the login fails.
+     * @throws IllegalArgumentException if no principal or keytab file is given.
+     * @since 5.9
+     */
+    public static <T> Future<T> doWithKerberosAuth(final String principal, final String keytabFile,
+        final KerberosCallback<T> callback) {
+        return submit(principal, keytabFile, callback, ExecutorService::submit);
+    }
+
+    /**
+     * Executes the given callback with a Kerberos context for the given principal, just like
+     * {@link #doWithKerberosAuth(String, String, KerberosCallback)}, but provides the result as a
+     * {@link CompletableFuture}. Cancelling the returned future also cancels the execution of the callback.
+     *
+     * @param principal The principal to authenticate as, e.g. user@REALM.
+     * @param keytabFile Path to the keytab file, that holds the keys of the principal.
+     * @param callback A KerberosCallback with the method to execute in a Kerberos-authenticated JAAS context.
+     * @return a {@link CompletableFuture} with the return T, which completes exceptionally with a
+     *         {@link LoginException} if the login fails.
+     * @throws IllegalArgumentException if no principal or keytab file is given.
+     * @since 5.9
+     */
+    public static <T> CompletableFuture<T> doWithKerberosAuthAsync(final String principal, final String keytabFile,
+        final KerberosCallback<T> callback) {
+        return submit(principal, keytabFile, callback, KerberosProvider::submitAsync);
+    }
+
+    /**
+     * Hands the given callback to the executor that is configured by the {@link CallbackExecutionMode}.
+     *
+     * @param submitter Submits a task to an executor and provides the future of the task.
+     */
+    private static <T, F extends Future<T>> F submit(final KerberosCallback<T> callback,
+        final BiFunction<ExecutorService, Callable<T>, F> submitter) {
         final NodeContext nodeContext = NodeContext.getContext();
-        return KerberosAuthManager.EXECUTOR.submit(() -> {
-            final KerberosPluginConfig config = KerberosPluginConfig.load();
+        final KerberosPluginConfig config = KerberosPluginConfig.load();
+        final long submitNanos = System.nanoTime();
 
-            try {
-                if (nodeContext != null) {
-                    NodeContext.pushContext(nodeContext);
-                }
+        final Callable<T> concurrentTask = () -> recordExecution(config, nodeContext, submitNanos,
+            () -> runConcurrently(config, nodeContext, callback));
+        switch (config.getCallbackExecutionMode()) {
+            case THREAD_POOL:
+                return submitter.apply(KerberosCallbackExecutor.getExecutor(config.getCallbackPoolSize()),
+                    concurrentTask);
+            case VIRTUAL_THREADS:
+                return submitter.apply(KerberosCallbackExecutor.getVirtualThreadExecutor(), concurrentTask);
+            case WORKER_THREAD:
+            default:
+                final Callable<T> workerTask = () -> recordExecution(config, nodeContext, submitNanos,
+                    () -> runWithNodeContext(nodeContext, () -> runAs(authenticate(config, false), callback)));
+                return submitter.apply(KerberosAuthManager.EXECUTOR, workerTask);
+        }
+    }
 
-                KerberosAuthManager.showKerberosStatusIcon(true);
-                ensureAuthenticated(config);
+    /**
+     * Hands the given callback for the given principal to the thread pool, or to a virtual thread if so configured by
+     * the {@link CallbackExecutionMode}.
+     *
+     * @param submitter Submits a task to an executor and provides the future of the task.
+     */
+    private static <T, F extends Future<T>> F submit(final String principal, final String keytabFile,
+        final KerberosCallback<T> callback, final BiFunction<ExecutorService, Callable<T>, F> submitter) {
+        if (principal == null || principal.isBlank()) {
+            throw new IllegalArgumentException("No Kerberos principal specified");
+        }
+        if (keytabFile == null || keytabFile.isBlank()) {
+            throw new IllegalArgumentException("No keytab file specified for Kerberos principal " + principal);
+        }
 
-                final Subject subject = KerberosAuthManager.getSubject();
-                try {
-                    return Subject.doAs(subject, (PrivilegedExceptionAction<T>)() -> callback.doAuthenticated());
-                } catch (PrivilegedActionException e) {
-                    // unpack the exception that was thrown by the callback
-                    throw (Exception)e.getCause();
-                }
-            } finally {
-                if (nodeContext != null) {
-                    NodeContext.removeLastContext();
-                }
+        final NodeContext nodeContext = NodeContext.getContext();
+        final KerberosPluginConfig config = KerberosPluginConfig.load();
+        final long submitNanos = System.nanoTime();
+
+        final Callable<T> task = () -> recordExecution(config, nodeContext, submitNanos,
+            () -> runAsPrincipal(config, nodeContext, principal.trim(), keytabFile.trim(), callback));
+        // the Kerberos worker thread is not used, because logins of different principals must not wait for each other
+        final ExecutorService executor = config.getCallbackExecutionMode() == CallbackExecutionMode.VIRTUAL_THREADS
+            ? KerberosCallbackExecutor.getVirtualThreadExecutor()
+            : KerberosCallbackExecutor.getExecutor(config.getCallbackPoolSize());
+        return submitter.apply(executor, task);
+    }
+
+    /**
+     * Submits the given task to the given executor and completes the returned future with the result of the task.
+     * Cancelling the returned future cancels the task, interrupting it if it is already running. The future is
+     * completed on the {@link ForkJoinPool#commonPool() common pool}, because dependent stages that are not async run
+     * on the completing thread, which must not be the Kerberos worker thread or a callback thread, where they would
+     * hold up (or even deadlock) other Kerberos operations.
+     */
+    static <T> CompletableFuture<T> submitAsync(final ExecutorService executor, final Callable<T> task) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final Future<?> execution = executor.submit(() -> {
+            try {
+                final T value = task.call();
+                ForkJoinPool.commonPool().execute(() -> result.complete(value));
+            } catch (Throwable t) { // NOSONAR the future has to be completed in any case
+                ForkJoinPool.commonPool().execute(() -> result.completeExceptionally(t));
+            }
+        });
+        result.whenComplete((r, t) -> {
+            if (result.isCancelled()) {
+                execution.cancel(true);
             }
         });
+        return result;
+    }
+
+    /**
+     * Runs the given callback on a thread of the {@link KerberosCallbackExecutor}, i.e. concurrently with other
+     * callbacks.
+     */
+    private static <T> T runConcurrently(final KerberosPluginConfig config, final NodeContext nodeContext,
+        final KerberosCallback<T> callback) throws Exception {
+        // fast path: use the current login without waiting for the Kerberos worker thread
+        // (the status icon has already been shown by the Kerberos worker thread when the login was made)
+        Subject subject = KerberosAuthManager.getAuthenticatedSubjectSnapshot(config);
+        if (subject == null) {
+            final Future<Subject> authFuture = KerberosAuthManager.EXECUTOR
+                .submit(() -> runWithNodeContext(nodeContext, () -> authenticate(config, true)));
+            subject = awaitAuthentication(authFuture);
+        }
+        final Subject authenticatedSubject = subject;
+        try {
+            return runWithNodeContext(nodeContext, () -> runAs(authenticatedSubject, callback));
+        } finally {
+            // service tickets that the callback has obtained are reused by subsequent callbacks
+            KerberosAuthManager.collectServiceTickets(authenticatedSubject);
+        }
+    }
+
+    /**
+     * Runs the given callback with a Subject of the given principal, that is held by the
+     * {@link KerberosCredentialManager}, which configures Kerberos first if necessary.
+     */
+    private static <T> T runAsPrincipal(final KerberosPluginConfig config, final NodeContext nodeContext,
+        final String principal, final String keytabFile, final KerberosCallback<T> callback) throws Exception {
+        final Subject subject = KerberosCredentialManager.getSubjectSnapshot(config, principal, keytabFile);
+        try {
+            return runWithNodeContext(nodeContext, () -> runAs(subject, callback));
+        } finally {
+            // service tickets that the callback has obtained are reused by subsequent callbacks
+            KerberosCredentialManager.collectServiceTickets(principal, keytabFile, subject);
+        }
+    }
+
+    /**
+     * Runs the given callable (authentication and callback) and records its metrics as well as a
+     * {@link KerberosCallbackExecutionEvent}.
+     */
+    private static <T> T recordExecution(final KerberosPluginConfig config, final NodeContext nodeContext,
+        final long submitNanos, final Callable<T> callable) throws Exception {
+        final var event = new KerberosCallbackExecutionEvent();
+        event.begin();
+        final long startNanos = System.nanoTime();
+        final long queueWaitNanos = startNanos - submitNanos;
+        KerberosMetrics.CALLBACK_WAIT_TIME.record(queueWaitNanos);
+        var success = false;
+        try {
+            final T result = callable.call();
+            success = true;
+            return result;
+        } finally {
+            KerberosMetrics.CALLBACKS.record(startNanos, success);
+            event.end();
+            if (event.shouldCommit()) {
+                event.setExecutionMode(config.getCallbackExecutionMode().toString());
+                event.setQueueWaitTime(queueWaitNanos);
+                event.setNodeId(nodeContext != null && nodeContext.getNodeContainer() != null
+                    ? nodeContext.getNodeContainer().getID().toString() : null);
+                event.setSuccess(success);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Must be invoked on the {@link KerberosAuthManager#EXECUTOR} thread.
+     *
+     * @param snapshot Whether to return a snapshot of the authenticated Subject, which can be used on other threads.
+     * @return the authenticated Subject
+     */
+    private static Subject authenticate(final KerberosPluginConfig config, final boolean snapshot) throws Exception {
+        KerberosAuthManager.showKerberosStatusIcon(true);
+        ensureAuthenticated(config);
+        return snapshot ? KerberosAuthManager.getSubjectSnapshot() : KerberosAuthManager.getSubject();
+    }
+
+    private static <S> S awaitAuthentication(final Future<S> authFuture) throws Exception {
+        try {
+            return authFuture.get();
+        } catch (InterruptedException e) {
+            // the callback has been cancelled while waiting for authentication
+            authFuture.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            // unpack the exception that was thrown during authentication
+            if (e.getCause() instanceof Error) {
+                throw (Error)e.getCause();
+            }
+            throw (Exception)e.getCause();
+        }
+    }
+
+    private static <T> T runAs(final Subject subject, final KerberosCallback<T> callback) throws Exception {
+        // callbacks may run on threads of the caller, whose Kerberos debug output has to be captured nevertheless
+        try (var capture = KerberosLogger.captureCurrentThread()) {
+            return SubjectUtil.callAs(subject, callback::doAuthenticated);
+        }
+    }
+
+    private static <T> T runWithNodeContext(final NodeContext nodeContext, final Callable<T> callable)
+        throws Exception {
+        try {
+            if (nodeContext != null) {
+                NodeContext.pushContext(nodeContext);
+            }
+            return callable.call();
+        } finally {
+            if (nodeContext != null) {
+                NodeContext.removeLastContext();
+            }
+        }
     }
 
     private static void ensureAuthenticated(final KerberosPluginConfig config) throws Exception {
@@ -155,16 +416,24 @@ private static void ensureAuthenticated(final KerberosPluginConfig config) throw
 
         switch (config.getAuthMethod()) {
             case TICKET_CACHE:
-                if (authenticated && KerberosAuthManager.ticketCacheHasChanged()) {
+                if (authenticated && !KerberosAuthManager.isConfiguredWith(config)) {
+                    // the preferences have changed since the login, hence the new config needs to be applied
                     KerberosAuthManager.rollbackToInitialState();
                     tryLogin(config);
+                } else if (authenticated && KerberosAuthManager.ticketCacheHasChanged()) {
+                    // configuration is unchanged, hence only the login needs to be replaced
+                    tryRelogin();
                 } else if (!authenticated) {
                     // throws exception if unsuccessful
                     tryLogin(config);
                 }
                 break;
             case KEYTAB:
-                if (!authenticated) {
+                if (authenticated && !KerberosAuthManager.isConfiguredWith(config)) {
+                    // the preferences have changed since the login, hence the new config needs to be applied
+                    KerberosAuthManager.rollbackToInitialState();
+                    tryLogin(config);
+                } else if (!authenticated) {
                     // throws exception if unsuccessful
                     tryLogin(config);
                 }
@@ -175,6 +444,20 @@ private static void ensureAuthenticated(final KerberosPluginConfig config) throw
                 }
                 break;
         }
+
+        if (KerberosAuthManager.isConfiguredWith(config)) {
+            // only settings have changed that do not require a new login
+            KerberosAuthManager.updateConfig(config);
+        }
+    }
+
+    private static void tryRelogin() throws Exception {
+        try {
+            KerberosAuthManager.relogin();
+        } catch (Exception e) {
+            KerberosAuthManager.rollbackToInitialState();
+            throw e;
+        }
     }
 
     private static void tryLogin(final KerberosPluginConfig config) throws Exception {
@@ -219,7 +502,8 @@ static <T> T getFutureResult(final Future<T> future, final ExecutionMonitor exec
 
         while (true) {
             try {
-                return future.get(250, TimeUnit.MILLISECONDS);
+                // an ExecutionMonitor has to be polled, otherwise only an interrupt can end the wait
+                return exec != null ? future.get(250, TimeUnit.MILLISECONDS) : future.get();
             } catch (final TimeoutException | InterruptedException e) {
                 if (exec != null) {
                     try {
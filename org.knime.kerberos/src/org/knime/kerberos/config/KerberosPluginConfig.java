@@ -53,15 +53,29 @@
 import java.net.URISyntaxException;
 import java.net.UnknownHostException;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.knime.core.node.NodeLogger.LEVEL;
 import org.knime.kerberos.KerberosPlugin;
 import org.knime.kerberos.config.PrefKey.AuthMethod;
+import org.knime.kerberos.config.PrefKey.CallbackExecutionMode;
+import org.knime.kerberos.config.PrefKey.DebugLogCaptureScope;
+import org.knime.kerberos.config.PrefKey.DebugLogOverflowPolicy;
+import org.knime.kerberos.config.PrefKey.KdcSelection;
 import org.knime.kerberos.config.PrefKey.KerberosConfigSource;
+import org.knime.kerberos.config.PrefKey.KeytabReloginMode;
+import org.knime.kerberos.config.PrefKey.TicketCacheChangeDetection;
 
 /**
  * Instances of this class hold a possible configuration for the Kerberos authentication.
@@ -78,6 +92,105 @@ public class KerberosPluginConfig {
 
     private static IPreferenceStore m_referenceStore;
 
+    /**
+     * Number of times the cached config has been invalidated due to a change in the preference store. Incremented by a
+     * property change listener on the preference store.
+     */
+    private static final AtomicLong PREFERENCE_CHANGES = new AtomicLong();
+
+    /** The config that was last returned by {@link #load()}, may be outdated. */
+    private static final AtomicReference<LoadedConfig> LOADED_CONFIG = new AtomicReference<>();
+
+    /** The version of the config that was last returned by {@link #load()}. */
+    private static long lastVersion = 0;
+
+    /** The login version of the config that was last returned by {@link #load()}. */
+    private static long lastLoginVersion = 0;
+
+    /** Separates multiple KDCs. */
+    private static final Pattern KDC_SEPARATOR = Pattern.compile("[,\\s]+");
+
+    /**
+     * A config as loaded by {@link #load()}, together with the information required to decide whether it is still up
+     * to date.
+     *
+     * @param config The loaded config.
+     * @param preferenceChanges The value of {@link #PREFERENCE_CHANGES} before the config was loaded.
+     * @param testOverrides A copy of the {@link #TEST_OVERRIDES} the config was loaded from, or null.
+     */
+    private record LoadedConfig(KerberosPluginConfig config, long preferenceChanges,
+        Map<String, String> testOverrides) {
+
+        boolean isUpToDate(final Map<String, String> currTestOverrides) {
+            if (currTestOverrides != null || testOverrides != null) {
+                return currTestOverrides != null && currTestOverrides.equals(testOverrides);
+            } else {
+                return preferenceChanges == PREFERENCE_CHANGES.get();
+            }
+        }
+    }
+
+    /**
+     * The advanced settings, which are not part of the preference page and can only be set in the Eclipse preferences
+     * directly (e.g. via a preferences.epf file). As a record, they are entirely covered by
+     * {@link KerberosPluginConfig#equals(Object)} and {@link KerberosPluginConfig#hashCode()}, hence new settings
+     * should be added here.
+     */
+    private record AdvancedSettings(CallbackExecutionMode callbackExecutionMode, int callbackPoolSize,
+        TicketCacheChangeDetection ticketCacheChangeDetection, int delegationCacheSize,
+        int delegationTicketReusePercent, int delegationParallelism, KeytabReloginMode keytabReloginMode,
+        int renewalWindowPercent, int renewalMaxRetries, int renewalRetryBackoffSeconds, KdcSelection kdcSelection,
+        int kdcTimeoutMillis, int kdcMaxRetries, int debugLogBufferSize, int debugLogQueueSize,
+        DebugLogOverflowPolicy debugLogOverflowPolicy, DebugLogCaptureScope debugLogCaptureScope,
+        int credentialCacheSize, int credentialIdleTimeoutSeconds) {
+
+        static final AdvancedSettings DEFAULTS = new AdvancedSettings(
+            CallbackExecutionMode.fromValue(PrefKey.CALLBACK_EXECUTION_MODE_DEFAULT),
+            PrefKey.CALLBACK_POOL_SIZE_DEFAULT,
+            TicketCacheChangeDetection.fromValue(PrefKey.TICKET_CACHE_CHANGE_DETECTION_DEFAULT),
+            PrefKey.DELEGATION_CACHE_SIZE_DEFAULT, PrefKey.DELEGATION_TICKET_REUSE_PERCENT_DEFAULT,
+            PrefKey.DELEGATION_PARALLELISM_DEFAULT, KeytabReloginMode.fromValue(PrefKey.KEYTAB_RELOGIN_MODE_DEFAULT),
+            PrefKey.RENEWAL_WINDOW_PERCENT_DEFAULT, PrefKey.RENEWAL_MAX_RETRIES_DEFAULT,
+            PrefKey.RENEWAL_RETRY_BACKOFF_SECONDS_DEFAULT, KdcSelection.fromValue(PrefKey.KDC_SELECTION_DEFAULT),
+            PrefKey.KDC_TIMEOUT_MILLIS_DEFAULT, PrefKey.KDC_MAX_RETRIES_DEFAULT, PrefKey.DEBUG_LOG_BUFFER_SIZE_DEFAULT,
+            PrefKey.DEBUG_LOG_QUEUE_SIZE_DEFAULT,
+            DebugLogOverflowPolicy.fromValue(PrefKey.DEBUG_LOG_OVERFLOW_POLICY_DEFAULT),
+            DebugLogCaptureScope.fromValue(PrefKey.DEBUG_LOG_CAPTURE_SCOPE_DEFAULT),
+            PrefKey.CREDENTIAL_CACHE_SIZE_DEFAULT, PrefKey.CREDENTIAL_IDLE_TIMEOUT_SECONDS_DEFAULT);
+
+        static AdvancedSettings loadFromPreferences() {
+            return new AdvancedSettings(
+                CallbackExecutionMode.fromValue(
+                    loadString(PrefKey.CALLBACK_EXECUTION_MODE_KEY, PrefKey.CALLBACK_EXECUTION_MODE_DEFAULT)),
+                loadInt(PrefKey.CALLBACK_POOL_SIZE_KEY, PrefKey.CALLBACK_POOL_SIZE_DEFAULT),
+                TicketCacheChangeDetection.fromValue(loadString(PrefKey.TICKET_CACHE_CHANGE_DETECTION_KEY,
+                    PrefKey.TICKET_CACHE_CHANGE_DETECTION_DEFAULT)),
+                loadInt(PrefKey.DELEGATION_CACHE_SIZE_KEY, PrefKey.DELEGATION_CACHE_SIZE_DEFAULT),
+                loadInt(PrefKey.DELEGATION_TICKET_REUSE_PERCENT_KEY, PrefKey.DELEGATION_TICKET_REUSE_PERCENT_DEFAULT),
+                loadInt(PrefKey.DELEGATION_PARALLELISM_KEY, PrefKey.DELEGATION_PARALLELISM_DEFAULT),
+                KeytabReloginMode.fromValue(
+                    loadString(PrefKey.KEYTAB_RELOGIN_MODE_KEY, PrefKey.KEYTAB_RELOGIN_MODE_DEFAULT)),
+                loadInt(PrefKey.RENEWAL_WINDOW_PERCENT_KEY, PrefKey.RENEWAL_WINDOW_PERCENT_DEFAULT),
+                loadInt(PrefKey.RENEWAL_MAX_RETRIES_KEY, PrefKey.RENEWAL_MAX_RETRIES_DEFAULT),
+                loadInt(PrefKey.RENEWAL_RETRY_BACKOFF_SECONDS_KEY, PrefKey.RENEWAL_RETRY_BACKOFF_SECONDS_DEFAULT),
+                KdcSelection.fromValue(loadString(PrefKey.KDC_SELECTION_KEY, PrefKey.KDC_SELECTION_DEFAULT)),
+                loadInt(PrefKey.KDC_TIMEOUT_MILLIS_KEY, PrefKey.KDC_TIMEOUT_MILLIS_DEFAULT),
+                loadInt(PrefKey.KDC_MAX_RETRIES_KEY, PrefKey.KDC_MAX_RETRIES_DEFAULT),
+                loadInt(PrefKey.DEBUG_LOG_BUFFER_SIZE_KEY, PrefKey.DEBUG_LOG_BUFFER_SIZE_DEFAULT),
+                loadInt(PrefKey.DEBUG_LOG_QUEUE_SIZE_KEY, PrefKey.DEBUG_LOG_QUEUE_SIZE_DEFAULT),
+                DebugLogOverflowPolicy.fromValue(
+                    loadString(PrefKey.DEBUG_LOG_OVERFLOW_POLICY_KEY, PrefKey.DEBUG_LOG_OVERFLOW_POLICY_DEFAULT)),
+                DebugLogCaptureScope.fromValue(
+                    loadString(PrefKey.DEBUG_LOG_CAPTURE_SCOPE_KEY, PrefKey.DEBUG_LOG_CAPTURE_SCOPE_DEFAULT)),
+                loadInt(PrefKey.CREDENTIAL_CACHE_SIZE_KEY, PrefKey.CREDENTIAL_CACHE_SIZE_DEFAULT),
+                loadInt(PrefKey.CREDENTIAL_IDLE_TIMEOUT_SECONDS_KEY, PrefKey.CREDENTIAL_IDLE_TIMEOUT_SECONDS_DEFAULT));
+        }
+    }
+
+    private final long m_version;
+
+    private final long m_loginVersion;
+
     private final KerberosConfigSource m_confSource;
 
     private final String m_kerberosConfFile;
@@ -104,6 +217,8 @@ public class KerberosPluginConfig {
 
     private final boolean m_showIcon;
 
+    private final AdvancedSettings m_advancedSettings;
+
     /**
      * Creates a new instance. All String parameters are sanitized, i.e. empty strings or those only containing
      * whitespaces mapped to null.
@@ -125,19 +240,8 @@ public KerberosPluginConfig(final KerberosConfigSource confSource, final String
         final String keytabFile, final boolean doDebugLogging, final String debugLogLevel, final long renewalSafetyMargin,
         final boolean showIcon) {
 
-        m_confSource = confSource;
-        m_kerberosConfFile = cleanUp(kerberosConfFile);
-        m_realm = cleanUp(realm);
-        m_kdc = cleanUp(kdc);
-        m_authMethod = authMethod;
-        m_keytabPrincipal = cleanUp(keytabPrincipal);
-        m_keytabFile = cleanUp(keytabFile);
-        m_doDebugLogging = doDebugLogging;
-        m_debugLogLevel = cleanUp(debugLogLevel);
-        m_renewalSafetyMarginSeconds = renewalSafetyMargin;
-        m_isTestConfiguration = false;
-        m_ticketCache = null;
-        m_showIcon = showIcon;
+        this(confSource, kerberosConfFile, realm, kdc, authMethod, keytabPrincipal, keytabFile, doDebugLogging,
+            debugLogLevel, renewalSafetyMargin, showIcon, false, null);
     }
 
     /**
@@ -163,6 +267,20 @@ public KerberosPluginConfig(final KerberosConfigSource confSource, final String
         final String keytabFile, final boolean doDebugLogging, final String debugLogLevel, final long renewalSaftyMargin,
         final boolean showIcon, final boolean isTestConfiguration, final String ticketCache) {
 
+        this(confSource, kerberosConfFile, realm, kdc, authMethod, keytabPrincipal, keytabFile, doDebugLogging,
+            debugLogLevel, renewalSaftyMargin, showIcon, isTestConfiguration, ticketCache, AdvancedSettings.DEFAULTS,
+            0, 0);
+    }
+
+    /**
+     * Creates a new instance that also holds the given advanced settings and versions.
+     */
+    private KerberosPluginConfig(final KerberosConfigSource confSource, final String kerberosConfFile,
+        final String realm, final String kdc, final AuthMethod authMethod, final String keytabPrincipal,
+        final String keytabFile, final boolean doDebugLogging, final String debugLogLevel, final long renewalSaftyMargin,
+        final boolean showIcon, final boolean isTestConfiguration, final String ticketCache,
+        final AdvancedSettings advancedSettings, final long version, final long loginVersion) {
+
         m_confSource = confSource;
         m_kerberosConfFile = cleanUp(kerberosConfFile);
         m_realm = cleanUp(realm);
@@ -176,14 +294,27 @@ public KerberosPluginConfig(final KerberosConfigSource confSource, final String
         m_showIcon = showIcon;
         m_isTestConfiguration = isTestConfiguration;
         m_ticketCache = ticketCache;
+        m_advancedSettings = advancedSettings;
+        m_version = version;
+        m_loginVersion = loginVersion;
+    }
+
+    /**
+     * @return a copy of this config with the given versions.
+     */
+    private KerberosPluginConfig withVersions(final long version, final long loginVersion) {
+        return new KerberosPluginConfig(m_confSource, m_kerberosConfFile, m_realm, m_kdc, m_authMethod,
+            m_keytabPrincipal, m_keytabFile, m_doDebugLogging, m_debugLogLevel, m_renewalSafetyMarginSeconds,
+            m_showIcon, m_isTestConfiguration, m_ticketCache, m_advancedSettings, version, loginVersion);
     }
 
     /**
      * @return the PreferenceStore
      */
-    private static IPreferenceStore getPreferenceStore() {
+    private static synchronized IPreferenceStore getPreferenceStore() {
         if (m_referenceStore == null) {
             m_referenceStore = KerberosPlugin.getDefault().getPreferenceStore();
+            m_referenceStore.addPropertyChangeListener(e -> PREFERENCE_CHANGES.incrementAndGet());
         }
         return m_referenceStore;
     }
@@ -262,6 +393,20 @@ public String getKDC() {
         return m_kdc;
     }
 
+    /**
+     * Provides the KDCs of this configuration. Multiple KDCs can be specified as comma or whitespace separated list.
+     *
+     * @return the KDCs (host or host:port), in the specified order, or an empty list if no KDC is set.
+     */
+    public List<String> getKDCs() {
+        if (m_kdc == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(KDC_SEPARATOR.split(m_kdc)) //
+            .filter(kdc -> !kdc.isEmpty()) //
+            .collect(Collectors.toList());
+    }
+
     /**
      * @return the authMethod
      */
@@ -325,6 +470,184 @@ public boolean showIcon() {
         return m_showIcon;
     }
 
+    /**
+     * @return how callbacks that require a Kerberos-authenticated context are executed.
+     */
+    public CallbackExecutionMode getCallbackExecutionMode() {
+        return m_advancedSettings.callbackExecutionMode();
+    }
+
+    /**
+     * @return the maximum number of threads that execute callbacks concurrently, when using
+     *         {@link CallbackExecutionMode#THREAD_POOL}.
+     */
+    public int getCallbackPoolSize() {
+        return m_advancedSettings.callbackPoolSize();
+    }
+
+    /**
+     * Provides the version of this config. Configs returned by {@link #load()} carry a positive version number, which
+     * is incremented whenever the loaded config is not {@link #equals(Object) equal} to the previously loaded one.
+     * Hence two loaded configs with the same version are equal. Configs that were not returned by {@link #load()} have
+     * version zero.
+     *
+     * @return the version of this config, or zero if it has not been returned by {@link #load()}.
+     */
+    public long getVersion() {
+        return m_version;
+    }
+
+    /**
+     * Checks whether a login with this config is the same as a login with the given config, i.e. whether both configs
+     * agree on the settings that affect the login: the Kerberos configuration (including the KDC settings), the
+     * authentication method with its principal, keytab and ticket cache, and whether debug logging is enabled. The
+     * other settings, e.g. the renewal or callback settings, can be changed without a new login. Configs returned by
+     * {@link #load()} carry a login version, which is compared instead of the settings.
+     *
+     * @param other The config to compare with.
+     * @return whether a login with this config is the same as a login with the given config.
+     */
+    public boolean hasSameLoginSettings(final KerberosPluginConfig other) {
+        if (this == other) {
+            return true;
+        } else if (m_loginVersion > 0 && other.m_loginVersion > 0) {
+            return m_loginVersion == other.m_loginVersion;
+        }
+        return m_confSource == other.m_confSource && equalsIgnoreCase(m_kerberosConfFile, other.m_kerberosConfFile)
+            && equalsIgnoreCase(m_realm, other.m_realm) && equalsIgnoreCase(m_kdc, other.m_kdc)
+            && getKdcSelection() == other.getKdcSelection() && getKdcTimeoutMillis() == other.getKdcTimeoutMillis()
+            && getKdcMaxRetries() == other.getKdcMaxRetries() && m_authMethod == other.m_authMethod
+            && equalsIgnoreCase(m_keytabPrincipal, other.m_keytabPrincipal)
+            && equalsIgnoreCase(m_keytabFile, other.m_keytabFile) && Objects.equals(m_ticketCache, other.m_ticketCache)
+            && m_doDebugLogging == other.m_doDebugLogging && m_isTestConfiguration == other.m_isTestConfiguration;
+    }
+
+    /**
+     * @return how to detect changes of the ticket cache outside of KNIME, when using {@link AuthMethod#TICKET_CACHE}.
+     */
+    public TicketCacheChangeDetection getTicketCacheChangeDetection() {
+        return m_advancedSettings.ticketCacheChangeDetection();
+    }
+
+    /**
+     * @return the maximum number of tickets to cache for Kerberos constrained delegation (values smaller than one
+     *         disable caching).
+     */
+    public int getDelegationCacheSize() {
+        return m_advancedSettings.delegationCacheSize();
+    }
+
+    /**
+     * @return the percentage of the lifetime of a service ticket obtained via Kerberos constrained delegation, during
+     *         which the ticket is reused.
+     */
+    public int getDelegationTicketReusePercent() {
+        return m_advancedSettings.delegationTicketReusePercent();
+    }
+
+    /**
+     * @return the maximum number of service tickets to acquire concurrently via Kerberos constrained delegation, when
+     *         a service runs on multiple hosts (values smaller than two mean sequential acquisition).
+     */
+    public int getDelegationParallelism() {
+        return m_advancedSettings.delegationParallelism();
+    }
+
+    /**
+     * @return how a new ticket is fetched from the keytab when the current one is about to expire, when using
+     *         {@link AuthMethod#KEYTAB}.
+     */
+    public KeytabReloginMode getKeytabReloginMode() {
+        return m_advancedSettings.keytabReloginMode();
+    }
+
+    /**
+     * @return the percentage of the ticket lifetime after which the ticket is renewed, unless the renewal safety margin
+     *         requires an earlier renewal (values outside of 1-99 only apply the renewal safety margin).
+     */
+    public int getRenewalWindowPercent() {
+        return m_advancedSettings.renewalWindowPercent();
+    }
+
+    /**
+     * @return the maximum number of retries after a failed ticket renewal.
+     */
+    public int getRenewalMaxRetries() {
+        return m_advancedSettings.renewalMaxRetries();
+    }
+
+    /**
+     * @return the initial delay in seconds between retries of a failed ticket renewal, which doubles with each retry.
+     */
+    public int getRenewalRetryBackoffSeconds() {
+        return m_advancedSettings.renewalRetryBackoffSeconds();
+    }
+
+    /**
+     * @return how multiple KDCs are ordered, when using {@link KerberosConfigSource#REALM_KDC}.
+     */
+    public KdcSelection getKdcSelection() {
+        return m_advancedSettings.kdcSelection();
+    }
+
+    /**
+     * @return the time in milliseconds to wait for a response of a KDC, when using
+     *         {@link KerberosConfigSource#REALM_KDC}.
+     */
+    public int getKdcTimeoutMillis() {
+        return m_advancedSettings.kdcTimeoutMillis();
+    }
+
+    /**
+     * @return how often a request is sent to each KDC before giving up, when using
+     *         {@link KerberosConfigSource#REALM_KDC}.
+     */
+    public int getKdcMaxRetries() {
+        return m_advancedSettings.kdcMaxRetries();
+    }
+
+    /**
+     * @return the maximum number of captured Kerberos debug log lines that are kept in memory.
+     */
+    public int getDebugLogBufferSize() {
+        return m_advancedSettings.debugLogBufferSize();
+    }
+
+    /**
+     * @return the maximum number of captured Kerberos debug log lines that are queued for forwarding.
+     */
+    public int getDebugLogQueueSize() {
+        return m_advancedSettings.debugLogQueueSize();
+    }
+
+    /**
+     * @return what happens when captured Kerberos debug log lines are written faster than they can be forwarded.
+     */
+    public DebugLogOverflowPolicy getDebugLogOverflowPolicy() {
+        return m_advancedSettings.debugLogOverflowPolicy();
+    }
+
+    /**
+     * @return which threads the Kerberos debug output is captured from.
+     */
+    public DebugLogCaptureScope getDebugLogCaptureScope() {
+        return m_advancedSettings.debugLogCaptureScope();
+    }
+
+    /**
+     * @return the maximum number of logins for explicitly requested principals that are kept concurrently.
+     */
+    public int getCredentialCacheSize() {
+        return m_advancedSettings.credentialCacheSize();
+    }
+
+    /**
+     * @return the number of seconds after which an unused login for an explicitly requested principal is logged out.
+     */
+    public int getCredentialIdleTimeoutSeconds() {
+        return m_advancedSettings.credentialIdleTimeoutSeconds();
+    }
+
     private static String loadString(final String key) {
         if (TEST_OVERRIDES != null) {
             return TEST_OVERRIDES.get(key);
@@ -335,6 +658,22 @@ private static String loadString(final String key) {
         }
     }
 
+    private static String loadString(final String key, final String defaultValue) {
+        final String value = loadString(key);
+        return value != null ? value : defaultValue;
+    }
+
+    private static int loadInt(final String key, final int defaultValue) {
+        if (TEST_OVERRIDES != null) {
+            final String value = TEST_OVERRIDES.get(key);
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        } else if (getPreferenceStore().isDefault(key)) {
+            return getPreferenceStore().getDefaultInt(key);
+        } else {
+            return getPreferenceStore().getInt(key);
+        }
+    }
+
     private static void saveString(final String key, final String value) {
         if (TEST_OVERRIDES != null) {
             TEST_OVERRIDES.put(key, value);
@@ -391,15 +730,62 @@ private static void saveLong(final String key, final long value) {
         }
     }
     /**
-     * @return a new {@link KerberosPluginConfig} that containes the currently stored Eclipse preferences.
+     * Provides a {@link KerberosPluginConfig} that contains the currently stored Eclipse preferences. The config is
+     * cached until the preferences (or the {@link #TEST_OVERRIDES}) change, hence this method can be invoked
+     * frequently.
+     *
+     * @return a {@link KerberosPluginConfig} that contains the currently stored Eclipse preferences.
      */
     public static KerberosPluginConfig load() {
+        final LoadedConfig loaded = LOADED_CONFIG.get();
+        if (loaded != null && loaded.isUpToDate(TEST_OVERRIDES)) {
+            return loaded.config();
+        }
+        return reload();
+    }
+
+    private static synchronized KerberosPluginConfig reload() {
+        final Map<String, String> testOverrides = TEST_OVERRIDES;
+        final LoadedConfig previous = LOADED_CONFIG.get();
+        if (previous != null && previous.isUpToDate(testOverrides)) {
+            // another thread has reloaded the config in the meantime
+            return previous.config();
+        }
+
+        // read this before loading, so that changes during loading invalidate the loaded config
+        final long preferenceChanges = PREFERENCE_CHANGES.get();
+        final Map<String, String> testOverridesCopy = testOverrides != null ? new HashMap<>(testOverrides) : null;
+        final KerberosPluginConfig config = loadFromPreferences();
+
+        final long version;
+        if (previous != null && previous.config().equals(config)) {
+            version = previous.config().getVersion();
+        } else {
+            lastVersion++;
+            version = lastVersion;
+        }
+
+        final long loginVersion;
+        if (previous != null && previous.config().hasSameLoginSettings(config)) {
+            loginVersion = previous.config().m_loginVersion;
+        } else {
+            lastLoginVersion++;
+            loginVersion = lastLoginVersion;
+        }
+
+        final KerberosPluginConfig versionedConfig = config.withVersions(version, loginVersion);
+        LOADED_CONFIG.set(new LoadedConfig(versionedConfig, preferenceChanges, testOverridesCopy));
+        return versionedConfig;
+    }
+
+    private static KerberosPluginConfig loadFromPreferences() {
         return new KerberosPluginConfig(KerberosConfigSource.fromValue(loadString(PrefKey.KERBEROS_CONF_KEY)),
             loadString(PrefKey.KERBEROS_CONF_FILE_KEY), loadString(PrefKey.KERBEROS_REALM_KEY),
             loadString(PrefKey.KERBEROS_KDC_KEY), AuthMethod.fromValue(loadString(PrefKey.AUTH_METHOD_KEY)),
             loadString(PrefKey.KEYTAB_PRINCIPAL_KEY), loadString(PrefKey.KEYTAB_FILE_KEY),
             loadBoolean(PrefKey.DEBUG_KEY), loadString(PrefKey.DEBUG_LOG_LEVEL_KEY), loadLong(PrefKey.RENEWAL_SAFETY_MARGIN_SECONDS_KEY),
-            loadBoolean(PrefKey.SHOW_ICON_KEY), loadBoolean("testing"), loadString("testingTicketCache"));
+            loadBoolean(PrefKey.SHOW_ICON_KEY), loadBoolean("testing"), loadString("testingTicketCache"),
+            AdvancedSettings.loadFromPreferences(), 0, 0);
     }
 
     /**
@@ -414,7 +800,9 @@ public static KerberosPluginConfig defaults() {
     }
 
     /**
-     * Persists the contents of this {@link KerberosPluginConfig} object to Eclipse preferences.
+     * Persists the contents of this {@link KerberosPluginConfig} object to Eclipse preferences. Advanced settings, such
+     * as the {@link #getCallbackExecutionMode() callback execution mode}, are not part of the preference page and are
+     * hence not persisted, so that saving the preference page does not reset them.
      */
     public void save() {
         saveString(PrefKey.KERBEROS_CONF_KEY, getKerberosConfSource().toString());
@@ -513,29 +901,35 @@ private void validateRealm(final List<String> errors) {
     }
 
     /**
-     * Validate that KDC is not empty and host can be resolved.
+     * Validate that KDC is not empty and the hosts of all KDCs can be resolved.
      */
     private void validateKDC(final List<String> errors) {
         if (!hasKDC()) {
             errors.add("KDC must be specified.");
         } else {
-            try {
-                // Let the URI class do the parsing of the possible host:port string
-                URI uri = new URI("test://" + getKDC());
-                String host = uri.getHost();
-
-                if(host == null || host.trim().isEmpty()) {
-                    errors.add("KDC host name must be specified if port is used.");
-                } else {
-                    // network I/O!
-                    InetAddress.getByName(host);
-                }
+            for (final String kdc : getKDCs()) {
+                validateKDC(kdc, errors);
+            }
+        }
+    }
 
-            } catch (URISyntaxException ex) { // NOSONAR error added to list
-                errors.add(String.format("KDC %s is invalid. %s", getKDC(), ex.getMessage()));
-            } catch (UnknownHostException ex) { // NOSONAR error added to list
-                errors.add(String.format("KDC %s contains unknown host.", getKDC()));
+    private static void validateKDC(final String kdc, final List<String> errors) {
+        try {
+            // Let the URI class do the parsing of the possible host:port string
+            URI uri = new URI("test://" + kdc);
+            String host = uri.getHost();
+
+            if(host == null || host.trim().isEmpty()) {
+                errors.add("KDC host name must be specified if port is used.");
+            } else {
+                // network I/O!
+                InetAddress.getByName(host);
             }
+
+        } catch (URISyntaxException ex) { // NOSONAR error added to list
+            errors.add(String.format("KDC %s is invalid. %s", kdc, ex.getMessage()));
+        } catch (UnknownHostException ex) { // NOSONAR error added to list
+            errors.add(String.format("KDC %s contains unknown host.", kdc));
         }
     }
 
@@ -546,11 +940,18 @@ public boolean equals(final Object obj) {
         }
         KerberosPluginConfig other = (KerberosPluginConfig)obj;
 
-        return m_confSource.equals(other.m_confSource) && m_kerberosConfFile.equalsIgnoreCase(other.m_kerberosConfFile)
-            && m_realm.equalsIgnoreCase(other.m_realm) && m_kdc.equalsIgnoreCase(other.m_kdc)
-            && m_authMethod.equals(other.m_authMethod) && m_keytabPrincipal.equalsIgnoreCase(other.m_keytabPrincipal)
-            && m_keytabFile.equalsIgnoreCase(other.m_keytabFile) && m_doDebugLogging == other.m_doDebugLogging
-            && m_debugLogLevel.equalsIgnoreCase(m_debugLogLevel) && m_renewalSafetyMarginSeconds == other.m_renewalSafetyMarginSeconds;
+        return m_confSource == other.m_confSource && equalsIgnoreCase(m_kerberosConfFile, other.m_kerberosConfFile)
+            && equalsIgnoreCase(m_realm, other.m_realm) && equalsIgnoreCase(m_kdc, other.m_kdc)
+            && m_authMethod == other.m_authMethod && equalsIgnoreCase(m_keytabPrincipal, other.m_keytabPrincipal)
+            && equalsIgnoreCase(m_keytabFile, other.m_keytabFile) && m_doDebugLogging == other.m_doDebugLogging
+            && equalsIgnoreCase(m_debugLogLevel, other.m_debugLogLevel)
+            && m_renewalSafetyMarginSeconds == other.m_renewalSafetyMarginSeconds
+            && m_showIcon == other.m_showIcon && m_isTestConfiguration == other.m_isTestConfiguration
+            && Objects.equals(m_ticketCache, other.m_ticketCache) && m_advancedSettings.equals(other.m_advancedSettings);
+    }
+
+    private static boolean equalsIgnoreCase(final String a, final String b) {
+        return a == null ? b == null : a.equalsIgnoreCase(b);
     }
 
     @Override
@@ -558,19 +959,27 @@ public int hashCode() {
         int prime = 31;
         int result = 1;
         result = result * prime + ((m_confSource == null) ? 0 : m_confSource.hashCode());
-        result = result * prime + ((m_kerberosConfFile == null) ? 0 : m_kerberosConfFile.hashCode());
-        result = result * prime + ((m_realm == null) ? 0 : m_realm.hashCode());
-        result = result * prime + ((m_kdc == null) ? 0 : m_kdc.hashCode());
+        result = result * prime + hashCodeIgnoreCase(m_kerberosConfFile);
+        result = result * prime + hashCodeIgnoreCase(m_realm);
+        result = result * prime + hashCodeIgnoreCase(m_kdc);
         result = result * prime + ((m_authMethod == null) ? 0 : m_authMethod.hashCode());
-        result = result * prime + ((m_keytabPrincipal == null) ? 0 : m_keytabPrincipal.hashCode());
-        result = result * prime + ((m_keytabFile == null) ? 0 : m_keytabFile.hashCode());
+        result = result * prime + hashCodeIgnoreCase(m_keytabPrincipal);
+        result = result * prime + hashCodeIgnoreCase(m_keytabFile);
         result = result * prime + (m_doDebugLogging ? 1 : 0);
-        result = result * prime + ((m_debugLogLevel == null) ? 0 : m_debugLogLevel.hashCode());
+        result = result * prime + hashCodeIgnoreCase(m_debugLogLevel);
         result = result * prime + Long.hashCode(m_renewalSafetyMarginSeconds);
+        result = result * prime + (m_isTestConfiguration ? 1 : 0);
+        result = result * prime + (m_showIcon ? 1 : 0);
+        result = result * prime + Objects.hashCode(m_ticketCache);
+        result = result * prime + m_advancedSettings.hashCode();
 
         return result;
     }
 
+    private static int hashCodeIgnoreCase(final String aString) {
+        return (aString == null) ? 0 : aString.toLowerCase(Locale.ROOT).hashCode();
+    }
+
     /**
      * @return a one-line summary string that describes the current configuration for logging purposes.
      */
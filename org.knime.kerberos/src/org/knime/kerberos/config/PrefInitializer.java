@@ -77,5 +77,29 @@ public void initializeDefaultPreferences() {
         preferenceStore.setDefault(PrefKey.DEBUG_LOG_LEVEL_KEY, PrefKey.DEBUG_LOG_LEVEL_DEFAULT);
         preferenceStore.setDefault(PrefKey.RENEWAL_SAFETY_MARGIN_SECONDS_KEY, PrefKey.RENEWAL_SAFETY_MARGIN_SECONDS_DEFAULT);
         preferenceStore.setDefault(PrefKey.SHOW_ICON_KEY, PrefKey.SHOW_ICON_DEFAULT);
+        preferenceStore.setDefault(PrefKey.CALLBACK_EXECUTION_MODE_KEY, PrefKey.CALLBACK_EXECUTION_MODE_DEFAULT);
+        preferenceStore.setDefault(PrefKey.CALLBACK_POOL_SIZE_KEY, PrefKey.CALLBACK_POOL_SIZE_DEFAULT);
+        preferenceStore.setDefault(PrefKey.TICKET_CACHE_CHANGE_DETECTION_KEY,
+            PrefKey.TICKET_CACHE_CHANGE_DETECTION_DEFAULT);
+        preferenceStore.setDefault(PrefKey.DELEGATION_CACHE_SIZE_KEY, PrefKey.DELEGATION_CACHE_SIZE_DEFAULT);
+        preferenceStore.setDefault(PrefKey.DELEGATION_TICKET_REUSE_PERCENT_KEY,
+            PrefKey.DELEGATION_TICKET_REUSE_PERCENT_DEFAULT);
+        preferenceStore.setDefault(PrefKey.DELEGATION_PARALLELISM_KEY, PrefKey.DELEGATION_PARALLELISM_DEFAULT);
+        preferenceStore.setDefault(PrefKey.KEYTAB_RELOGIN_MODE_KEY, PrefKey.KEYTAB_RELOGIN_MODE_DEFAULT);
+        preferenceStore.setDefault(PrefKey.RENEWAL_WINDOW_PERCENT_KEY, PrefKey.RENEWAL_WINDOW_PERCENT_DEFAULT);
+        preferenceStore.setDefault(PrefKey.RENEWAL_MAX_RETRIES_KEY, PrefKey.RENEWAL_MAX_RETRIES_DEFAULT);
+        preferenceStore.setDefault(PrefKey.RENEWAL_RETRY_BACKOFF_SECONDS_KEY,
+            PrefKey.RENEWAL_RETRY_BACKOFF_SECONDS_DEFAULT);
+        preferenceStore.setDefault(PrefKey.KDC_SELECTION_KEY, PrefKey.KDC_SELECTION_DEFAULT);
+        preferenceStore.setDefault(PrefKey.KDC_TIMEOUT_MILLIS_KEY, PrefKey.KDC_TIMEOUT_MILLIS_DEFAULT);
+        preferenceStore.setDefault(PrefKey.KDC_MAX_RETRIES_KEY, PrefKey.KDC_MAX_RETRIES_DEFAULT);
+        preferenceStore.setDefault(PrefKey.DEBUG_LOG_BUFFER_SIZE_KEY, PrefKey.DEBUG_LOG_BUFFER_SIZE_DEFAULT);
+        preferenceStore.setDefault(PrefKey.DEBUG_LOG_QUEUE_SIZE_KEY, PrefKey.DEBUG_LOG_QUEUE_SIZE_DEFAULT);
+        preferenceStore.setDefault(PrefKey.DEBUG_LOG_OVERFLOW_POLICY_KEY,
+            PrefKey.DEBUG_LOG_OVERFLOW_POLICY_DEFAULT);
+        preferenceStore.setDefault(PrefKey.DEBUG_LOG_CAPTURE_SCOPE_KEY, PrefKey.DEBUG_LOG_CAPTURE_SCOPE_DEFAULT);
+        preferenceStore.setDefault(PrefKey.CREDENTIAL_CACHE_SIZE_KEY, PrefKey.CREDENTIAL_CACHE_SIZE_DEFAULT);
+        preferenceStore.setDefault(PrefKey.CREDENTIAL_IDLE_TIMEOUT_SECONDS_KEY,
+            PrefKey.CREDENTIAL_IDLE_TIMEOUT_SECONDS_DEFAULT);
     }
 }
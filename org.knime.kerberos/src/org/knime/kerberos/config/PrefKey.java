@@ -136,6 +136,252 @@ public static KerberosConfigSource fromValue(final String value) throws IllegalA
     }
 }
 
+    /**
+     * Enum for how callbacks that require a Kerberos-authenticated context are executed.
+     */
+    public enum CallbackExecutionMode {
+            /**
+             * Callbacks are executed one after another on the single Kerberos worker thread, which also performs login,
+             * renewal and logout.
+             */
+            WORKER_THREAD,
+            /**
+             * Only login, renewal and logout are performed on the Kerberos worker thread. Callbacks are executed
+             * concurrently on a bounded thread pool, using a snapshot of the currently authenticated JAAS subject.
+             */
+            THREAD_POOL,
+            /**
+             * Only login, renewal and logout are performed on the Kerberos worker thread. Each callback is executed on
+             * its own virtual thread, using a snapshot of the currently authenticated JAAS subject. Suited for
+             * callbacks that mostly wait for network I/O, because the number of concurrent callbacks is not limited by
+             * a thread pool.
+             */
+            VIRTUAL_THREADS;
+
+        /**
+         * Creates a {@link CallbackExecutionMode} from a String
+         *
+         * @param value the String representing the {@link CallbackExecutionMode}
+         * @return the {@link CallbackExecutionMode} for the String
+         * @throws IllegalArgumentException if the String is not a valid {@link CallbackExecutionMode}
+         */
+        public static CallbackExecutionMode fromValue(final String value) throws IllegalArgumentException {
+            if (value == null || value.isEmpty()) {
+                throw new IllegalArgumentException("No callback execution mode specified "
+                    + "(must be one of WORKER_THREAD, THREAD_POOL or VIRTUAL_THREADS)");
+            }
+
+            if (WORKER_THREAD.toString().equalsIgnoreCase(value)) {
+                return WORKER_THREAD;
+            } else if (THREAD_POOL.toString().equalsIgnoreCase(value)) {
+                return THREAD_POOL;
+            } else if (VIRTUAL_THREADS.toString().equalsIgnoreCase(value)) {
+                return VIRTUAL_THREADS;
+            } else {
+                throw new IllegalArgumentException(value + " is not a valid callback execution mode");
+            }
+        }
+    }
+
+    /**
+     * Enum for how to detect changes of the ticket cache outside of KNIME.
+     */
+    public enum TicketCacheChangeDetection {
+            /**
+             * Logs in from the ticket cache and compares the ticket granting ticket with the one of the current login.
+             */
+            LOGIN,
+            /**
+             * Compares the modification time, size and file key of the ticket cache file and only logs in from the
+             * ticket cache if any of these have changed.
+             */
+            FILE_FINGERPRINT;
+
+        /**
+         * Creates a {@link TicketCacheChangeDetection} from a String
+         *
+         * @param value the String representing the {@link TicketCacheChangeDetection}
+         * @return the {@link TicketCacheChangeDetection} for the String
+         * @throws IllegalArgumentException if the String is not a valid {@link TicketCacheChangeDetection}
+         */
+        public static TicketCacheChangeDetection fromValue(final String value) throws IllegalArgumentException {
+            if (value == null || value.isEmpty()) {
+                throw new IllegalArgumentException(
+                    "No ticket cache change detection specified (must be one of LOGIN or FILE_FINGERPRINT)");
+            }
+
+            if (LOGIN.toString().equalsIgnoreCase(value)) {
+                return LOGIN;
+            } else if (FILE_FINGERPRINT.toString().equalsIgnoreCase(value)) {
+                return FILE_FINGERPRINT;
+            } else {
+                throw new IllegalArgumentException(value + " is not a valid ticket cache change detection");
+            }
+        }
+    }
+
+    /**
+     * Enum for how a new ticket is fetched from the keytab when the current one is about to expire.
+     */
+    public enum KeytabReloginMode {
+            /**
+             * The new ticket is fetched on the Kerberos worker thread, which blocks callbacks that are executed on the
+             * worker thread until the KDC has answered. This is the default.
+             */
+            INLINE,
+            /**
+             * The new ticket is fetched on a separate thread, while the current login keeps serving callbacks. Once
+             * the new login has succeeded, it atomically replaces the current login, which is then logged out. This
+             * has to be enabled explicitly.
+             */
+            BACKGROUND;
+
+        /**
+         * Creates a {@link KeytabReloginMode} from a String
+         *
+         * @param value the String representing the {@link KeytabReloginMode}
+         * @return the {@link KeytabReloginMode} for the String
+         * @throws IllegalArgumentException if the String is not a valid {@link KeytabReloginMode}
+         */
+        public static KeytabReloginMode fromValue(final String value) throws IllegalArgumentException {
+            if (value == null || value.isEmpty()) {
+                throw new IllegalArgumentException(
+                    "No keytab relogin mode specified (must be one of INLINE or BACKGROUND)");
+            }
+
+            if (INLINE.toString().equalsIgnoreCase(value)) {
+                return INLINE;
+            } else if (BACKGROUND.toString().equalsIgnoreCase(value)) {
+                return BACKGROUND;
+            } else {
+                throw new IllegalArgumentException(value + " is not a valid keytab relogin mode");
+            }
+        }
+    }
+
+    /**
+     * Enum for how the KDCs are ordered in the Kerberos configuration that is generated for
+     * {@link KerberosConfigSource#REALM_KDC}, when multiple KDCs are specified.
+     */
+    public enum KdcSelection {
+            /**
+             * The KDCs are tried in the specified order.
+             */
+            CONFIGURED_ORDER,
+            /**
+             * The KDCs are tried in the order of their latency, which is measured in the background. Until the
+             * first measurement has finished, the specified order is used.
+             */
+            LATENCY,
+            /**
+             * Like {@link #LATENCY}, but the KDC timeout is additionally derived from the measured latency percentiles,
+             * so that the next KDC is tried early when the fastest one does not respond in time.
+             */
+            HEDGED;
+
+        /**
+         * Creates a {@link KdcSelection} from a String
+         *
+         * @param value the String representing the {@link KdcSelection}
+         * @return the {@link KdcSelection} for the String
+         * @throws IllegalArgumentException if the String is not a valid {@link KdcSelection}
+         */
+        public static KdcSelection fromValue(final String value) throws IllegalArgumentException {
+            if (value == null || value.isEmpty()) {
+                throw new IllegalArgumentException(
+                    "No KDC selection specified (must be one of CONFIGURED_ORDER, LATENCY or HEDGED)");
+            }
+
+            if (CONFIGURED_ORDER.toString().equalsIgnoreCase(value)) {
+                return CONFIGURED_ORDER;
+            } else if (LATENCY.toString().equalsIgnoreCase(value)) {
+                return LATENCY;
+            } else if (HEDGED.toString().equalsIgnoreCase(value)) {
+                return HEDGED;
+            } else {
+                throw new IllegalArgumentException(value + " is not a valid KDC selection");
+            }
+        }
+    }
+
+    /**
+     * Enum for what happens when captured Kerberos debug output is written faster than it can be forwarded.
+     */
+    public enum DebugLogOverflowPolicy {
+            /**
+             * The writing thread waits until there is space in the queue, for a bounded amount of time per line. As the
+             * writing thread holds the lock of the System.out replacement while waiting, this may stall other threads
+             * that write to System.out.
+             */
+            BLOCK,
+            /**
+             * The oldest queued lines are dropped, so that the writing thread never waits. This is the default.
+             */
+            DROP_OLDEST;
+
+        /**
+         * Creates a {@link DebugLogOverflowPolicy} from a String
+         *
+         * @param value the String representing the {@link DebugLogOverflowPolicy}
+         * @return the {@link DebugLogOverflowPolicy} for the String
+         * @throws IllegalArgumentException if the String is not a valid {@link DebugLogOverflowPolicy}
+         */
+        public static DebugLogOverflowPolicy fromValue(final String value) throws IllegalArgumentException {
+            if (value == null || value.isEmpty()) {
+                throw new IllegalArgumentException(
+                    "No debug log overflow policy specified (must be one of BLOCK or DROP_OLDEST)");
+            }
+
+            if (BLOCK.toString().equalsIgnoreCase(value)) {
+                return BLOCK;
+            } else if (DROP_OLDEST.toString().equalsIgnoreCase(value)) {
+                return DROP_OLDEST;
+            } else {
+                throw new IllegalArgumentException(value + " is not a valid debug log overflow policy");
+            }
+        }
+    }
+
+    /**
+     * Enum for which threads the Kerberos debug output is captured from.
+     */
+    public enum DebugLogCaptureScope {
+            /**
+             * Only output from the threads that perform Kerberos operations is captured: the dedicated Kerberos
+             * threads, and other threads while they run a Kerberos callback or login (see
+             * {@link org.knime.kerberos.logger.KerberosLogger#captureCurrentThread()}). Output from all other threads
+             * goes to the original System.out, e.g. the output of other plugins that use Kerberos on their own. This is
+             * the default.
+             */
+            KERBEROS_THREADS,
+            /**
+             * Output from all threads is captured.
+             */
+            ALL_THREADS;
+
+        /**
+         * Creates a {@link DebugLogCaptureScope} from a String
+         *
+         * @param value the String representing the {@link DebugLogCaptureScope}
+         * @return the {@link DebugLogCaptureScope} for the String
+         * @throws IllegalArgumentException if the String is not a valid {@link DebugLogCaptureScope}
+         */
+        public static DebugLogCaptureScope fromValue(final String value) throws IllegalArgumentException {
+            if (value == null || value.isEmpty()) {
+                throw new IllegalArgumentException(
+                    "No debug log capture scope specified (must be one of KERBEROS_THREADS or ALL_THREADS)");
+            }
+
+            if (KERBEROS_THREADS.toString().equalsIgnoreCase(value)) {
+                return KERBEROS_THREADS;
+            } else if (ALL_THREADS.toString().equalsIgnoreCase(value)) {
+                return ALL_THREADS;
+            } else {
+                throw new IllegalArgumentException(value + " is not a valid debug log capture scope");
+            }
+        }
+    }
+
 
     /** Preference key for the Kerberos configuration source. */
     public static final String KERBEROS_CONF_KEY = "org.knime.kerberos.conf";
@@ -203,4 +449,120 @@ public static KerberosConfigSource fromValue(final String value) throws IllegalA
     /** Default value for the Kerberos show icon setting. */
     public static final  boolean SHOW_ICON_DEFAULT = false;
 
+    /** Preference key for how Kerberos callbacks are executed. */
+    public static final  String CALLBACK_EXECUTION_MODE_KEY = "org.knime.kerberos.callbackExecutionMode";
+
+    /** Default value for how Kerberos callbacks are executed. */
+    public static final  String CALLBACK_EXECUTION_MODE_DEFAULT = CallbackExecutionMode.WORKER_THREAD.toString();
+
+    /** Preference key for the maximum number of threads that execute Kerberos callbacks concurrently. */
+    public static final  String CALLBACK_POOL_SIZE_KEY = "org.knime.kerberos.callbackPoolSize";
+
+    /** Default value for the maximum number of threads that execute Kerberos callbacks concurrently. */
+    public static final  int CALLBACK_POOL_SIZE_DEFAULT = Runtime.getRuntime().availableProcessors();
+
+    /** Preference key for how to detect changes of the ticket cache outside of KNIME. */
+    public static final  String TICKET_CACHE_CHANGE_DETECTION_KEY = "org.knime.kerberos.ticketCacheChangeDetection";
+
+    /** Default value for how to detect changes of the ticket cache outside of KNIME. */
+    public static final  String TICKET_CACHE_CHANGE_DETECTION_DEFAULT =
+        TicketCacheChangeDetection.FILE_FINGERPRINT.toString();
+
+    /** Preference key for the maximum number of cached tickets for Kerberos constrained delegation. */
+    public static final  String DELEGATION_CACHE_SIZE_KEY = "org.knime.kerberos.delegationCacheSize";
+
+    /** Default value for the maximum number of cached tickets for Kerberos constrained delegation. */
+    public static final  int DELEGATION_CACHE_SIZE_DEFAULT = 1000;
+
+    /** Preference key for the percentage of the lifetime of a delegated service ticket during which it is reused. */
+    public static final  String DELEGATION_TICKET_REUSE_PERCENT_KEY = "org.knime.kerberos.delegationTicketReusePercent";
+
+    /** Default value for the percentage of the lifetime of a delegated service ticket during which it is reused. */
+    public static final  int DELEGATION_TICKET_REUSE_PERCENT_DEFAULT = 75;
+
+    /** Preference key for the maximum number of delegated service tickets that are acquired concurrently. */
+    public static final  String DELEGATION_PARALLELISM_KEY = "org.knime.kerberos.delegationParallelism";
+
+    /** Default value for the maximum number of delegated service tickets that are acquired concurrently. */
+    public static final  int DELEGATION_PARALLELISM_DEFAULT = 8;
+
+    /** Preference key for how a new ticket is fetched from the keytab when the current one is about to expire. */
+    public static final  String KEYTAB_RELOGIN_MODE_KEY = "org.knime.kerberos.keytabReloginMode";
+
+    /** Default value for how a new ticket is fetched from the keytab when the current one is about to expire. */
+    public static final  String KEYTAB_RELOGIN_MODE_DEFAULT = KeytabReloginMode.INLINE.toString();
+
+    /** Preference key for the percentage of the ticket lifetime after which a Kerberos ticket is renewed. */
+    public static final  String RENEWAL_WINDOW_PERCENT_KEY = "org.knime.kerberos.renewalWindowPercent";
+
+    /** Default value for the percentage of the ticket lifetime after which a Kerberos ticket is renewed. */
+    public static final  int RENEWAL_WINDOW_PERCENT_DEFAULT = 80;
+
+    /** Preference key for the maximum number of retries after a failed Kerberos ticket renewal. */
+    public static final  String RENEWAL_MAX_RETRIES_KEY = "org.knime.kerberos.renewalMaxRetries";
+
+    /** Default value for the maximum number of retries after a failed Kerberos ticket renewal. */
+    public static final  int RENEWAL_MAX_RETRIES_DEFAULT = 5;
+
+    /** Preference key for the initial delay in seconds between retries of a failed Kerberos ticket renewal. */
+    public static final  String RENEWAL_RETRY_BACKOFF_SECONDS_KEY = "org.knime.kerberos.renewalRetryBackoffSeconds";
+
+    /** Default value for the initial delay in seconds between retries of a failed Kerberos ticket renewal. */
+    public static final  int RENEWAL_RETRY_BACKOFF_SECONDS_DEFAULT = 10;
+
+    /** Preference key for how multiple KDCs are ordered in the generated Kerberos configuration. */
+    public static final  String KDC_SELECTION_KEY = "org.knime.kerberos.kdcSelection";
+
+    /** Default value for how multiple KDCs are ordered in the generated Kerberos configuration. */
+    public static final  String KDC_SELECTION_DEFAULT = KdcSelection.LATENCY.toString();
+
+    /** Preference key for the time in milliseconds to wait for a response of a KDC. */
+    public static final  String KDC_TIMEOUT_MILLIS_KEY = "org.knime.kerberos.kdcTimeoutMillis";
+
+    /** Default value for the time in milliseconds to wait for a response of a KDC. */
+    public static final  int KDC_TIMEOUT_MILLIS_DEFAULT = 5000;
+
+    /** Preference key for how often a request is sent to each KDC before giving up. */
+    public static final  String KDC_MAX_RETRIES_KEY = "org.knime.kerberos.kdcMaxRetries";
+
+    /** Default value for how often a request is sent to each KDC before giving up. */
+    public static final  int KDC_MAX_RETRIES_DEFAULT = 2;
+
+    /** Preference key for the maximum number of captured Kerberos debug log lines that are kept in memory. */
+    public static final  String DEBUG_LOG_BUFFER_SIZE_KEY = "org.knime.kerberos.debugLogBufferSize";
+
+    /** Default value for the maximum number of captured Kerberos debug log lines that are kept in memory. */
+    public static final  int DEBUG_LOG_BUFFER_SIZE_DEFAULT = 100000;
+
+    /** Preference key for the maximum number of captured Kerberos debug log lines that are queued for forwarding. */
+    public static final  String DEBUG_LOG_QUEUE_SIZE_KEY = "org.knime.kerberos.debugLogQueueSize";
+
+    /** Default value for the maximum number of captured Kerberos debug log lines that are queued for forwarding. */
+    public static final  int DEBUG_LOG_QUEUE_SIZE_DEFAULT = 8192;
+
+    /** Preference key for what happens when Kerberos debug output is written faster than it can be forwarded. */
+    public static final  String DEBUG_LOG_OVERFLOW_POLICY_KEY = "org.knime.kerberos.debugLogOverflowPolicy";
+
+    /** Default value for what happens when Kerberos debug output is written faster than it can be forwarded. */
+    public static final  String DEBUG_LOG_OVERFLOW_POLICY_DEFAULT = DebugLogOverflowPolicy.DROP_OLDEST.toString();
+
+    /** Preference key for which threads the Kerberos debug output is captured from. */
+    public static final  String DEBUG_LOG_CAPTURE_SCOPE_KEY = "org.knime.kerberos.debugLogCaptureScope";
+
+    /** Default value for which threads the Kerberos debug output is captured from. */
+    public static final  String DEBUG_LOG_CAPTURE_SCOPE_DEFAULT = DebugLogCaptureScope.KERBEROS_THREADS.toString();
+
+    /** Preference key for the maximum number of logins for explicitly requested principals that are kept. */
+    public static final  String CREDENTIAL_CACHE_SIZE_KEY = "org.knime.kerberos.credentialCacheSize";
+
+    /** Default value for the maximum number of logins for explicitly requested principals that are kept. */
+    public static final  int CREDENTIAL_CACHE_SIZE_DEFAULT = 16;
+
+    /** Preference key for the seconds after which an unused login for an explicitly requested principal ends. */
+    public static final  String CREDENTIAL_IDLE_TIMEOUT_SECONDS_KEY =
+        "org.knime.kerberos.credentialIdleTimeoutSeconds";
+
+    /** Default value for the seconds after which an unused login for an explicitly requested principal ends. */
+    public static final  int CREDENTIAL_IDLE_TIMEOUT_SECONDS_DEFAULT = 1800;
+
 }
@@ -427,7 +427,10 @@ private void saveAndApplyNewPrefs() {
             MessageDialog.openInformation(PlatformUI.getWorkbench().getActiveWorkbenchWindow().getShell(),
                 "Kerberos Logging",
                 "Please restart KNIME Analytics Platform for Kerberos debug messages to be available.");
-            KerberosLogger.startCapture(LEVEL.valueOf(newConfig.getDebugLogLevel()));
+            // the buffer, queue and capture scope settings are advanced settings, which are not part of this page
+            KerberosLogger.startCapture(LEVEL.valueOf(newConfig.getDebugLogLevel()),
+                oldConfig.getDebugLogBufferSize(), oldConfig.getDebugLogQueueSize(),
+                oldConfig.getDebugLogOverflowPolicy(), oldConfig.getDebugLogCaptureScope());
         } else if (oldConfig.doDebugLogging() && !newConfig.doDebugLogging()) {
             // if Kerberos debug logging was switched off, then stop the current capture
             KerberosLogger.stopCapture();
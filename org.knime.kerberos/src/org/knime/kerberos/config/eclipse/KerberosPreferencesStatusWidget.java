@@ -380,7 +380,11 @@ private void showStatusError(final Exception e) {
     }
 
     private void openKerberosLog() {
-        final String log = KerberosLogger.getCapturedLines().stream().collect(Collectors.joining("\n"));
+        final long droppedLines = KerberosLogger.getDroppedLineCount();
+        final String droppedNote =
+            droppedLines > 0 ? String.format("(%d earlier lines have been dropped)%n", droppedLines) : "";
+        final String log =
+            droppedNote + KerberosLogger.getCapturedLines().stream().collect(Collectors.joining("\n"));
         final Clipboard clipboard = new Clipboard(getDisplay());
         final Shell shell = new Shell(getDisplay(), SWT.DIALOG_TRIM | SWT.RESIZE | SWT.APPLICATION_MODAL);
         shell.setText(KERBEROS_LOG_TITLE);
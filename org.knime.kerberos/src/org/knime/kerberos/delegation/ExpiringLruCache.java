@@ -0,0 +1,175 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.delegation;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+/**
+ * Thread-safe cache with a bounded number of entries, where each entry expires at an individual point in time (e.g.
+ * shortly before the end time of a Kerberos ticket). When the cache is full, the least recently used entry is evicted.
+ *
+ * @author KNIME GmbH
+ * @param <K> The type of the keys.
+ * @param <V> The type of the cached values.
+ */
+public final class ExpiringLruCache<K, V> {
+
+    private static final class Entry<V> {
+
+        final V m_value;
+
+        final Instant m_expiresAt;
+
+        Entry(final V value, final Instant expiresAt) {
+            m_value = value;
+            m_expiresAt = expiresAt;
+        }
+    }
+
+    private final LinkedHashMap<K, Entry<V>> m_entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private int m_maxEntries;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxEntries The maximum number of entries. Values smaller than one disable the cache.
+     */
+    public ExpiringLruCache(final int maxEntries) {
+        m_maxEntries = maxEntries;
+    }
+
+    /**
+     * Changes the maximum number of entries, possibly evicting the least recently used entries.
+     *
+     * @param maxEntries The maximum number of entries. Values smaller than one disable the cache.
+     */
+    public synchronized void setMaxEntries(final int maxEntries) {
+        m_maxEntries = maxEntries;
+        evictLeastRecentlyUsed();
+    }
+
+    /**
+     * Provides the value for the given key, if it has not expired yet. Expired entries are removed.
+     *
+     * @param key The key to look up.
+     * @param now The current point in time.
+     * @return the cached value, or null if there is none or if it has expired.
+     */
+    public synchronized V get(final K key, final Instant now) {
+        final Entry<V> entry = m_entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        if (!now.isBefore(entry.m_expiresAt)) {
+            m_entries.remove(key);
+            return null;
+        }
+        return entry.m_value;
+    }
+
+    /**
+     * Puts the given value into the cache. Does nothing if the cache is disabled, or the value has already expired.
+     *
+     * @param key The key of the value.
+     * @param value The value to cache.
+     * @param expiresAt The point in time at which the value must not be provided anymore.
+     * @param now The current point in time.
+     */
+    public synchronized void put(final K key, final V value, final Instant expiresAt, final Instant now) {
+        if (m_maxEntries < 1 || !now.isBefore(expiresAt)) {
+            return;
+        }
+
+        m_entries.put(key, new Entry<>(value, expiresAt));
+        evictLeastRecentlyUsed();
+    }
+
+    /**
+     * Removes the entry with the given key.
+     *
+     * @param key The key of the entry to remove.
+     */
+    public synchronized void remove(final K key) {
+        m_entries.remove(key);
+    }
+
+    /**
+     * Removes all entries that match the given predicate.
+     *
+     * @param predicate Predicate on key and value of an entry.
+     */
+    public synchronized void removeIf(final BiPredicate<? super K, ? super V> predicate) {
+        m_entries.entrySet().removeIf(e -> predicate.test(e.getKey(), e.getValue().m_value));
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void clear() {
+        m_entries.clear();
+    }
+
+    /**
+     * @return the number of entries, including those that have expired but not been removed yet.
+     */
+    public synchronized int size() {
+        return m_entries.size();
+    }
+
+    private void evictLeastRecentlyUsed() {
+        final Iterator<Map.Entry<K, Entry<V>>> iter = m_entries.entrySet().iterator();
+        while (m_entries.size() > Math.max(m_maxEntries, 0) && iter.hasNext()) {
+            iter.next();
+            iter.remove();
+        }
+    }
+}
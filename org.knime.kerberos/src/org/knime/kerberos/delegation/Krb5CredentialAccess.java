@@ -0,0 +1,158 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.delegation;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import org.knime.core.node.NodeLogger;
+
+import sun.security.jgss.krb5.Krb5InitCredential;
+import sun.security.jgss.spi.GSSCredentialSpi;
+import sun.security.krb5.Credentials;
+
+/**
+ * Provides access to the {@link Credentials} held by JDK-internal credential classes, which are not accessible via
+ * public API. The required (non-public) methods and fields are resolved only once, when this class is initialized, so
+ * that no reflective lookups happen when performing Kerberos constrained delegation. If they cannot be resolved (e.g.
+ * because the Java runtime has changed its internals), this is logged once and every access fails with an
+ * {@link IllegalStateException} that describes the problem.
+ *
+ * @author KNIME GmbH
+ */
+public final class Krb5CredentialAccess {
+
+    private static final NodeLogger LOG = NodeLogger.getLogger(Krb5CredentialAccess.class);
+
+    private static final String KRB5_PROXY_CREDENTIAL_CLASS = "sun.security.jgss.krb5.Krb5ProxyCredential";
+
+    private static final MethodHandle GET_KRB5_CREDENTIALS;
+
+    private static final MethodHandle GET_USER_CREDS;
+
+    private static final IllegalStateException RESOLUTION_FAILURE;
+
+    static {
+        MethodHandle getKrb5Credentials = null;
+        MethodHandle getUserCreds = null;
+        IllegalStateException resolutionFailure = null;
+
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            final Method method = Krb5InitCredential.class.getDeclaredMethod("getKrb5Credentials");
+            method.setAccessible(true); // NOSONAR no other way to do it...
+            getKrb5Credentials = lookup.unreflect(method) //
+                .asType(MethodType.methodType(Credentials.class, Krb5InitCredential.class));
+
+            // see DEVOPS-3364
+            final Field field = Class.forName(KRB5_PROXY_CREDENTIAL_CLASS).getDeclaredField("userCreds");
+            field.setAccessible(true); // NOSONAR no other way to access package-private class field
+            getUserCreds = lookup.unreflectGetter(field) //
+                .asType(MethodType.methodType(Credentials.class, GSSCredentialSpi.class));
+        } catch (ReflectiveOperationException | RuntimeException ex) { // NOSONAR includes InaccessibleObjectException
+            resolutionFailure = new IllegalStateException(
+                "Kerberos constrained delegation is not supported on this Java runtime, because its internal "
+                    + "Kerberos credentials are not accessible: " + ex.getMessage(),
+                ex);
+            LOG.error(resolutionFailure.getMessage(), ex);
+        }
+
+        GET_KRB5_CREDENTIALS = getKrb5Credentials;
+        GET_USER_CREDS = getUserCreds;
+        RESOLUTION_FAILURE = resolutionFailure;
+    }
+
+    private Krb5CredentialAccess() {
+        // utility class
+    }
+
+    /**
+     * Provides the ticket granting ticket held by the given credential.
+     *
+     * @param initCredential The credential of the currently authenticated principal.
+     * @return the ticket granting ticket.
+     * @throws IllegalStateException if the JDK-internal method to access the ticket could not be resolved.
+     */
+    public static Credentials getKrb5Credentials(final Krb5InitCredential initCredential) {
+        checkResolved();
+        try {
+            return (Credentials)GET_KRB5_CREDENTIALS.invokeExact(initCredential);
+        } catch (RuntimeException | Error ex) { // NOSONAR rethrow unchecked exceptions as they are
+            throw ex;
+        } catch (Throwable ex) { // NOSONAR the method does not declare any checked exceptions
+            throw new IllegalStateException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Provides the S4U2Self ticket (user -> middle service) held by the given credential.
+     *
+     * @param s4u2SelfCredential A credential of type <code>sun.security.jgss.krb5.Krb5ProxyCredential</code>.
+     * @return the S4U2Self ticket.
+     * @throws IllegalStateException if the JDK-internal field that holds the ticket could not be resolved.
+     * @throws ClassCastException if the given credential is not a <code>Krb5ProxyCredential</code>.
+     */
+    public static Credentials getUserCredentials(final GSSCredentialSpi s4u2SelfCredential) {
+        checkResolved();
+        try {
+            return (Credentials)GET_USER_CREDS.invokeExact(s4u2SelfCredential);
+        } catch (RuntimeException | Error ex) { // NOSONAR rethrow unchecked exceptions as they are
+            throw ex;
+        } catch (Throwable ex) { // NOSONAR reading a field does not throw checked exceptions
+            throw new IllegalStateException(ex.getMessage(), ex);
+        }
+    }
+
+    private static void checkResolved() {
+        if (RESOLUTION_FAILURE != null) {
+            throw new IllegalStateException(RESOLUTION_FAILURE.getMessage(), RESOLUTION_FAILURE.getCause());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.delegation;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import sun.security.krb5.Credentials;
+
+/**
+ * Cache for S4U2Proxy tickets (user -> target service), so that repeated connections to the same services on behalf of
+ * the same workflow user do not require any KDC round-trips. Entries are keyed by the impersonated principal, the
+ * principal of the target service and the ticket granting ticket of the middle service (so that they are not used
+ * anymore once it has been renewed or replaced). Tickets are only reused until a configurable fraction of their
+ * lifetime has elapsed.
+ *
+ * @author KNIME GmbH
+ */
+public final class S4U2ProxyCache {
+
+    private record Key(String impersonatedPrincipal, String targetServicePrincipal, TicketIdentity serverTgt) {
+    }
+
+    private final ExpiringLruCache<Key, Credentials> m_cache;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxEntries The maximum number of entries. Values smaller than one disable the cache.
+     */
+    public S4U2ProxyCache(final int maxEntries) {
+        m_cache = new ExpiringLruCache<>(maxEntries);
+    }
+
+    /**
+     * Changes the maximum number of entries, possibly evicting the least recently used entries.
+     *
+     * @param maxEntries The maximum number of entries. Values smaller than one disable the cache.
+     */
+    public void setMaxEntries(final int maxEntries) {
+        m_cache.setMaxEntries(maxEntries);
+    }
+
+    /**
+     * Provides a cached S4U2Proxy ticket.
+     *
+     * @param impersonatedPrincipal The impersonated user principal.
+     * @param targetServicePrincipal The principal of the target service.
+     * @param serverTgt The current ticket granting ticket of the middle service.
+     * @return the cached S4U2Proxy ticket, or null if there is none that can still be reused.
+     */
+    public Credentials get(final String impersonatedPrincipal, final String targetServicePrincipal,
+        final Credentials serverTgt) {
+        return m_cache.get(new Key(impersonatedPrincipal, targetServicePrincipal, TicketIdentity.of(serverTgt)),
+            Instant.now());
+    }
+
+    /**
+     * Caches the given S4U2Proxy ticket.
+     *
+     * @param impersonatedPrincipal The impersonated user principal.
+     * @param targetServicePrincipal The principal of the target service.
+     * @param serverTgt The ticket granting ticket of the middle service, which was used to acquire the S4U2Proxy
+     *            ticket.
+     * @param s4u2ProxyCredentials The S4U2Proxy ticket.
+     * @param reusePercent The percentage of the ticket lifetime during which the ticket may be reused.
+     */
+    public void put(final String impersonatedPrincipal, final String targetServicePrincipal,
+        final Credentials serverTgt, final Credentials s4u2ProxyCredentials, final int reusePercent) {
+
+        final Instant expiresAt = computeReuseDeadline(s4u2ProxyCredentials, reusePercent);
+        if (expiresAt == null) {
+            return;
+        }
+
+        m_cache.put(new Key(impersonatedPrincipal, targetServicePrincipal, TicketIdentity.of(serverTgt)),
+            s4u2ProxyCredentials, expiresAt, Instant.now());
+    }
+
+    /**
+     * Computes until when a ticket may be reused.
+     *
+     * @param credentials The credentials that hold the ticket.
+     * @param reusePercent The percentage of the ticket lifetime during which the ticket may be reused.
+     * @return the point in time until which the ticket may be reused, or null if it cannot be determined.
+     */
+    static Instant computeReuseDeadline(final Credentials credentials, final int reusePercent) {
+        return computeReuseDeadline(
+            credentials.getStartTime() != null ? credentials.getStartTime() : credentials.getAuthTime(),
+            credentials.getEndTime(), reusePercent);
+    }
+
+    static Instant computeReuseDeadline(final Date startTime, final Date endTime, final int reusePercent) {
+        if (startTime == null || endTime == null || reusePercent <= 0) {
+            return null;
+        }
+
+        final Duration lifetime = Duration.between(startTime.toInstant(), endTime.toInstant());
+        final long reuseMillis = lifetime.toMillis() / 100 * Math.min(reusePercent, 100);
+        return startTime.toInstant().plusMillis(reuseMillis);
+    }
+
+    /**
+     * Removes all cached tickets.
+     */
+    public void clear() {
+        m_cache.clear();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.delegation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.knime.kerberos.ResizableThreadPool;
+import org.knime.kerberos.api.KerberosDelegationException;
+
+/**
+ * Holds the bounded thread pool that acquires S4U2Proxy tickets for multiple hosts of a service concurrently. The pool
+ * is separate from the thread(s) that perform login and execute Kerberos callbacks, because those threads block until
+ * all tickets have been acquired.
+ *
+ * @author KNIME GmbH
+ */
+public final class S4U2ProxyExecutor {
+
+    private static final ResizableThreadPool POOL = new ResizableThreadPool("KerberosDelegation-", 1);
+
+    private S4U2ProxyExecutor() {
+        // utility class
+    }
+
+    /**
+     * Provides the thread pool to acquire S4U2Proxy tickets, resized to the given number of threads if necessary.
+     *
+     * @param poolSize The maximum number of S4U2Proxy tickets to acquire concurrently (must be at least one).
+     * @return the thread pool to submit ticket acquisitions to.
+     */
+    public static ExecutorService getExecutor(final int poolSize) {
+        return POOL.getExecutor(poolSize);
+    }
+
+    /**
+     * Executes one task per hostname of a service. If there are multiple tasks and the parallelism is at least two,
+     * the tasks are executed concurrently on the pool and the failures are collected per hostname, otherwise the
+     * tasks are executed sequentially on the current thread and the first failure is thrown as is.
+     *
+     * @param serviceName Kerberos name of the service (for error reporting).
+     * @param tasksByHostname The tasks by hostname.
+     * @param parallelism The maximum number of tasks to execute concurrently.
+     * @return the results of the tasks, in the order of the hostnames.
+     * @throws KerberosDelegationException if a concurrently executed task failed, holding the failures by hostname.
+     * @throws Exception if a sequentially executed task failed.
+     */
+    public static <T> List<T> invokeAll(final String serviceName, final Map<String, Callable<T>> tasksByHostname,
+        final int parallelism) throws Exception { // NOSONAR
+
+        final List<T> results = new ArrayList<>(tasksByHostname.size());
+        if (tasksByHostname.size() == 1 || parallelism < 2) {
+            for (Callable<T> task : tasksByHostname.values()) {
+                results.add(task.call());
+            }
+            return results;
+        }
+
+        final int poolSize = Math.min(parallelism, tasksByHostname.size());
+        final List<Future<T>> futures = getExecutor(poolSize).invokeAll(tasksByHostname.values());
+
+        final Map<String, Exception> failures = new LinkedHashMap<>();
+        var i = 0;
+        for (String hostname : tasksByHostname.keySet()) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (ExecutionException ex) { // NOSONAR the cause is reported
+                if (ex.getCause() instanceof Error error) {
+                    throw error;
+                }
+                failures.put(hostname, (Exception)ex.getCause());
+            }
+            i++;
+        }
+
+        if (!failures.isEmpty()) {
+            throw new KerberosDelegationException(serviceName, tasksByHostname.size(), failures);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.delegation;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+
+import sun.security.krb5.Credentials;
+
+/**
+ * Cache for S4U2Self tickets (user -> middle service), so that the same workflow user does not have to be impersonated
+ * with a KDC round-trip for every operation. Entries are keyed by the principal of the middle service and the
+ * impersonated principal. They expire shortly before the end time of the S4U2Self ticket, and are invalidated when
+ * the ticket granting ticket of the middle service has been renewed or replaced.
+ *
+ * @author KNIME GmbH
+ */
+public final class S4U2SelfCache {
+
+    private record Key(String serverPrincipal, String impersonatedPrincipal) {
+    }
+
+    private record Value(Credentials s4u2SelfCredentials, TicketIdentity serverTgt) {
+    }
+
+    private final ExpiringLruCache<Key, Value> m_cache;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxEntries The maximum number of entries. Values smaller than one disable the cache.
+     */
+    public S4U2SelfCache(final int maxEntries) {
+        m_cache = new ExpiringLruCache<>(maxEntries);
+    }
+
+    /**
+     * Changes the maximum number of entries, possibly evicting the least recently used entries.
+     *
+     * @param maxEntries The maximum number of entries. Values smaller than one disable the cache.
+     */
+    public void setMaxEntries(final int maxEntries) {
+        m_cache.setMaxEntries(maxEntries);
+    }
+
+    /**
+     * Provides a cached S4U2Self ticket.
+     *
+     * @param serverPrincipal The principal of the middle service.
+     * @param impersonatedPrincipal The impersonated user principal.
+     * @param serverTgt The current ticket granting ticket of the middle service.
+     * @return the cached S4U2Self ticket, or null if there is none that is still valid and has been acquired with the
+     *         given ticket granting ticket.
+     */
+    public Credentials get(final String serverPrincipal, final String impersonatedPrincipal,
+        final Credentials serverTgt) {
+
+        final Key key = new Key(serverPrincipal, impersonatedPrincipal);
+        final Value value = m_cache.get(key, Instant.now());
+        if (value == null) {
+            return null;
+        }
+
+        if (!Objects.equals(value.serverTgt(), TicketIdentity.of(serverTgt))) {
+            // TGT has been renewed or replaced since the S4U2Self ticket has been acquired
+            m_cache.remove(key);
+            return null;
+        }
+        return value.s4u2SelfCredentials();
+    }
+
+    /**
+     * Caches the given S4U2Self ticket.
+     *
+     * @param serverPrincipal The principal of the middle service.
+     * @param impersonatedPrincipal The impersonated user principal.
+     * @param serverTgt The ticket granting ticket of the middle service, which was used to acquire the S4U2Self
+     *            ticket.
+     * @param s4u2SelfCredentials The S4U2Self ticket.
+     * @param safetyMargin How long before the end time of the S4U2Self ticket it shall not be used anymore.
+     */
+    public void put(final String serverPrincipal, final String impersonatedPrincipal, final Credentials serverTgt,
+        final Credentials s4u2SelfCredentials, final Duration safetyMargin) {
+
+        if (s4u2SelfCredentials.getEndTime() == null) {
+            return;
+        }
+
+        final Instant expiresAt = s4u2SelfCredentials.getEndTime().toInstant().minus(safetyMargin);
+        m_cache.put(new Key(serverPrincipal, impersonatedPrincipal),
+            new Value(s4u2SelfCredentials, TicketIdentity.of(serverTgt)), expiresAt, Instant.now());
+    }
+
+    /**
+     * Removes all cached tickets.
+     */
+    public void clear() {
+        m_cache.clear();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.delegation;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Table of in-flight requests, which makes concurrent identical requests share one execution and its result. The first
+ * thread that issues a request for a key (the leader) executes it, whereas all other threads that issue a request for
+ * the same key while it is in flight (the followers) wait for and share its outcome:
+ * <ul>
+ * <li>If the leader succeeds, all followers receive the same value.</li>
+ * <li>If the leader fails, all followers receive the same exception.</li>
+ * <li>If the leader is interrupted, the followers do not fail, but retry the request instead (one of them becomes the
+ * new leader).</li>
+ * <li>If a follower is interrupted, it stops waiting, without affecting the leader and the other followers.</li>
+ * </ul>
+ * Results are not retained once a request has completed.
+ *
+ * @author KNIME GmbH
+ * @param <K> Type of the request keys.
+ * @param <V> Type of the request results.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> m_inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Executes the given request, unless an identical request is already in flight, in which case its outcome is
+     * awaited and shared.
+     *
+     * @param key The key that identifies the request.
+     * @param request The request to execute.
+     * @return the result of the request.
+     * @throws InterruptedException if the current thread was interrupted while waiting for another thread.
+     * @throws Exception if the request failed.
+     */
+    public V execute(final K key, final Callable<V> request) throws Exception { // NOSONAR
+        while (true) {
+            final var flight = new CompletableFuture<V>();
+            final CompletableFuture<V> existingFlight = m_inFlight.putIfAbsent(key, flight);
+
+            if (existingFlight == null) {
+                return lead(key, flight, request);
+            }
+
+            try {
+                return existingFlight.get();
+            } catch (CancellationException ex) { // NOSONAR the leader was interrupted, hence retry
+                // loop
+            } catch (ExecutionException ex) { // NOSONAR the cause is rethrown
+                throw unwrap(ex);
+            }
+        }
+    }
+
+    private V lead(final K key, final CompletableFuture<V> flight, final Callable<V> request) throws Exception { // NOSONAR
+        try {
+            final V value = request.call();
+            flight.complete(value);
+            return value;
+        } catch (InterruptedException ex) {
+            flight.cancel(false);
+            throw ex;
+        } catch (Exception | Error ex) { // NOSONAR followers get the same exception
+            if (Thread.currentThread().isInterrupted()) {
+                flight.cancel(false);
+            } else {
+                flight.completeExceptionally(ex);
+            }
+            throw ex;
+        } finally {
+            m_inFlight.remove(key, flight);
+        }
+    }
+
+    private static Exception unwrap(final ExecutionException ex) {
+        final Throwable cause = ex.getCause();
+        if (cause instanceof Error error) {
+            throw error;
+        } else if (cause instanceof Exception exception) {
+            return exception;
+        } else {
+            return ex;
+        }
+    }
+
+    /**
+     * @return the number of requests that are currently in flight.
+     */
+    public int size() {
+        return m_inFlight.size();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for executing a Kerberos callback. The event duration is the execution time (including authentication),
+ * whereas the time the callback waited to be executed is recorded separately.
+ *
+ * @author KNIME GmbH
+ */
+@Name("org.knime.kerberos.KerberosCallbackExecution")
+@Label("Kerberos Callback Execution")
+@Category({"KNIME", "Kerberos"})
+@Description("Execution of a callback in a Kerberos-authenticated context")
+public final class KerberosCallbackExecutionEvent extends Event {
+
+    @Label("Execution Mode")
+    @Description("Where the callback was executed (WORKER_THREAD, THREAD_POOL or VIRTUAL_THREADS)")
+    private String executionMode;
+
+    @Label("Queue Wait Time")
+    @Description("Time from submitting the callback until its execution started")
+    @Timespan(Timespan.NANOSECONDS)
+    private long queueWaitTime;
+
+    @Label("Node ID")
+    @Description("The ID of the KNIME node that submitted the callback, if any")
+    private String nodeId;
+
+    @Label("Success")
+    @Description("Whether the callback completed without exception")
+    private boolean success;
+
+    /**
+     * @param executionMode where the callback was executed (WORKER_THREAD, THREAD_POOL or VIRTUAL_THREADS).
+     */
+    public void setExecutionMode(final String executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    /**
+     * @param queueWaitTime time from submitting the callback until its execution started.
+     */
+    public void setQueueWaitTime(final long queueWaitTime) {
+        this.queueWaitTime = queueWaitTime;
+    }
+
+    /**
+     * @param nodeId the ID of the KNIME node that submitted the callback, if any.
+     */
+    public void setNodeId(final String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * @param success whether the callback completed without exception.
+     */
+    public void setSuccess(final boolean success) {
+        this.success = success;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for acquiring an S4U2Proxy ticket (user to target service), either from the cache or from the KDC.
+ *
+ * @author KNIME GmbH
+ */
+@Name("org.knime.kerberos.KerberosS4U2Proxy")
+@Label("Kerberos S4U2Proxy")
+@Category({"KNIME", "Kerberos"})
+@Description("Acquisition of a ticket for a user to a service (constrained delegation)")
+public final class KerberosS4U2ProxyEvent extends Event {
+
+    @Label("Target SPN")
+    @Description("The service principal that the ticket is for")
+    private String targetSpn;
+
+    @Label("Impersonated Principal")
+    @Description("The principal of the user that is impersonated")
+    private String impersonatedPrincipal;
+
+    @Label("Cache Hit")
+    @Description("Whether the ticket was taken from the cache")
+    private boolean cacheHit;
+
+    @Label("Success")
+    @Description("Whether a ticket has been acquired")
+    private boolean success;
+
+    /**
+     * @param targetSpn the service principal that the ticket is for.
+     */
+    public void setTargetSpn(final String targetSpn) {
+        this.targetSpn = targetSpn;
+    }
+
+    /**
+     * @param impersonatedPrincipal the principal of the user that is impersonated.
+     */
+    public void setImpersonatedPrincipal(final String impersonatedPrincipal) {
+        this.impersonatedPrincipal = impersonatedPrincipal;
+    }
+
+    /**
+     * @param cacheHit whether the ticket was taken from the cache.
+     */
+    public void setCacheHit(final boolean cacheHit) {
+        this.cacheHit = cacheHit;
+    }
+
+    /**
+     * @param success whether a ticket has been acquired.
+     */
+    public void setSuccess(final boolean success) {
+        this.success = success;
+    }
+}
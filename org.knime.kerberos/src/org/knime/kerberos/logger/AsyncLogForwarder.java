@@ -0,0 +1,254 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.knime.kerberos.config.PrefKey.DebugLogOverflowPolicy;
+
+/**
+ * {@link LogForwarder} implementation that decouples the threads writing Kerberos debug output from the log forwarders
+ * that consume it. Messages are put into a bounded queue and a single daemon thread hands them in batches to the
+ * registered log forwarders. What happens when the queue is full is determined by a {@link DebugLogOverflowPolicy}:
+ * either the oldest queued messages are dropped, or the writing thread waits for free space. Waiting is bounded by
+ * {@link #BLOCK_TIMEOUT_MILLIS}, because a log forwarder that itself writes to System.out would otherwise deadlock
+ * with a writing thread that holds the lock of the System.out replacement.
+ *
+ * <p>
+ * This class is threadsafe.
+ * </p>
+ *
+ * @author KNIME GmbH
+ */
+public class AsyncLogForwarder implements LogForwarder {
+
+    private static final Logger LOG = Logger.getLogger(AsyncLogForwarder.class);
+
+    /** Maximum time in milliseconds a writing thread waits for free space in the queue under the BLOCK policy. */
+    static final long BLOCK_TIMEOUT_MILLIS = 1000;
+
+    private static final int MAX_BATCH_SIZE = 512;
+
+    private final ArrayBlockingQueue<String> m_queue;
+
+    private final int m_capacity;
+
+    private final DebugLogOverflowPolicy m_overflowPolicy;
+
+    private final List<LogForwarder> m_forwarders = new CopyOnWriteArrayList<>();
+
+    private final Object m_progressLock = new Object();
+
+    /** Number of messages that have been accepted by {@link #forwardMessage(String)}, guarded by m_progressLock. */
+    private long m_submitted;
+
+    /** Number of messages that have been forwarded or dropped, guarded by m_progressLock. */
+    private long m_completed;
+
+    private long m_droppedMessages;
+
+    private final Thread m_drainThread;
+
+    private volatile boolean m_closed;
+
+    /**
+     * Creates a new instance and starts its drain thread.
+     *
+     * @param capacity The maximum number of queued messages.
+     * @param overflowPolicy What to do when the queue is full.
+     */
+    public AsyncLogForwarder(final int capacity, final DebugLogOverflowPolicy overflowPolicy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        m_capacity = capacity;
+        m_overflowPolicy = overflowPolicy;
+        m_queue = new ArrayBlockingQueue<>(capacity);
+
+        m_drainThread = new Thread(this::drainLoop, "KerberosLogForwarder");
+        m_drainThread.setDaemon(true);
+        m_drainThread.start();
+    }
+
+    /**
+     * @param capacity The maximum number of queued messages.
+     * @param overflowPolicy What to do when the queue is full.
+     * @return true, if this instance was created with the given capacity and overflow policy, false otherwise.
+     */
+    public boolean hasSettings(final int capacity, final DebugLogOverflowPolicy overflowPolicy) {
+        return m_capacity == capacity && m_overflowPolicy == overflowPolicy;
+    }
+
+    /**
+     * Registers a log forwarder that will receive the queued messages.
+     *
+     * @param forwarder The log forwarder to add.
+     */
+    public void addLogForwarder(final LogForwarder forwarder) {
+        m_forwarders.add(forwarder);
+    }
+
+    /**
+     * Unregisters all log forwarders.
+     */
+    public void clearLogForwarders() {
+        m_forwarders.clear();
+    }
+
+    @Override
+    public void forwardMessage(final String msg) {
+        if (m_closed) {
+            return;
+        }
+
+        synchronized (m_progressLock) {
+            m_submitted++;
+        }
+
+        if (m_overflowPolicy == DebugLogOverflowPolicy.DROP_OLDEST) {
+            while (!m_queue.offer(msg)) {
+                if (m_queue.poll() != null) {
+                    markCompleted(1, 1);
+                }
+            }
+        } else {
+            boolean queued = false;
+            try {
+                queued = m_queue.offer(msg, BLOCK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) { // NOSONAR the interrupt flag is restored
+                Thread.currentThread().interrupt();
+            }
+            if (!queued) {
+                markCompleted(1, 1);
+            }
+        }
+    }
+
+    private void drainLoop() {
+        final List<String> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (!m_closed || !m_queue.isEmpty()) {
+            try {
+                batch.add(m_queue.take());
+            } catch (InterruptedException e) { // NOSONAR the thread terminates
+                break;
+            }
+            m_queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+
+            for (LogForwarder forwarder : m_forwarders) {
+                for (String msg : batch) {
+                    try {
+                        forwarder.forwardMessage(msg);
+                    } catch (RuntimeException e) { // NOSONAR a failing forwarder must not stop the drain thread
+                        LOG.warn("Failed to forward Kerberos debug message: " + e.getMessage(), e);
+                    }
+                }
+            }
+
+            markCompleted(batch.size(), 0);
+            batch.clear();
+        }
+    }
+
+    private void markCompleted(final int completed, final int dropped) {
+        synchronized (m_progressLock) {
+            m_completed += completed;
+            m_droppedMessages += dropped;
+            m_progressLock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits until all messages that have been accepted so far have been handed to the log forwarders (or dropped).
+     *
+     * @param timeoutMillis The maximum time to wait in milliseconds.
+     * @return true, if all messages were processed, false if the timeout elapsed or the thread was interrupted.
+     */
+    public boolean awaitDrained(final long timeoutMillis) {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (m_progressLock) {
+            final long target = m_submitted;
+            while (m_completed < target) {
+                final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+                try {
+                    m_progressLock.wait(remainingMillis);
+                } catch (InterruptedException e) { // NOSONAR the interrupt flag is restored
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return the number of messages that have been dropped because the queue was full.
+     */
+    public long getDroppedMessageCount() {
+        synchronized (m_progressLock) {
+            return m_droppedMessages;
+        }
+    }
+
+    /**
+     * Stops accepting messages, waits up to the given time for queued messages to be forwarded and stops the drain
+     * thread.
+     *
+     * @param timeoutMillis The maximum time to wait in milliseconds.
+     */
+    public void close(final long timeoutMillis) {
+        m_closed = true;
+        awaitDrained(timeoutMillis);
+        m_drainThread.interrupt();
+    }
+}
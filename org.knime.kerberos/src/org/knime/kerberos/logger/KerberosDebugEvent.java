@@ -0,0 +1,123 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.logger;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Typed event that has been recognized in the debug output of Java's Kerberos implementation by
+ * {@link KerberosDebugEventParser}.
+ *
+ * @author KNIME GmbH
+ */
+public sealed interface KerberosDebugEvent {
+
+    /**
+     * The kind of Kerberos message exchange with a KDC.
+     */
+    enum ExchangeType {
+            /** Authentication service exchange (login). */
+            AS,
+            /** Ticket granting service exchange (service ticket). */
+            TGS,
+            /** The exchange type could not be determined from the debug output. */
+            UNKNOWN
+    }
+
+    /**
+     * A request to a single KDC, from sending the request until the reply has been read or the KDC was given up on.
+     *
+     * @param type the kind of exchange.
+     * @param kdc the KDC host name.
+     * @param protocol the transport protocol, TCP or UDP.
+     * @param attempts the number of attempts made with this KDC.
+     * @param bytesSent the size of the request in bytes.
+     * @param bytesReceived the size of the reply in bytes, zero if the exchange failed.
+     * @param duration the time from sending the request until the reply has been read or the KDC was given up on.
+     * @param successful whether a reply has been read.
+     */
+    record KdcExchange(ExchangeType type, String kdc, String protocol, int attempts, int bytesSent,
+        int bytesReceived, Duration duration, boolean successful) implements KerberosDebugEvent {
+    }
+
+    /**
+     * An attempt to reach a KDC that timed out and will be retried (or given up on).
+     *
+     * @param kdc the KDC host name.
+     * @param protocol the transport protocol, TCP or UDP.
+     * @param attempt the number of the attempt that timed out, starting at one.
+     */
+    record KdcTimeout(String kdc, String protocol, int attempt) implements KerberosDebugEvent {
+    }
+
+    /**
+     * A KRB-ERROR message that has been received from a KDC.
+     *
+     * @param errorCode the Kerberos error code, see RFC 4120 section 7.5.9.
+     * @param message the error message, may be null.
+     * @param serverPrincipal the server principal of the failed request, may be null.
+     */
+    record KdcError(int errorCode, String message, String serverPrincipal) implements KerberosDebugEvent {
+    }
+
+    /**
+     * The encryption types that are configured for a purpose.
+     *
+     * @param configName the name of the krb5.conf setting, e.g. default_tkt_enctypes.
+     * @param encryptionTypes the encryption type numbers in order of preference.
+     */
+    record EncryptionTypes(String configName, List<Integer> encryptionTypes) implements KerberosDebugEvent {
+    }
+
+    /**
+     * The encryption type that has been chosen to decrypt or encrypt a message.
+     *
+     * @param encryptionType the name of the encryption type implementation, e.g. Aes256CtsHmacSha1EType.
+     */
+    record SelectedEncryptionType(String encryptionType) implements KerberosDebugEvent {
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
+import org.knime.kerberos.logger.KerberosDebugEvent.EncryptionTypes;
+import org.knime.kerberos.logger.KerberosDebugEvent.ExchangeType;
+import org.knime.kerberos.logger.KerberosDebugEvent.KdcError;
+import org.knime.kerberos.logger.KerberosDebugEvent.KdcExchange;
+import org.knime.kerberos.logger.KerberosDebugEvent.KdcTimeout;
+import org.knime.kerberos.logger.KerberosDebugEvent.SelectedEncryptionType;
+
+/**
+ * {@link LogForwarder} implementation that recognizes KDC exchanges, timeouts, KRB-ERROR messages and encryption types
+ * in the debug output of Java's Kerberos implementation, and hands them as {@link KerberosDebugEvent}s to the
+ * registered listeners. The durations of KDC exchanges are measured when the lines are received, hence this forwarder
+ * must be registered directly with the {@link LogForwarderOutputStream}, so that it runs on the thread that performs
+ * the exchange. Lines of concurrent threads are parsed independently of each other.
+ *
+ * <p>
+ * Lines that do not start like one of the recognized messages are rejected after a few character comparisons.
+ * </p>
+ *
+ * <p>
+ * This class is threadsafe.
+ * </p>
+ *
+ * @author KNIME GmbH
+ */
+public class KerberosDebugEventParser implements LogForwarder {
+
+    private static final Logger LOG = Logger.getLogger(KerberosDebugEventParser.class);
+
+    private static final String DEBUG_PREFIX = ">>>";
+
+    private static final String KDC_SEND = ">>> KrbKdcReq send: ";
+
+    /** e.g. ">>> KrbKdcReq send: kdc=kdc.example.com TCP:88, timeout=30000, number of retries =3, #bytes=161" */
+    private static final Pattern KDC_SEND_PATTERN =
+        Pattern.compile("kdc=(\\S+) (TCP|UDP):\\d+, .*#bytes=(\\d+)");
+
+    private static final String KDC_BYTES_READ = "#bytes read=";
+
+    private static final String KDC_ERROR_TRYING = "error trying ";
+
+    /** e.g. ">>> KDCCommunication: kdc=kdc.example.com TCP:88, timeout=30000,Attempt =1, #bytes=161" */
+    private static final String KDC_COMMUNICATION = ">>> KDCCommunication: ";
+
+    private static final Pattern KDC_ATTEMPT_PATTERN = Pattern.compile("Attempt =(\\d+)");
+
+    /** e.g. "SocketTimeOutException with attempt: 1" */
+    private static final String KDC_TIMEOUT = "SocketTimeOutException with attempt: ";
+
+    private static final String KRB_ERROR = ">>>KRBError:";
+
+    private static final String KRB_ERROR_CODE = "\t error code is ";
+
+    private static final String KRB_ERROR_MESSAGE = "\t error Message is ";
+
+    private static final String KRB_ERROR_SNAME = "\t sname is ";
+
+    /** e.g. "default etypes for default_tkt_enctypes: 18 17 16 23." */
+    private static final String DEFAULT_ETYPES = "default etypes for ";
+
+    /** e.g. ">>> EType: sun.security.krb5.internal.crypto.Aes256CtsHmacSha1EType" */
+    private static final String ETYPE = ">>> EType: ";
+
+    /** e.g. ">>> KrbAsReq creating message" */
+    private static final String AS_REQ = ">>> KrbAsReq";
+
+    /** e.g. ">>> Credentials acquireServiceCreds: main loop: [0] tempService=krbtgt/..." */
+    private static final String TGS_REQ = ">>> Credentials acquireServiceCreds";
+
+    /** e.g. ">>> Credentials serviceCredsSingle: same realm" */
+    private static final String TGS_REQ_SINGLE = "serviceCredsSingle";
+
+    /**
+     * Parser state of a single thread.
+     */
+    private static final class ThreadState {
+
+        private ExchangeType m_nextExchangeType = ExchangeType.UNKNOWN;
+
+        private String m_kdc;
+
+        private String m_protocol;
+
+        private int m_bytesSent;
+
+        private int m_attempts;
+
+        private long m_startNanos;
+
+        private boolean m_inKrbError;
+
+        private int m_errorCode;
+
+        private String m_errorMessage;
+
+        private String m_errorServerPrincipal;
+    }
+
+    private final ThreadLocal<ThreadState> m_threadState = ThreadLocal.withInitial(ThreadState::new);
+
+    private final List<KerberosDebugEventListener> m_listeners = new CopyOnWriteArrayList<>();
+
+    private final LongSupplier m_nanoClock;
+
+    /**
+     * Creates a new instance.
+     */
+    public KerberosDebugEventParser() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * Creates a new instance that measures durations with the given clock (for testing).
+     *
+     * @param nanoClock Provides the current time in nanoseconds.
+     */
+    KerberosDebugEventParser(final LongSupplier nanoClock) {
+        m_nanoClock = nanoClock;
+    }
+
+    /**
+     * Registers a listener that receives the recognized events.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(final KerberosDebugEventListener listener) {
+        m_listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener The listener to remove.
+     * @return true, if the listener had been registered, false otherwise.
+     */
+    public boolean removeListener(final KerberosDebugEventListener listener) {
+        return m_listeners.remove(listener);
+    }
+
+    @Override
+    public void forwardMessage(final String msg) {
+        final ThreadState state = m_threadState.get();
+
+        if (state.m_inKrbError) {
+            if (msg.startsWith("\t")) {
+                parseKrbErrorLine(state, msg);
+                return;
+            }
+            completeKrbError(state);
+        }
+
+        if (msg.startsWith(DEBUG_PREFIX)) {
+            parseDebugLine(state, msg);
+        } else if (msg.startsWith(KDC_TIMEOUT)) {
+            if (state.m_kdc != null) {
+                emit(new KdcTimeout(state.m_kdc, state.m_protocol, parseInt(msg, KDC_TIMEOUT.length())));
+            }
+        } else if (msg.startsWith(DEFAULT_ETYPES)) {
+            parseEncryptionTypes(msg);
+        }
+    }
+
+    private void parseDebugLine(final ThreadState state, final String msg) {
+        if (msg.startsWith(KDC_SEND)) {
+            parseKdcSend(state, msg);
+        } else if (msg.startsWith(KDC_COMMUNICATION)) {
+            final Matcher matcher = KDC_ATTEMPT_PATTERN.matcher(msg);
+            if (state.m_kdc != null && matcher.find()) {
+                state.m_attempts = Math.max(state.m_attempts, Integer.parseInt(matcher.group(1)));
+            }
+        } else if (msg.startsWith(KRB_ERROR)) {
+            state.m_inKrbError = true;
+            state.m_errorCode = -1;
+            state.m_errorMessage = null;
+            state.m_errorServerPrincipal = null;
+        } else if (msg.startsWith(ETYPE)) {
+            final String etype = msg.substring(ETYPE.length()).trim();
+            emit(new SelectedEncryptionType(etype.substring(etype.lastIndexOf('.') + 1)));
+        } else if (msg.startsWith(AS_REQ)) {
+            state.m_nextExchangeType = ExchangeType.AS;
+        } else if (msg.startsWith(TGS_REQ) || msg.contains(TGS_REQ_SINGLE)) {
+            state.m_nextExchangeType = ExchangeType.TGS;
+        }
+    }
+
+    private void parseKdcSend(final ThreadState state, final String msg) {
+        final int detailsStart = KDC_SEND.length();
+        if (msg.startsWith(KDC_BYTES_READ, detailsStart)) {
+            if (state.m_kdc != null) {
+                completeExchange(state, parseInt(msg, detailsStart + KDC_BYTES_READ.length()), true);
+                // a new request follows, which may be of another type
+                state.m_nextExchangeType = ExchangeType.UNKNOWN;
+            }
+        } else if (msg.startsWith(KDC_ERROR_TRYING, detailsStart)) {
+            if (state.m_kdc != null) {
+                completeExchange(state, 0, false);
+            }
+        } else {
+            final Matcher matcher = KDC_SEND_PATTERN.matcher(msg);
+            if (matcher.find(detailsStart)) {
+                if (state.m_kdc != null) {
+                    // the previous exchange ended without a recognizable outcome
+                    completeExchange(state, 0, false);
+                }
+                state.m_kdc = matcher.group(1);
+                state.m_protocol = matcher.group(2);
+                state.m_bytesSent = Integer.parseInt(matcher.group(3));
+                state.m_attempts = 1;
+                state.m_startNanos = m_nanoClock.getAsLong();
+            }
+        }
+    }
+
+    private void completeExchange(final ThreadState state, final int bytesReceived, final boolean successful) {
+        final Duration duration = Duration.ofNanos(m_nanoClock.getAsLong() - state.m_startNanos);
+        final KdcExchange exchange = new KdcExchange(state.m_nextExchangeType, state.m_kdc, state.m_protocol,
+            state.m_attempts, state.m_bytesSent, bytesReceived, duration, successful);
+        state.m_kdc = null;
+        state.m_protocol = null;
+        emit(exchange);
+    }
+
+    private static void parseKrbErrorLine(final ThreadState state, final String msg) {
+        if (msg.startsWith(KRB_ERROR_CODE)) {
+            state.m_errorCode = parseInt(msg, KRB_ERROR_CODE.length());
+        } else if (msg.startsWith(KRB_ERROR_MESSAGE)) {
+            state.m_errorMessage = msg.substring(KRB_ERROR_MESSAGE.length());
+        } else if (msg.startsWith(KRB_ERROR_SNAME)) {
+            state.m_errorServerPrincipal = msg.substring(KRB_ERROR_SNAME.length());
+        }
+    }
+
+    private void completeKrbError(final ThreadState state) {
+        state.m_inKrbError = false;
+        if (state.m_errorCode >= 0) {
+            emit(new KdcError(state.m_errorCode, state.m_errorMessage, state.m_errorServerPrincipal));
+        }
+    }
+
+    private void parseEncryptionTypes(final String msg) {
+        final int colon = msg.indexOf(':', DEFAULT_ETYPES.length());
+        if (colon < 0) {
+            return;
+        }
+
+        final List<Integer> etypes = new ArrayList<>();
+        for (String etype : msg.substring(colon + 1).replace(".", " ").trim().split("\\s+")) {
+            if (!etype.isEmpty()) {
+                try {
+                    etypes.add(Integer.valueOf(etype));
+                } catch (NumberFormatException e) { // NOSONAR not an encryption type number
+                    return;
+                }
+            }
+        }
+        emit(new EncryptionTypes(msg.substring(DEFAULT_ETYPES.length(), colon), Collections.unmodifiableList(etypes)));
+    }
+
+    /**
+     * @return the non-negative number at the given position of the message, or -1 if there is none.
+     */
+    private static int parseInt(final String msg, final int start) {
+        int value = 0;
+        int i = start;
+        while (i < msg.length() && Character.isDigit(msg.charAt(i))) {
+            value = value * 10 + (msg.charAt(i) - '0');
+            i++;
+        }
+        return i == start ? -1 : value;
+    }
+
+    private void emit(final KerberosDebugEvent event) {
+        for (KerberosDebugEventListener listener : m_listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) { // NOSONAR a failing listener must not break the Kerberos operation
+                LOG.warn("Kerberos debug event listener failed: " + e.getMessage(), e);
+            }
+        }
+    }
+}
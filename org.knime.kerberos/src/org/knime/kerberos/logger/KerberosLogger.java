@@ -53,12 +53,19 @@
 
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeLogger.LEVEL;
+import org.knime.kerberos.config.KerberosPluginConfig;
+import org.knime.kerberos.config.PrefKey;
+import org.knime.kerberos.config.PrefKey.DebugLogCaptureScope;
+import org.knime.kerberos.config.PrefKey.DebugLogOverflowPolicy;
 
 /**
  * This class captures Kerberos debug output by manipulating system properties and redirecting the System.out to an
  * in-memory buffer (for display purposes), and the KNIME NodeLogger of this class. The { {@link #startCapture(LEVEL)}
  * method starts the redirect, but must be called prior to loading any of Java's Kerberos implementation classes,
- * otherwise we cannot get the full debug log output.
+ * otherwise we cannot get the full debug log output. Captured lines are handed to the log forwarders asynchronously
+ * by an {@link AsyncLogForwarder}, so that the threads performing Kerberos I/O do not wait for them. Depending on the
+ * {@link DebugLogCaptureScope}, only the output of threads that perform Kerberos operations (see
+ * {@link #capturing(Runnable)}) is captured, whereas all other threads write to the original System.out as before.
  *
  * @author Bjoern Lohrmann, KNIME GmbH
  */
@@ -68,11 +75,26 @@ public class KerberosLogger {
 
     private static final MemoryBufferLogFowarder MEMORY_BUFFER_LOG_FORWARDER = new MemoryBufferLogFowarder();
 
+    private static final KerberosDebugEventParser DEBUG_EVENT_PARSER = new KerberosDebugEventParser();
+
+    /** Maximum time in milliseconds to wait for queued lines to reach the log forwarders. */
+    private static final long DRAIN_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Maximum time in milliseconds to wait for queued lines to reach the in-memory buffer before reading it, which may
+     * happen on the UI thread. Lines that arrive later are missing from what is read.
+     */
+    private static final long READ_DRAIN_TIMEOUT_MILLIS = 200;
+
+    // written while holding the class lock, but read without it, so that waiting for the queue to drain does not
+    // block other threads
+    private static volatile AsyncLogForwarder asyncLogForwarder = null;
+
     private static boolean useNodeLoggerForwarder = true;
 
     private static NodeLoggerLogForwarder nodeLoggerForwarder = null;
 
-    private static PrintStream sysOutReplacement;
+    private static ThreadScopedPrintStream sysOutReplacement;
 
     private static PrintStream origSysOut;
 
@@ -90,22 +112,105 @@ private KerberosLogger() {
      * @param nodeLoggerLogLevel the log Level
      */
     public static synchronized void startCapture(final LEVEL nodeLoggerLogLevel) {
-        ensureLogForwardersInitialized();
+        startCapture(nodeLoggerLogLevel, PrefKey.DEBUG_LOG_BUFFER_SIZE_DEFAULT, PrefKey.DEBUG_LOG_QUEUE_SIZE_DEFAULT,
+            DebugLogOverflowPolicy.fromValue(PrefKey.DEBUG_LOG_OVERFLOW_POLICY_DEFAULT),
+            DebugLogCaptureScope.ALL_THREADS);
+    }
+
+    /**
+     * Starts capturing the System.out, like {@link #startCapture(LEVEL)}, but takes the sizes of the in-memory buffer
+     * and the forwarding queue, the overflow policy of the latter, and the threads to capture from the given config.
+     *
+     * @param nodeLoggerLogLevel the log Level
+     * @param config the config that provides the advanced debug log settings
+     */
+    public static synchronized void startCapture(final LEVEL nodeLoggerLogLevel, final KerberosPluginConfig config) {
+        startCapture(nodeLoggerLogLevel, config.getDebugLogBufferSize(), config.getDebugLogQueueSize(),
+            config.getDebugLogOverflowPolicy(), config.getDebugLogCaptureScope());
+    }
+
+    /**
+     * Starts capturing the System.out, like {@link #startCapture(LEVEL)}, but keeps at most the given number of lines
+     * in the in-memory buffer. Once the buffer is full, the oldest lines are dropped. Lines are queued for forwarding
+     * in a queue of the given size, whose overflow is handled according to the given policy. Only the output of the
+     * threads in the given scope is captured.
+     *
+     * @param nodeLoggerLogLevel the log Level
+     * @param bufferSize the maximum number of lines in the in-memory buffer
+     * @param queueSize the maximum number of lines that are queued for forwarding
+     * @param overflowPolicy what to do when the forwarding queue is full
+     * @param captureScope which threads to capture the output from
+     */
+    public static synchronized void startCapture(final LEVEL nodeLoggerLogLevel, final int bufferSize,
+        final int queueSize, final DebugLogOverflowPolicy overflowPolicy, final DebugLogCaptureScope captureScope) {
+        ensureLogForwardersInitialized(bufferSize, queueSize, overflowPolicy);
         ensureNodeLoggerForwarderConfig(nodeLoggerLogLevel);
-        ensureSystemOutRedirect();
+        ensureSystemOutRedirect(captureScope == DebugLogCaptureScope.ALL_THREADS);
     }
 
-    private static void ensureSystemOutRedirect() {
+    private static void ensureSystemOutRedirect(final boolean captureAllThreads) {
         System.setProperty("sun.security.krb5.debug", "true");
         System.setProperty("sun.security.jgss.debug", "true");
 
         if (sysOutReplacement == null) {
             LOG_FORWARDER_OUTPUT_STREAM.ensureOpen();
-            sysOutReplacement = new PrintStream(LOG_FORWARDER_OUTPUT_STREAM, true);
 
             //save the original output stream in order to reset it if the logging is disabled
             origSysOut = System.out;
+            sysOutReplacement =
+                new ThreadScopedPrintStream(origSysOut, LOG_FORWARDER_OUTPUT_STREAM, captureAllThreads);
             System.setOut(sysOutReplacement);
+        } else {
+            sysOutReplacement.setCaptureAllThreads(captureAllThreads);
+        }
+    }
+
+    /**
+     * Wraps the given runnable, so that the thread running it is marked as a thread that performs Kerberos operations
+     * for the rest of its lifetime. The output of marked threads is always captured, regardless of the
+     * {@link DebugLogCaptureScope}. This is meant to be used in the thread factories of the dedicated Kerberos threads.
+     *
+     * @param runnable the runnable to wrap
+     * @return a runnable that marks the current thread and then runs the given runnable
+     */
+    public static Runnable capturing(final Runnable runnable) {
+        return () -> {
+            ThreadScopedPrintStream.markCurrentThread();
+            runnable.run();
+        };
+    }
+
+    /**
+     * Marks the current thread as a thread that performs Kerberos operations, until the returned scope is closed. This
+     * is meant for Kerberos operations on threads that are not dedicated Kerberos threads, e.g. callbacks that run on
+     * the thread of the caller:
+     *
+     * <pre>
+     * try (var capture = KerberosLogger.captureCurrentThread()) {
+     *     // Kerberos operations
+     * }
+     * </pre>
+     *
+     * @return the scope that resets the mark of the current thread when closed
+     */
+    public static ThreadCapture captureCurrentThread() {
+        return new ThreadCapture(ThreadScopedPrintStream.markCurrentThread());
+    }
+
+    /**
+     * Scope of {@link KerberosLogger#captureCurrentThread()}, which must be closed on the same thread.
+     */
+    public static final class ThreadCapture implements AutoCloseable {
+
+        private final boolean m_wasMarked;
+
+        private ThreadCapture(final boolean wasMarked) {
+            m_wasMarked = wasMarked;
+        }
+
+        @Override
+        public void close() {
+            ThreadScopedPrintStream.resetCurrentThread(m_wasMarked);
         }
     }
 
@@ -125,11 +230,27 @@ private static void ensureNodeLoggerForwarderConfig(final LEVEL nodeLoggerLogLev
     /**
      * Ensures that all log forwarder instances are initialized and registered.
      */
-    private static void ensureLogForwardersInitialized() {
+    private static void ensureLogForwardersInitialized(final int bufferSize, final int queueSize,
+        final DebugLogOverflowPolicy overflowPolicy) {
         LOG_FORWARDER_OUTPUT_STREAM.clearLogForwarders();
 
+        if (asyncLogForwarder == null || !asyncLogForwarder.hasSettings(queueSize, overflowPolicy)) {
+            if (asyncLogForwarder != null) {
+                asyncLogForwarder.close(DRAIN_TIMEOUT_MILLIS);
+            }
+            asyncLogForwarder = new AsyncLogForwarder(queueSize, overflowPolicy);
+        } else {
+            // lines queued before the restart must not end up in the cleared buffer
+            asyncLogForwarder.awaitDrained(DRAIN_TIMEOUT_MILLIS);
+        }
+        asyncLogForwarder.clearLogForwarders();
+        // the parser measures the duration of KDC exchanges, hence it must run on the thread that performs them
+        LOG_FORWARDER_OUTPUT_STREAM.addLogForwarder(DEBUG_EVENT_PARSER);
+        LOG_FORWARDER_OUTPUT_STREAM.addLogForwarder(asyncLogForwarder);
+
+        MEMORY_BUFFER_LOG_FORWARDER.setCapacity(bufferSize);
         MEMORY_BUFFER_LOG_FORWARDER.clearBuffer();
-        LOG_FORWARDER_OUTPUT_STREAM.addLogForwarder(MEMORY_BUFFER_LOG_FORWARDER);
+        asyncLogForwarder.addLogForwarder(MEMORY_BUFFER_LOG_FORWARDER);
 
         // for unit testing we need to be able to shut off the NodeLoggerLogForwarder because
         // it requires a fully booted KNIME and OSGI container, which we do not want.
@@ -138,7 +259,7 @@ private static void ensureLogForwardersInitialized() {
                 final NodeLogger logger = NodeLogger.getLogger(KerberosLogger.class);
                 nodeLoggerForwarder = new NodeLoggerLogForwarder(logger, LEVEL.DEBUG);
             }
-            LOG_FORWARDER_OUTPUT_STREAM.addLogForwarder(nodeLoggerForwarder);
+            asyncLogForwarder.addLogForwarder(nodeLoggerForwarder);
         }
     }
 
@@ -146,37 +267,85 @@ private static void ensureLogForwardersInitialized() {
      * Stops the capturing of the log. This may or may not prevent Java's Kerberos implementation from printing messages
      * to System.out, but it definitely stops the capturing of the messages in KerberosLogger.
      */
-    public static synchronized void stopCapture() {
-        System.setProperty("sun.security.krb5.debug", "false");
-        System.setProperty("sun.security.jgss.debug", "false");
+    public static void stopCapture() {
+        synchronized (KerberosLogger.class) {
+            System.setProperty("sun.security.krb5.debug", "false");
+            System.setProperty("sun.security.jgss.debug", "false");
+
+            if (origSysOut != null) {
+                System.setOut(origSysOut);
+                origSysOut = null;
+            }
 
-        if (origSysOut != null) {
-            System.setOut(origSysOut);
-            origSysOut = null;
+            if (sysOutReplacement != null) {
+                sysOutReplacement.flush();
+                // this also closes LOG_FORWARDER_OUTPUT_STREAM
+                sysOutReplacement.close();
+                sysOutReplacement = null;
+            }
         }
 
-        if (sysOutReplacement != null) {
-            sysOutReplacement.flush();
-            // this also closes LOG_FORWARDER_OUTPUT_STREAM
-            sysOutReplacement.close();
-            sysOutReplacement = null;
+        awaitForwarded(DRAIN_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Waits until the captured lines that are still queued have been handed to the log forwarders, or until the given
+     * timeout has elapsed. Must not be invoked while holding the class lock.
+     */
+    private static void awaitForwarded(final long timeoutMillis) {
+        final AsyncLogForwarder forwarder = asyncLogForwarder;
+        if (forwarder != null) {
+            forwarder.awaitDrained(timeoutMillis);
         }
     }
 
     /**
      * @return gets the captured lines as a list of strings
      */
-    public static synchronized List<String> getCapturedLines() {
+    public static List<String> getCapturedLines() {
+        awaitForwarded(READ_DRAIN_TIMEOUT_MILLIS);
         return MEMORY_BUFFER_LOG_FORWARDER.getCapturedLines();
     }
 
+    /**
+     * @return the number of captured lines that have been dropped, either from the in-memory buffer or from the
+     *         forwarding queue, because it was full.
+     */
+    public static long getDroppedLineCount() {
+        awaitForwarded(READ_DRAIN_TIMEOUT_MILLIS);
+        final AsyncLogForwarder forwarder = asyncLogForwarder;
+        final long droppedFromQueue = forwarder != null ? forwarder.getDroppedMessageCount() : 0;
+        return MEMORY_BUFFER_LOG_FORWARDER.getDroppedLineCount() + droppedFromQueue;
+    }
+
     /**
      * Clears the in-memory buffer of captured lines.
      */
-    public static synchronized void clearCapturedLines() {
+    public static void clearCapturedLines() {
+        awaitForwarded(READ_DRAIN_TIMEOUT_MILLIS);
         MEMORY_BUFFER_LOG_FORWARDER.clearBuffer();
     }
 
+    /**
+     * Registers a listener that receives typed events (KDC exchanges, timeouts, errors, encryption types), which are
+     * recognized in the captured debug output. Events are only recognized while the debug output is being captured.
+     *
+     * @param listener the listener to add
+     * @see KerberosDebugEventParser
+     */
+    public static void addDebugEventListener(final KerberosDebugEventListener listener) {
+        DEBUG_EVENT_PARSER.addListener(listener);
+    }
+
+    /**
+     * Unregisters a listener that has been registered with {@link #addDebugEventListener(KerberosDebugEventListener)}.
+     *
+     * @param listener the listener to remove
+     */
+    public static void removeDebugEventListener(final KerberosDebugEventListener listener) {
+        DEBUG_EVENT_PARSER.removeListener(listener);
+    }
+
     /**
      * (Testing code) Method to set whether messages captured from System.out should be forwarded to a KNIME NodeLogger.
      * Being able to switch this off allows unit tests to run without OSGI container.
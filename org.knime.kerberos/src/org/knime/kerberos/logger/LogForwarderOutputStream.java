@@ -50,23 +50,57 @@
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.ByteBuffer;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * {@link OutputStream} implementation multiplexes each line of text written to the output stream to to a list of
  * {@link LogForwarder} instances.
  *
+ * <p>
+ * Lines are split on the byte level while they are written: only the newly written bytes are scanned for a line feed
+ * and each line is decoded exactly once. A line that is completely contained in a single write is decoded straight
+ * from the written bytes, only the bytes of an incomplete line are copied to a reusable buffer. A carriage return
+ * before the line feed is removed and lines longer than {@link #MAX_LINE_BYTES} are truncated.
+ * </p>
+ *
  * @author Bjoern Lohrmann, KNIME GmbH
  */
 public class LogForwarderOutputStream extends OutputStream {
 
-    private static final String SEPARATOR = System.getProperty("line.separator");
+    private static final byte LINE_FEED = '\n';
+
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    /** Reads eight bytes at once, so that line feeds can be searched a word at a time. */
+    private static final VarHandle LONG_VIEW =
+        MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long LINE_FEEDS = 0x0A0A0A0A0A0A0A0AL;
+
+    private static final long LOW_BITS = 0x0101010101010101L;
+
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    /** Maximum number of bytes of a single line, further bytes are dropped. */
+    static final int MAX_LINE_BYTES = 1000 * 4096;
+
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    /** Lines up to this size do not cause the buffer to stay enlarged. */
+    private static final int RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private final Charset m_charset = Charset.defaultCharset();
 
-    private ByteBuffer m_byteBuffer = ByteBuffer.allocate(4096);
+    /** Holds the bytes of the current, incomplete line. */
+    private byte[] m_lineBuffer = new byte[INITIAL_BUFFER_SIZE];
 
-    private final StringBuilder m_buf = new StringBuilder();
+    private int m_lineLength;
 
     private boolean m_closed = false;
 
@@ -123,24 +157,16 @@ public void write(final int b) throws IOException {
             return;
         }
 
-        // increase internal byte buffer by 4K  if it is exhausted
-        if (m_byteBuffer.hasRemaining()) {
-            m_byteBuffer.put((byte)b);
-        } else if (m_byteBuffer.capacity() < 1000 * 4096) {
-            increaseByteBufferSize(m_byteBuffer.capacity() + 4096);
-
-            m_byteBuffer.put((byte)b);
+        if (b == LINE_FEED) {
+            completeLine(null, 0, 0);
+        } else if (m_lineLength < MAX_LINE_BYTES) {
+            if (m_lineLength == m_lineBuffer.length) {
+                m_lineBuffer = Arrays.copyOf(m_lineBuffer, Math.min(MAX_LINE_BYTES, 2 * m_lineBuffer.length));
+            }
+            m_lineBuffer[m_lineLength++] = (byte)b;
         }
     }
 
-    private void increaseByteBufferSize(final int newSize) {
-        // limit the maximum buffer size at 4MiB, dropping bytes if necessary
-        final ByteBuffer newBuffer = ByteBuffer.allocate(newSize);
-        m_byteBuffer.flip();
-        newBuffer.put(m_byteBuffer);
-        m_byteBuffer = newBuffer;
-    }
-
     @Override
     public void write(final byte bytes[], final int offset, final int len) throws IOException {
         if (bytes == null) {
@@ -148,40 +174,96 @@ public void write(final byte bytes[], final int offset, final int len) throws IO
         } else if ((offset < 0) || (offset > bytes.length) || (len < 0) ||
                    ((offset + len) > bytes.length) || ((offset + len) < 0)) {
             throw new IndexOutOfBoundsException();
-        } else if (len == 0) {
+        } else if (len == 0 || m_closed) {
             return;
         }
 
-        if (len > m_byteBuffer.remaining()) {
-            // limit the maximum buffer size at 4MiB, dropping bytes if necessary
-            increaseByteBufferSize(Math.min(1000 * 4096, m_byteBuffer.capacity() + len));
+        final int end = offset + len;
+        int lineStart = offset;
+        int lineFeed;
+        while ((lineFeed = indexOfLineFeed(bytes, lineStart, end)) >= 0) {
+            completeLine(bytes, lineStart, lineFeed - lineStart);
+            lineStart = lineFeed + 1;
         }
 
-        m_byteBuffer.put(bytes, offset, Math.min(m_byteBuffer.remaining(), len));
+        if (lineStart < end) {
+            appendToLine(bytes, lineStart, end - lineStart);
+        }
     }
 
     /**
-     * {@inheritDoc}
+     * @return the index of the first line feed in the given range, or -1 if there is none.
      */
-    @Override
-    public void flush() {
+    static int indexOfLineFeed(final byte[] bytes, final int from, final int to) {
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            // sets the high bit of each byte that is a line feed (and possibly of bytes after it)
+            final long word = (long)LONG_VIEW.get(bytes, i) ^ LINE_FEEDS;
+            final long matches = (word - LOW_BITS) & ~word & HIGH_BITS;
+            if (matches != 0) {
+                return i + (Long.numberOfTrailingZeros(matches) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (bytes[i] == LINE_FEED) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void appendToLine(final byte[] bytes, final int offset, final int len) {
+        // limit the maximum line length at 4MiB, dropping bytes if necessary
+        final int acceptedLen = Math.min(len, MAX_LINE_BYTES - m_lineLength);
+        if (acceptedLen <= 0) {
+            return;
+        }
 
-        final String newContent = new String(m_byteBuffer.array(), 0, m_byteBuffer.position());
-        m_byteBuffer.clear();
-        m_buf.append(newContent);
+        if (m_lineLength + acceptedLen > m_lineBuffer.length) {
+            final int newSize = Math.min(MAX_LINE_BYTES, Math.max(m_lineLength + acceptedLen, 2 * m_lineBuffer.length));
+            m_lineBuffer = Arrays.copyOf(m_lineBuffer, newSize);
+        }
+        System.arraycopy(bytes, offset, m_lineBuffer, m_lineLength, acceptedLen);
+        m_lineLength += acceptedLen;
+    }
 
-        int bufferPos = 0;
-        while (bufferPos < m_buf.length()) {
-            final int nextNewLinePos = m_buf.indexOf(SEPARATOR, bufferPos);
-            if (nextNewLinePos == -1) {
-                break;
+    /**
+     * Completes the current line with the given bytes (excluding the line feed) and forwards it.
+     */
+    private void completeLine(final byte[] bytes, final int offset, final int len) {
+        final String line;
+        if (m_lineLength == 0) {
+            // fast path: the whole line is in the written bytes
+            line = decode(bytes, offset, len);
+        } else {
+            appendToLine(bytes, offset, len);
+            line = decode(m_lineBuffer, 0, m_lineLength);
+            m_lineLength = 0;
+            if (m_lineBuffer.length > RETAINED_BUFFER_SIZE) {
+                m_lineBuffer = new byte[INITIAL_BUFFER_SIZE];
             }
-            final String logMessage = m_buf.substring(bufferPos, nextNewLinePos);
-            bufferPos += (nextNewLinePos - bufferPos) + SEPARATOR.length();
-            logMessage(logMessage);
         }
+        logMessage(line);
+    }
 
-        m_buf.delete(0, bufferPos);
+    private String decode(final byte[] bytes, final int offset, final int len) {
+        int lineLen = Math.min(len, MAX_LINE_BYTES);
+        // the line separator may be CRLF
+        if (lineLen > 0 && bytes[offset + lineLen - 1] == CARRIAGE_RETURN) {
+            lineLen--;
+        }
+        return lineLen == 0 ? "" : new String(bytes, offset, lineLen, m_charset);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Complete lines have already been forwarded when they were written, an incomplete line stays buffered until it is
+     * completed by a line separator.
+     */
+    @Override
+    public void flush() {
+        // nothing to do, lines are forwarded as soon as they are complete
     }
 
     /**
@@ -193,4 +275,4 @@ private void logMessage(final String msg) {
             m_forwarders.get(i).forwardMessage(msg);
         }
     }
-}
\ No newline at end of file
+}
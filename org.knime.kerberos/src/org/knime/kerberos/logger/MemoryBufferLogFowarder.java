@@ -48,16 +48,26 @@
  */
 package org.knime.kerberos.logger;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import org.knime.kerberos.config.PrefKey;
+
 /**
- * {@link LogForwarder} implementation that appends log messages to an in-memory list of Strings that can be retrieved.
- * This log forwarder implementation prepends a timestamp to each log message.
+ * {@link LogForwarder} implementation that appends log messages to an in-memory ring buffer that can be retrieved.
+ * This log forwarder implementation prepends a timestamp to each log message. Once the buffer has reached its
+ * capacity, the oldest messages are dropped. Timestamps are only formatted when the messages are retrieved.
+ *
+ * <p>
+ * This class is threadsafe.
+ * </p>
  *
  * @author Bjoern Lohrmann, KNIME GmbH
  */
@@ -66,27 +76,124 @@ public class MemoryBufferLogFowarder implements LogForwarder {
     private static final DateTimeFormatter DATETIME_FORMATTER =
         new DateTimeFormatterBuilder().appendPattern("yyyy-MM-dd HH:mm:ss").toFormatter();
 
-    private final ArrayList<String> m_lineBuffer = new ArrayList<>();
+    private static final int INITIAL_ARRAY_SIZE = 256;
+
+    private int m_capacity;
+
+    /** Timestamps (epoch millis) of the buffered messages, grows up to {@link #m_capacity}. */
+    private long[] m_timestamps = new long[0];
+
+    private String[] m_messages = new String[0];
+
+    /** Index of the oldest buffered message. */
+    private int m_head;
+
+    private int m_size;
+
+    private long m_droppedLines;
 
     /**
-     * @return a list with the currently buffered log messages.
+     * Creates a new instance with the default capacity.
      */
-    public List<String> getCapturedLines() {
-        return Collections.unmodifiableList(m_lineBuffer);
+    public MemoryBufferLogFowarder() {
+        this(PrefKey.DEBUG_LOG_BUFFER_SIZE_DEFAULT);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param capacity The maximum number of buffered messages.
+     */
+    public MemoryBufferLogFowarder(final int capacity) {
+        setCapacity(capacity);
+    }
+
+    /**
+     * Sets the maximum number of buffered messages. This clears the buffered log messages, if the capacity changes.
+     *
+     * @param capacity The maximum number of buffered messages.
+     */
+    public synchronized void setCapacity(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        if (capacity != m_capacity) {
+            m_capacity = capacity;
+            m_timestamps = new long[Math.min(capacity, INITIAL_ARRAY_SIZE)];
+            m_messages = new String[m_timestamps.length];
+            clearBuffer();
+        }
+    }
+
+    /**
+     * @return a list with the currently buffered log messages, oldest first.
+     */
+    public synchronized List<String> getCapturedLines() {
+        final List<String> lines = new ArrayList<>(m_size);
+        final StringBuilder sb = new StringBuilder();
+        final ZoneId zone = ZoneId.systemDefault();
+        for (int i = 0; i < m_size; i++) {
+            final int index = (m_head + i) % m_messages.length;
+            sb.setLength(0);
+            DATETIME_FORMATTER.formatTo(LocalDateTime.ofInstant(Instant.ofEpochMilli(m_timestamps[index]), zone), sb);
+            lines.add(sb.append("  ").append(m_messages[index]).toString());
+        }
+        return Collections.unmodifiableList(lines);
+    }
+
+    /**
+     * @return the number of log messages that have been dropped since the buffer was last cleared, because the buffer
+     *         was full.
+     */
+    public synchronized long getDroppedLineCount() {
+        return m_droppedLines;
     }
 
     /**
      * Clears the buffered log messages.
      */
-    public void clearBuffer() {
-        m_lineBuffer.clear();
+    public synchronized void clearBuffer() {
+        Arrays.fill(m_messages, null);
+        m_head = 0;
+        m_size = 0;
+        m_droppedLines = 0;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void forwardMessage(final String msg) {
-        m_lineBuffer.add(String.format("%s  %s", DATETIME_FORMATTER.format(LocalDateTime.now()), msg));
+    public synchronized void forwardMessage(final String msg) {
+        final long timestamp = System.currentTimeMillis();
+        if (m_size == m_messages.length && m_size < m_capacity) {
+            grow();
+        }
+
+        if (m_size < m_messages.length) {
+            final int index = (m_head + m_size) % m_messages.length;
+            m_timestamps[index] = timestamp;
+            m_messages[index] = msg;
+            m_size++;
+        } else {
+            // overwrite the oldest message
+            m_timestamps[m_head] = timestamp;
+            m_messages[m_head] = msg;
+            m_head = (m_head + 1) % m_messages.length;
+            m_droppedLines++;
+        }
+    }
+
+    private void grow() {
+        final int newLength = (int)Math.min(m_capacity, 2L * m_messages.length);
+        final long[] timestamps = new long[newLength];
+        final String[] messages = new String[newLength];
+        for (int i = 0; i < m_size; i++) {
+            final int index = (m_head + i) % m_messages.length;
+            timestamps[i] = m_timestamps[index];
+            messages[i] = m_messages[index];
+        }
+        m_timestamps = timestamps;
+        m_messages = messages;
+        m_head = 0;
     }
 }
@@ -0,0 +1,255 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * System.out replacement that only captures the output of some threads. Output from threads that have been marked
+ * with {@link #markCurrentThread()} (or from all threads, if so configured) goes to a capture stream, whereas the
+ * output from all other threads is passed straight to the original System.out. The common print methods take the
+ * fast path for uncaptured threads before any encoding or locking of this stream happens. All other methods are
+ * routed on the byte level.
+ *
+ * @author KNIME GmbH
+ */
+final class ThreadScopedPrintStream extends PrintStream {
+
+    private static final ThreadLocal<Boolean> CAPTURED_THREAD = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final PrintStream m_original;
+
+    private volatile boolean m_captureAllThreads;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param original The original System.out, which receives the output of uncaptured threads.
+     * @param capture The stream that receives the output of captured threads.
+     * @param captureAllThreads Whether to capture the output of all threads.
+     */
+    ThreadScopedPrintStream(final PrintStream original, final OutputStream capture, final boolean captureAllThreads) {
+        super(new RoutingOutputStream(original, capture), true);
+        m_original = original;
+        m_captureAllThreads = captureAllThreads;
+        ((RoutingOutputStream)out).m_owner = this;
+    }
+
+    /**
+     * Marks the current thread as a thread that performs Kerberos operations, whose output is always captured.
+     *
+     * @return whether the current thread has been marked before, see {@link #resetCurrentThread(boolean)}.
+     */
+    static boolean markCurrentThread() {
+        final boolean wasMarked = isCurrentThreadMarked();
+        CAPTURED_THREAD.set(Boolean.TRUE);
+        return wasMarked;
+    }
+
+    /**
+     * Resets the mark of the current thread to the state before {@link #markCurrentThread()}.
+     *
+     * @param wasMarked The value returned by {@link #markCurrentThread()}.
+     */
+    static void resetCurrentThread(final boolean wasMarked) {
+        if (!wasMarked) {
+            CAPTURED_THREAD.remove();
+        }
+    }
+
+    /**
+     * @return whether the current thread has been marked with {@link #markCurrentThread()}.
+     */
+    static boolean isCurrentThreadMarked() {
+        return CAPTURED_THREAD.get().booleanValue();
+    }
+
+    /**
+     * @param captureAllThreads Whether to capture the output of all threads.
+     */
+    void setCaptureAllThreads(final boolean captureAllThreads) {
+        m_captureAllThreads = captureAllThreads;
+    }
+
+    private boolean isCaptured() {
+        return m_captureAllThreads || isCurrentThreadMarked();
+    }
+
+    @Override
+    public void print(final String s) {
+        if (isCaptured()) {
+            super.print(s);
+        } else {
+            m_original.print(s);
+        }
+    }
+
+    @Override
+    public void print(final Object obj) {
+        if (isCaptured()) {
+            super.print(obj);
+        } else {
+            m_original.print(obj);
+        }
+    }
+
+    @Override
+    public void println() {
+        if (isCaptured()) {
+            super.println();
+        } else {
+            m_original.println();
+        }
+    }
+
+    @Override
+    public void println(final String x) {
+        if (isCaptured()) {
+            super.println(x);
+        } else {
+            m_original.println(x);
+        }
+    }
+
+    @Override
+    public void println(final Object x) {
+        if (isCaptured()) {
+            super.println(x);
+        } else {
+            m_original.println(x);
+        }
+    }
+
+    @Override
+    public PrintStream format(final String format, final Object... args) {
+        if (isCaptured()) {
+            return super.format(format, args);
+        }
+        m_original.format(format, args);
+        return this;
+    }
+
+    @Override
+    public PrintStream format(final Locale l, final String format, final Object... args) {
+        if (isCaptured()) {
+            return super.format(l, format, args);
+        }
+        m_original.format(l, format, args);
+        return this;
+    }
+
+    @Override
+    public void write(final int b) {
+        if (isCaptured()) {
+            super.write(b);
+        } else {
+            m_original.write(b);
+        }
+    }
+
+    @Override
+    public void write(final byte[] buf, final int off, final int len) {
+        if (isCaptured()) {
+            super.write(buf, off, len);
+        } else {
+            m_original.write(buf, off, len);
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (isCaptured()) {
+            super.flush();
+        } else {
+            m_original.flush();
+        }
+    }
+
+    /**
+     * Routes the bytes of all methods without a fast path to the stream of the current thread. Closing it only
+     * closes the capture stream, never the original System.out.
+     */
+    private static final class RoutingOutputStream extends OutputStream {
+
+        private final PrintStream m_original;
+
+        private final OutputStream m_capture;
+
+        private ThreadScopedPrintStream m_owner;
+
+        RoutingOutputStream(final PrintStream original, final OutputStream capture) {
+            m_original = original;
+            m_capture = capture;
+        }
+
+        private OutputStream target() {
+            return m_owner.isCaptured() ? m_capture : m_original;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            target().write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            target().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target().flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            m_capture.close();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.metrics;
+
+import java.time.Instant;
+
+import org.knime.kerberos.api.KerberosMetricsSnapshot;
+
+/**
+ * Registry of the metrics of the Kerberos subsystem. The metrics are recorded without locking where the respective
+ * work is done, and can be pulled as an immutable {@link KerberosMetricsSnapshot} at any time, see
+ * {@link org.knime.kerberos.api.KerberosProvider#getMetricsSnapshot()}.
+ *
+ * @author KNIME GmbH
+ */
+public final class KerberosMetrics {
+
+    /** Logins, including the ones that renew an expired login. */
+    public static final OperationMetrics LOGINS = new OperationMetrics();
+
+    /** Scheduled renewals of the current login. */
+    public static final OperationMetrics RENEWALS = new OperationMetrics();
+
+    /** Checks whether the ticket cache has changed. */
+    public static final OperationMetrics TICKET_CACHE_CHECKS = new OperationMetrics();
+
+    /** S4U2Self requests that could not be served from the cache. */
+    public static final OperationMetrics S4U2SELF_REQUESTS = new OperationMetrics();
+
+    /** S4U2Proxy requests that could not be served from the cache. */
+    public static final OperationMetrics S4U2PROXY_REQUESTS = new OperationMetrics();
+
+    /** Lookups of S4U2Self tickets in the cache. */
+    public static final CacheMetrics S4U2SELF_CACHE = new CacheMetrics();
+
+    /** Lookups of S4U2Proxy tickets in the cache. */
+    public static final CacheMetrics S4U2PROXY_CACHE = new CacheMetrics();
+
+    /** Time that tasks wait for the Kerberos worker thread after they have become due. */
+    public static final LatencyHistogram EXECUTOR_WAIT_TIME = new LatencyHistogram();
+
+    /** Executions of Kerberos callbacks, including the authentication that precedes them. */
+    public static final OperationMetrics CALLBACKS = new OperationMetrics();
+
+    /** Time that Kerberos callbacks wait for a thread to execute them. */
+    public static final LatencyHistogram CALLBACK_WAIT_TIME = new LatencyHistogram();
+
+    private KerberosMetrics() {
+        // utility class
+    }
+
+    /**
+     * Takes a snapshot of all metrics.
+     *
+     * @param executorQueueDepth The number of due tasks waiting for the Kerberos worker thread.
+     * @param callbackQueueDepth The number of callbacks waiting for a thread of the callback pool.
+     * @return an immutable snapshot of all metrics.
+     */
+    public static KerberosMetricsSnapshot snapshot(final int executorQueueDepth, final int callbackQueueDepth) {
+        return new KerberosMetricsSnapshot(Instant.now(), //
+            LOGINS.snapshot(), //
+            RENEWALS.snapshot(), //
+            TICKET_CACHE_CHECKS.snapshot(), //
+            S4U2SELF_REQUESTS.snapshot(), //
+            S4U2PROXY_REQUESTS.snapshot(), //
+            S4U2SELF_CACHE.snapshot(), //
+            S4U2PROXY_CACHE.snapshot(), //
+            executorQueueDepth, //
+            EXECUTOR_WAIT_TIME.snapshot(), //
+            CALLBACKS.snapshot(), //
+            callbackQueueDepth, //
+            CALLBACK_WAIT_TIME.snapshot());
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.knime.kerberos.api.KerberosMetricsSnapshot.LatencySnapshot;
+
+/**
+ * Histogram of latencies in nanoseconds, which can be recorded from arbitrary threads without locking. Similar to
+ * HdrHistogram, the values are counted in log-linear buckets: each power of two is divided into
+ * {@link #SUB_BUCKET_COUNT} equally sized buckets, hence the percentiles derived from the histogram have a relative
+ * error of at most 1/{@value #SUB_BUCKET_COUNT}, while the memory footprint is constant.
+ *
+ * <p>
+ * A {@link #snapshot() snapshot} that is taken while values are being recorded may not contain all of them, but never
+ * blocks the recording threads.
+ * </p>
+ *
+ * @author KNIME GmbH
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /** Number of buckets per power of two. */
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** Enough buckets to hold any positive long value. */
+    static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray m_counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final LongAdder m_sum = new LongAdder();
+
+    private final LongAccumulator m_min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+    private final LongAccumulator m_max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    /**
+     * Records the given latency.
+     *
+     * @param nanos The latency in nanoseconds, negative values are recorded as zero.
+     */
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        m_counts.getAndIncrement(bucketIndex(value));
+        m_sum.add(value);
+        m_min.accumulate(value);
+        m_max.accumulate(value);
+    }
+
+    /**
+     * Records the time that has elapsed since the given start time.
+     *
+     * @param startNanos The start time as returned by {@link System#nanoTime()}.
+     */
+    public void recordSince(final long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return an immutable snapshot of the recorded latencies.
+     */
+    public LatencySnapshot snapshot() {
+        final long[] counts = new long[BUCKET_COUNT];
+        long totalCount = 0;
+        for (var i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = m_counts.get(i);
+            totalCount += counts[i];
+        }
+        if (totalCount == 0) {
+            return LatencySnapshot.EMPTY;
+        }
+
+        final long min = m_min.get();
+        final long max = m_max.get();
+        return new LatencySnapshot(totalCount, //
+            Duration.ofNanos(min), //
+            Duration.ofNanos(m_sum.sum() / totalCount), //
+            Duration.ofNanos(percentile(counts, totalCount, 0.5, min, max)), //
+            Duration.ofNanos(percentile(counts, totalCount, 0.9, min, max)), //
+            Duration.ofNanos(percentile(counts, totalCount, 0.99, min, max)), //
+            Duration.ofNanos(max));
+    }
+
+    /**
+     * @return the highest value that is counted in the same bucket as the value at the given percentile, limited to
+     *         the recorded minimum and maximum.
+     */
+    private static long percentile(final long[] counts, final long totalCount, final double percentile,
+        final long min, final long max) {
+        final long rank = Math.max(1, (long)Math.ceil(percentile * totalCount));
+        long seen = 0;
+        for (var i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, bucketUpperBound(i)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return the index of the bucket that counts the given non-negative value.
+     */
+    static int bucketIndex(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int)value;
+        }
+        // the position of the highest bit selects the power of two, the following bits select the sub bucket
+        final int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int shift = magnitude - SUB_BUCKET_BITS;
+        final var subBucket = (int)(value >>> shift) - SUB_BUCKET_COUNT;
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * @return the highest value that is counted in the bucket with the given index.
+     */
+    static long bucketUpperBound(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKET_COUNT - 1;
+        final long subBucket = SUB_BUCKET_COUNT + (index % SUB_BUCKET_COUNT);
+        // for the highest bucket, the shift overflows to Long.MIN_VALUE, hence this yields Long.MAX_VALUE
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.kerberos.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.knime.kerberos.api.KerberosMetricsSnapshot.OperationSnapshot;
+
+/**
+ * Counts the executions of an operation, e.g. a login, and records their latencies in a {@link LatencyHistogram}.
+ *
+ * @author KNIME GmbH
+ */
+public final class OperationMetrics {
+
+    private final LatencyHistogram m_latency = new LatencyHistogram();
+
+    private final LongAdder m_failures = new LongAdder();
+
+    /**
+     * Records an execution of the operation.
+     *
+     * @param startNanos The start time of the execution as returned by {@link System#nanoTime()}.
+     * @param success Whether the execution has succeeded.
+     */
+    public void record(final long startNanos, final boolean success) {
+        m_latency.recordSince(startNanos);
+        if (!success) {
+            m_failures.increment();
+        }
+    }
+
+    /**
+     * @return an immutable snapshot of the recorded executions.
+     */
+    public OperationSnapshot snapshot() {
+        // take the latencies first, so that there are never more failures than executions
+        final var latency = m_latency.snapshot();
+        return new OperationSnapshot(latency.count(), Math.min(latency.count(), m_failures.sum()), latency);
+    }
+}